@@ -0,0 +1,70 @@
+package de.codecentric.reedelk.csv.component;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic data sets for the benchmarks: the same parameters
+ * always generate the same data, so results are comparable across releases.
+ */
+class BenchmarkData {
+
+    static final int COLUMNS = 10;
+
+    private static final long SEED = 20200622L;
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ";
+    private static final String[] NEEDS_QUOTING = { ",", "\"", "\n", ";", "\t" };
+
+    private BenchmarkData() {
+    }
+
+    static List<String> headers() {
+        List<String> headers = new ArrayList<>(COLUMNS);
+        for (int i = 0; i < COLUMNS; i++) {
+            headers.add("Header " + i);
+        }
+        return headers;
+    }
+
+    /**
+     * @param quotingDensity the fraction of the values containing a character which must be quoted or escaped.
+     */
+    static List<List<String>> rows(int rows, int columnWidth, double quotingDensity) {
+        Random random = new Random(SEED);
+        List<List<String>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            List<String> row = new ArrayList<>(COLUMNS);
+            for (int j = 0; j < COLUMNS; j++) {
+                row.add(value(random, columnWidth, quotingDensity));
+            }
+            data.add(row);
+        }
+        return data;
+    }
+
+    static String csv(CSVFormat format, boolean withHeader, List<List<String>> rows) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (CSVPrinter printer = new CSVPrinter(writer, format)) {
+            if (withHeader) printer.printRecord(headers());
+            printer.printRecords(rows);
+        }
+        return writer.toString();
+    }
+
+    private static String value(Random random, int width, double quotingDensity) {
+        StringBuilder value = new StringBuilder(width);
+        for (int i = 0; i < width; i++) {
+            value.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        if (width > 0 && random.nextDouble() < quotingDensity) {
+            value.setCharAt(random.nextInt(width), NEEDS_QUOTING[random.nextInt(NEEDS_QUOTING.length)].charAt(0));
+        }
+        return value.toString();
+    }
+}
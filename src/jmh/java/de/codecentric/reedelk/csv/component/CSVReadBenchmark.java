@@ -0,0 +1,116 @@
+package de.codecentric.reedelk.csv.component;
+
+import de.codecentric.reedelk.runtime.api.converter.ConverterService;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class CSVReadBenchmark {
+
+    @Param({ "1000", "100000" })
+    int rows;
+
+    @Param({ "8", "64" })
+    int columnWidth;
+
+    @Param({ "0.0", "0.2" })
+    double quotingDensity;
+
+    @Param
+    Format format;
+
+    @Param({ "true", "false" })
+    boolean firstRecordAsHeader;
+
+    @Param
+    Engine engine;
+
+    private FlowContext context;
+    private Path file;
+
+    private CSVRead readFromPayload;
+    private Message payloadInput;
+
+    private CSVRead readFromFile;
+    private Message fileInput;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String csv = BenchmarkData.csv(format.format(), firstRecordAsHeader,
+                BenchmarkData.rows(rows, columnWidth, quotingDensity));
+
+        context = mock(FlowContext.class, withSettings().stubOnly());
+
+        readFromPayload = csvRead();
+        readFromPayload.initialize();
+        payloadInput = MessageBuilder.get(CSVReadBenchmark.class)
+                .withString(csv, MimeType.TEXT_PLAIN)
+                .build();
+
+        file = Files.createTempFile("csv-read-benchmark", ".csv");
+        Files.write(file, csv.getBytes(UTF_8));
+
+        DynamicString dynamicFile = DynamicString.from(file.toString());
+        readFromFile = csvRead();
+        readFromFile.setFile(dynamicFile);
+        readFromFile.setCharset(UTF_8.name());
+        readFromFile.initialize();
+        fileInput = MessageBuilder.get(CSVReadBenchmark.class)
+                .empty()
+                .build();
+        doReturn(Optional.of(file.toString()))
+                .when(readFromFile.scriptService)
+                .evaluate(dynamicFile, context, fileInput);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        readFromPayload.dispose();
+        readFromFile.dispose();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Message fromPayload() {
+        return readFromPayload.apply(context, payloadInput);
+    }
+
+    @Benchmark
+    public Message fromFile() {
+        return readFromFile.apply(context, fileInput);
+    }
+
+    private CSVRead csvRead() {
+        CSVRead csvRead = new CSVRead();
+        csvRead.setFormat(format);
+        csvRead.setEngine(engine);
+        csvRead.setFirstRecordAsHeader(firstRecordAsHeader);
+        // Stub only mocks do not record the invocations of the measured calls, which would fill the heap.
+        csvRead.converter = mock(ConverterService.class, withSettings().stubOnly());
+        csvRead.scriptService = mock(ScriptEngineService.class, withSettings().stubOnly());
+        doAnswer(invocation -> invocation.getArgument(0))
+                .when(csvRead.converter)
+                .convert(any(Object.class), any(Class.class));
+        return csvRead;
+    }
+}
@@ -0,0 +1,111 @@
+package de.codecentric.reedelk.csv.component;
+
+import de.codecentric.reedelk.csv.internal.type.CSVRecord;
+import de.codecentric.reedelk.csv.internal.type.CSVTable;
+import de.codecentric.reedelk.runtime.api.converter.ConverterService;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Compares reading numeric columns as strings and converting them afterwards, as a
+ * downstream script does, with reading them through a schema into a columnar table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class CSVReadTypedBenchmark {
+
+    @Param({ "100000" })
+    int rows;
+
+    @Param
+    Engine engine;
+
+    private FlowContext context;
+    private Message input;
+    private CSVRead readRecords;
+    private CSVRead readTable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(20200622L);
+        StringBuilder csv = new StringBuilder("id,amount,quantity,date\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(i).append(',')
+                    .append(random.nextInt(1_000_000) / 100.0).append(',')
+                    .append(random.nextInt(1000)).append(',')
+                    .append(LocalDate.ofEpochDay(17_000 + random.nextInt(3000))).append('\n');
+        }
+
+        context = mock(FlowContext.class, withSettings().stubOnly());
+        input = MessageBuilder.get(CSVReadTypedBenchmark.class)
+                .withString(csv.toString(), MimeType.TEXT_PLAIN)
+                .build();
+
+        readRecords = csvRead();
+        readRecords.initialize();
+
+        readTable = csvRead();
+        Map<String, String> schema = new HashMap<>();
+        schema.put("id", "INT");
+        schema.put("amount", "DOUBLE");
+        schema.put("quantity", "LONG");
+        schema.put("date", "DATE");
+        readTable.setSchema(schema);
+        readTable.initialize();
+    }
+
+    @Benchmark
+    public double recordsConvertedAfterwards() {
+        List<CSVRecord> records = readRecords.apply(context, input).payload();
+        double total = 0;
+        for (CSVRecord record : records) {
+            total += Integer.parseInt(record.get("id"))
+                    + Double.parseDouble(record.get("amount")) * Long.parseLong(record.get("quantity"))
+                    + LocalDate.parse(record.get("date")).toEpochDay();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double tableWithSchema() {
+        CSVTable table = readTable.apply(context, input).payload();
+        double total = 0;
+        for (int row = 0; row < table.size(); row++) {
+            total += table.getInt(row, 0)
+                    + table.getDouble(row, 1) * table.getLong(row, 2)
+                    + table.getDate(row, 3).toEpochDay();
+        }
+        return total;
+    }
+
+    private CSVRead csvRead() {
+        CSVRead csvRead = new CSVRead();
+        csvRead.setEngine(engine);
+        csvRead.setFirstRecordAsHeader(true);
+        // Stub only mocks do not record the invocations of the measured calls, which would fill the heap.
+        csvRead.converter = mock(ConverterService.class, withSettings().stubOnly());
+        csvRead.scriptService = mock(ScriptEngineService.class, withSettings().stubOnly());
+        doAnswer(invocation -> invocation.getArgument(0))
+                .when(csvRead.converter)
+                .convert(any(Object.class), any(Class.class));
+        return csvRead;
+    }
+}
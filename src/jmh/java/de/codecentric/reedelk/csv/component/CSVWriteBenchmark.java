@@ -0,0 +1,127 @@
+package de.codecentric.reedelk.csv.component;
+
+import de.codecentric.reedelk.runtime.api.converter.ConverterService;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class CSVWriteBenchmark {
+
+    @Param({ "1000", "100000" })
+    int rows;
+
+    @Param({ "8", "64" })
+    int columnWidth;
+
+    @Param({ "0.0", "0.2" })
+    double quotingDensity;
+
+    @Param
+    Format format;
+
+    @Param({ "LISTS", "MAPS", "SINGLE_VALUES" })
+    String payload;
+
+    private FlowContext context;
+    private Path file;
+    private Message input;
+
+    private CSVWrite writeToPayload;
+    private CSVWrite writeToFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<List<String>> data = BenchmarkData.rows(rows, columnWidth, quotingDensity);
+        input = input(data);
+
+        context = mock(FlowContext.class, withSettings().stubOnly());
+
+        writeToPayload = csvWrite();
+        writeToPayload.initialize();
+
+        file = Files.createTempFile("csv-write-benchmark", ".csv");
+        DynamicString dynamicFile = DynamicString.from(file.toString());
+        writeToFile = csvWrite();
+        writeToFile.setFile(dynamicFile);
+        writeToFile.initialize();
+        doReturn(Optional.of(file.toString()))
+                .when(writeToFile.scriptService)
+                .evaluate(dynamicFile, context, input);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        writeToPayload.dispose();
+        writeToFile.dispose();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Message toPayload() {
+        return writeToPayload.apply(context, input);
+    }
+
+    @Benchmark
+    public Message toFile() {
+        return writeToFile.apply(context, input);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Message input(List<List<String>> data) {
+        MessageBuilder builder = MessageBuilder.get(CSVWriteBenchmark.class);
+        switch (payload) {
+            case "LISTS":
+                return builder.withList(data, List.class).build();
+            case "MAPS":
+                List<Map> maps = new ArrayList<>(data.size());
+                List<String> headers = BenchmarkData.headers();
+                for (List<String> row : data) {
+                    Map<String, String> map = new LinkedHashMap<>();
+                    for (int i = 0; i < headers.size(); i++) {
+                        map.put(headers.get(i), row.get(i));
+                    }
+                    maps.add(map);
+                }
+                return builder.withList(maps, Map.class).build();
+            case "SINGLE_VALUES":
+                List<String> values = new ArrayList<>(data.size());
+                for (List<String> row : data) {
+                    values.add(row.get(0));
+                }
+                return builder.withList(values, String.class).build();
+            default:
+                throw new IllegalArgumentException("Unknown payload: " + payload);
+        }
+    }
+
+    private CSVWrite csvWrite() {
+        CSVWrite csvWrite = new CSVWrite();
+        csvWrite.setFormat(format);
+        if ("MAPS".equals(payload)) {
+            csvWrite.setIncludeHeaders(true);
+            csvWrite.setHeaders(BenchmarkData.headers());
+        }
+        // Stub only mocks do not record the invocations of the measured calls, which would fill the heap.
+        csvWrite.converter = mock(ConverterService.class, withSettings().stubOnly());
+        csvWrite.scriptService = mock(ScriptEngineService.class, withSettings().stubOnly());
+        return csvWrite;
+    }
+}
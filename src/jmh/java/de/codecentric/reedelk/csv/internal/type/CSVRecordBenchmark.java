@@ -0,0 +1,93 @@
+package de.codecentric.reedelk.csv.internal.type;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accesses to the records returned by a CSV read, as scripts and converters do. Run it with
+ * the GC profiler (-prof gc): iterating the keys and entries of a record should not allocate,
+ * gc.alloc.rate.norm only accounts for the value strings, created by the row when accessed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class CSVRecordBenchmark {
+
+    private static final int RECORDS = 1000;
+
+    @Param({ "10", "50" })
+    int columns;
+
+    private CSVRecord[] records;
+    private CSVRecord.Column lastColumn;
+    private String lastColumnName;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> names = new ArrayList<>();
+        for (int column = 0; column < columns; column++) {
+            names.add("column " + column);
+        }
+        CSVRecord.Header header = CSVRecord.Header.of(names);
+        records = new CSVRecord[RECORDS];
+        for (int record = 0; record < RECORDS; record++) {
+            CSVRow.Builder row = CSVRow.builder();
+            for (int column = 0; column < columns; column++) {
+                row.add("value " + record + " " + column);
+            }
+            records[record] = new CSVRecord(header, row.build());
+        }
+        lastColumnName = names.get(columns - 1);
+        lastColumn = header.column(lastColumnName);
+    }
+
+    @Benchmark
+    public void iterateKeys(Blackhole blackhole) {
+        for (CSVRecord record : records) {
+            for (String key : record.keySet()) {
+                blackhole.consume(key);
+            }
+        }
+    }
+
+    @Benchmark
+    public void iterateEntryKeys(Blackhole blackhole) {
+        for (CSVRecord record : records) {
+            for (Map.Entry<String, String> entry : record.entrySet()) {
+                blackhole.consume(entry.getKey());
+            }
+        }
+    }
+
+    @Benchmark
+    public void iterateEntries(Blackhole blackhole) {
+        for (CSVRecord record : records) {
+            for (Map.Entry<String, String> entry : record.entrySet()) {
+                blackhole.consume(entry.getKey());
+                blackhole.consume(entry.getValue());
+            }
+        }
+    }
+
+    @Benchmark
+    public void getByName(Blackhole blackhole) {
+        for (CSVRecord record : records) {
+            blackhole.consume(record.get(lastColumnName));
+        }
+    }
+
+    @Benchmark
+    public void getByColumn(Blackhole blackhole) {
+        for (CSVRecord record : records) {
+            blackhole.consume(record.value(lastColumn));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package de.codecentric.reedelk.csv.internal.type;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the heap retained by each row of a CSV read, for the row layouts before and after the compact
+ * CSVRow: the heap used after a full GC is compared before and after the rows are created, while they are
+ * still referenced. The values are random strings of 3 to 6 chars, as in the sample files. Run it with
+ * the serial collector, for stable figures, after compiling the benchmarks (mvn -P benchmarks test-compile):
+ *
+ * java -XX:+UseSerialGC -Xmx3g -cp [classpath] de.codecentric.reedelk.csv.internal.type.RowFootprint [rows]
+ */
+public class RowFootprint {
+
+    private static final int[] COLUMNS = { 10, 40 };
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        System.out.printf("%s, %d rows%n", System.getProperty("java.vm.version"), rows);
+        System.out.printf("%-8s %-30s %12s %12s%n", "columns", "layout", "bytes/row", "estimated");
+        for (int columns : COLUMNS) {
+            String[][] values = values(rows, columns);
+            List<String> names = new ArrayList<>();
+            for (int column = 0; column < columns; column++) {
+                names.add("column " + column);
+            }
+            CSVRecord.Header header = CSVRecord.Header.of(names);
+
+            print(columns, "ArrayList<String>", measure(rows, row -> {
+                List<String> list = new ArrayList<>();
+                for (String value : values[row]) list.add(new String(value.toCharArray()));
+                return list;
+            }), 0);
+            print(columns, "HashMap<String, String>", measure(rows, row -> {
+                Map<String, String> map = new HashMap<>();
+                for (int column = 0; column < columns; column++) map.put(names.get(column), new String(values[row][column].toCharArray()));
+                return map;
+            }), 0);
+            print(columns, "CSVRow", measure(rows, row -> row(values[row])),
+                    row(values[0]).estimatedSize());
+            print(columns, "CSVRecord", measure(rows, row -> new CSVRecord(header, row(values[row]))),
+                    new CSVRecord(header, row(values[0])).estimatedSize());
+        }
+    }
+
+    private static CSVRow row(String[] values) {
+        CSVRow.Builder builder = CSVRow.builder();
+        for (String value : values) builder.add(value);
+        return builder.build();
+    }
+
+    // The rows are kept in an array allocated before the first measurement: its size is not counted.
+    private static double measure(int rows, IntFunction<Object> factory) {
+        Object[] retained = new Object[rows];
+        long before = usedAfterGC();
+        for (int row = 0; row < rows; row++) {
+            retained[row] = factory.apply(row);
+        }
+        long after = usedAfterGC();
+        if (retained[rows - 1] == null) throw new IllegalStateException();
+        return (after - before) / (double) rows;
+    }
+
+    private static long usedAfterGC() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String[][] values(int rows, int columns) {
+        Random random = new Random(42);
+        String[][] values = new String[rows][columns];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                char[] value = new char[3 + random.nextInt(4)];
+                for (int i = 0; i < value.length; i++) value[i] = (char) ('a' + random.nextInt(26));
+                values[row][column] = new String(value);
+            }
+        }
+        return values;
+    }
+
+    private static void print(int columns, String layout, double bytesPerRow, long estimated) {
+        System.out.printf("%-8d %-30s %12.1f %12s%n", columns, layout, bytesPerRow, estimated == 0 ? "-" : String.valueOf(estimated));
+    }
+}
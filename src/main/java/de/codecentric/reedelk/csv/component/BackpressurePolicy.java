@@ -0,0 +1,16 @@
+package de.codecentric.reedelk.csv.component;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+public enum BackpressurePolicy {
+
+    @DisplayName("Block until there is space")
+    BLOCK,
+
+    @DisplayName("Fail")
+    FAIL,
+
+    @DisplayName("Drop")
+    DROP
+
+}
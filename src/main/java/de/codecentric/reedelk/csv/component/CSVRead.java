@@ -1,46 +1,81 @@
 package de.codecentric.reedelk.csv.component;
 
-import de.codecentric.reedelk.csv.internal.CSVFormatBuilder;
 import de.codecentric.reedelk.csv.internal.attribute.CSVAttributes;
 import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.metrics.CSVMetrics;
+import de.codecentric.reedelk.csv.internal.metrics.Measurement;
+import de.codecentric.reedelk.csv.internal.read.CSVParserEngine;
+import de.codecentric.reedelk.csv.internal.read.CSVReadConfiguration;
+import de.codecentric.reedelk.csv.internal.read.CachedRead;
+import de.codecentric.reedelk.csv.internal.read.CSVParserToTable;
 import de.codecentric.reedelk.csv.internal.read.CSVParserWithHeader;
 import de.codecentric.reedelk.csv.internal.read.CSVParserWithoutHeader;
+import de.codecentric.reedelk.csv.internal.read.CSVSchema;
+import de.codecentric.reedelk.csv.internal.read.ColumnProjection;
+import de.codecentric.reedelk.csv.internal.read.IncrementalRead;
+import de.codecentric.reedelk.csv.internal.read.MultiFileRead;
+import de.codecentric.reedelk.csv.internal.read.PagedRead;
+import de.codecentric.reedelk.csv.internal.read.ParallelCSVParser;
+import de.codecentric.reedelk.csv.internal.read.PublisherInputStream;
+import de.codecentric.reedelk.csv.internal.read.RowFilter;
+import de.codecentric.reedelk.csv.internal.type.CSVBatch;
 import de.codecentric.reedelk.csv.internal.type.CSVRecord;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.csv.internal.type.CSVTable;
 import de.codecentric.reedelk.csv.internal.type.ListOfCSVRecord;
+import de.codecentric.reedelk.csv.internal.type.ListOfCSVRow;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
 import de.codecentric.reedelk.runtime.api.annotation.*;
 import de.codecentric.reedelk.runtime.api.commons.DynamicValueUtils;
 import de.codecentric.reedelk.runtime.api.component.ProcessorSync;
 import de.codecentric.reedelk.runtime.api.converter.ConverterService;
 import de.codecentric.reedelk.runtime.api.flow.FlowContext;
 import de.codecentric.reedelk.runtime.api.message.Message;
-import de.codecentric.reedelk.runtime.api.message.MessageAttributes;
 import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.TypedContent;
 import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicBoolean;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicLong;
 import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
-import de.codecentric.reedelk.runtime.api.type.ListOfListOfString;
-import de.codecentric.reedelk.runtime.api.type.ListOfString;
 import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.commons.Utils;
 import org.apache.commons.csv.CSVFormat;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ServiceScope;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
 
-import java.io.FileReader;
+import javax.management.InstanceAlreadyExistsException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+import static java.util.Collections.singletonList;
 
 
 @ModuleComponent("CSV Read")
 @ComponentOutput(
         attributes = CSVAttributes.class,
-        payload = { ListOfCSVRecord.class, ListOfListOfString.class },
-        description = "List of CSV records containing the data read from the file system or payload.")
+        payload = { ListOfCSVRecord.class, ListOfCSVRow.class, CSVTable.class, CSVBatch.class },
+        description = "List of CSV records containing the data read from the file system or payload. " +
+                "If streaming is enabled, a stream of CSV records parsed on demand. " +
+                "If a batch size is given, a stream of batches of CSV records parsed on demand. " +
+                "If a schema is given, a columnar table of typed values.")
 @ComponentInput(
-        payload = String.class,
-        description = "The CSV data to be parsed. If the input is not a string it will be converted to a string before parsing it into a list of CSV records.")
+        payload = { String.class, byte[].class },
+        description = "The CSV data to be parsed. A binary payload, or a stream of binary chunks, is decoded with the given charset " +
+                "while it is parsed. If the input is neither a string nor binary it will be converted to a string before parsing it into a list of CSV records.")
 @Description("The CSV Read component can read a CSV file from the file system " +
         "or from the message payload data. There are several supported CSV formats such as " +
         "Excel, MongoDB and MySQL. The component allows to configure the data delimiter " +
@@ -55,6 +90,14 @@ public class CSVRead implements ProcessorSync {
     @Description("Sets the CSV format of the file to be read.")
     private Format format;
 
+    @Property("Parser engine")
+    @DefaultValue("COMMONS")
+    @Example("FAST")
+    @Description("The engine used to parse the CSV data. The Commons CSV engine is the reference implementation, " +
+            "the Fast engine produces the same records tokenizing the data directly from the read buffer, " +
+            "without creating intermediate objects for each record.")
+    private Engine engine;
+
     @Property("CSV Input file")
     @Hint("/var/files/csv/my-csv-file.csv")
     @Description("File to read the CSV data from")
@@ -80,77 +123,659 @@ public class CSVRead implements ProcessorSync {
             "Data header names can be used to retrieve data from the output data structure.")
     private Boolean firstRecordAsHeader;
 
+    @Property("Columns")
+    @TabGroup("Columns")
+    @Description("The columns to be read, given as header names or zero based column indexes. " +
+            "The values of the other columns are skipped while parsing. The selected columns are returned " +
+            "in the order they appear in the CSV data. If empty, all the columns are read.")
+    private List<String> columns;
+
+    @Property("Filter column")
+    @Hint("status")
+    @Example("3")
+    @TabGroup("Filter")
+    @Description("The column, given as header name or zero based column index, whose value must match " +
+            "the filter value for a row to be returned. The values are compared while parsing, " +
+            "rows not matching are discarded before they are created. If columns are selected, " +
+            "the filter column must be one of them. If empty, rows are not filtered by column value.")
+    private String filterColumn;
+
+    @Property("Filter operator")
+    @DefaultValue("EQUALS")
+    @Example("STARTS_WITH")
+    @TabGroup("Filter")
+    @Description("The operator used to compare the value of the filter column with the filter value.")
+    private FilterOperator filterOperator;
+
+    @Property("Filter value")
+    @Hint("ACTIVE")
+    @Example("ACTIVE")
+    @TabGroup("Filter")
+    @Description("The value the filter column is compared with. If empty, the empty string is used.")
+    private String filterValue;
+
+    @Property("Filter expression")
+    @Hint("#[message.payload().get('amount').toInteger() > 100]")
+    @Example("#[message.payload().get(2) != 'N/A']")
+    @TabGroup("Filter")
+    @Description("A script expression evaluated for each row, the row is returned only if the result is true. " +
+            "The message payload is the CSV record, or the CSV row if the first record is not a header. " +
+            "It is evaluated after the filter column, if any. Prefer the filter column when possible: " +
+            "the expression requires the row to be created before it is evaluated.")
+    private DynamicBoolean filterExpression;
+
+    @Property("Schema")
+    @TabGroup("Schema")
+    @Example("amount=DOUBLE")
+    @Description("The type of each column, given as header name or zero based column index. Supported types are " +
+            "INT, LONG, DOUBLE, BOOLEAN, DATE and STRING. If not empty, the output is a columnar table: values are " +
+            "converted while parsing and numeric columns are stored as primitive arrays, which is faster and " +
+            "retains much less memory than a list of records. Each row of the table can still be accessed as a map " +
+            "of typed values by column name. Columns not in the schema are strings. " +
+            "It can not be used together with streaming or parallel.")
+    private Map<String, String> schema;
+
+    @Property("Date format")
+    @Hint("yyyy-MM-dd")
+    @Example("dd/MM/yyyy")
+    @DefaultValue("yyyy-MM-dd")
+    @TabGroup("Schema")
+    @Description("The pattern of the values of the DATE columns of the schema.")
+    private String dateFormat;
+
+    @Property("Deduplicate values")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true equal values of the same column share a single string instance, which reduces " +
+            "the memory retained by large reads of columns having few distinct values, e.g. country or status. " +
+            "The cache of a column is bounded and it is turned off if the column has too many distinct values. " +
+            "The hit ratio of each column is returned in the message attributes, unless streaming is enabled.")
+    private Boolean deduplicate;
+
+    @Property("Deduplication max values")
+    @Hint("1024")
+    @Example("4096")
+    @DefaultValue("1024")
+    @Description("The maximum number of distinct values cached for each column.")
+    @When(propertyName = "deduplicate", propertyValue = "true")
+    private Integer deduplicationMaxValues;
+
+    @Property("Keep raw records")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true each record keeps its text as it was in the CSV data, so that a CSV Write with raw records " +
+            "writes the records which were not modified as they were read. It requires the first record as header and " +
+            "it can not be used together with columns, parallel read, incremental read, row offset and limit or a schema.")
+    private Boolean keepRawRecords;
+
+    @Property("Streaming")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true the output is a stream of CSV records instead of a list. " +
+            "Records are parsed only when requested by the downstream components, " +
+            "therefore large files can be processed without loading them into memory.")
+    private Boolean streaming;
+
+    @Property("Batch size")
+    @Hint("1000")
+    @Example("1000")
+    @Description("If not empty, the output is a stream of batches of at most the given number of CSV records " +
+            "instead of a single list. The data is parsed only when the next batch is requested, therefore " +
+            "the memory used is bounded by the batch size and not by the size of the data. The attributes of " +
+            "each batch contain its zero based index and the range of the records it contains. " +
+            "It can not be used together with parallel or a schema.")
+    private Integer batchSize;
+
+    @Property("Charset")
+    @Hint("UTF-8")
+    @Example("ISO-8859-1")
+    @Description("The charset used to decode the CSV input file or a binary input payload. " +
+            "If empty, the system default charset is used.")
+    private String charset;
+
+    @Property("Compression")
+    @DefaultValue("AUTO")
+    @Example("GZIP")
+    @Description("The compression of the CSV input file, which is decompressed while it is parsed. " +
+            "If auto detect, GZIP and ZIP files are recognized by their content, deflate (zlib) files by their " +
+            ".deflate or .zz extension. A ZIP file is read from its first file entry. " +
+            "Compressed files are never parsed in parallel.")
+    private Compression compression;
+
+    @Property("Read buffer size")
+    @Hint("65536")
+    @Example("1048576")
+    @DefaultValue("65536")
+    @Description("The size in bytes of the buffer used to read ahead the CSV input file. " +
+            "Files bigger than 64 MB are memory mapped instead.")
+    private Integer readBufferSize;
+
+    @Property("Parallel")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true a CSV input file is split into chunks which are parsed in parallel. " +
+            "The records are returned in the same order as they appear in the file. " +
+            "The number of chunks and the achieved speedup are returned in the message attributes. " +
+            "It can not be used together with streaming.")
+    private Boolean parallel;
+
+    @Property("Parallelism")
+    @Hint("8")
+    @Example("16")
+    @Description("The number of threads used to parse the chunks of the CSV input file. " +
+            "If empty, the number of available processors is used.")
+    @When(propertyName = "parallel", propertyValue = "true")
+    private Integer parallelism;
+
+    @Property("Incremental")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true only the records appended to the CSV input file since the previous read are returned, " +
+            "e.g. to follow a file which is continuously appended to. The position right after the last complete record " +
+            "read and the header of each file are saved in a checkpoint, before the records are returned; a record still " +
+            "being written is returned by the next read, once it is complete. If the file is truncated or replaced by " +
+            "another one (e.g. rotated), it is read from the beginning again. The byte range read is returned in the " +
+            "message attributes. It can not be used together with streaming, batch size, parallel or a schema, " +
+            "nor with compressed files.")
+    private Boolean incremental;
+
+    @Property("Checkpoint directory")
+    @Hint("/var/lib/reedelk/csv-checkpoints")
+    @Example("/var/lib/reedelk/csv-checkpoints")
+    @Description("The directory where the checkpoints of the files read incrementally are stored. It is required: " +
+            "it must survive restarts, otherwise the files are read from the beginning again, e.g. it must not be the " +
+            "system temporary directory.")
+    @When(propertyName = "incremental", propertyValue = "true")
+    private String checkpointDirectory;
+
+    @Property("Row offset")
+    @Hint("2000000")
+    @Example("#[message.attributes().queryParams.offset[0]]")
+    @TabGroup("Pagination")
+    @Description("The number of records of the CSV input file to be skipped before the returned ones, " +
+            "the header record excluded. If the rows are filtered, the offset counts the rows accepted by the filter. " +
+            "The records skipped are parsed but never created. If empty, no records are skipped.")
+    private DynamicLong rowOffset;
+
+    @Property("Row limit")
+    @Hint("100")
+    @Example("#[message.attributes().queryParams.limit[0]]")
+    @TabGroup("Pagination")
+    @Description("The maximum number of records of the CSV input file to be returned: the file is parsed only " +
+            "until the last record returned. If empty, all the records following the offset are returned. " +
+            "Row offset and limit can not be used together with streaming, batch size, parallel, incremental read or a schema.")
+    private DynamicLong rowLimit;
+
+    @Property("Row index")
+    @Example("true")
+    @DefaultValue("false")
+    @TabGroup("Pagination")
+    @Description("If true, the first time a CSV input file is read with a row offset or limit, a row index holding the position " +
+            "of a record every row index interval records is built and stored. The file is then parsed from the indexed record " +
+            "nearest to the row offset instead of from the beginning. The index is rebuilt whenever the size or the last modified " +
+            "time of the file change. It is not used if the rows are filtered nor for compressed files.")
+    private Boolean rowIndex;
+
+    @Property("Row index interval")
+    @Hint("10000")
+    @Example("1000")
+    @DefaultValue("10000")
+    @TabGroup("Pagination")
+    @Description("The number of records between the records of the row index: at most as many records are parsed before the first returned one.")
+    @When(propertyName = "rowIndex", propertyValue = "true")
+    private Integer rowIndexInterval;
+
+    @Property("Row index directory")
+    @Hint("/var/cache/reedelk/csv-row-indexes")
+    @Example("/var/cache/reedelk/csv-row-indexes")
+    @TabGroup("Pagination")
+    @Description("The directory where the row indexes are stored. If empty, the row index of each file is stored " +
+            "next to the file, in a file having the same name and the .rowindex extension.")
+    @When(propertyName = "rowIndex", propertyValue = "true")
+    private String rowIndexDirectory;
+
+    @Property("Parse cache")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true the records parsed from the CSV input file are kept in a cache shared by all the CSV Read components " +
+            "and they are returned again, without parsing the file, as long as its size and last modified time do not change. " +
+            "The cached records are shared by the messages returning them: they are read only. The hits and misses of the cache " +
+            "are exposed over JMX with object name de.codecentric.reedelk.csv:type=ParseCache. " +
+            "It can not be used together with streaming, batch size, incremental read, row offset and limit or a filter expression.")
+    private Boolean parseCache;
+
+    @Property("Parse cache max size")
+    @Hint("64")
+    @Example("256")
+    @DefaultValue("64")
+    @Description("The maximum estimated heap size in megabytes of the cached records, after which the least recently used " +
+            "files are evicted. The cache is shared: its maximum size is the largest one of the components using it.")
+    @When(propertyName = "parseCache", propertyValue = "true")
+    private Integer parseCacheMaxSize;
+
+    @Property("Multiple files")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true the CSV input file is a directory, whose files are all read except the hidden ones, or a glob " +
+            "pattern matching the files to be read, e.g. /var/feeds/orders-*.csv or /var/feeds/**/*.csv. The row indexes and " +
+            "checkpoints stored next to the files are never read, and a directory which does not exist is an error. The files are parsed concurrently " +
+            "and their records are returned in the order of the file paths: all together, with the name and the number of " +
+            "records of each file in the message attributes, or, if streaming, as a stream of batches, each one holding " +
+            "the records of a file and having its name in the batch attributes. All the files must have the header of " +
+            "the first one. It can not be used together with batch size, parallel read, incremental read, row offset and limit, " +
+            "schema, parse cache or keep raw records.")
+    private Boolean multipleFiles;
+
+    @Property("Files parallelism")
+    @Hint("4")
+    @Example("8")
+    @Description("The maximum number of files parsed concurrently. If empty, the number of available processors is used.")
+    @When(propertyName = "multipleFiles", propertyValue = "true")
+    private Integer filesParallelism;
+
+    @Property("Metrics")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true the rows and bytes read, the latency of each message and the time spent in file I/O, " +
+            "tokenization, payload conversion and message building are recorded and exposed over JMX with object name " +
+            "de.codecentric.reedelk.csv:type=CSVRead,name=[metrics name]. If false nothing is measured.")
+    private Boolean metrics;
+
+    @Property("Metrics name")
+    @Hint("orders-import")
+    @Example("orders-import")
+    @Description("The name of the metrics of this component. If empty, a name such as CSVRead-1 is generated.")
+    @When(propertyName = "metrics", propertyValue = "true")
+    private String metricsName;
+
     @Reference
     ConverterService converter;
     @Reference
     ScriptEngineService scriptService;
 
-    private CSVFormat csvFormat;
+    private CSVReadConfiguration configuration;
+    private RowFilter columnFilter;
+    private CSVSchema csvSchema;
+    private int actualBatchSize;
+    private ForkJoinPool parallelPool;
+    private MultiFileRead multiFileRead;
+    private IncrementalRead incrementalRead;
+    private PagedRead pagedRead;
+    private CachedRead cachedRead;
+    private CSVMetrics csvMetrics;
 
     @Override
     public void initialize() {
-        csvFormat = CSVFormatBuilder.get()
-                .firstRecordAsHeader(firstRecordAsHeader)
-                .delimiter(delimiter)
-                .format(format)
-                .trim(trim)
-                .build();
+        configuration = CSVReadConfiguration.of(CSVRead.class, format, delimiter, firstRecordAsHeader, trim, engine, columns,
+                charset, readBufferSize, compression, deduplicate, deduplicationMaxValues);
+
+        columnFilter = RowFilter.NONE;
+        if (!Utils.isBlank(filterColumn)) {
+            requireTrue(CSVRead.class, Utils.isTrue(firstRecordAsHeader) || ColumnProjection.of(singletonList(filterColumn)).isIndexesOnly(),
+                    "filter column must be given as column index when the first record is not a header");
+            columnFilter = RowFilter.where(filterColumn,
+                    Optional.ofNullable(filterOperator).orElse(FilterOperator.EQUALS), filterValue);
+        }
+
+        if (schema != null && !schema.isEmpty()) {
+            requireTrue(CSVRead.class, !Utils.isTrue(streaming), "schema can not be used together with streaming");
+            requireTrue(CSVRead.class, !Utils.isTrue(parallel), "schema can not be used together with parallel read");
+            for (Map.Entry<String, String> entry : schema.entrySet()) {
+                requireTrue(CSVRead.class, CSVSchema.isSupportedType(entry.getValue()),
+                        "schema type [" + entry.getValue() + "] of column [" + entry.getKey() + "] is not supported");
+            }
+            String actualDateFormat = Utils.isBlank(dateFormat) ? CSVSchema.DEFAULT_DATE_FORMAT : dateFormat;
+            requireTrue(CSVRead.class, Utils.isValidDatePattern(actualDateFormat),
+                    "date format [" + actualDateFormat + "] is not valid");
+            csvSchema = CSVSchema.of(schema, actualDateFormat);
+            requireTrue(CSVRead.class, Utils.isTrue(firstRecordAsHeader) || csvSchema.isIndexesOnly(),
+                    "schema columns must be given as column indexes when the first record is not a header");
+        }
+
+        actualBatchSize = Optional.ofNullable(batchSize).orElse(0);
+        if (batchSize != null) {
+            requireTrue(CSVRead.class, actualBatchSize > 0, "batch size must be greater than zero");
+            requireTrue(CSVRead.class, !Utils.isTrue(parallel), "batch size can not be used together with parallel read");
+            requireTrue(CSVRead.class, csvSchema == null, "batch size can not be used together with schema");
+        }
+
+        if (Utils.isTrue(parallel)) {
+            requireTrue(CSVRead.class, !Utils.isTrue(streaming), "parallel read can not be used together with streaming");
+            int actualParallelism = Optional.ofNullable(parallelism).orElse(Runtime.getRuntime().availableProcessors());
+            requireTrue(CSVRead.class, actualParallelism > 0, "parallelism must be greater than zero");
+            parallelPool = new ForkJoinPool(actualParallelism);
+        }
+
+        if (Utils.isTrue(incremental)) {
+            requireTrue(CSVRead.class, DynamicValueUtils.isNotNullOrBlank(file), "incremental read requires a CSV input file");
+            requireTrue(CSVRead.class, !isStreamed(), "incremental read can not be used together with streaming or batch size");
+            requireTrue(CSVRead.class, !Utils.isTrue(parallel), "incremental read can not be used together with parallel read");
+            requireTrue(CSVRead.class, csvSchema == null, "incremental read can not be used together with schema");
+            incrementalRead = IncrementalRead.of(CSVRead.class, configuration, checkpointDirectory);
+        }
+
+        boolean paged = DynamicValueUtils.isNotNullOrBlank(rowOffset) || DynamicValueUtils.isNotNullOrBlank(rowLimit);
+        requireTrue(CSVRead.class, paged || !Utils.isTrue(rowIndex), "row index requires a row offset or a row limit");
+        if (paged) {
+            requireTrue(CSVRead.class, DynamicValueUtils.isNotNullOrBlank(file), "row offset and limit require a CSV input file");
+            requireTrue(CSVRead.class, !isStreamed(), "row offset and limit can not be used together with streaming or batch size");
+            requireTrue(CSVRead.class, !Utils.isTrue(parallel), "row offset and limit can not be used together with parallel read");
+            requireTrue(CSVRead.class, !Utils.isTrue(incremental), "row offset and limit can not be used together with incremental read");
+            requireTrue(CSVRead.class, csvSchema == null, "row offset and limit can not be used together with schema");
+            pagedRead = PagedRead.of(CSVRead.class, configuration, Utils.isTrue(rowIndex), rowIndexInterval, rowIndexDirectory);
+        }
+
+        if (Utils.isTrue(keepRawRecords)) {
+            requireTrue(CSVRead.class, Utils.isTrue(firstRecordAsHeader), "keep raw records requires the first record as header");
+            requireTrue(CSVRead.class, configuration.projection().isAll(), "keep raw records can not be used together with columns");
+            requireTrue(CSVRead.class, !Utils.isTrue(parallel), "keep raw records can not be used together with parallel read");
+            requireTrue(CSVRead.class, !Utils.isTrue(incremental), "keep raw records can not be used together with incremental read");
+            requireTrue(CSVRead.class, pagedRead == null, "keep raw records can not be used together with row offset and limit");
+            requireTrue(CSVRead.class, csvSchema == null, "keep raw records can not be used together with schema");
+        }
+
+        if (Utils.isTrue(parseCache)) {
+            requireTrue(CSVRead.class, DynamicValueUtils.isNotNullOrBlank(file), "parse cache requires a CSV input file");
+            requireTrue(CSVRead.class, !isStreamed(), "parse cache can not be used together with streaming or batch size");
+            requireTrue(CSVRead.class, !Utils.isTrue(incremental), "parse cache can not be used together with incremental read");
+            requireTrue(CSVRead.class, pagedRead == null, "parse cache can not be used together with row offset and limit");
+            requireTrue(CSVRead.class, DynamicValueUtils.isNullOrBlank(filterExpression),
+                    "parse cache can not be used together with a filter expression");
+            cachedRead = CachedRead.of(CSVRead.class, configuration, parseCacheMaxSize, parseKey());
+        }
+
+        if (Utils.isTrue(multipleFiles)) {
+            requireTrue(CSVRead.class, DynamicValueUtils.isNotNullOrBlank(file), "multiple files require a CSV input file");
+            requireTrue(CSVRead.class, actualBatchSize == 0, "multiple files can not be used together with batch size");
+            requireTrue(CSVRead.class, !Utils.isTrue(parallel), "multiple files can not be used together with parallel read");
+            requireTrue(CSVRead.class, !Utils.isTrue(incremental), "multiple files can not be used together with incremental read");
+            requireTrue(CSVRead.class, pagedRead == null, "multiple files can not be used together with row offset and limit");
+            requireTrue(CSVRead.class, csvSchema == null, "multiple files can not be used together with schema");
+            requireTrue(CSVRead.class, !Utils.isTrue(parseCache), "multiple files can not be used together with parse cache");
+            requireTrue(CSVRead.class, !Utils.isTrue(keepRawRecords), "multiple files can not be used together with keep raw records");
+            multiFileRead = MultiFileRead.of(CSVRead.class, configuration, filesParallelism, Utils.isTrue(streaming));
+        }
+
+        if (Utils.isTrue(metrics)) {
+            String actualMetricsName = Utils.isBlank(metricsName) ? CSVMetrics.nextName(CSVRead.class) : metricsName;
+            try {
+                csvMetrics = CSVMetrics.register(CSVRead.class, actualMetricsName);
+            } catch (InstanceAlreadyExistsException exception) {
+                requireTrue(CSVRead.class, false,
+                        "metrics name [" + actualMetricsName + "] is already used by another component");
+            }
+        }
+
+        if (cachedRead != null) cachedRead.acquire();
+    }
+
+    @Override
+    public void dispose() {
+        if (parallelPool != null) {
+            parallelPool.shutdownNow();
+            parallelPool = null;
+        }
+        if (multiFileRead != null) {
+            multiFileRead.dispose();
+            multiFileRead = null;
+        }
+        if (csvMetrics != null) {
+            csvMetrics.unregister();
+            csvMetrics = null;
+        }
+        if (cachedRead != null) {
+            cachedRead.dispose();
+            cachedRead = null;
+        }
     }
 
     @Override
     public Message apply(FlowContext flowContext, Message message) {
-        if (DynamicValueUtils.isNotNullOrBlank(file)) {
-            String filePathAndName = scriptService.evaluate(file, flowContext, message)
-                    .orElseThrow(() -> {
-                        String error = Messages.CSVRead.FILE_PATH_EMPTY.format(file.value());
-                        throw new CSVReadException(error);
-                    });
-            return readFromFile(filePathAndName);
-        } else {
-            // We must convert the payload into a string if it is not already.
-            Object payload = message.payload();
-            String payloadAsString = converter.convert(payload, String.class);
-            return readFromMessagePayload(payloadAsString);
+        Measurement measurement = csvMetrics == null ? Measurement.NONE : csvMetrics.start();
+        try {
+            RowFilter filter = rowFilter(flowContext, message);
+            if (DynamicValueUtils.isNotNullOrBlank(file)) {
+                String filePathAndName = scriptService.evaluate(file, flowContext, message)
+                        .orElseThrow(() -> {
+                            String error = Messages.CSVRead.FILE_PATH_EMPTY.format(file.value());
+                            throw new CSVReadException(error);
+                        });
+                if (pagedRead != null) {
+                    long offset = scriptService.evaluate(rowOffset, flowContext, message).orElse(0L);
+                    long limit = scriptService.evaluate(rowLimit, flowContext, message).orElse(Long.MAX_VALUE);
+                    return pagedRead.read(filePathAndName, offset, limit, filter, measurement);
+                }
+                return readFromFile(filePathAndName, filter, measurement);
+            } else if (isBinary(message.content())) {
+                return readFromBinaryPayload(message.content(), filter, measurement);
+            } else {
+                // We must convert the payload into a string if it is not already.
+                long conversion = measurement.time();
+                Object payload = message.payload();
+                String payloadAsString = converter.convert(payload, String.class);
+                measurement.conversion(conversion);
+                return readFromMessagePayload(payloadAsString, filter, measurement);
+            }
+        } catch (RuntimeException exception) {
+            measurement.failed();
+            measurement.end();
+            throw exception;
         }
     }
 
-    private Message readFromMessagePayload(String payloadAsString) {
-        MessageAttributes attributes = new CSVAttributes();
+    private Message readFromMessagePayload(String payloadAsString, RowFilter filter, Measurement measurement) {
+        CSVAttributes attributes = new CSVAttributes();
+        measurement.bytes(payloadAsString.length());
+        if (isStreamed()) {
+            return stream(attributes, () -> new StringReader(payloadAsString),
+                    Messages.CSVRead.PAYLOAD_READ_ERROR::format, filter, measurement);
+        }
         try (Reader input = new StringReader(payloadAsString)) {
-            return parse(attributes, input);
+            return parse(attributes, input, filter, measurement);
         } catch (IOException exception) {
             String error = Messages.CSVRead.PAYLOAD_READ_ERROR.format(exception.getMessage());
             throw new CSVReadException(error, exception);
         }
     }
 
-    private Message readFromFile(String filePathAndName) {
-        MessageAttributes attributes = new CSVAttributes(filePathAndName);
-        try (Reader input = new FileReader(filePathAndName)) {
-            return parse(attributes, input);
+    // Binary payloads are decoded while they are parsed, without converting them into a string first.
+    private Message readFromBinaryPayload(TypedContent<?, ?> content, RowFilter filter, Measurement measurement) {
+        CSVAttributes attributes = new CSVAttributes();
+        if (isStreamed()) {
+            return stream(attributes, () -> openBinary(content, measurement),
+                    Messages.CSVRead.PAYLOAD_READ_ERROR::format, filter, measurement);
+        }
+        try (Reader input = openBinary(content, measurement)) {
+            return parse(attributes, input, filter, measurement);
+        } catch (IOException exception) {
+            String error = Messages.CSVRead.PAYLOAD_READ_ERROR.format(exception.getMessage());
+            throw new CSVReadException(error, exception);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Reader openBinary(TypedContent<?, ?> content, Measurement measurement) {
+        if (content.isStream()) {
+            // The byte arrays are requested as they are decoded: the stream is never collected.
+            Flux<byte[]> chunks = Flux.from((Publisher<byte[]>) content.stream())
+                    .doOnNext(chunk -> measurement.bytes(chunk.length));
+            return new InputStreamReader(new PublisherInputStream(chunks), configuration.charset());
+        }
+        byte[] bytes = Optional.ofNullable((byte[]) content.data()).orElse(new byte[0]);
+        measurement.bytes(bytes.length);
+        return new InputStreamReader(new ByteArrayInputStream(bytes), configuration.charset());
+    }
+
+    private static boolean isBinary(TypedContent<?, ?> content) {
+        return content.isStream() ?
+                content.streamType() == byte[].class :
+                content.data() instanceof byte[];
+    }
+
+    private Message readFromFile(String filePathAndName, RowFilter filter, Measurement measurement) {
+        if (multiFileRead != null) return multiFileRead.read(filePathAndName, filter, measurement);
+        if (incrementalRead != null) return incrementalRead.read(filePathAndName, filter, measurement);
+        if (cachedRead != null) return cachedRead.read(filePathAndName, measurement, file -> parseFile(file, filter, measurement));
+        return parseFile(filePathAndName, filter, measurement);
+    }
+
+    private Message parseFile(String filePathAndName, RowFilter filter, Measurement measurement) {
+        CSVAttributes attributes = new CSVAttributes(filePathAndName);
+        measurement.file(Paths.get(filePathAndName));
+        if (isStreamed()) {
+            return stream(attributes, () -> measurement.reader(configuration.openFile(filePathAndName)),
+                    cause -> Messages.CSVRead.FILE_READ_ERROR.format(filePathAndName, cause), filter, measurement);
+        }
+        if (parallelPool != null && !configuration.isCompressed(filePathAndName)) {
+            StringDeduplicator deduplicator = configuration.newDeduplicator();
+            ParallelCSVParser parser = new ParallelCSVParser(parallelPool, configuration.engine(), configuration.csvFormat(),
+                    configuration.projection(), filter, deduplicator, configuration.charset(), configuration.readBufferSize());
+            if (parser.isSplittable()) return parseInParallel(parser, deduplicator, filePathAndName, measurement);
+        }
+        try (Reader input = measurement.reader(configuration.openFile(filePathAndName))) {
+            return parse(attributes, input, filter, measurement);
         } catch (IOException exception) {
             String error = Messages.CSVRead.FILE_READ_ERROR.format(filePathAndName, exception.getMessage());
             throw new CSVReadException(error, exception);
         }
     }
 
-    private Message parse(MessageAttributes attributes, Reader input) {
-        boolean isFirstRecordHeader = Optional.ofNullable(firstRecordAsHeader).orElse(false);
-        if (isFirstRecordHeader) {
-            List<CSVRecord> dataRows =
-                    CSVParserWithHeader.from(csvFormat, input);
-            return MessageBuilder.get(CSVRead.class)
-                    .withList(dataRows, CSVRecord.class)
+    // Everything in the configuration changing the records parsed from a file:
+    // the components having the same parse key share the cached records of a file.
+    private String parseKey() {
+        return String.join("|", configuration.csvFormat().toString(), configuration.charset().name(), String.valueOf(compression),
+                String.valueOf(Utils.isTrue(firstRecordAsHeader)), String.valueOf(Utils.isTrue(keepRawRecords)), String.valueOf(columns),
+                String.valueOf(filterColumn), String.valueOf(filterOperator), String.valueOf(filterValue),
+                String.valueOf(schema), String.valueOf(dateFormat));
+    }
+
+    private Message parseInParallel(ParallelCSVParser parser, StringDeduplicator deduplicator, String filePathAndName, Measurement measurement) {
+        // The chunks are read while they are parsed: the I/O time is part of the tokenization time.
+        long tokenization = measurement.time();
+        ParallelCSVParser.Result result = parser.parse(Paths.get(filePathAndName));
+        measurement.tokenization(tokenization);
+        measurement.rows(result.rows().size());
+        CSVAttributes attributes = new CSVAttributes(filePathAndName, result.chunks(), result.speedup());
+        if (deduplicator != null) attributes.deduplicationHitRatios(deduplicator.hitRatios());
+
+        long building = measurement.time();
+        return CSVReadConfiguration.end(measurement, building,
+                configuration.recordsMessage(result.headerNames(), result.rows(), attributes));
+    }
+
+    private Message parse(CSVAttributes attributes, Reader input, RowFilter filter, Measurement measurement) {
+        CSVParserEngine parserEngine = configuration.engine();
+        CSVFormat csvFormat = configuration.csvFormat();
+        ColumnProjection projection = configuration.projection();
+        StringDeduplicator deduplicator = configuration.newDeduplicator();
+        long tokenization = measurement.time();
+        if (csvSchema != null) {
+            CSVTable table =
+                    CSVParserToTable.from(parserEngine, csvFormat, projection, filter, deduplicator, csvSchema, input);
+            measurement.tokenization(tokenization);
+            measurement.rows(table.size());
+            if (deduplicator != null) attributes.deduplicationHitRatios(deduplicator.hitRatios());
+            long building = measurement.time();
+            return CSVReadConfiguration.end(measurement, building, MessageBuilder.get(CSVRead.class)
+                    .withJavaObject(table)
                     .attributes(attributes)
-                    .build();
+                    .build());
+        }
+        List<?> dataRows;
+        if (!configuration.isFirstRecordHeader()) {
+            dataRows = CSVParserWithoutHeader.from(parserEngine, csvFormat, projection, filter, deduplicator, input);
+        } else if (Utils.isTrue(keepRawRecords)) {
+            dataRows = CSVParserWithHeader.fromKeepingRaw(parserEngine, csvFormat, filter, deduplicator, input);
         } else {
-            List<ListOfString> dataRows =
-                    CSVParserWithoutHeader.from(csvFormat, input);
-            return MessageBuilder.get(CSVRead.class)
-                    .withList(dataRows, ListOfString.class)
-                    .attributes(attributes)
-                    .build();
+            dataRows = CSVParserWithHeader.from(parserEngine, csvFormat, projection, filter, deduplicator, input);
+        }
+        measurement.tokenization(tokenization);
+        measurement.rows(dataRows.size());
+        if (deduplicator != null) attributes.deduplicationHitRatios(deduplicator.hitRatios());
+        long building = measurement.time();
+        return CSVReadConfiguration.end(measurement, building, configuration.recordsMessage(dataRows, attributes));
+    }
+
+    private Message stream(CSVAttributes attributes, Callable<Reader> input, Function<String, String> error, RowFilter filter, Measurement measurement) {
+        CSVParserEngine parserEngine = configuration.engine();
+        CSVFormat csvFormat = configuration.csvFormat();
+        ColumnProjection projection = configuration.projection();
+        // The hit ratios are not known when the message is built: they are not returned for streams.
+        StringDeduplicator deduplicator = configuration.newDeduplicator();
+        Flux<?> records;
+        Class<?> recordType;
+        if (!configuration.isFirstRecordHeader()) {
+            records = CSVParserWithoutHeader.stream(parserEngine, csvFormat, projection, filter, deduplicator, input);
+            recordType = CSVRow.class;
+        } else if (Utils.isTrue(keepRawRecords)) {
+            records = CSVParserWithHeader.streamKeepingRaw(parserEngine, csvFormat, filter, deduplicator, input);
+            recordType = CSVRecord.class;
+        } else {
+            records = CSVParserWithHeader.stream(parserEngine, csvFormat, projection, filter, deduplicator, input);
+            recordType = CSVRecord.class;
         }
+        Flux<?> dataRows = measurement.stream(records
+                .onErrorMap(CSVRead::isNotCSVReadException,
+                        exception -> new CSVReadException(error.apply(exception.getMessage()), exception)));
+        long building = measurement.time();
+        Message message = actualBatchSize > 0 ?
+                batches(attributes, dataRows) :
+                MessageBuilder.get(CSVRead.class)
+                        .withStream(dataRows, recordType)
+                        .attributes(attributes)
+                        .build();
+        measurement.messageBuilding(building);
+        return message;
+    }
+
+    // Each batch is collected only when it is requested: at most one batch is held by the read.
+    private <T> Message batches(CSVAttributes attributes, Flux<T> dataRows) {
+        attributes.batchSize(actualBatchSize);
+        Flux<CSVBatch<T>> batches = dataRows.buffer(actualBatchSize)
+                .index()
+                .map(batch -> {
+                    long firstRow = batch.getT1() * actualBatchSize + 1;
+                    List<T> records = batch.getT2();
+                    return new CSVBatch<>(records, attributes.batch(batch.getT1(), firstRow, firstRow + records.size() - 1));
+                });
+        return MessageBuilder.get(CSVRead.class)
+                .withStream(batches, CSVBatch.class)
+                .attributes(attributes)
+                .build();
+    }
+
+    private boolean isStreamed() {
+        return Utils.isTrue(streaming) || actualBatchSize > 0;
+    }
+
+    // The filter expression is evaluated with the flow context and the attributes of the
+    // message being processed: the payload of the message is the record being filtered.
+    private RowFilter rowFilter(FlowContext flowContext, Message message) {
+        if (DynamicValueUtils.isNullOrBlank(filterExpression)) return columnFilter;
+        RowFilter expressionFilter = configuration.isFirstRecordHeader() ?
+                RowFilter.records(record -> matches(flowContext, message, record)) :
+                RowFilter.rows(row -> matches(flowContext, message, row));
+        return columnFilter.and(expressionFilter);
+    }
+
+    private boolean matches(FlowContext flowContext, Message message, Object row) {
+        Message rowMessage = MessageBuilder.get(CSVRead.class)
+                .withJavaObject(row)
+                .attributes(message.attributes())
+                .build();
+        return scriptService.evaluate(filterExpression, flowContext, rowMessage).orElse(false);
+    }
+
+    private static boolean isNotCSVReadException(Throwable exception) {
+        return !(exception instanceof CSVReadException);
+    }
+
+    public void setMultipleFiles(Boolean multipleFiles) {
+        this.multipleFiles = multipleFiles;
+    }
+
+    public void setFilesParallelism(Integer filesParallelism) {
+        this.filesParallelism = filesParallelism;
     }
 
     public void setFirstRecordAsHeader(Boolean firstRecordAsHeader) {
@@ -165,6 +790,10 @@ public class CSVRead implements ProcessorSync {
         this.format = format;
     }
 
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
     public void setFile(DynamicString file) {
         this.file = file;
     }
@@ -172,4 +801,116 @@ public class CSVRead implements ProcessorSync {
     public void setTrim(Boolean trim) {
         this.trim = trim;
     }
+
+    public void setColumns(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public void setFilterColumn(String filterColumn) {
+        this.filterColumn = filterColumn;
+    }
+
+    public void setFilterOperator(FilterOperator filterOperator) {
+        this.filterOperator = filterOperator;
+    }
+
+    public void setFilterValue(String filterValue) {
+        this.filterValue = filterValue;
+    }
+
+    public void setFilterExpression(DynamicBoolean filterExpression) {
+        this.filterExpression = filterExpression;
+    }
+
+    public void setSchema(Map<String, String> schema) {
+        this.schema = schema;
+    }
+
+    public void setDateFormat(String dateFormat) {
+        this.dateFormat = dateFormat;
+    }
+
+    public void setDeduplicate(Boolean deduplicate) {
+        this.deduplicate = deduplicate;
+    }
+
+    public void setDeduplicationMaxValues(Integer deduplicationMaxValues) {
+        this.deduplicationMaxValues = deduplicationMaxValues;
+    }
+
+    public void setKeepRawRecords(Boolean keepRawRecords) {
+        this.keepRawRecords = keepRawRecords;
+    }
+
+    public void setStreaming(Boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setCharset(String charset) {
+        this.charset = charset;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public void setReadBufferSize(Integer readBufferSize) {
+        this.readBufferSize = readBufferSize;
+    }
+
+    public void setParallel(Boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public void setParallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void setIncremental(Boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public void setCheckpointDirectory(String checkpointDirectory) {
+        this.checkpointDirectory = checkpointDirectory;
+    }
+
+    public void setRowOffset(DynamicLong rowOffset) {
+        this.rowOffset = rowOffset;
+    }
+
+    public void setRowLimit(DynamicLong rowLimit) {
+        this.rowLimit = rowLimit;
+    }
+
+    public void setRowIndex(Boolean rowIndex) {
+        this.rowIndex = rowIndex;
+    }
+
+    public void setRowIndexInterval(Integer rowIndexInterval) {
+        this.rowIndexInterval = rowIndexInterval;
+    }
+
+    public void setRowIndexDirectory(String rowIndexDirectory) {
+        this.rowIndexDirectory = rowIndexDirectory;
+    }
+
+    public void setParseCache(Boolean parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    public void setParseCacheMaxSize(Integer parseCacheMaxSize) {
+        this.parseCacheMaxSize = parseCacheMaxSize;
+    }
+
+    public void setMetrics(Boolean metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setMetricsName(String metricsName) {
+        this.metricsName = metricsName;
+    }
 }
@@ -1,12 +1,18 @@
 package de.codecentric.reedelk.csv.component;
 
-import de.codecentric.reedelk.csv.internal.CSVFormatBuilder;
 import de.codecentric.reedelk.csv.internal.attribute.CSVAttributes;
 import de.codecentric.reedelk.csv.internal.exception.CSVWriteException;
+import de.codecentric.reedelk.csv.internal.metrics.CSVMetrics;
+import de.codecentric.reedelk.csv.internal.metrics.Measurement;
 import de.codecentric.reedelk.csv.internal.type.ListOfListOfObject;
 import de.codecentric.reedelk.csv.internal.type.ListOfMap;
 import de.codecentric.reedelk.csv.internal.type.ListOfObject;
+import de.codecentric.reedelk.csv.internal.write.CSVWriteConfiguration;
 import de.codecentric.reedelk.csv.internal.write.CSVWriter;
+import de.codecentric.reedelk.csv.internal.write.CompressedFileWriter;
+import de.codecentric.reedelk.csv.internal.write.FileChannelWriter;
+import de.codecentric.reedelk.csv.internal.write.PartitionedCSVWriter;
+import de.codecentric.reedelk.csv.internal.write.WriterPool;
 import de.codecentric.reedelk.runtime.api.annotation.*;
 import de.codecentric.reedelk.runtime.api.commons.DynamicValueUtils;
 import de.codecentric.reedelk.runtime.api.component.ProcessorSync;
@@ -19,29 +25,36 @@ import de.codecentric.reedelk.runtime.api.message.content.MimeType;
 import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
 import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
 import de.codecentric.reedelk.csv.internal.commons.Messages;
-import org.apache.commons.csv.CSVFormat;
+import de.codecentric.reedelk.csv.internal.commons.Utils;
 import org.apache.commons.csv.CSVPrinter;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ServiceScope;
+import reactor.core.publisher.Flux;
 
-import java.io.FileWriter;
+import javax.management.InstanceAlreadyExistsException;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
 
-import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
 import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
 
 @ModuleComponent("CSV Write")
 @ComponentOutput(
         attributes = CSVAttributes.class,
         payload = { Void.class, String.class },
-        description = "The CSV data as string if the CSV output file expression was not specified, otherwise null.")
+        description = "The CSV data as string if the CSV output file expression was not specified, otherwise null. " +
+                "If the input payload is a stream, the CSV data is a stream of strings written as the input elements arrive.")
 @ComponentInput(
         payload = { ListOfListOfObject.class, ListOfMap.class, ListOfObject.class },
-        description = "The input payload is used to evaluate the CSV Output File expression.")
+        description = "The input payload is used to evaluate the CSV Output File expression. " +
+                "The payload can also be a stream of lists, maps or single values, e.g. the rows returned by a database query: " +
+                "the elements are written one at a time as they arrive, without loading the whole stream into memory.")
 @Description("The CSV Write component can write CSV data to the file system " +
         "or into the message payload data. There are several supported CSV formats such as " +
         "Excel, MongoDB and MySQL. The component allows to configure the data delimiter " +
@@ -49,6 +62,12 @@ import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.C
 @Component(service = CSVWrite.class, scope = ServiceScope.PROTOTYPE)
 public class CSVWrite implements ProcessorSync {
 
+    private static final int DEFAULT_COMPRESSION_LEVEL = 6;
+    private static final int DEFAULT_MAX_OPEN_FILES = 64;
+    private static final int DEFAULT_MAX_OPEN_PARTITIONS = 64;
+    private static final int DEFAULT_IDLE_TIMEOUT = 60000;
+    private static final int DEFAULT_FLUSH_INTERVAL = 1000;
+
     @Property("CSV Format")
     @DefaultValue("DEFAULT")
     @Example("MONGODB_CSV")
@@ -77,52 +96,276 @@ public class CSVWrite implements ProcessorSync {
     @When(propertyName = "includeHeaders", propertyValue = "true")
     private List<String> headers;
 
+    @Property("Raw records")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true the records read by a CSV Read keeping the raw records are written as they were read, " +
+            "without quoting nor escaping their values again. A modified record is a new map: it is written as usual. " +
+            "Only the records read with the same CSV format, delimiter and trimming are written as they were read and, " +
+            "if headers are included, only if their columns are the headers: the other records are written as usual.")
+    private Boolean rawRecords;
+
+    @Property("Charset")
+    @Hint("UTF-8")
+    @Example("ISO-8859-1")
+    @Description("The charset used to encode the CSV output file. If empty, the system default charset is used.")
+    private String charset;
+
+    @Property("Write buffer size")
+    @Hint("65536")
+    @Example("1048576")
+    @DefaultValue("65536")
+    @Description("The size in chars of the buffer used to collect the CSV data before it is encoded and written to the output file.")
+    private Integer writeBufferSize;
+
+    @Property("Direct buffer")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true the encoded CSV data is written to the output file from a direct (off heap) buffer. " +
+            "It might improve the throughput when writing large files with big write buffers. " +
+            "It is not used for compressed files.")
+    private Boolean directBuffer;
+
+    @Property("Compression")
+    @DefaultValue("AUTO")
+    @Example("GZIP")
+    @Description("The compression of the CSV output file, the data is compressed while it is written. " +
+            "If auto detect, the compression is given by the file extension: .gz, .deflate (or .zz) and .zip, " +
+            "other files are not compressed. A ZIP file has a single entry named after the file.")
+    private Compression compression;
+
+    @Property("Compression level")
+    @Hint("6")
+    @Example("9")
+    @DefaultValue("6")
+    @Description("The compression level, from 0 (no compression) to 9 (best compression). " +
+            "Lower levels are faster, higher levels produce smaller files.")
+    private Integer compressionLevel;
+
+    @Property("Append")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true the records are appended to the CSV output file, and the headers are written only if the file is new or empty. " +
+            "The files are kept open with their write buffer across messages, until they are idle for longer than the idle timeout. " +
+            "A file appended to by several components is open in one of them at a time: their records are never mixed up. " +
+            "Compressed files can not be appended to.")
+    private Boolean append;
+
+    @Property("Max open files")
+    @Hint("64")
+    @Example("256")
+    @DefaultValue("64")
+    @Description("The maximum number of CSV output files kept open. When the limit is reached, the least recently written file is closed.")
+    @When(propertyName = "append", propertyValue = "true")
+    private Integer maxOpenFiles;
+
+    @Property("Idle timeout")
+    @Hint("60000")
+    @Example("300000")
+    @DefaultValue("60000")
+    @Description("The time in milliseconds after which a CSV output file not written to is closed.")
+    @When(propertyName = "append", propertyValue = "true")
+    private Integer idleTimeout;
+
+    @Property("Flush policy")
+    @DefaultValue("MESSAGE")
+    @Example("INTERVAL")
+    @Description("When the buffered CSV data is written to the output file: after each message, only when the write buffer is full, " +
+            "or every flush interval. The data is always written when the file is closed.")
+    @When(propertyName = "append", propertyValue = "true")
+    private FlushPolicy flushPolicy;
+
+    @Property("Flush interval")
+    @Hint("1000")
+    @Example("5000")
+    @DefaultValue("1000")
+    @Description("The time in milliseconds between two writes of the buffered CSV data to the output files.")
+    @When(propertyName = "flushPolicy", propertyValue = "INTERVAL")
+    private Integer flushInterval;
+
+    @Property("Partition column")
+    @Hint("region")
+    @Example("country")
+    @TabGroup("Partitioning")
+    @Description("If not empty, each record is written into the file of the value of this column: the value is appended " +
+            "to the name of the CSV output file before its extension, e.g. orders-EU.csv, with chars other than letters, " +
+            "digits, '-' and '_' replaced by '_', and _null_ for a null value. Two values having the same file name " +
+            "regardless of case, e.g. EU and eu or a/b and a_b, fail the message. The column is a header name for map " +
+            "records and a zero based column index for list records. Each file has its own write buffer and its own " +
+            "headers. It can not be used together with append.")
+    private String partitionColumn;
+
+    @Property("Max open partitions")
+    @Hint("64")
+    @Example("256")
+    @DefaultValue("64")
+    @TabGroup("Partitioning")
+    @Description("The maximum number of partition files open at once. When the limit is reached, the file of the least " +
+            "recently written partition is closed and its next records are written into a new file, numbered as for " +
+            "max rows per file.")
+    private Integer maxOpenPartitions;
+
+    @Property("Max rows per file")
+    @Hint("1000000")
+    @Example("500000")
+    @TabGroup("Partitioning")
+    @Description("If not empty, a CSV output file is rolled over to a new one once it holds this number of records, headers " +
+            "excluded. The files are numbered from 1, the number is appended to the name of the CSV output file before " +
+            "its extension, e.g. orders-00001.csv. It can not be used together with append.")
+    private Integer maxRowsPerFile;
+
+    @Property("Max file size")
+    @Hint("128")
+    @Example("1024")
+    @TabGroup("Partitioning")
+    @Description("If not empty, a CSV output file is rolled over to a new one once its CSV data is at least this size in " +
+            "megabytes, counted in chars before the data is encoded or compressed: a file might exceed it by one record. " +
+            "The files are numbered as for max rows per file. It can not be used together with append.")
+    private Integer maxFileSize;
+
+    @Property("Metrics")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true the rows and bytes written, the latency of each message and the time spent in file I/O, " +
+            "formatting and message building are recorded and exposed over JMX with object name " +
+            "de.codecentric.reedelk.csv:type=CSVWrite,name=[metrics name]. If false nothing is measured.")
+    private Boolean metrics;
+
+    @Property("Metrics name")
+    @Hint("orders-export")
+    @Example("orders-export")
+    @Description("The name of the metrics of this component. If empty, a name such as CSVWrite-1 is generated.")
+    @When(propertyName = "metrics", propertyValue = "true")
+    private String metricsName;
+
     @Reference
     ConverterService converter;
     @Reference
     ScriptEngineService scriptService;
 
-    private CSVFormat csvFormat;
-
-    private boolean actualIncludeHeaders;
+    private CSVWriteConfiguration configuration;
+    private int actualCompressionLevel;
+    private WriterPool writerPool;
+    private PartitionedCSVWriter partitionedWriter;
+    private CSVMetrics csvMetrics;
 
     @Override
     public void initialize() {
-        csvFormat = CSVFormatBuilder.get()
-                .delimiter(delimiter)
-                .format(format)
-                .build();
-
-        actualIncludeHeaders = Optional.ofNullable(includeHeaders).orElse(false);
-        if (actualIncludeHeaders) {
-            requireNotNull(CSVWrite.class, headers, "header list must be defined and not be empty");
-            requireTrue(CSVWrite.class, !headers.isEmpty(), "header list must not be empty");
+        configuration = CSVWriteConfiguration.of(CSVWrite.class, format, delimiter, includeHeaders, headers, rawRecords, charset, writeBufferSize);
+
+        actualCompressionLevel = Optional.ofNullable(compressionLevel).orElse(DEFAULT_COMPRESSION_LEVEL);
+        requireTrue(CSVWrite.class, actualCompressionLevel >= 0 && actualCompressionLevel <= 9,
+                "compression level must be between 0 and 9");
+
+        int actualMaxOpenFiles = Optional.ofNullable(maxOpenFiles).orElse(DEFAULT_MAX_OPEN_FILES);
+        int actualIdleTimeout = Optional.ofNullable(idleTimeout).orElse(DEFAULT_IDLE_TIMEOUT);
+        int actualFlushInterval = Optional.ofNullable(flushInterval).orElse(DEFAULT_FLUSH_INTERVAL);
+        if (Utils.isTrue(append)) {
+            requireTrue(CSVWrite.class, DynamicValueUtils.isNotNullOrBlank(file), "append requires a CSV output file");
+            requireTrue(CSVWrite.class, compression == null || compression == Compression.AUTO || compression == Compression.NONE,
+                    "append can not be used together with compression");
+            requireTrue(CSVWrite.class, actualMaxOpenFiles > 0, "max open files must be greater than zero");
+            requireTrue(CSVWrite.class, actualIdleTimeout > 0, "idle timeout must be greater than zero");
+            requireTrue(CSVWrite.class, actualFlushInterval > 0, "flush interval must be greater than zero");
+        }
+
+        if (!Utils.isBlank(partitionColumn) || maxRowsPerFile != null || maxFileSize != null) {
+            requireTrue(CSVWrite.class, DynamicValueUtils.isNotNullOrBlank(file), "partitioned write requires a CSV output file");
+            requireTrue(CSVWrite.class, !Utils.isTrue(append), "partitioned write can not be used together with append");
+            requireTrue(CSVWrite.class, maxRowsPerFile == null || maxRowsPerFile > 0, "max rows per file must be greater than zero");
+            requireTrue(CSVWrite.class, maxFileSize == null || maxFileSize > 0, "max file size must be greater than zero");
+            int actualMaxOpenPartitions = Optional.ofNullable(maxOpenPartitions).orElse(DEFAULT_MAX_OPEN_PARTITIONS);
+            requireTrue(CSVWrite.class, actualMaxOpenPartitions > 0, "max open partitions must be greater than zero");
+            long maxChars = Optional.ofNullable(maxFileSize).orElse(0) * 1024L * 1024L;
+            partitionedWriter = new PartitionedCSVWriter(configuration.csvFormat(), Utils.isBlank(partitionColumn) ? null : partitionColumn,
+                    Optional.ofNullable(maxRowsPerFile).orElse(0), maxChars, actualMaxOpenPartitions);
+        }
+
+        if (Utils.isTrue(metrics)) {
+            String actualMetricsName = Utils.isBlank(metricsName) ? CSVMetrics.nextName(CSVWrite.class) : metricsName;
+            try {
+                csvMetrics = CSVMetrics.register(CSVWrite.class, actualMetricsName);
+            } catch (InstanceAlreadyExistsException exception) {
+                requireTrue(CSVWrite.class, false,
+                        "metrics name [" + actualMetricsName + "] is already used by another component");
+            }
+        }
+
+        // Created last: its maintenance thread would keep running if the configuration was rejected afterwards.
+        if (Utils.isTrue(append)) {
+            writerPool = new WriterPool(configuration.csvFormat(), configuration.charset(), configuration.writeBufferSize(), Utils.isTrue(directBuffer),
+                    actualMaxOpenFiles, actualIdleTimeout, Optional.ofNullable(flushPolicy).orElse(FlushPolicy.MESSAGE), actualFlushInterval);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (writerPool != null) {
+            writerPool.close();
+            writerPool = null;
+        }
+        if (csvMetrics != null) {
+            csvMetrics.unregister();
+            csvMetrics = null;
         }
     }
 
     @Override
     public Message apply(FlowContext flowContext, Message message) {
-        if (DynamicValueUtils.isNotNullOrBlank(file)) {
-            String filePathAndName =
-                    scriptService.evaluate(file, flowContext, message).orElseThrow(() -> {
-                        String error = Messages.CSVWrite.FILE_PATH_EMPTY.format(file.value());
-                        throw new CSVWriteException(error);
-                    });
-            return writeToFile(message, filePathAndName);
-        } else {
-            return writeToMessage(message);
+        Measurement measurement = csvMetrics == null ? Measurement.NONE : csvMetrics.start();
+        try {
+            if (DynamicValueUtils.isNotNullOrBlank(file)) {
+                String filePathAndName =
+                        scriptService.evaluate(file, flowContext, message).orElseThrow(() -> {
+                            String error = Messages.CSVWrite.FILE_PATH_EMPTY.format(file.value());
+                            throw new CSVWriteException(error);
+                        });
+                if (partitionedWriter != null) {
+                    return writePartitioned(message, filePathAndName, measurement);
+                }
+                if (writerPool != null) {
+                    return appendToFile(message, filePathAndName, measurement);
+                }
+                return writeToFile(message, filePathAndName, measurement);
+            } else {
+                return writeToMessage(message, measurement);
+            }
+        } catch (RuntimeException exception) {
+            measurement.failed();
+            measurement.end();
+            throw exception;
         }
     }
 
-    private Message writeToMessage(Message message) {
+    private Message writeToMessage(Message message, Measurement measurement) {
+        if (message.content().isStream()) {
+            // The rows are the elements of the input stream, the measurement ends when the CSV stream terminates.
+            Flux<?> elements = measurement.rows(Flux.from(message.content().stream()));
+            Flux<String> csv = measurement.ending(CSVWriter.stream(elements, configuration.csvFormat(), configuration.includeHeaders(), headers, configuration.rawFormat())
+                    .onErrorMap(CSVWrite::isNotCSVWriteException, exception -> {
+                        String error = Messages.CSVWrite.PAYLOAD_WRITE_ERROR.format(exception.getMessage());
+                        return new CSVWriteException(error, exception);
+                    }));
+            long building = measurement.time();
+            Message result = MessageBuilder.get(CSVWrite.class)
+                    .withString(csv, MimeType.TEXT_CSV)
+                    .build();
+            measurement.messageBuilding(building);
+            return result;
+        }
+
         try (StringWriter writer = new StringWriter();
-             CSVPrinter csvPrinter = new CSVPrinter(writer, csvFormat)) {
+             CSVPrinter csvPrinter = new CSVPrinter(writer, configuration.csvFormat())) {
 
-            CSVWriter.write(message, csvPrinter, actualIncludeHeaders, headers);
+            long tokenization = measurement.time();
+            measurement.rows(CSVWriter.write(message, csvPrinter, configuration.includeHeaders(), headers, configuration.rawFormat()));
             String csv = writer.toString();
-            return MessageBuilder.get(CSVWrite.class)
+            measurement.tokenization(tokenization);
+            measurement.bytes(csv.length());
+            long building = measurement.time();
+            return end(measurement, building, MessageBuilder.get(CSVWrite.class)
                     .withString(csv, MimeType.TEXT_CSV)
-                    .build();
+                    .build());
 
         } catch (IOException exception) {
             String error = Messages.CSVWrite.PAYLOAD_WRITE_ERROR.format(exception.getMessage());
@@ -130,22 +373,96 @@ public class CSVWrite implements ProcessorSync {
         }
     }
 
-    private Message writeToFile(Message message, String filePathAndName) {
-        try (FileWriter writer = new FileWriter(filePathAndName);
-             CSVPrinter csvPrinter = new CSVPrinter(writer, csvFormat)) {
-            CSVWriter.write(message, csvPrinter, actualIncludeHeaders, headers);
+    private Message writeToFile(Message message, String filePathAndName, Measurement measurement) {
+        Path path = Paths.get(filePathAndName);
+        try (Writer writer = openFile(path, measurement);
+             CSVPrinter csvPrinter = new CSVPrinter(writer, configuration.csvFormat())) {
+            long tokenization = measurement.time();
+            measurement.rows(CSVWriter.write(message, csvPrinter, configuration.includeHeaders(), headers, configuration.rawFormat()));
+            measurement.tokenization(tokenization);
+        } catch (IOException exception) {
+            String error = Messages.CSVWrite.FILE_WRITE_ERROR.format(filePathAndName, exception.getMessage());
+            throw new CSVWriteException(error, exception);
+        }
+        measurement.file(path);
 
-            MessageAttributes attributes = new CSVAttributes(filePathAndName);
+        long building = measurement.time();
+        MessageAttributes attributes = new CSVAttributes(filePathAndName);
+        return end(measurement, building, MessageBuilder.get(CSVWrite.class)
+                .attributes(attributes)
+                .empty()
+                .build());
+    }
 
-            return MessageBuilder.get(CSVWrite.class)
-                    .attributes(attributes)
-                    .empty()
-                    .build();
+    // The files are kept open across messages: neither the I/O time nor the bytes written are measured.
+    private Message appendToFile(Message message, String filePathAndName, Measurement measurement) {
+        Path path = Paths.get(filePathAndName);
+        if (CompressedFileWriter.resolve(path, compression) != Compression.NONE) {
+            String error = Messages.CSVWrite.APPEND_COMPRESSED_FILE.format(filePathAndName);
+            throw new CSVWriteException(error);
+        }
+        try {
+            long tokenization = measurement.time();
+            measurement.rows(writerPool.write(path, (csvPrinter, isNew) -> {
+                // The headers are written only at the beginning of the file.
+                if (configuration.includeHeaders() && isNew) csvPrinter.printRecord(headers);
+                return CSVWriter.writeRecords(message, csvPrinter, configuration.includeHeaders(), headers, configuration.rawFormat());
+            }));
+            measurement.tokenization(tokenization);
+        } catch (IOException exception) {
+            String error = Messages.CSVWrite.FILE_WRITE_ERROR.format(filePathAndName, exception.getMessage());
+            throw new CSVWriteException(error, exception);
+        }
 
+        long building = measurement.time();
+        MessageAttributes attributes = new CSVAttributes(filePathAndName);
+        return end(measurement, building, MessageBuilder.get(CSVWrite.class)
+                .attributes(attributes)
+                .empty()
+                .build());
+    }
+
+    private Message writePartitioned(Message message, String filePathAndName, Measurement measurement) {
+        PartitionedCSVWriter.Result result;
+        try {
+            long tokenization = measurement.time();
+            result = partitionedWriter.write(message, Paths.get(filePathAndName), path -> openFile(path, measurement),
+                    configuration.includeHeaders(), headers, configuration.rawFormat());
+            measurement.tokenization(tokenization);
         } catch (IOException exception) {
-            String error = Messages.CSVWrite.FILE_WRITE_ERROR.format(exception.getMessage(), exception.getMessage());
+            String error = Messages.CSVWrite.FILE_WRITE_ERROR.format(filePathAndName, exception.getMessage());
             throw new CSVWriteException(error, exception);
         }
+        measurement.rows(result.records());
+        result.files().forEach(measurement::file);
+
+        long building = measurement.time();
+        CSVAttributes attributes = new CSVAttributes(filePathAndName);
+        attributes.files(result.fileNames(), result.fileRecords());
+        return end(measurement, building, MessageBuilder.get(CSVWrite.class)
+                .attributes(attributes)
+                .empty()
+                .build());
+    }
+
+    private Writer openFile(Path path, Measurement measurement) throws IOException {
+        Compression fileCompression = CompressedFileWriter.resolve(path, compression);
+        WritableByteChannel channel = measurement.channel(FileChannelWriter.openChannel(path));
+        if (fileCompression == Compression.NONE) {
+            return FileChannelWriter.open(channel, configuration.charset(), configuration.writeBufferSize(), Utils.isTrue(directBuffer));
+        }
+        return CompressedFileWriter.open(channel, path, fileCompression, actualCompressionLevel, configuration.charset(), configuration.writeBufferSize());
+    }
+
+    // The measurement of a stream ends when the stream terminates, see Measurement#stream.
+    private static Message end(Measurement measurement, long building, Message message) {
+        measurement.messageBuilding(building);
+        measurement.end();
+        return message;
+    }
+
+    private static boolean isNotCSVWriteException(Throwable exception) {
+        return !(exception instanceof CSVWriteException);
     }
 
     public void setIncludeHeaders(Boolean includeHeaders) {
@@ -167,4 +484,72 @@ public class CSVWrite implements ProcessorSync {
     public void setFile(DynamicString file) {
         this.file = file;
     }
+
+    public void setRawRecords(Boolean rawRecords) {
+        this.rawRecords = rawRecords;
+    }
+
+    public void setCharset(String charset) {
+        this.charset = charset;
+    }
+
+    public void setWriteBufferSize(Integer writeBufferSize) {
+        this.writeBufferSize = writeBufferSize;
+    }
+
+    public void setDirectBuffer(Boolean directBuffer) {
+        this.directBuffer = directBuffer;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public void setCompressionLevel(Integer compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public void setAppend(Boolean append) {
+        this.append = append;
+    }
+
+    public void setMaxOpenFiles(Integer maxOpenFiles) {
+        this.maxOpenFiles = maxOpenFiles;
+    }
+
+    public void setIdleTimeout(Integer idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public void setFlushPolicy(FlushPolicy flushPolicy) {
+        this.flushPolicy = flushPolicy;
+    }
+
+    public void setFlushInterval(Integer flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public void setPartitionColumn(String partitionColumn) {
+        this.partitionColumn = partitionColumn;
+    }
+
+    public void setMaxRowsPerFile(Integer maxRowsPerFile) {
+        this.maxRowsPerFile = maxRowsPerFile;
+    }
+
+    public void setMaxFileSize(Integer maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public void setMaxOpenPartitions(Integer maxOpenPartitions) {
+        this.maxOpenPartitions = maxOpenPartitions;
+    }
+
+    public void setMetrics(Boolean metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setMetricsName(String metricsName) {
+        this.metricsName = metricsName;
+    }
 }
@@ -0,0 +1,327 @@
+package de.codecentric.reedelk.csv.component;
+
+import de.codecentric.reedelk.csv.internal.attribute.CSVAttributes;
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.commons.Utils;
+import de.codecentric.reedelk.csv.internal.exception.CSVWriteException;
+import de.codecentric.reedelk.csv.internal.type.ListOfListOfObject;
+import de.codecentric.reedelk.csv.internal.type.ListOfMap;
+import de.codecentric.reedelk.csv.internal.type.ListOfObject;
+import de.codecentric.reedelk.csv.internal.write.CSVWriteConfiguration;
+import de.codecentric.reedelk.csv.internal.write.CSVWriter;
+import de.codecentric.reedelk.csv.internal.write.FileChannelWriter;
+import de.codecentric.reedelk.csv.internal.write.WriteQueue;
+import de.codecentric.reedelk.runtime.api.annotation.*;
+import de.codecentric.reedelk.runtime.api.commons.DynamicValueUtils;
+import de.codecentric.reedelk.runtime.api.component.OnResult;
+import de.codecentric.reedelk.runtime.api.component.ProcessorAsync;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.apache.commons.csv.CSVPrinter;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ServiceScope;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+
+@ModuleComponent("CSV Write Async")
+@ComponentOutput(
+        attributes = CSVAttributes.class,
+        payload = Void.class,
+        description = "Empty: the flow continues once the CSV data is written and forced to the storage device. " +
+                "If the message was dropped because the write queue was full, the attributes tell so.")
+@ComponentInput(
+        payload = { ListOfListOfObject.class, ListOfMap.class, ListOfObject.class },
+        description = "The records to be written: a list, or a stream, of lists, maps or single values. " +
+                "The input payload is also used to evaluate the CSV Output File expression.")
+@Description("The CSV Write Async component writes CSV data to the file system without blocking the flow thread: " +
+        "the messages are queued and written one at a time, in order, by a dedicated writer thread. " +
+        "The flow continues once the data is durably written. When the queue is full the flow thread waits, " +
+        "the message fails or it is dropped, as configured. Compressed files, e.g. orders.csv.gz, are not supported: " +
+        "a message to be written to one fails.")
+@Component(service = CSVWriteAsync.class, scope = ServiceScope.PROTOTYPE)
+public class CSVWriteAsync implements ProcessorAsync {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final long DISPOSE_TIMEOUT_SECONDS = 30;
+
+    @Property("CSV Format")
+    @DefaultValue("DEFAULT")
+    @Example("MONGODB_CSV")
+    @Description("Sets the CSV format of the file to be written.")
+    private Format format;
+
+    @Property("CSV Output file")
+    @Hint("/var/files/csv/my-csv-file.csv")
+    @Description("File to write the CSV data to")
+    private DynamicString file;
+
+    @Property("CSV Delimiter")
+    @Hint(",")
+    @Example(":")
+    @DefaultValue(",")
+    @Description("The delimiter used in the input data to separate the data on each row.")
+    private Character delimiter;
+
+    @Property("Include headers")
+    @DefaultValue("false")
+    @Description("If true the headers specified in the 'Headers' property are included in the first CSV row.")
+    private Boolean includeHeaders;
+
+    @Property("Headers")
+    @TabGroup("Headers")
+    @When(propertyName = "includeHeaders", propertyValue = "true")
+    private List<String> headers;
+
+    @Property("Raw records")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true the records read by a CSV Read keeping the raw records are written as they were read, " +
+            "without quoting nor escaping their values again. A modified record is a new map: it is written as usual. " +
+            "Only the records read with the same CSV format, delimiter and trimming are written as they were read and, " +
+            "if headers are included, only if their columns are the headers: the other records are written as usual.")
+    private Boolean rawRecords;
+
+    @Property("Charset")
+    @Hint("UTF-8")
+    @Example("ISO-8859-1")
+    @Description("The charset used to encode the CSV output file. If empty, the system default charset is used.")
+    private String charset;
+
+    @Property("Write buffer size")
+    @Hint("65536")
+    @Example("1048576")
+    @DefaultValue("65536")
+    @Description("The size in chars of the buffer used to collect the CSV data before it is encoded and written to the output file.")
+    private Integer writeBufferSize;
+
+    @Property("Append")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true the records are appended to the CSV output file, and the headers are written only if the file is new or empty. " +
+            "If false the file is truncated.")
+    private Boolean append;
+
+    @Property("Queue capacity")
+    @Hint("1024")
+    @Example("10000")
+    @DefaultValue("1024")
+    @Description("The maximum number of messages waiting to be written.")
+    private Integer queueCapacity;
+
+    @Property("Backpressure policy")
+    @DefaultValue("BLOCK")
+    @Example("DROP")
+    @Description("What happens to a message when the write queue is full: the flow thread waits until there is space in the queue, " +
+            "the message fails, or the message is dropped and the flow continues. The number of messages dropped so far " +
+            "is returned in the message attributes of a dropped message.")
+    private BackpressurePolicy backpressurePolicy;
+
+    @Reference
+    ScriptEngineService scriptService;
+
+    private CSVWriteConfiguration configuration;
+    private int actualQueueCapacity;
+    private BackpressurePolicy actualBackpressurePolicy;
+    private WriteQueue writeQueue;
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    @Override
+    public void initialize() {
+        requireTrue(CSVWriteAsync.class, DynamicValueUtils.isNotNullOrBlank(file), "CSV output file must be defined");
+
+        configuration = CSVWriteConfiguration.of(CSVWriteAsync.class, format, delimiter, includeHeaders, headers, rawRecords, charset, writeBufferSize);
+
+        actualQueueCapacity = Optional.ofNullable(queueCapacity).orElse(DEFAULT_QUEUE_CAPACITY);
+        requireTrue(CSVWriteAsync.class, actualQueueCapacity > 0, "queue capacity must be greater than zero");
+
+        actualBackpressurePolicy = Optional.ofNullable(backpressurePolicy).orElse(BackpressurePolicy.BLOCK);
+        writeQueue = new WriteQueue("csv-write-async", actualQueueCapacity);
+    }
+
+    /**
+     * Waits for the queued messages to be written, at most 30 seconds: the messages not written by then fail.
+     */
+    @Override
+    public void dispose() {
+        if (writeQueue == null) return;
+        try {
+            writeQueue.close(DISPOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        writeQueue = null;
+    }
+
+    @Override
+    public void apply(FlowContext flowContext, Message message, OnResult callback) {
+        String filePathAndName;
+        boolean queued;
+        try {
+            // The file is evaluated by the flow thread, with the flow context of the message.
+            filePathAndName = scriptService.evaluate(file, flowContext, message).orElseThrow(() -> {
+                String error = Messages.CSVWrite.FILE_PATH_EMPTY.format(file.value());
+                throw new CSVWriteException(error);
+            });
+            // The data is forced to the storage device before the file is closed, which a compressed stream does not allow.
+            if (Utils.compressionOf(filePathAndName) != Compression.NONE) {
+                String error = Messages.CSVWrite.ASYNC_COMPRESSED_FILE.format(filePathAndName);
+                throw new CSVWriteException(error);
+            }
+            queued = writeQueue.offer(new QueuedWrite(flowContext, message, filePathAndName, callback),
+                    actualBackpressurePolicy == BackpressurePolicy.BLOCK);
+
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            callback.onError(flowContext, new CSVWriteException(Messages.CSVWrite.QUEUE_INTERRUPTED.format(), exception));
+            return;
+        } catch (RejectedExecutionException exception) {
+            callback.onError(flowContext, new CSVWriteException(Messages.CSVWrite.QUEUE_CLOSED.format(), exception));
+            return;
+        } catch (RuntimeException exception) {
+            callback.onError(flowContext, exception);
+            return;
+        }
+
+        if (queued) return;
+
+        if (actualBackpressurePolicy == BackpressurePolicy.FAIL) {
+            String error = Messages.CSVWrite.QUEUE_FULL.format(filePathAndName, actualQueueCapacity);
+            callback.onError(flowContext, new CSVWriteException(error));
+        } else {
+            CSVAttributes attributes = new CSVAttributes(filePathAndName);
+            attributes.dropped(droppedMessages.incrementAndGet());
+            callback.onResult(flowContext, MessageBuilder.get(CSVWriteAsync.class)
+                    .attributes(attributes)
+                    .empty()
+                    .build());
+        }
+    }
+
+    // Run by the writer thread: the flow continues once the data is forced to the storage device.
+    // If the write fails, the data it wrote is discarded: the file holds only complete messages.
+    private void write(FlowContext flowContext, Message message, String filePathAndName, OnResult callback) {
+        Path path = Paths.get(filePathAndName);
+        try (FileChannel channel = Utils.isTrue(append) ?
+                FileChannelWriter.openAppendChannel(path) :
+                FileChannelWriter.openChannel(path)) {
+            // The headers are written only at the beginning of the file.
+            boolean writeHeaders = configuration.includeHeaders() && channel.size() == 0;
+            FileChannelWriter writer = FileChannelWriter.open(channel, configuration.charset(), configuration.writeBufferSize(), false);
+            writer.mark();
+            try {
+                CSVPrinter csvPrinter = new CSVPrinter(writer, configuration.csvFormat());
+                if (writeHeaders) csvPrinter.printRecord(headers);
+                CSVWriter.writeRecords(message, csvPrinter, configuration.includeHeaders(), headers, configuration.rawFormat());
+                writer.sync();
+                csvPrinter.close();
+            } catch (IOException | RuntimeException exception) {
+                resetQuietly(writer);
+                throw exception;
+            }
+
+        } catch (IOException exception) {
+            String error = Messages.CSVWrite.FILE_WRITE_ERROR.format(filePathAndName, exception.getMessage());
+            callback.onError(flowContext, new CSVWriteException(error, exception));
+            return;
+        } catch (RuntimeException exception) {
+            callback.onError(flowContext, exception);
+            return;
+        }
+
+        callback.onResult(flowContext, MessageBuilder.get(CSVWriteAsync.class)
+                .attributes(new CSVAttributes(filePathAndName))
+                .empty()
+                .build());
+    }
+
+    private static void resetQuietly(FileChannelWriter writer) {
+        try {
+            writer.reset();
+        } catch (IOException exception) {
+            // The data written might be left in the file: the error writing it is reported instead.
+        }
+    }
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public void setFile(DynamicString file) {
+        this.file = file;
+    }
+
+    public void setDelimiter(Character delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    public void setIncludeHeaders(Boolean includeHeaders) {
+        this.includeHeaders = includeHeaders;
+    }
+
+    public void setHeaders(List<String> headers) {
+        this.headers = headers;
+    }
+
+    public void setRawRecords(Boolean rawRecords) {
+        this.rawRecords = rawRecords;
+    }
+
+    public void setCharset(String charset) {
+        this.charset = charset;
+    }
+
+    public void setWriteBufferSize(Integer writeBufferSize) {
+        this.writeBufferSize = writeBufferSize;
+    }
+
+    public void setAppend(Boolean append) {
+        this.append = append;
+    }
+
+    public void setQueueCapacity(Integer queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public void setBackpressurePolicy(BackpressurePolicy backpressurePolicy) {
+        this.backpressurePolicy = backpressurePolicy;
+    }
+
+    private class QueuedWrite implements WriteQueue.Task {
+
+        private final FlowContext flowContext;
+        private final Message message;
+        private final String filePathAndName;
+        private final OnResult callback;
+
+        QueuedWrite(FlowContext flowContext, Message message, String filePathAndName, OnResult callback) {
+            this.flowContext = flowContext;
+            this.message = message;
+            this.filePathAndName = filePathAndName;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            write(flowContext, message, filePathAndName, callback);
+        }
+
+        @Override
+        public void reject() {
+            callback.onError(flowContext, new CSVWriteException(Messages.CSVWrite.QUEUE_CLOSED.format()));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package de.codecentric.reedelk.csv.component;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+public enum ColumnType {
+
+    @DisplayName("Integer")
+    INT,
+
+    @DisplayName("Long")
+    LONG,
+
+    @DisplayName("Double")
+    DOUBLE,
+
+    @DisplayName("Boolean")
+    BOOLEAN,
+
+    @DisplayName("Date")
+    DATE,
+
+    @DisplayName("String")
+    STRING
+
+}
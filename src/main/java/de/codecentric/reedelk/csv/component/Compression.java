@@ -0,0 +1,22 @@
+package de.codecentric.reedelk.csv.component;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+public enum Compression {
+
+    @DisplayName("Auto detect")
+    AUTO,
+
+    @DisplayName("None")
+    NONE,
+
+    @DisplayName("GZIP")
+    GZIP,
+
+    @DisplayName("Deflate (zlib)")
+    DEFLATE,
+
+    @DisplayName("ZIP")
+    ZIP
+
+}
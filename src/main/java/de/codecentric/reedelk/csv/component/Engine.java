@@ -0,0 +1,28 @@
+package de.codecentric.reedelk.csv.component;
+
+import de.codecentric.reedelk.csv.internal.read.CSVParserEngine;
+import de.codecentric.reedelk.csv.internal.read.CommonsCSVEngine;
+import de.codecentric.reedelk.csv.internal.read.FastCSVEngine;
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+public enum Engine {
+
+    @DisplayName("Commons CSV")
+    COMMONS {
+        @Override
+        public CSVParserEngine engine() {
+            return new CommonsCSVEngine();
+        }
+    },
+
+    @DisplayName("Fast")
+    FAST {
+        @Override
+        public CSVParserEngine engine() {
+            return new FastCSVEngine();
+        }
+    };
+
+    public abstract CSVParserEngine engine();
+
+}
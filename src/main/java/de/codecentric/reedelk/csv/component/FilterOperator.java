@@ -0,0 +1,28 @@
+package de.codecentric.reedelk.csv.component;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+public enum FilterOperator {
+
+    @DisplayName("Equals")
+    EQUALS,
+
+    @DisplayName("Not equals")
+    NOT_EQUALS,
+
+    @DisplayName("Contains")
+    CONTAINS,
+
+    @DisplayName("Starts with")
+    STARTS_WITH,
+
+    @DisplayName("Ends with")
+    ENDS_WITH,
+
+    @DisplayName("Is empty")
+    IS_EMPTY,
+
+    @DisplayName("Is not empty")
+    IS_NOT_EMPTY
+
+}
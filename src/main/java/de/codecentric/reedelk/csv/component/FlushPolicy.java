@@ -0,0 +1,16 @@
+package de.codecentric.reedelk.csv.component;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+public enum FlushPolicy {
+
+    @DisplayName("Every message")
+    MESSAGE,
+
+    @DisplayName("When the write buffer is full")
+    BUFFER_FULL,
+
+    @DisplayName("Every flush interval")
+    INTERVAL
+
+}
@@ -4,18 +4,141 @@ import de.codecentric.reedelk.runtime.api.annotation.Type;
 import de.codecentric.reedelk.runtime.api.annotation.TypeProperty;
 import de.codecentric.reedelk.runtime.api.message.MessageAttributes;
 
-import static de.codecentric.reedelk.csv.internal.attribute.CSVAttributes.FILE_NAME;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.codecentric.reedelk.csv.internal.attribute.CSVAttributes.*;
 
 @Type
 @TypeProperty(name = FILE_NAME, type = String.class)
+@TypeProperty(name = FILE_NAMES, type = List.class)
+@TypeProperty(name = FILE_RECORDS, type = List.class)
+@TypeProperty(name = PARALLEL_CHUNKS, type = int.class)
+@TypeProperty(name = PARALLEL_SPEEDUP, type = double.class)
+@TypeProperty(name = DEDUPLICATION_HIT_RATIOS, type = Map.class)
+@TypeProperty(name = BATCH_SIZE, type = int.class)
+@TypeProperty(name = BATCH_INDEX, type = long.class)
+@TypeProperty(name = BATCH_FIRST_ROW, type = long.class)
+@TypeProperty(name = BATCH_LAST_ROW, type = long.class)
+@TypeProperty(name = FROM_OFFSET, type = long.class)
+@TypeProperty(name = TO_OFFSET, type = long.class)
+@TypeProperty(name = CHECKPOINT_RESET, type = boolean.class)
+@TypeProperty(name = ROW_OFFSET, type = long.class)
+@TypeProperty(name = CACHED, type = boolean.class)
+@TypeProperty(name = DROPPED, type = boolean.class)
+@TypeProperty(name = DROPPED_MESSAGES, type = long.class)
 public class CSVAttributes extends MessageAttributes {
 
     static final String FILE_NAME = "fileName";
+    static final String FILE_NAMES = "fileNames";
+    static final String FILE_RECORDS = "fileRecords";
+    static final String PARALLEL_CHUNKS = "parallelChunks";
+    static final String PARALLEL_SPEEDUP = "parallelSpeedup";
+    static final String DEDUPLICATION_HIT_RATIOS = "deduplicationHitRatios";
+    static final String BATCH_SIZE = "batchSize";
+    static final String BATCH_INDEX = "batchIndex";
+    static final String BATCH_FIRST_ROW = "batchFirstRow";
+    static final String BATCH_LAST_ROW = "batchLastRow";
+    static final String FROM_OFFSET = "fromOffset";
+    static final String TO_OFFSET = "toOffset";
+    static final String CHECKPOINT_RESET = "checkpointReset";
+    static final String ROW_OFFSET = "rowOffset";
+    static final String CACHED = "cached";
+    static final String DROPPED = "dropped";
+    static final String DROPPED_MESSAGES = "droppedMessages";
 
     public CSVAttributes(String filePathAndName) {
         put(FILE_NAME, filePathAndName);
     }
 
+    public CSVAttributes(String filePathAndName, int parallelChunks, double parallelSpeedup) {
+        put(FILE_NAME, filePathAndName);
+        put(PARALLEL_CHUNKS, parallelChunks);
+        put(PARALLEL_SPEEDUP, parallelSpeedup);
+    }
+
     public CSVAttributes() {
     }
+
+    /**
+     * The ratio of the values found in the deduplication cache, by zero based column index of the returned rows.
+     */
+    public void deduplicationHitRatios(Map<Integer, Double> hitRatios) {
+        put(DEDUPLICATION_HIT_RATIOS, new LinkedHashMap<>(hitRatios));
+    }
+
+    /**
+     * The byte range of the file parsed by an incremental read and whether the file was parsed
+     * from the beginning because it was truncated or rotated since the previous read.
+     */
+    public void incremental(long fromOffset, long toOffset, boolean checkpointReset) {
+        put(FROM_OFFSET, fromOffset);
+        put(TO_OFFSET, toOffset);
+        put(CHECKPOINT_RESET, checkpointReset);
+    }
+
+    /**
+     * The number of records skipped before the records of a page and the position in the
+     * file the page was parsed from: the indexed record nearest to the offset, or 0.
+     */
+    public void page(long rowOffset, long fromOffset) {
+        put(ROW_OFFSET, rowOffset);
+        put(FROM_OFFSET, fromOffset);
+    }
+
+    /**
+     * Whether the records were returned from the parse cache instead of being parsed from the file.
+     */
+    public void cached(boolean cached) {
+        put(CACHED, cached);
+    }
+
+    /**
+     * The message was dropped because the write queue was full: the number of messages dropped so far, this one included.
+     */
+    public void dropped(long droppedMessages) {
+        put(DROPPED, true);
+        put(DROPPED_MESSAGES, droppedMessages);
+    }
+
+    /**
+     * The files read by a multiple files read, in the order their records are returned, or written by a
+     * partitioned write, in the order they were created, and the number of records of each one of them.
+     */
+    public void files(List<String> fileNames, List<Long> fileRecords) {
+        put(FILE_NAMES, new ArrayList<>(fileNames));
+        put(FILE_RECORDS, new ArrayList<>(fileRecords));
+    }
+
+    /**
+     * The maximum number of records of each batch of a read emitted in batches.
+     */
+    public void batchSize(int batchSize) {
+        put(BATCH_SIZE, batchSize);
+    }
+
+    /**
+     * Returns a copy of these attributes for the batch having the given zero based index, made of
+     * the records from the given one based first row to the given last row, both inclusive.
+     */
+    public CSVAttributes batch(long batchIndex, long firstRow, long lastRow) {
+        CSVAttributes attributes = new CSVAttributes();
+        attributes.putAll(this);
+        attributes.put(BATCH_INDEX, batchIndex);
+        attributes.put(BATCH_FIRST_ROW, firstRow);
+        attributes.put(BATCH_LAST_ROW, lastRow);
+        return attributes;
+    }
+
+    /**
+     * Returns a copy of these attributes for the batch of the records of the given file,
+     * streamed by a multiple files read: the file name is the one of the given file.
+     */
+    public CSVAttributes fileBatch(String fileName, long batchIndex, long firstRow, long lastRow) {
+        CSVAttributes attributes = batch(batchIndex, firstRow, lastRow);
+        attributes.put(FILE_NAME, fileName);
+        return attributes;
+    }
 }
@@ -11,7 +11,17 @@ public class Messages {
 
         FILE_READ_ERROR("Could not read from CSV file=[%s], cause=[%s]."),
         FILE_PATH_EMPTY("Could not read from CSV file. The file path was empty (DynamicValue=[%s])."),
-        PAYLOAD_READ_ERROR("Could not read CSV payload, cause=[%s].");
+        PAYLOAD_READ_ERROR("Could not read CSV payload, cause=[%s]."),
+        COLUMN_NOT_FOUND("Could not find CSV column=[%s], header columns=%s."),
+        FILTER_COLUMN_NOT_SELECTED("The CSV filter column=[%s] must be one of the selected columns."),
+        SCHEMA_COLUMN_NOT_SELECTED("The CSV schema column=[%s] must be one of the selected columns."),
+        TYPED_VALUE_ERROR("Could not convert CSV value=[%s] of column=[%s] at row=[%d] to type=[%s]."),
+        CHECKPOINT_READ_ERROR("Could not read the CSV checkpoint of file=[%s] from=[%s], cause=[%s]."),
+        CHECKPOINT_WRITE_ERROR("Could not write the CSV checkpoint of file=[%s] to=[%s], cause=[%s]."),
+        INCREMENTAL_COMPRESSED_FILE("Could not read CSV file=[%s] incrementally: compressed files can not be read incrementally."),
+        PAGE_NOT_VALID("The CSV row offset=[%s] and row limit=[%s] must not be negative."),
+        FILES_READ_ERROR("Could not find the CSV files=[%s], cause=[%s]."),
+        FILES_HEADER_MISMATCH("The header=%s of CSV file=[%s] is different from the header=%s of CSV file=[%s].");
 
         private String message;
 
@@ -30,7 +40,14 @@ public class Messages {
         FILE_WRITE_ERROR("Could not write to CSV file=[%s], cause=[%s]."),
         FILE_PATH_EMPTY("Could not write to CSV file. The file path was empty (DynamicValue=[%s])."),
         PAYLOAD_WRITE_ERROR("Could not write CSV into message payload, cause=[%s]."),
-        PAYLOAD_TYPE_ERROR("The payload must contain a list, but type=[%s] was given.");
+        PAYLOAD_TYPE_ERROR("The payload must contain a list, but type=[%s] was given."),
+        APPEND_COMPRESSED_FILE("Could not append to CSV file=[%s]: compressed files can not be appended to."),
+        ASYNC_COMPRESSED_FILE("Could not write CSV file=[%s] asynchronously: compressed files are not supported, use CSV Write instead."),
+        QUEUE_FULL("Could not write to CSV file=[%s]: the write queue is full (capacity=[%d])."),
+        QUEUE_CLOSED("Could not write to CSV file: the write queue is closed."),
+        QUEUE_INTERRUPTED("Could not write to CSV file: interrupted while waiting for space in the write queue."),
+        PARTITION_COLUMN_NOT_FOUND("Could not find CSV partition column=[%s] in record=[%s]."),
+        PARTITION_FILE_NAME_CONFLICT("Could not write CSV partition value=[%s]: its file=[%s] has the name of the file of partition value=[%s], regardless of case.");
 
         private String message;
 
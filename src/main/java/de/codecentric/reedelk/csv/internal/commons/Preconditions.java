@@ -10,7 +10,7 @@ public class Preconditions {
     }
 
     public static void checkSuitableTypeOrThrow(TypedContent<?,?> content) {
-        if (content != null && !(content instanceof ListContent)) {
+        if (content != null && !content.isStream() && !(content instanceof ListContent)) {
             String error = Messages.CSVWrite.PAYLOAD_TYPE_ERROR.format(content.getClass().getSimpleName());
             throw new CSVWriteException(error);
         }
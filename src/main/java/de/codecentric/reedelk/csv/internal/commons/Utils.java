@@ -1,5 +1,12 @@
 package de.codecentric.reedelk.csv.internal.commons;
 
+import de.codecentric.reedelk.csv.component.Compression;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
 public class Utils {
 
     private Utils() {
@@ -8,4 +15,36 @@ public class Utils {
     public static boolean isTrue(Boolean value) {
         return value != null && value;
     }
+
+    public static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    public static boolean isSupportedCharset(String charset) {
+        try {
+            return Charset.isSupported(charset);
+        } catch (IllegalCharsetNameException exception) {
+            return false;
+        }
+    }
+
+    public static boolean isValidDatePattern(String pattern) {
+        try {
+            DateTimeFormatter.ofPattern(pattern);
+            return true;
+        } catch (IllegalArgumentException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * The compression of a file given by its name extension: .gz, .deflate (or .zz) and .zip.
+     */
+    public static Compression compressionOf(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz") || name.endsWith(".gzip")) return Compression.GZIP;
+        if (name.endsWith(".deflate") || name.endsWith(".zz")) return Compression.DEFLATE;
+        if (name.endsWith(".zip")) return Compression.ZIP;
+        return Compression.NONE;
+    }
 }
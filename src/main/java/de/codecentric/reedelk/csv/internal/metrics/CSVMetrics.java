@@ -0,0 +1,208 @@
+package de.codecentric.reedelk.csv.internal.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a component instance, updated by the {@link Measurement} of each message processed.
+ * Counters are {@link LongAdder}s: the messages processed concurrently by the same component do not contend.
+ */
+public class CSVMetrics implements CSVMetricsMXBean {
+
+    public static final String DOMAIN = "de.codecentric.reedelk.csv";
+
+    private static final Map<String, AtomicInteger> INSTANCES = new ConcurrentHashMap<>();
+
+    private final ObjectName objectName;
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAccumulator peakRows = new LongAccumulator(Math::max, 0);
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder ioNanos = new LongAdder();
+    private final LongAdder tokenizationNanos = new LongAdder();
+    private final LongAdder conversionNanos = new LongAdder();
+    private final LongAdder messageBuildingNanos = new LongAdder();
+
+    private CSVMetrics(ObjectName objectName) {
+        this.objectName = objectName;
+    }
+
+    /**
+     * Returns a metrics name not used yet by the given component, e.g. CSVRead-1.
+     */
+    public static String nextName(Class<?> component) {
+        AtomicInteger instances = INSTANCES.computeIfAbsent(component.getSimpleName(), name -> new AtomicInteger());
+        return component.getSimpleName() + "-" + instances.incrementAndGet();
+    }
+
+    /**
+     * Registers new metrics of the given component in the platform MBean server.
+     * They must be unregistered when the component is disposed. The name is checked by the registration
+     * itself, not beforehand: if it is already used, e.g. by a component initialized concurrently, an
+     * {@link InstanceAlreadyExistsException} is thrown.
+     */
+    public static CSVMetrics register(Class<?> component, String name) throws InstanceAlreadyExistsException {
+        CSVMetrics metrics = new CSVMetrics(objectName(component, name));
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, metrics.objectName);
+        } catch (InstanceAlreadyExistsException exception) {
+            throw exception;
+        } catch (JMException exception) {
+            throw new IllegalStateException("Could not register CSV metrics=[" + metrics.objectName + "]", exception);
+        }
+        return metrics;
+    }
+
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+        } catch (JMException exception) {
+            // Already unregistered by someone else: nothing to do.
+        }
+    }
+
+    public ObjectName objectName() {
+        return objectName;
+    }
+
+    /**
+     * Starts the measurement of a message being processed.
+     */
+    public Measurement start() {
+        return new Measurement(this);
+    }
+
+    void record(Measurement measurement, long latency) {
+        messages.increment();
+        if (measurement.failed) errors.increment();
+        rows.add(measurement.rows);
+        bytes.add(measurement.bytes);
+        peakRows.accumulate(measurement.rows);
+        latencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+        this.latency.record(latency);
+        ioNanos.add(measurement.ioNanos);
+        if (measurement.tokenizationNanos > 0) {
+            // The I/O happens while tokenizing: it is not part of the tokenization time.
+            tokenizationNanos.add(Math.max(0, measurement.tokenizationNanos - measurement.ioNanos));
+        }
+        conversionNanos.add(measurement.conversionNanos);
+        messageBuildingNanos.add(measurement.messageBuildingNanos);
+    }
+
+    @Override
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getPeakRowsPerMessage() {
+        return peakRows.get();
+    }
+
+    @Override
+    public double getLatencyMeanMillis() {
+        long count = messages.sum();
+        return count == 0 ? 0 : latencyNanos.sum() / (count * 1_000_000.0);
+    }
+
+    @Override
+    public double getLatencyMaxMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return latency.percentileMillis(0.5);
+    }
+
+    @Override
+    public double getLatencyP90Millis() {
+        return latency.percentileMillis(0.9);
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return latency.percentileMillis(0.99);
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        return latency.counts();
+    }
+
+    @Override
+    public long getIoTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ioNanos.sum());
+    }
+
+    @Override
+    public long getTokenizationTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tokenizationNanos.sum());
+    }
+
+    @Override
+    public long getConversionTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(conversionNanos.sum());
+    }
+
+    @Override
+    public long getMessageBuildingTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(messageBuildingNanos.sum());
+    }
+
+    @Override
+    public void reset() {
+        messages.reset();
+        errors.reset();
+        rows.reset();
+        bytes.reset();
+        peakRows.reset();
+        latencyNanos.reset();
+        maxLatencyNanos.reset();
+        latency.reset();
+        ioNanos.reset();
+        tokenizationNanos.reset();
+        conversionNanos.reset();
+        messageBuildingNanos.reset();
+    }
+
+    private static ObjectName objectName(Class<?> component, String name) {
+        try {
+            return new ObjectName(DOMAIN + ":type=" + component.getSimpleName() + ",name=" + ObjectName.quote(name));
+        } catch (MalformedObjectNameException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package de.codecentric.reedelk.csv.internal.metrics;
+
+/**
+ * Metrics of a CSV Read or CSV Write component instance, registered in the platform MBean server
+ * with object name de.codecentric.reedelk.csv:type=[component],name=[metrics name].
+ * Times are the sum over all the messages processed by the component.
+ */
+public interface CSVMetricsMXBean {
+
+    /**
+     * The number of messages processed, including failed ones.
+     */
+    long getMessages();
+
+    long getErrors();
+
+    long getRows();
+
+    /**
+     * The size in bytes of the files read or written, the number of chars of the payloads read or written.
+     */
+    long getBytes();
+
+    /**
+     * The highest number of rows read or written by a single message.
+     */
+    long getPeakRowsPerMessage();
+
+    double getLatencyMeanMillis();
+
+    double getLatencyMaxMillis();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP90Millis();
+
+    double getLatencyP99Millis();
+
+    /**
+     * The number of messages by latency: the element at index i counts the messages
+     * processed in less than 2^(i+1) microseconds and in at least 2^i microseconds (if i &gt; 0).
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * The time spent reading the input file, decoding and decompression included, or writing the output file.
+     */
+    long getIoTimeMillis();
+
+    /**
+     * The time spent tokenizing the CSV data (reads) or formatting it (writes), I/O excluded.
+     * It is not measured for streams, which are parsed while the downstream components process them.
+     */
+    long getTokenizationTimeMillis();
+
+    /**
+     * The time spent converting the input payload to a string before parsing it (reads only).
+     */
+    long getConversionTimeMillis();
+
+    long getMessageBuildingTimeMillis();
+
+    void reset();
+}
@@ -0,0 +1,55 @@
+package de.codecentric.reedelk.csv.internal.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of latencies having power of two microseconds buckets:
+ * recording a latency is a single atomic increment. Percentiles are approximated
+ * by the upper bound of the bucket containing them.
+ */
+class LatencyHistogram {
+
+    // The last bucket counts every latency above 2^39 microseconds, about 6 days.
+    static final int BUCKETS = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    void record(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = micros == 0 ? 0 : Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+    }
+
+    long[] counts() {
+        long[] values = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            values[i] = counts.get(i);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the upper bound in milliseconds of the bucket containing the given percentile, from 0 to 1.
+     */
+    double percentileMillis(double percentile) {
+        long[] values = counts();
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(percentile * total);
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += values[i];
+            if (count >= rank) return (1L << (i + 1)) / 1000.0;
+        }
+        return (1L << BUCKETS) / 1000.0;
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+}
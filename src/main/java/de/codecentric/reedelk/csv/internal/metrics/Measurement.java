@@ -0,0 +1,183 @@
+package de.codecentric.reedelk.csv.internal.metrics;
+
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures the processing of a single message by a component and records it in the component
+ * metrics when it ends. {@link #NONE} measures nothing: when metrics are disabled, each method is
+ * a single branch, the clock is never read and readers, channels and streams are not wrapped.
+ * A measurement is used by one thread at a time, as the message it measures.
+ */
+public class Measurement {
+
+    public static final Measurement NONE = new Measurement(null);
+
+    private final CSVMetrics metrics;
+    private final long start;
+
+    long rows;
+    long bytes;
+    long ioNanos;
+    long tokenizationNanos;
+    long conversionNanos;
+    long messageBuildingNanos;
+    boolean failed;
+
+    Measurement(CSVMetrics metrics) {
+        this.metrics = metrics;
+        this.start = metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Returns the current time to be given to the methods measuring a step, 0 if nothing is measured.
+     */
+    public long time() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    public void tokenization(long start) {
+        if (metrics != null) tokenizationNanos += System.nanoTime() - start;
+    }
+
+    public void conversion(long start) {
+        if (metrics != null) conversionNanos += System.nanoTime() - start;
+    }
+
+    public void messageBuilding(long start) {
+        if (metrics != null) messageBuildingNanos += System.nanoTime() - start;
+    }
+
+    public void rows(long count) {
+        if (metrics != null) rows += count;
+    }
+
+    public void bytes(long count) {
+        if (metrics != null) bytes += count;
+    }
+
+    /**
+     * Counts the size of the given file as the bytes processed.
+     */
+    public void file(Path path) {
+        if (metrics == null) return;
+        try {
+            bytes += Files.size(path);
+        } catch (IOException exception) {
+            // The file could not be read or written: the error is reported by the component.
+        }
+    }
+
+    /**
+     * Returns a reader measuring the time spent reading from the given one.
+     */
+    public Reader reader(Reader reader) {
+        return metrics == null ? reader : new MeteredReader(reader);
+    }
+
+    /**
+     * Returns a channel measuring the time spent writing into the given one.
+     */
+    public WritableByteChannel channel(WritableByteChannel channel) {
+        return metrics == null ? channel : new MeteredChannel(channel);
+    }
+
+    /**
+     * Returns the given stream counting its elements as rows: the measurement ends when the stream terminates.
+     */
+    public <T> Flux<T> stream(Flux<T> stream) {
+        return ending(rows(stream));
+    }
+
+    /**
+     * Returns the given stream counting its elements as rows.
+     */
+    public <T> Flux<T> rows(Flux<T> stream) {
+        if (metrics == null) return stream;
+        return stream.doOnNext(element -> rows++);
+    }
+
+    /**
+     * Returns the given stream ending the measurement when it terminates.
+     */
+    public <T> Flux<T> ending(Flux<T> stream) {
+        if (metrics == null) return stream;
+        return stream.doOnError(exception -> failed = true)
+                .doFinally(signal -> end());
+    }
+
+    public void failed() {
+        if (metrics != null) failed = true;
+    }
+
+    /**
+     * Ends the measurement: the latency of the message is the time elapsed since it started.
+     */
+    public void end() {
+        if (metrics != null) metrics.record(this, System.nanoTime() - start);
+    }
+
+    private class MeteredReader extends Reader {
+
+        private final Reader delegate;
+
+        MeteredReader(Reader delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read(char[] destination, int offset, int length) throws IOException {
+            long readStart = System.nanoTime();
+            try {
+                return delegate.read(destination, offset, length);
+            } finally {
+                ioNanos += System.nanoTime() - readStart;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private class MeteredChannel implements WritableByteChannel {
+
+        private final WritableByteChannel delegate;
+
+        MeteredChannel(WritableByteChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            long writeStart = System.nanoTime();
+            try {
+                return delegate.write(source);
+            } finally {
+                ioNanos += System.nanoTime() - writeStart;
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            long closeStart = System.nanoTime();
+            try {
+                delegate.close();
+            } finally {
+                ioNanos += System.nanoTime() - closeStart;
+            }
+        }
+    }
+}
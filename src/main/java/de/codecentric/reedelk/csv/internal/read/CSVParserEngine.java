@@ -0,0 +1,38 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Tokenizes CSV data into rows. Implementations must parse the data exactly as
+ * commons-csv does for the given format: same rows, same header names and a failure
+ * for the same inputs. Engines are stateless, a parser is created for each input.
+ */
+public interface CSVParserEngine {
+
+    /**
+     * Creates a parser for the given input. If the format has a header, the header
+     * record is read (and validated) before this method returns. The rows contain only
+     * the values of the columns selected by the projection, the values of the other
+     * columns are skipped and never copied into a row. Only the rows accepted by the
+     * filter are returned. If the deduplicator is not null, the values of the rows
+     * are deduplicated by column.
+     */
+    CSVRowParser parse(CSVFormat csvFormat, Reader input, ColumnProjection projection, RowFilter filter, StringDeduplicator deduplicator) throws IOException;
+
+    default CSVRowParser parse(CSVFormat csvFormat, Reader input, ColumnProjection projection, RowFilter filter) throws IOException {
+        return parse(csvFormat, input, projection, filter, null);
+    }
+
+    default CSVRowParser parse(CSVFormat csvFormat, Reader input, ColumnProjection projection) throws IOException {
+        return parse(csvFormat, input, projection, RowFilter.NONE);
+    }
+
+    default CSVRowParser parse(CSVFormat csvFormat, Reader input) throws IOException {
+        return parse(csvFormat, input, ColumnProjection.all());
+    }
+
+}
@@ -0,0 +1,40 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.type.CSVTable;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.Map;
+
+// with schema
+public class CSVParserToTable {
+
+    private CSVParserToTable() {
+    }
+
+    /**
+     * Parses the input into a columnar table: the values of each row are converted to the
+     * type of their column straight from the parser buffer, no row object is created.
+     */
+    public static CSVTable from(CSVParserEngine engine, CSVFormat csvFormat, ColumnProjection projection, RowFilter filter,
+                                StringDeduplicator deduplicator, CSVSchema schema, Reader input) {
+        try {
+            CSVRowParser parser = engine.parse(csvFormat, input, projection, filter, deduplicator);
+            Map<String, Integer> headerMap = parser.getHeaderMap();
+            if (csvFormat.getHeader() != null && headerMap.isEmpty()) {
+                // Empty input: there is no header to resolve the schema against.
+                return CSVTable.builder(Collections.emptyList(), null, Collections.emptyMap(), null).build();
+            }
+
+            CSVTable.Builder table = schema.tableBuilder(headerMap, projection.select(headerMap), parser.getHeaderNames());
+            parser.forEachRow(table::append);
+            return table.build();
+        } catch (IOException | IllegalStateException exception) {
+            throw new CSVReadException(exception.getMessage(), exception);
+        }
+    }
+}
@@ -1,15 +1,17 @@
 package de.codecentric.reedelk.csv.internal.read;
 
 import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.type.CSVRecord;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
 import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVRecord;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
 
 // with header
 public class CSVParserWithHeader {
@@ -17,35 +19,83 @@ public class CSVParserWithHeader {
     private CSVParserWithHeader() {
     }
 
-    public static List<de.codecentric.reedelk.csv.internal.type.CSVRecord> from(CSVFormat csvFormat, Reader input) {
+    public static List<CSVRecord> from(CSVParserEngine engine, CSVFormat csvFormat, ColumnProjection projection, RowFilter filter, StringDeduplicator deduplicator, Reader input) {
         try {
-            org.apache.commons.csv.CSVParser parse = csvFormat.parse(input);
-            List<CSVRecord> records = parse.getRecords();
-            List<String> headerNames = parse.getHeaderNames();
-            return CSVParserWithHeader.convert(records, headerNames);
-        } catch (IOException exception) {
+            CSVRowParser parser = engine.parse(csvFormat, input, projection, filter, deduplicator);
+            CSVRecord.Header header = CSVRecord.Header.of(parser.getHeaderNames(), csvFormat);
+
+            List<CSVRecord> mapped = new ArrayList<>();
+            for (CSVRow row : parser) {
+                mapped.add(new CSVRecord(header, row));
+            }
+            return mapped;
+        } catch (IOException | IllegalStateException exception) {
             throw new CSVReadException(exception.getMessage(), exception);
         }
     }
 
-    private static List<de.codecentric.reedelk.csv.internal.type.CSVRecord> convert(List<CSVRecord> records, List<String> headerNames) {
-
-        List<de.codecentric.reedelk.csv.internal.type.CSVRecord> mapped = new ArrayList<>();
-
-        Map<String,Integer> headerNameIndexMap = new HashMap<>();
-        for (int i = 0; i < headerNames.size(); i++) {
-            headerNameIndexMap.put(headerNames.get(i), i);
-        }
+    /**
+     * Parses all the columns of the records, as the other from, keeping the raw text of each record, see {@link CSVRecord#raw()}.
+     */
+    public static List<CSVRecord> fromKeepingRaw(CSVParserEngine engine, CSVFormat csvFormat, RowFilter filter, StringDeduplicator deduplicator, Reader input) {
+        RawRecordReader rawInput = new RawRecordReader(input, csvFormat);
+        try {
+            CSVRowParser parser = engine.parse(csvFormat, rawInput, ColumnProjection.all(), rawInput.track(filter), deduplicator);
+            CSVRecord.Header header = CSVRecord.Header.of(parser.getHeaderNames(), csvFormat);
 
-        // Maybe start from 1?
-        for (CSVRecord record : records) {
-            List<String> rowData = new ArrayList<>();
-            for (int i = 0; i < record.size(); i++) {
-                rowData.add(record.get(i));
+            List<CSVRecord> mapped = new ArrayList<>();
+            for (CSVRow row : parser) {
+                mapped.add(new CSVRecord(header, row, rawInput.accepted()));
             }
-            mapped.add(new de.codecentric.reedelk.csv.internal.type.CSVRecord(headerNameIndexMap, rowData));
+            return mapped;
+        } catch (IOException | IllegalStateException exception) {
+            throw new CSVReadException(exception.getMessage(), exception);
         }
+    }
 
+    /**
+     * Returns a lazy stream of records: the input is opened on subscription and
+     * records are parsed only when requested by the subscriber. The input is closed
+     * when the stream completes, fails or it is cancelled.
+     */
+    public static Flux<CSVRecord> stream(CSVParserEngine engine, CSVFormat csvFormat, ColumnProjection projection, RowFilter filter, StringDeduplicator deduplicator, Callable<Reader> input) {
+        return Flux.using(() -> engine.parse(csvFormat, input.call(), projection, filter, deduplicator),
+                parser -> {
+                    CSVRecord.Header header = CSVRecord.Header.of(parser.getHeaderNames(), csvFormat);
+                    return Flux.fromIterable(parser).map(row -> new CSVRecord(header, row));
+                },
+                CSVParsers::closeQuietly);
+    }
+
+    /**
+     * Returns a lazy stream of records, as the other stream, keeping the raw text of each record, see {@link CSVRecord#raw()}.
+     */
+    public static Flux<CSVRecord> streamKeepingRaw(CSVParserEngine engine, CSVFormat csvFormat, RowFilter filter, StringDeduplicator deduplicator, Callable<Reader> input) {
+        return Flux.using(() -> new RawRecordReader(input.call(), csvFormat),
+                rawInput -> Flux.using(() -> engine.parse(csvFormat, rawInput, ColumnProjection.all(), rawInput.track(filter), deduplicator),
+                        parser -> {
+                            CSVRecord.Header header = CSVRecord.Header.of(parser.getHeaderNames(), csvFormat);
+                            return Flux.fromIterable(parser).map(row -> new CSVRecord(header, row, rawInput.accepted()));
+                        },
+                        CSVParsers::closeQuietly),
+                CSVParsers::closeQuietly);
+    }
+
+    /**
+     * Maps rows already parsed, e.g. by the parallel parser, to records having the given header names.
+     */
+    public static List<CSVRecord> from(List<String> headerNames, List<CSVRow> rows) {
+        return from(CSVRecord.Header.of(headerNames), rows);
+    }
+
+    /**
+     * Maps rows already parsed to records sharing the given header, e.g. the rows of files having the same header.
+     */
+    public static List<CSVRecord> from(CSVRecord.Header header, List<CSVRow> rows) {
+        List<CSVRecord> mapped = new ArrayList<>(rows.size());
+        for (CSVRow row : rows) {
+            mapped.add(new CSVRecord(header, row));
+        }
         return mapped;
     }
 }
@@ -1,14 +1,16 @@
 package de.codecentric.reedelk.csv.internal.read;
 
 import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
-import de.codecentric.reedelk.runtime.api.type.ListOfString;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
 import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVRecord;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 // no header
 public class CSVParserWithoutHeader {
@@ -16,25 +18,28 @@ public class CSVParserWithoutHeader {
     private CSVParserWithoutHeader() {
     }
 
-    public static List<ListOfString> from(CSVFormat csvFormat, Reader input) {
+    public static List<CSVRow> from(CSVParserEngine engine, CSVFormat csvFormat, ColumnProjection projection, RowFilter filter, StringDeduplicator deduplicator, Reader input) {
         try {
-            org.apache.commons.csv.CSVParser parse = csvFormat.parse(input);
-            List<CSVRecord> records = parse.getRecords();
-            return CSVParserWithoutHeader.convert(records);
-        } catch (IOException exception) {
+            CSVRowParser parser = engine.parse(csvFormat, input, projection, filter, deduplicator);
+
+            List<CSVRow> allRecords = new ArrayList<>();
+            for (CSVRow row : parser) {
+                allRecords.add(row);
+            }
+            return allRecords;
+        } catch (IOException | IllegalStateException exception) {
             throw new CSVReadException(exception.getMessage(), exception);
         }
     }
 
-    private static List<ListOfString> convert(List<CSVRecord> records) {
-        List<ListOfString> allRecords = new ArrayList<>();
-        for (CSVRecord record : records) {
-            ListOfString rowData = new ListOfString();
-            for (int i = 0; i < record.size(); i++) {
-                rowData.add(record.get(i));
-            }
-            allRecords.add(rowData);
-        }
-        return allRecords;
+    /**
+     * Returns a lazy stream of rows: the input is opened on subscription and
+     * rows are parsed only when requested by the subscriber. The input is closed
+     * when the stream completes, fails or it is cancelled.
+     */
+    public static Flux<CSVRow> stream(CSVParserEngine engine, CSVFormat csvFormat, ColumnProjection projection, RowFilter filter, StringDeduplicator deduplicator, Callable<Reader> input) {
+        return Flux.using(() -> engine.parse(csvFormat, input.call(), projection, filter, deduplicator),
+                Flux::fromIterable,
+                CSVParsers::closeQuietly);
     }
 }
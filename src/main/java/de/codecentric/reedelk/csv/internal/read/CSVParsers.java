@@ -0,0 +1,93 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class CSVParsers {
+
+    private CSVParsers() {
+    }
+
+    static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException exception) {
+            // Nothing we can do, the stream is already terminated.
+        }
+    }
+
+    /**
+     * The header name to column index map of the given header names, i.e. of all the header columns.
+     */
+    static Map<String, Integer> headerMap(List<String> headerNames) {
+        Map<String, Integer> headerMap = new HashMap<>();
+        for (int i = 0; i < headerNames.size(); i++) {
+            headerMap.put(headerNames.get(i), i);
+        }
+        return headerMap;
+    }
+
+    /**
+     * The names of the header columns selected by the given projection, given the names
+     * of all the header columns (an empty list if there is no header).
+     */
+    static List<String> selectedHeaderNames(ColumnProjection projection, List<String> headerNames) {
+        if (headerNames.isEmpty()) return Collections.emptyList();
+        Map<String, Integer> headerMap = headerMap(headerNames);
+        ColumnProjection.Selection selection = projection.select(headerMap);
+        return selection == null ? headerNames : selection.headerNames(headerMap);
+    }
+
+    /**
+     * True if the first record of the data is the header, i.e. if the header is read from it or if it is skipped.
+     */
+    static boolean hasHeaderRecord(CSVFormat csvFormat) {
+        String[] header = csvFormat.getHeader();
+        return header != null && (header.length == 0 || csvFormat.getSkipHeaderRecord());
+    }
+
+    /**
+     * Starts parsing the records of a range of a file, read by the given reader from the given position, which is 0 or
+     * right after a complete record. If the file has a header record, it is at position 0: the range of a position after
+     * it is parsed without header, and its columns and its filter are resolved against the given names of all the header
+     * columns of the file instead, e.g. the ones of a checkpoint or of a row index. The reader is closed by the caller.
+     */
+    static Range parseRange(CSVParserEngine engine, CSVFormat csvFormat, ColumnProjection projection, RowFilter filter,
+                            StringDeduplicator deduplicator, FileChannelReader reader, long from, List<String> fileHeaderNames) throws IOException {
+        if (hasHeaderRecord(csvFormat) && from > 0) {
+            Map<String, Integer> headerMap = headerMap(fileHeaderNames);
+            List<String> headerNames = selectedHeaderNames(projection, fileHeaderNames);
+            CSVFormat rangeFormat = csvFormat.withHeader((String[]) null).withSkipHeaderRecord(false);
+            CSVRowParser parser = engine.parse(rangeFormat, reader, projection.toIndexes(headerMap),
+                    filter.withHeader(headerMap, headerNames), deduplicator);
+            return new Range(parser, fileHeaderNames, headerNames);
+        }
+
+        CSVRowParser parser = engine.parse(csvFormat, reader, projection, filter, deduplicator);
+        if (csvFormat.getHeader() != null) fileHeaderNames = parser.getFileHeaderNames();
+        return new Range(parser, fileHeaderNames, parser.getHeaderNames());
+    }
+
+    /**
+     * The parser of a range of a file, the names of all the header columns of the file and the selected ones.
+     */
+    static class Range {
+
+        final CSVRowParser parser;
+        final List<String> fileHeaderNames;
+        final List<String> headerNames;
+
+        Range(CSVRowParser parser, List<String> fileHeaderNames, List<String> headerNames) {
+            this.parser = parser;
+            this.fileHeaderNames = fileHeaderNames;
+            this.headerNames = headerNames;
+        }
+    }
+}
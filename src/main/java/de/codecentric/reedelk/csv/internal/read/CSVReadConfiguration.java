@@ -0,0 +1,183 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.component.Compression;
+import de.codecentric.reedelk.csv.component.Engine;
+import de.codecentric.reedelk.csv.component.Format;
+import de.codecentric.reedelk.csv.internal.CSVFormatBuilder;
+import de.codecentric.reedelk.csv.internal.attribute.CSVAttributes;
+import de.codecentric.reedelk.csv.internal.commons.Utils;
+import de.codecentric.reedelk.csv.internal.metrics.Measurement;
+import de.codecentric.reedelk.csv.internal.type.CSVRecord;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import de.codecentric.reedelk.runtime.api.component.Component;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+
+/**
+ * The configuration shared by all the reads of a component, i.e. how the CSV data is opened, parsed and returned,
+ * checked and resolved to their defaults when the component is initialized.
+ */
+public class CSVReadConfiguration {
+
+    private static final int DEFAULT_READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Class<? extends Component> component;
+    private final CSVFormat csvFormat;
+    private final CSVParserEngine engine;
+    private final ColumnProjection projection;
+    private final boolean firstRecordAsHeader;
+    private final Charset charset;
+    private final int readBufferSize;
+    private final Compression compression;
+    private final boolean deduplicate;
+    private final int deduplicationMaxValues;
+
+    private CSVReadConfiguration(Class<? extends Component> component, CSVFormat csvFormat, CSVParserEngine engine,
+                                 ColumnProjection projection, boolean firstRecordAsHeader, Charset charset, int readBufferSize,
+                                 Compression compression, boolean deduplicate, int deduplicationMaxValues) {
+        this.component = component;
+        this.csvFormat = csvFormat;
+        this.engine = engine;
+        this.projection = projection;
+        this.firstRecordAsHeader = firstRecordAsHeader;
+        this.charset = charset;
+        this.readBufferSize = readBufferSize;
+        this.compression = compression;
+        this.deduplicate = deduplicate;
+        this.deduplicationMaxValues = deduplicationMaxValues;
+    }
+
+    /**
+     * Checks the given properties of the given component, the configuration errors are reported as errors of the
+     * component. The messages returned are built by the given component.
+     */
+    public static CSVReadConfiguration of(Class<? extends Component> component, Format format, Character delimiter,
+                                          Boolean firstRecordAsHeader, Boolean trim, Engine engine, List<String> columns,
+                                          String charset, Integer readBufferSize, Compression compression,
+                                          Boolean deduplicate, Integer deduplicationMaxValues) {
+        CSVFormat csvFormat = CSVFormatBuilder.get()
+                .firstRecordAsHeader(firstRecordAsHeader)
+                .delimiter(delimiter)
+                .format(format)
+                .trim(trim)
+                .build();
+
+        CSVParserEngine parserEngine = Optional.ofNullable(engine).orElse(Engine.COMMONS).engine();
+
+        ColumnProjection projection = ColumnProjection.of(columns);
+        requireTrue(component, Utils.isTrue(firstRecordAsHeader) || projection.isIndexesOnly(),
+                "columns must be given as column indexes when the first record is not a header");
+
+        requireTrue(component, Utils.isBlank(charset) || Utils.isSupportedCharset(charset),
+                "charset [" + charset + "] is not supported");
+        Charset actualCharset = Utils.isBlank(charset) ? Charset.defaultCharset() : Charset.forName(charset);
+
+        int actualReadBufferSize = Optional.ofNullable(readBufferSize).orElse(DEFAULT_READ_BUFFER_SIZE);
+        requireTrue(component, actualReadBufferSize > 0, "read buffer size must be greater than zero");
+
+        int actualDeduplicationMaxValues = Optional.ofNullable(deduplicationMaxValues).orElse(StringDeduplicator.DEFAULT_MAX_VALUES);
+        requireTrue(component, actualDeduplicationMaxValues > 0, "deduplication max values must be greater than zero");
+
+        return new CSVReadConfiguration(component, csvFormat, parserEngine, projection, Utils.isTrue(firstRecordAsHeader),
+                actualCharset, actualReadBufferSize, compression, Utils.isTrue(deduplicate), actualDeduplicationMaxValues);
+    }
+
+    public CSVFormat csvFormat() {
+        return csvFormat;
+    }
+
+    public CSVParserEngine engine() {
+        return engine;
+    }
+
+    public ColumnProjection projection() {
+        return projection;
+    }
+
+    public boolean isFirstRecordHeader() {
+        return firstRecordAsHeader;
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    public int readBufferSize() {
+        return readBufferSize;
+    }
+
+    /**
+     * Returns a new deduplicator, one for each parse, or null if the values are not deduplicated.
+     */
+    public StringDeduplicator newDeduplicator() {
+        return deduplicate ? new StringDeduplicator(deduplicationMaxValues) : null;
+    }
+
+    /**
+     * Opens the given file, decompressing it if it is compressed.
+     */
+    public Reader openFile(String filePathAndName) throws IOException {
+        Path path = Paths.get(filePathAndName);
+        Compression fileCompression = CompressedFileReader.detect(path, compression);
+        if (fileCompression == Compression.NONE) {
+            return FileChannelReader.open(path, charset, readBufferSize);
+        }
+        return CompressedFileReader.open(path, fileCompression, charset, readBufferSize);
+    }
+
+    public boolean isCompressed(String filePathAndName) {
+        try {
+            return CompressedFileReader.detect(Paths.get(filePathAndName), compression) != Compression.NONE;
+        } catch (IOException exception) {
+            // The file can not be read: the error is reported when it is opened.
+            return false;
+        }
+    }
+
+    /**
+     * Returns the message of the given rows: a list of records having the given header names if the first record
+     * is the header, the list of rows otherwise.
+     */
+    public Message recordsMessage(List<String> headerNames, List<CSVRow> rows, CSVAttributes attributes) {
+        return firstRecordAsHeader ?
+                recordsMessage(CSVParserWithHeader.from(headerNames, rows), attributes) :
+                recordsMessage(rows, attributes);
+    }
+
+    /**
+     * Returns the message of the given records, a list of CSV records if the first record is the header,
+     * a list of CSV rows otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    public Message recordsMessage(List<?> records, CSVAttributes attributes) {
+        MessageBuilder builder = MessageBuilder.get(component);
+        if (firstRecordAsHeader) {
+            builder.withList((List<CSVRecord>) records, CSVRecord.class);
+        } else {
+            builder.withList((List<CSVRow>) records, CSVRow.class);
+        }
+        return builder.attributes(attributes).build();
+    }
+
+    /**
+     * Ends the given measurement once the given message is built, the message building started at the given time.
+     * The measurement of a stream ends when the stream terminates, see Measurement#stream.
+     */
+    public static Message end(Measurement measurement, long building, Message message) {
+        measurement.messageBuilding(building);
+        measurement.end();
+        return message;
+    }
+}
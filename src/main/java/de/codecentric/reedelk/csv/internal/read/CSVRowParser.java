@@ -0,0 +1,73 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Parser of a single CSV input created by a {@link CSVParserEngine}. A parser is not thread safe.
+ * As for commons-csv parsers, the iterator wraps I/O errors into {@link IllegalStateException}s.
+ */
+public interface CSVRowParser extends Iterable<CSVRow>, Closeable {
+
+    /**
+     * The names of the selected header columns, or an empty list if the format has no header.
+     */
+    List<String> getHeaderNames();
+
+    /**
+     * The names of all the header columns as the input has them, before the projection: repeated and empty
+     * names included. An empty list if the format has no header.
+     */
+    List<String> getFileHeaderNames();
+
+    /**
+     * The header name to column index map of all the columns, or an empty map if the format has no header.
+     */
+    Map<String, Integer> getHeaderMap();
+
+    /**
+     * Returns the next row, or null if there are no more rows.
+     */
+    CSVRow nextRow() throws IOException;
+
+    /**
+     * Passes the values of each remaining row to the consumer instead of building the rows.
+     * The values can be read from the row builder only until the consumer returns.
+     */
+    void forEachRow(Consumer<CSVRow.Builder> consumer) throws IOException;
+
+    @Override
+    default Iterator<CSVRow> iterator() {
+        return new Iterator<CSVRow>() {
+
+            private CSVRow next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = nextRow();
+                    } catch (IOException exception) {
+                        throw new IllegalStateException("IOException reading next record: " + exception, exception);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public CSVRow next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                CSVRow current = next;
+                next = null;
+                return current;
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.component.ColumnType;
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.type.CSVTable;
+
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * The types of the columns of a typed read, by header name or zero based column index.
+ * As for the column projection, an entry is a header name if the header contains it,
+ * otherwise an entry made of digits only is a column index. Columns not in the schema
+ * are read as strings.
+ */
+public class CSVSchema {
+
+    public static final String DEFAULT_DATE_FORMAT = "yyyy-MM-dd";
+
+    private final Map<String, ColumnType> types;
+    private final DateTimeFormatter dateFormatter;
+
+    private CSVSchema(Map<String, ColumnType> types, DateTimeFormatter dateFormatter) {
+        this.types = types;
+        this.dateFormatter = dateFormatter;
+    }
+
+    /**
+     * Creates a schema from column name to type name entries, type names are case insensitive.
+     * The type names must be supported and the date format must be a valid pattern.
+     */
+    public static CSVSchema of(Map<String, String> schema, String dateFormat) {
+        Map<String, ColumnType> types = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : schema.entrySet()) {
+            types.put(entry.getKey().trim(), typeOf(entry.getValue()));
+        }
+        // The ISO formatter is recognized by the date parser, which parses ISO dates without a formatter.
+        DateTimeFormatter dateFormatter = dateFormat == null || DEFAULT_DATE_FORMAT.equals(dateFormat) ?
+                DateTimeFormatter.ISO_LOCAL_DATE :
+                DateTimeFormatter.ofPattern(dateFormat);
+        return new CSVSchema(Collections.unmodifiableMap(types), dateFormatter);
+    }
+
+    public static boolean isSupportedType(String type) {
+        if (type == null) return false;
+        for (ColumnType columnType : ColumnType.values()) {
+            if (columnType.name().equalsIgnoreCase(type.trim())) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if all the columns are given as indexes, i.e. no header is needed to resolve them.
+     */
+    public boolean isIndexesOnly() {
+        return ColumnProjection.of(new ArrayList<>(types.keySet())).isIndexesOnly();
+    }
+
+    /**
+     * Resolves the schema against the header of the CSV data, as the {@link RowFilter} does, and returns
+     * a builder of the table of the selected columns. Without a header, the columns are named by
+     * their zero based column index.
+     */
+    CSVTable.Builder tableBuilder(Map<String, Integer> headerMap, ColumnProjection.Selection selection, List<String> headerNames) {
+        Map<Integer, ColumnType> typesByRowIndex = new HashMap<>();
+        for (Map.Entry<String, ColumnType> entry : types.entrySet()) {
+            int index = ColumnProjection.indexOf(entry.getKey(), headerMap);
+            int rowIndex = selection == null ? index : selection.rowIndexOf(index);
+            if (rowIndex < 0) {
+                String error = Messages.CSVRead.SCHEMA_COLUMN_NOT_SELECTED.format(entry.getKey());
+                throw new CSVReadException(error);
+            }
+            typesByRowIndex.put(rowIndex, entry.getValue());
+        }
+        if (!headerMap.isEmpty()) {
+            return CSVTable.builder(headerNames, null, typesByRowIndex, dateFormatter);
+        }
+        IntFunction<String> columnName = rowIndex ->
+                String.valueOf(selection == null ? rowIndex : selection.columnIndexOf(rowIndex));
+        return CSVTable.builder(Collections.emptyList(), columnName, typesByRowIndex, dateFormatter);
+    }
+
+    private static ColumnType typeOf(String type) {
+        return ColumnType.valueOf(type.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,108 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.attribute.CSVAttributes;
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.metrics.Measurement;
+import de.codecentric.reedelk.csv.internal.type.CSVTable;
+import de.codecentric.reedelk.runtime.api.component.Component;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+
+/**
+ * Reads the records of a CSV file from the {@link ParseCache} shared by the components having the same parse key:
+ * the file is parsed only if it is not cached, or it was modified since it was cached. Its version is read before
+ * it is parsed, a file modified while it is parsed is parsed again by the next read.
+ */
+public class CachedRead {
+
+    private static final int DEFAULT_PARSE_CACHE_MAX_SIZE = 64;
+
+    private final Class<? extends Component> component;
+    private final CSVReadConfiguration configuration;
+    private final long maxSize;
+    private final String parseKey;
+    private ParseCache cache;
+
+    private CachedRead(Class<? extends Component> component, CSVReadConfiguration configuration, long maxSize, String parseKey) {
+        this.component = component;
+        this.configuration = configuration;
+        this.maxSize = maxSize;
+        this.parseKey = parseKey;
+    }
+
+    /**
+     * Checks the given properties of the given component, the max size is in megabytes. The parse key is everything
+     * in the configuration of the component changing the records parsed from a file.
+     */
+    public static CachedRead of(Class<? extends Component> component, CSVReadConfiguration configuration, Integer parseCacheMaxSize, String parseKey) {
+        int maxSizeMegabytes = Optional.ofNullable(parseCacheMaxSize).orElse(DEFAULT_PARSE_CACHE_MAX_SIZE);
+        requireTrue(component, maxSizeMegabytes > 0, "parse cache max size must be greater than zero");
+        return new CachedRead(component, configuration, maxSizeMegabytes * 1024L * 1024L, parseKey);
+    }
+
+    /**
+     * Acquires the shared cache, once the component is initialized: it is released when the read is disposed.
+     */
+    public void acquire() {
+        cache = ParseCache.acquire(maxSize);
+    }
+
+    public void dispose() {
+        if (cache == null) return;
+        ParseCache.release(maxSize);
+        cache = null;
+    }
+
+    /**
+     * Returns the cached records of the given file, or the records of the message returned by the given parse.
+     */
+    @SuppressWarnings("unchecked")
+    public Message read(String filePathAndName, Measurement measurement, Function<String, Message> parse) {
+        Path path = Paths.get(filePathAndName);
+        ParseCache.Version version;
+        try {
+            version = ParseCache.Version.of(path);
+        } catch (IOException exception) {
+            String error = Messages.CSVRead.FILE_READ_ERROR.format(filePathAndName, exception.getMessage());
+            throw new CSVReadException(error, exception);
+        }
+
+        Object records = cache.get(path, parseKey, version);
+        CSVAttributes attributes = new CSVAttributes(filePathAndName);
+        if (records != null) {
+            attributes.cached(true);
+            measurement.rows(((List<?>) records).size());
+            long building = measurement.time();
+            return CSVReadConfiguration.end(measurement, building, cachedMessage(records, attributes));
+        }
+
+        Message parsed = parse.apply(filePathAndName);
+        records = parsed.payload();
+        if (!(records instanceof CSVTable)) records = Collections.unmodifiableList((List<Object>) records);
+        cache.put(path, parseKey, version, records);
+        attributes.putAll(parsed.attributes());
+        attributes.cached(false);
+        return cachedMessage(records, attributes);
+    }
+
+    private Message cachedMessage(Object records, CSVAttributes attributes) {
+        if (records instanceof CSVTable) {
+            return MessageBuilder.get(component)
+                    .withJavaObject(records)
+                    .attributes(attributes)
+                    .build();
+        }
+        return configuration.recordsMessage((List<?>) records, attributes);
+    }
+}
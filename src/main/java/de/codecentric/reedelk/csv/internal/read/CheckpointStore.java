@@ -0,0 +1,167 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local store of the checkpoints of the CSV files read incrementally. The checkpoint of a file
+ * is a properties file in the store directory, named after the hash of the absolute file path.
+ * Checkpoints are replaced atomically: a crash while saving leaves the previous checkpoint.
+ */
+public class CheckpointStore {
+
+    private static final String PATH = "path";
+    private static final String OFFSET = "offset";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String FINGERPRINT_LENGTH = "fingerprintLength";
+    private static final String FILE_KEY = "fileKey";
+    private static final String HEADER_SIZE = "headerSize";
+    private static final String HEADER = "header.";
+
+    // All the stores share the locks: the same checkpoint is never updated concurrently.
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    public CheckpointStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the lock to be held while reading and updating the checkpoint of the given file.
+     */
+    Object lock(Path file) {
+        return LOCKS.computeIfAbsent(checkpointPath(file), key -> new Object());
+    }
+
+    /**
+     * Returns the checkpoint of the given file, or null if the file was never read.
+     */
+    Checkpoint load(Path file) {
+        Path checkpointPath = checkpointPath(file);
+        if (!Files.exists(checkpointPath)) return null;
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(checkpointPath)) {
+            properties.load(input);
+            int headerSize = Integer.parseInt(properties.getProperty(HEADER_SIZE, "0"));
+            List<String> headerNames = new ArrayList<>(headerSize);
+            for (int i = 0; i < headerSize; i++) {
+                headerNames.add(properties.getProperty(HEADER + i));
+            }
+            return new Checkpoint(
+                    Long.parseLong(properties.getProperty(OFFSET)),
+                    Collections.unmodifiableList(headerNames),
+                    Integer.parseInt(properties.getProperty(FINGERPRINT_LENGTH)),
+                    Long.parseLong(properties.getProperty(FINGERPRINT)),
+                    properties.getProperty(FILE_KEY));
+        } catch (IOException | RuntimeException exception) {
+            String error = Messages.CSVRead.CHECKPOINT_READ_ERROR.format(file, checkpointPath, exception.getMessage());
+            throw new CSVReadException(error, exception);
+        }
+    }
+
+    void save(Path file, Checkpoint checkpoint) {
+        Path checkpointPath = checkpointPath(file);
+        Properties properties = new Properties();
+        properties.setProperty(PATH, key(file));
+        properties.setProperty(OFFSET, String.valueOf(checkpoint.offset));
+        properties.setProperty(FINGERPRINT_LENGTH, String.valueOf(checkpoint.fingerprintLength));
+        properties.setProperty(FINGERPRINT, String.valueOf(checkpoint.fingerprint));
+        if (checkpoint.fileKey != null) properties.setProperty(FILE_KEY, checkpoint.fileKey);
+        properties.setProperty(HEADER_SIZE, String.valueOf(checkpoint.headerNames.size()));
+        for (int i = 0; i < checkpoint.headerNames.size(); i++) {
+            properties.setProperty(HEADER + i, checkpoint.headerNames.get(i));
+        }
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, checkpointPath.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream output = Files.newOutputStream(temporary)) {
+                    properties.store(output, null);
+                }
+                move(temporary, checkpointPath);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException exception) {
+            String error = Messages.CSVRead.CHECKPOINT_WRITE_ERROR.format(file, checkpointPath, exception.getMessage());
+            throw new CSVReadException(error, exception);
+        }
+    }
+
+    /**
+     * Returns true if the given file is a checkpoint, or a checkpoint being written.
+     */
+    static boolean isCheckpointFile(Path file) {
+        return file.getFileName().toString().matches("[0-9a-f]{64}\\.properties(\\d*\\.tmp)?");
+    }
+
+    Path checkpointPath(Path file) {
+        return directory.resolve(sha256(key(file)) + ".properties");
+    }
+
+    static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static String key(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException exception) {
+            // Every Java platform supports SHA-256.
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * The position in a file right after the last record read, the names of all the header
+     * columns of the file (if any) and what identifies the file: the checksum of its first bytes
+     * and the key of the file system (e.g. the inode), if the file system has one.
+     */
+    static class Checkpoint {
+
+        final long offset;
+        final List<String> headerNames;
+        final int fingerprintLength;
+        final long fingerprint;
+        final String fileKey;
+
+        Checkpoint(long offset, List<String> headerNames, int fingerprintLength, long fingerprint, String fileKey) {
+            this.offset = offset;
+            this.headerNames = headerNames;
+            this.fingerprintLength = fingerprintLength;
+            this.fingerprint = fingerprint;
+            this.fileKey = fileKey;
+        }
+    }
+}
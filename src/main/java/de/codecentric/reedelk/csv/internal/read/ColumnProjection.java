@@ -0,0 +1,145 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+
+import java.util.*;
+
+/**
+ * The columns to be read, given as header names or zero based column indexes.
+ * An entry is a header name if the header contains it, otherwise an entry made
+ * of digits only is a column index. The selected columns are always returned in
+ * the order they appear in the CSV data.
+ */
+public class ColumnProjection {
+
+    private static final ColumnProjection ALL = new ColumnProjection(Collections.emptyList());
+
+    private final List<String> columns;
+
+    private ColumnProjection(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public static ColumnProjection all() {
+        return ALL;
+    }
+
+    public static ColumnProjection of(List<String> columns) {
+        if (columns == null || columns.isEmpty()) return ALL;
+        List<String> trimmed = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            trimmed.add(column == null ? "" : column.trim());
+        }
+        return new ColumnProjection(Collections.unmodifiableList(trimmed));
+    }
+
+    public boolean isAll() {
+        return columns.isEmpty();
+    }
+
+    /**
+     * Returns true if all the columns are given as indexes, i.e. no header is needed to select them.
+     */
+    public boolean isIndexesOnly() {
+        for (String column : columns) {
+            if (!isIndex(column)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the same projection with the header names replaced by their column indexes.
+     */
+    public ColumnProjection toIndexes(Map<String, Integer> headerMap) {
+        if (isAll()) return this;
+        List<String> indexes = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            indexes.add(String.valueOf(indexOf(column, headerMap)));
+        }
+        return new ColumnProjection(Collections.unmodifiableList(indexes));
+    }
+
+    /**
+     * Resolves the projection against the header map (header name to column index) of the
+     * CSV data, which is empty if there is no header. Returns null if all the columns are selected.
+     */
+    public Selection select(Map<String, Integer> headerMap) {
+        if (isAll()) return null;
+        BitSet selected = new BitSet();
+        for (String column : columns) {
+            selected.set(indexOf(column, headerMap));
+        }
+        return new Selection(selected);
+    }
+
+    /**
+     * Returns the zero based index in the CSV data of the given column, a header name or a column index.
+     */
+    static int indexOf(String column, Map<String, Integer> headerMap) {
+        Integer index = headerMap.get(column);
+        if (index != null) return index;
+        if (isIndex(column)) {
+            try {
+                return Integer.parseInt(column);
+            } catch (NumberFormatException exception) {
+                // Too big to be a column index.
+            }
+        }
+        String error = Messages.CSVRead.COLUMN_NOT_FOUND.format(column, headerMap.keySet());
+        throw new CSVReadException(error);
+    }
+
+    private static boolean isIndex(String column) {
+        if (column.isEmpty()) return false;
+        for (int i = 0; i < column.length(); i++) {
+            char c = column.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    public static class Selection {
+
+        private final BitSet selected;
+
+        private Selection(BitSet selected) {
+            this.selected = selected;
+        }
+
+        public boolean isSelected(int column) {
+            return selected.get(column);
+        }
+
+        /**
+         * Returns the index in the row of the given column of the CSV data, or -1 if it is not selected.
+         */
+        public int rowIndexOf(int column) {
+            return selected.get(column) ? selected.get(0, column).cardinality() : -1;
+        }
+
+        /**
+         * Returns the index in the CSV data of the column at the given index in the row.
+         */
+        public int columnIndexOf(int rowIndex) {
+            int column = selected.nextSetBit(0);
+            for (int i = 0; i < rowIndex; i++) {
+                column = selected.nextSetBit(column + 1);
+            }
+            return column;
+        }
+
+        /**
+         * Returns the names of the selected columns, ordered by column index.
+         */
+        public List<String> headerNames(Map<String, Integer> headerMap) {
+            List<Map.Entry<String, Integer>> entries = new ArrayList<>(headerMap.entrySet());
+            entries.sort(Map.Entry.comparingByValue());
+            List<String> headerNames = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : entries) {
+                if (selected.get(entry.getValue())) headerNames.add(entry.getKey());
+            }
+            return Collections.unmodifiableList(headerNames);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * The reference engine: rows are parsed by commons-csv and copied into {@link CSVRow}s.
+ */
+public class CommonsCSVEngine implements CSVParserEngine {
+
+    @Override
+    public CSVRowParser parse(CSVFormat csvFormat, Reader input, ColumnProjection projection, RowFilter filter, StringDeduplicator deduplicator) throws IOException {
+        return new CommonsCSVRowParser(csvFormat.parse(input), projection, filter, deduplicator);
+    }
+
+    private static class CommonsCSVRowParser implements CSVRowParser {
+
+        private final CSVParser parser;
+        private final Iterator<CSVRecord> records;
+        private final CSVRow.Builder rowBuilder = CSVRow.builder();
+        private final Map<String, Integer> headerMap;
+        private final ColumnProjection.Selection selection;
+        private final List<String> headerNames;
+        private final Predicate<CSVRow.Builder> filter;
+
+        CommonsCSVRowParser(CSVParser parser, ColumnProjection projection, RowFilter filter, StringDeduplicator deduplicator) {
+            this.parser = parser;
+            this.records = parser.iterator();
+            Map<String, Integer> parserHeaderMap = parser.getHeaderMap();
+            this.headerMap = parserHeaderMap == null ?
+                    Collections.emptyMap() :
+                    Collections.unmodifiableMap(parserHeaderMap);
+            this.selection = projection.select(headerMap);
+            this.headerNames = selection == null ?
+                    parser.getHeaderNames() :
+                    selection.headerNames(headerMap);
+            this.filter = filter.bind(headerMap, selection, headerNames);
+            this.rowBuilder.deduplicate(deduplicator);
+        }
+
+        @Override
+        public List<String> getHeaderNames() {
+            return headerNames;
+        }
+
+        @Override
+        public List<String> getFileHeaderNames() {
+            return parser.getHeaderNames();
+        }
+
+        @Override
+        public Map<String, Integer> getHeaderMap() {
+            return headerMap;
+        }
+
+        @Override
+        public CSVRow nextRow() {
+            return nextAcceptedRecord() ? rowBuilder.build() : null;
+        }
+
+        @Override
+        public void forEachRow(Consumer<CSVRow.Builder> consumer) {
+            while (nextAcceptedRecord()) {
+                consumer.accept(rowBuilder);
+                rowBuilder.reset();
+            }
+        }
+
+        // Copies the selected values of the next record accepted by the filter into the row builder.
+        private boolean nextAcceptedRecord() {
+            while (records.hasNext()) {
+                CSVRecord record = records.next();
+                for (int i = 0; i < record.size(); i++) {
+                    if (selection == null || selection.isSelected(i)) rowBuilder.add(record.get(i));
+                }
+                if (filter == null || filter.test(rowBuilder)) return true;
+                rowBuilder.reset();
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.component.Compression;
+import de.codecentric.reedelk.csv.internal.commons.Utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Opens compressed CSV input files: the data is decompressed and decoded while the parser
+ * reads it, without temporary files. GZIP and ZIP files are detected by their magic bytes,
+ * deflate (zlib) files by their extension only, since their header can not be told apart
+ * from text. A ZIP file is read from its first file entry, the other entries are ignored.
+ */
+public class CompressedFileReader {
+
+    private static final int GZIP_MAGIC = 0x1f8b;
+    private static final int ZIP_MAGIC = 0x504b0304;
+
+    private CompressedFileReader() {
+    }
+
+    /**
+     * Returns the compression of the given file, detected from its content and name if the given compression is AUTO.
+     */
+    public static Compression detect(Path path, Compression compression) throws IOException {
+        if (compression != null && compression != Compression.AUTO) return compression;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Small files might not even have the magic bytes.
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            int read;
+            do {
+                read = channel.read(magic);
+            } while (read >= 0 && magic.hasRemaining());
+            magic.flip();
+            if (magic.remaining() >= 2 && (magic.getShort(0) & 0xffff) == GZIP_MAGIC) return Compression.GZIP;
+            if (magic.remaining() == 4 && magic.getInt(0) == ZIP_MAGIC) return Compression.ZIP;
+        }
+        return Utils.compressionOf(path.getFileName().toString());
+    }
+
+    /**
+     * Opens a reader of the decompressed data of the given file, the compression must not be AUTO nor NONE.
+     */
+    public static Reader open(Path path, Compression compression, Charset charset, int bufferSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            InputStream input = Channels.newInputStream(channel);
+            return new InputStreamReader(decompress(input, compression, bufferSize), charset);
+        } catch (IOException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    private static InputStream decompress(InputStream input, Compression compression, int bufferSize) throws IOException {
+        switch (compression) {
+            case GZIP:
+                return new GZIPInputStream(input, bufferSize);
+            case DEFLATE:
+                return new InflaterInputStream(input, new Inflater(), bufferSize) {
+                    @Override
+                    public void close() throws IOException {
+                        // The inflater is not the default one: it must be released explicitly.
+                        try {
+                            super.close();
+                        } finally {
+                            inf.end();
+                        }
+                    }
+                };
+            case ZIP:
+                ZipInputStream zip = new ZipInputStream(new BufferedInputStream(input, bufferSize));
+                ZipEntry entry = zip.getNextEntry();
+                while (entry != null && entry.isDirectory()) {
+                    entry = zip.getNextEntry();
+                }
+                // An archive without files is read as empty data.
+                return zip;
+            default:
+                throw new IllegalArgumentException("Not a compression: " + compression);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Engine tokenizing the input straight from a char buffer into {@link de.codecentric.reedelk.csv.internal.type.CSVRow}s,
+ * without creating intermediate token strings, value arrays and records for each row.
+ * It follows the commons-csv lexer rules, see {@link FastCSVRowParser}.
+ */
+public class FastCSVEngine implements CSVParserEngine {
+
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final int bufferSize;
+
+    public FastCSVEngine() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    FastCSVEngine(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public CSVRowParser parse(CSVFormat csvFormat, Reader input, ColumnProjection projection, RowFilter filter, StringDeduplicator deduplicator) throws IOException {
+        return new FastCSVRowParser(csvFormat, input, bufferSize, projection, filter, deduplicator);
+    }
+}
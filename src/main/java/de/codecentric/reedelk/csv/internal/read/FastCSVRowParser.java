@@ -0,0 +1,517 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Tokenizer following the rules of the commons-csv lexer and parser (1.8), including
+ * their corner cases, e.g. empty lines, escapes, comments, trimming and null strings.
+ * Plain runs of characters are bulk copied from the read buffer into a reusable value
+ * buffer, and values are appended to a reusable {@link CSVRow.Builder}: the only objects
+ * created for each row are the row itself and its backing string.
+ */
+class FastCSVRowParser implements CSVRowParser {
+
+    private static final int END_OF_STREAM = -1;
+    private static final int UNDEFINED = -2;
+    private static final char CR = '\r';
+    private static final char LF = '\n';
+    private static final char DISABLED = '\ufffe';
+
+    // Token types
+    private static final int INVALID = 0;
+    private static final int TOKEN = 1;
+    private static final int EORECORD = 2;
+    private static final int EOF = 3;
+    private static final int COMMENT = 4;
+
+    private final Reader input;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfStream;
+    private int lastChar = UNDEFINED;
+    private long eolCounter;
+
+    private final char delimiter;
+    private final char escape;
+    private final char quoteChar;
+    private final char commentStart;
+    private final boolean ignoreSurroundingSpaces;
+    private final boolean ignoreEmptyLines;
+    private final boolean trim;
+    private final boolean trailingDelimiter;
+    private final String nullString;
+
+    private char[] value = new char[64];
+    private int valueLength;
+    private int tokenType;
+    private boolean tokenReady;
+    private int recordSize;
+
+    private final CSVRow.Builder rowBuilder = CSVRow.builder();
+    private Map<String, Integer> headerMap = Collections.emptyMap();
+    private final ColumnProjection.Selection selection;
+    private final List<String> headerNames;
+    private final List<String> fileHeaderNames;
+    private final Predicate<CSVRow.Builder> filter;
+
+    FastCSVRowParser(CSVFormat csvFormat, Reader input, int bufferSize, ColumnProjection projection, RowFilter filter, StringDeduplicator deduplicator) throws IOException {
+        this.input = input;
+        this.buffer = new char[bufferSize];
+        this.delimiter = csvFormat.getDelimiter();
+        this.escape = mapNullToDisabled(csvFormat.getEscapeCharacter());
+        this.quoteChar = mapNullToDisabled(csvFormat.getQuoteCharacter());
+        this.commentStart = mapNullToDisabled(csvFormat.getCommentMarker());
+        this.ignoreSurroundingSpaces = csvFormat.getIgnoreSurroundingSpaces();
+        this.ignoreEmptyLines = csvFormat.getIgnoreEmptyLines();
+        this.trim = csvFormat.getTrim();
+        this.trailingDelimiter = csvFormat.getTrailingDelimiter();
+        this.nullString = csvFormat.getNullString();
+        this.fileHeaderNames = createHeaderNames(csvFormat);
+        this.selection = projection.select(headerMap);
+        this.headerNames = selection == null ? fileHeaderNames : selection.headerNames(headerMap);
+        this.filter = filter.bind(headerMap, selection, headerNames);
+        // The header record is never deduplicated.
+        this.rowBuilder.deduplicate(deduplicator);
+    }
+
+    @Override
+    public List<String> getHeaderNames() {
+        return headerNames;
+    }
+
+    @Override
+    public List<String> getFileHeaderNames() {
+        return fileHeaderNames;
+    }
+
+    @Override
+    public Map<String, Integer> getHeaderMap() {
+        return headerMap;
+    }
+
+    @Override
+    public CSVRow nextRow() throws IOException {
+        return nextAcceptedRecord() ? rowBuilder.build() : null;
+    }
+
+    @Override
+    public void forEachRow(Consumer<CSVRow.Builder> consumer) throws IOException {
+        while (nextAcceptedRecord()) {
+            consumer.accept(rowBuilder);
+            rowBuilder.reset();
+        }
+    }
+
+    // Parses the next record accepted by the filter into the row builder. A rejected
+    // record is discarded before a string is created for its values.
+    private boolean nextAcceptedRecord() throws IOException {
+        while (nextRecord()) {
+            if (filter == null || filter.test(rowBuilder)) return true;
+            rowBuilder.reset();
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private List<String> createHeaderNames(CSVFormat csvFormat) throws IOException {
+        String[] formatHeader = csvFormat.getHeader();
+        if (formatHeader == null) return Collections.emptyList();
+
+        List<String> headerRecord = null;
+        if (formatHeader.length == 0) {
+            // The header is the first record.
+            if (nextRecord()) headerRecord = rowBuilder.build();
+        } else {
+            if (csvFormat.getSkipHeaderRecord()) {
+                nextRecord();
+                rowBuilder.build();
+            }
+            headerRecord = Arrays.asList(formatHeader);
+        }
+        if (headerRecord == null) return Collections.emptyList();
+
+        Map<String, Integer> map = csvFormat.getIgnoreHeaderCase() ?
+                new TreeMap<>(String.CASE_INSENSITIVE_ORDER) :
+                new LinkedHashMap<>();
+        List<String> names = new ArrayList<>(headerRecord.size());
+        for (int i = 0; i < headerRecord.size(); i++) {
+            String header = headerRecord.get(i);
+            boolean emptyHeader = header == null || header.trim().isEmpty();
+            if (emptyHeader && !csvFormat.getAllowMissingColumnNames()) {
+                throw new IllegalArgumentException("A header name is missing in " + headerRecord);
+            }
+            boolean containsHeader = header != null && map.containsKey(header);
+            if (containsHeader && !emptyHeader && !csvFormat.getAllowDuplicateHeaderNames()) {
+                throw new IllegalArgumentException(String.format(
+                        "The header contains a duplicate name: \"%s\" in %s. If this is valid then use CSVFormat.withAllowDuplicateHeaderNames().",
+                        header, headerRecord));
+            }
+            if (header != null) {
+                map.put(header, i);
+                names.add(header);
+            }
+        }
+        headerMap = Collections.unmodifiableMap(map);
+        return Collections.unmodifiableList(names);
+    }
+
+    // Parses the values of the next record into the row builder, returns false if there are no more records.
+    private boolean nextRecord() throws IOException {
+        recordSize = 0;
+        do {
+            nextToken();
+            switch (tokenType) {
+                case TOKEN:
+                    addValue(false);
+                    break;
+                case EORECORD:
+                    addValue(true);
+                    break;
+                case EOF:
+                    if (tokenReady) addValue(true);
+                    break;
+                case COMMENT:
+                    // Comments are ignored, we read another token.
+                    tokenType = TOKEN;
+                    break;
+                default:
+                    throw new IOException("(line " + currentLineNumber() + ") invalid parse sequence");
+            }
+        } while (tokenType == TOKEN);
+        return recordSize > 0;
+    }
+
+    private void addValue(boolean lastValue) {
+        int start = 0;
+        int end = valueLength;
+        if (trim) {
+            // Same as String.trim()
+            while (start < end && value[start] <= ' ') start++;
+            while (end > start && value[end - 1] <= ' ') end--;
+        }
+        if (lastValue && start == end && trailingDelimiter) return;
+
+        // The values of the columns not selected are counted but never copied into the row.
+        if (selection == null || selection.isSelected(recordSize)) {
+            if (nullString != null && isValue(nullString, start, end)) {
+                rowBuilder.add(null);
+            } else {
+                rowBuilder.add(value, start, end - start);
+            }
+        }
+        recordSize++;
+    }
+
+    private boolean isValue(String string, int start, int end) {
+        if (string.length() != end - start) return false;
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) != value[start + i]) return false;
+        }
+        return true;
+    }
+
+    private void nextToken() throws IOException {
+        tokenType = INVALID;
+        tokenReady = false;
+        valueLength = 0;
+
+        // The last read char is required for empty line detection.
+        int last = lastChar;
+        int c = read();
+        boolean eol = readEndOfLine(c);
+
+        if (ignoreEmptyLines) {
+            while (eol && isStartOfLine(last)) {
+                last = c;
+                c = read();
+                eol = readEndOfLine(c);
+                // End of file without any content (empty line at the end).
+                if (c == END_OF_STREAM) {
+                    tokenType = EOF;
+                    return;
+                }
+            }
+        }
+
+        // End of file reached during the last token, or after a last value not followed by a delimiter.
+        if (last == END_OF_STREAM || (last != delimiter && c == END_OF_STREAM)) {
+            tokenType = EOF;
+            return;
+        }
+
+        if (isStartOfLine(last) && c == commentStart) {
+            tokenType = skipLine() ? COMMENT : EOF;
+            return;
+        }
+
+        while (tokenType == INVALID) {
+            if (ignoreSurroundingSpaces) {
+                while (isWhitespace(c) && !eol) {
+                    c = read();
+                    eol = readEndOfLine(c);
+                }
+            }
+
+            if (c == delimiter) {
+                tokenType = TOKEN;
+            } else if (eol) {
+                tokenType = EORECORD;
+            } else if (c == quoteChar) {
+                parseEncapsulatedToken();
+            } else if (c == END_OF_STREAM) {
+                tokenType = EOF;
+                tokenReady = true; // empty value at the end of the file
+            } else {
+                parseSimpleToken(c);
+            }
+        }
+    }
+
+    private void parseSimpleToken(int c) throws IOException {
+        while (true) {
+            if (readEndOfLine(c)) {
+                tokenType = EORECORD;
+                break;
+            } else if (c == END_OF_STREAM) {
+                tokenType = EOF;
+                tokenReady = true;
+                break;
+            } else if (c == delimiter) {
+                tokenType = TOKEN;
+                break;
+            } else if (c == escape) {
+                appendEscape(c);
+                c = read();
+            } else {
+                append((char) c);
+                copySimpleChars();
+                c = read();
+            }
+        }
+        if (ignoreSurroundingSpaces) {
+            while (valueLength > 0 && Character.isWhitespace(value[valueLength - 1])) valueLength--;
+        }
+    }
+
+    private void parseEncapsulatedToken() throws IOException {
+        long startLineNumber = currentLineNumber();
+        while (true) {
+            int c = read();
+            if (c == escape) {
+                appendEscape(c);
+            } else if (c == quoteChar) {
+                if (lookAhead() == quoteChar) {
+                    // Double quote char: a single quote char in the value
+                    append((char) read());
+                } else {
+                    // End of the quoted value: only whitespace is allowed up to the delimiter.
+                    while (true) {
+                        c = read();
+                        if (c == delimiter) {
+                            tokenType = TOKEN;
+                            return;
+                        } else if (c == END_OF_STREAM) {
+                            tokenType = EOF;
+                            tokenReady = true;
+                            return;
+                        } else if (readEndOfLine(c)) {
+                            tokenType = EORECORD;
+                            return;
+                        } else if (!isWhitespace(c)) {
+                            throw new IOException("(line " + currentLineNumber() +
+                                    ") invalid char between encapsulated token and delimiter");
+                        }
+                    }
+                }
+            } else if (c == END_OF_STREAM) {
+                throw new IOException("(startline " + startLineNumber +
+                        ") EOF reached before encapsulated token finished");
+            } else {
+                append((char) c);
+                copyEncapsulatedChars();
+            }
+        }
+    }
+
+    // The escape char has just been read.
+    private void appendEscape(int escapeChar) throws IOException {
+        int c = read();
+        switch (c) {
+            case 'r':
+                append(CR);
+                break;
+            case 'n':
+                append(LF);
+                break;
+            case 't':
+                append('\t');
+                break;
+            case 'b':
+                append('\b');
+                break;
+            case 'f':
+                append('\f');
+                break;
+            case CR:
+            case LF:
+            case '\f':
+            case '\t':
+            case '\b':
+                append((char) c);
+                break;
+            case END_OF_STREAM:
+                throw new IOException("EOF whilst processing escape sequence");
+            default:
+                if (c == delimiter || c == escape || c == quoteChar || c == commentStart) {
+                    append((char) c);
+                } else {
+                    // Not an escape sequence: both chars are kept.
+                    append((char) escapeChar);
+                    append((char) c);
+                }
+        }
+    }
+
+    // Copies the chars available in the buffer up to the next char with a meaning in a simple token.
+    private void copySimpleChars() {
+        int start = position;
+        int end = start;
+        while (end < limit) {
+            char c = buffer[end];
+            if (c == delimiter || c == CR || c == LF || c == escape) break;
+            end++;
+        }
+        copy(start, end);
+    }
+
+    // Copies the chars available in the buffer up to the next char with a meaning in a quoted token.
+    private void copyEncapsulatedChars() {
+        int start = position;
+        int end = start;
+        while (end < limit) {
+            char c = buffer[end];
+            if (c == quoteChar || c == escape || c == CR || c == LF) break;
+            end++;
+        }
+        copy(start, end);
+    }
+
+    private void copy(int start, int end) {
+        int length = end - start;
+        if (length == 0) return;
+        ensureValueCapacity(length);
+        System.arraycopy(buffer, start, value, valueLength, length);
+        valueLength += length;
+        position = end;
+        lastChar = buffer[end - 1]; // neither CR nor LF: the line count does not change
+    }
+
+    private void append(char c) {
+        ensureValueCapacity(1);
+        value[valueLength++] = c;
+    }
+
+    private void ensureValueCapacity(int length) {
+        if (valueLength + length > value.length) {
+            value = Arrays.copyOf(value, Math.max(value.length * 2, valueLength + length));
+        }
+    }
+
+    // A CR LF sequence is consumed as a single end of line.
+    private boolean readEndOfLine(int c) throws IOException {
+        if (c == CR && lookAhead() == LF) {
+            c = read();
+        }
+        return c == LF || c == CR;
+    }
+
+    // Skips the rest of a comment line as BufferedReader.readLine() would:
+    // returns false if the end of the stream was reached before any char.
+    private boolean skipLine() throws IOException {
+        boolean anyChar = false;
+        while (true) {
+            if (position == limit && !fill()) {
+                if (anyChar) {
+                    lastChar = LF;
+                    eolCounter++;
+                    return true;
+                }
+                lastChar = END_OF_STREAM;
+                return false;
+            }
+            anyChar = true;
+            char c = buffer[position++];
+            if (c == LF || c == CR) {
+                if (c == CR && (position < limit || fill()) && buffer[position] == LF) position++;
+                lastChar = LF;
+                eolCounter++;
+                return true;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            lastChar = END_OF_STREAM;
+            return END_OF_STREAM;
+        }
+        char current = buffer[position++];
+        if (current == CR || current == LF && lastChar != CR) {
+            eolCounter++;
+        }
+        lastChar = current;
+        return current;
+    }
+
+    private int lookAhead() throws IOException {
+        if (position == limit && !fill()) return END_OF_STREAM;
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfStream) return false;
+        int read;
+        do {
+            read = input.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            endOfStream = true;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private long currentLineNumber() {
+        if (lastChar == CR || lastChar == LF || lastChar == UNDEFINED || lastChar == END_OF_STREAM) {
+            return eolCounter;
+        }
+        return eolCounter + 1;
+    }
+
+    private boolean isWhitespace(int c) {
+        return c != delimiter && Character.isWhitespace((char) c);
+    }
+
+    private static boolean isStartOfLine(int c) {
+        return c == LF || c == CR || c == UNDEFINED;
+    }
+
+    private static char mapNullToDisabled(Character c) {
+        return c == null ? DISABLED : c;
+    }
+}
@@ -0,0 +1,151 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader decoding a byte range of a file read from a {@link FileChannel}.
+ * Files smaller than the memory mapped threshold are read into a buffer of the given
+ * size, bigger files are memory mapped one segment at a time and bulk copied into it.
+ * The decoder works on a heap buffer because the JDK decoders are much faster on
+ * array backed buffers. Malformed input is replaced, as {@link java.io.InputStreamReader} does.
+ */
+public class FileChannelReader extends Reader {
+
+    static final long MEMORY_MAPPED_THRESHOLD = 64L * 1024 * 1024;
+    static final long MEMORY_MAPPED_SEGMENT_SIZE = 256L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final CharsetDecoder decoder;
+    private final boolean memoryMapped;
+    private final int bufferSize;
+    private final long end;
+
+    private ByteBuffer bytes;
+    private MappedByteBuffer segment;
+    private long position; // file position of the next byte to read
+    private boolean endOfInput;
+    private boolean flushed;
+    private CharBuffer pending; // chars decoded but not yet returned, e.g. the low surrogate of a pair
+
+    FileChannelReader(FileChannel channel, long start, long end, Charset charset, int bufferSize, boolean memoryMapped) {
+        this.channel = channel;
+        this.end = end;
+        this.bufferSize = bufferSize;
+        this.memoryMapped = memoryMapped;
+        this.position = start;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    public static FileChannelReader open(Path path, Charset charset, int bufferSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            return new FileChannelReader(channel, 0, size, charset, bufferSize, size >= MEMORY_MAPPED_THRESHOLD);
+        } catch (IOException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    @Override
+    public int read(char[] destination, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+
+        if (pending != null && pending.hasRemaining()) {
+            int count = Math.min(length, pending.remaining());
+            pending.get(destination, offset, count);
+            return count;
+        }
+
+        CharBuffer out = CharBuffer.wrap(destination, offset, length);
+        while (out.position() == offset) {
+            if (flushed) return -1;
+
+            if (bytes == null || (!bytes.hasRemaining() && !endOfInput)) fill();
+
+            CoderResult result = decoder.decode(bytes, out, endOfInput);
+            if (result.isError()) result.throwException();
+
+            if (result.isOverflow() && out.position() == offset) {
+                // The destination is too small for the next decoded
+                // char (surrogate pair): we decode it in the pending buffer.
+                return readPending(destination, offset, length);
+            }
+
+            if (result.isUnderflow()) {
+                if (endOfInput) {
+                    if (decoder.flush(out).isOverflow()) break;
+                    flushed = true;
+                } else {
+                    fill();
+                }
+            }
+        }
+        int count = out.position() - offset;
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int readPending(char[] destination, int offset, int length) throws IOException {
+        pending = CharBuffer.allocate(2);
+        CoderResult result = decoder.decode(bytes, pending, endOfInput);
+        if (result.isError()) result.throwException();
+        pending.flip();
+        return read(destination, offset, length);
+    }
+
+    // Makes the next bytes of the range available, keeping the ones not decoded yet.
+    private void fill() throws IOException {
+        if (bytes == null) {
+            bytes = ByteBuffer.allocate(bufferSize);
+            bytes.flip();
+        }
+        bytes.compact();
+        boolean endOfFile = memoryMapped ? copyFromSegment() : readFromChannel();
+        bytes.flip();
+        endOfInput = endOfFile || position >= end;
+    }
+
+    private boolean readFromChannel() throws IOException {
+        bytes.limit(bytes.position() + (int) Math.min(bytes.remaining(), end - position));
+        while (bytes.hasRemaining()) {
+            int read = channel.read(bytes, position);
+            if (read < 0) return true;
+            position += read;
+        }
+        return false;
+    }
+
+    private boolean copyFromSegment() throws IOException {
+        while (bytes.hasRemaining() && position < end) {
+            if (segment == null || !segment.hasRemaining()) {
+                long segmentSize = Math.min(MEMORY_MAPPED_SEGMENT_SIZE, end - position);
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, position, segmentSize);
+            }
+            int count = Math.min(bytes.remaining(), segment.remaining());
+            ByteBuffer slice = segment.duplicate();
+            slice.limit(slice.position() + count);
+            bytes.put(slice);
+            segment.position(segment.position() + count);
+            position += count;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,188 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Parses only the records appended to a CSV file since it was last parsed. The checkpoint of the
+ * file stores the position right after the last complete record parsed and the header of the file:
+ * each parse starts from there and stops right after the last complete record, i.e. the last line
+ * feed which is neither escaped nor inside a quoted value, so that a record still being written
+ * is parsed the next time, once it is complete.
+ *
+ * The file is read from the beginning again if it was truncated (it is smaller than the checkpoint
+ * position) or rotated: its first bytes or its file system key (e.g. the inode) changed.
+ * The checkpoint is saved once the new records are parsed, before they are returned.
+ */
+public class IncrementalCSVParser {
+
+    // The checksum of the first bytes of a file identifies it.
+    static final int FINGERPRINT_SIZE = 1024;
+
+    private final CSVParserEngine engine;
+    private final CSVFormat csvFormat;
+    private final ColumnProjection projection;
+    private final Charset charset;
+    private final int readBufferSize;
+    private final CheckpointStore store;
+    private final RecordScanner scanner;
+
+    public IncrementalCSVParser(CSVParserEngine engine, CSVFormat csvFormat, ColumnProjection projection, Charset charset, int readBufferSize, CheckpointStore store) {
+        this.engine = engine;
+        this.csvFormat = csvFormat;
+        this.projection = projection;
+        this.charset = charset;
+        this.readBufferSize = readBufferSize;
+        this.store = store;
+        this.scanner = new RecordScanner(csvFormat);
+    }
+
+    /**
+     * Returns true if the end of the last complete record can be found scanning the raw bytes, see {@link RecordScanner}.
+     */
+    public static boolean isSupported(CSVFormat csvFormat, Charset charset) {
+        return RecordScanner.isSupported(csvFormat, charset);
+    }
+
+    public Result parse(Path path, RowFilter filter, StringDeduplicator deduplicator) {
+        synchronized (store.lock(path)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                String fileKey = fileKey(path);
+                CheckpointStore.Checkpoint checkpoint = store.load(path);
+
+                boolean reset = checkpoint != null && !isSameFile(channel, size, fileKey, checkpoint);
+                if (reset || checkpoint == null) checkpoint = new CheckpointStore.Checkpoint(0, Collections.emptyList(), 0, 0, fileKey);
+
+                long from = checkpoint.offset;
+                long to = scanner.scan(channel, from, size, null);
+                if (to == from) {
+                    // No new complete records: the checkpoint is updated only if the file was reset.
+                    if (reset) store.save(path, checkpoint);
+                    return new Result(CSVParsers.selectedHeaderNames(projection, checkpoint.headerNames), Collections.emptyList(), from, to, reset);
+                }
+
+                Chunk chunk = parseRange(channel, checkpoint.headerNames, filter, deduplicator, from, to);
+                int fingerprintLength = (int) Math.min(FINGERPRINT_SIZE, to);
+                long fingerprint = checkpoint.fingerprintLength == fingerprintLength ?
+                        checkpoint.fingerprint :
+                        fingerprint(channel, fingerprintLength);
+                store.save(path, new CheckpointStore.Checkpoint(to, chunk.fileHeaderNames, fingerprintLength, fingerprint, fileKey));
+                return new Result(chunk.headerNames, chunk.rows, from, to, reset);
+
+            } catch (IOException | IllegalArgumentException | IllegalStateException exception) {
+                throw new CSVReadException(exception.getMessage(), exception);
+            }
+        }
+    }
+
+    private Chunk parseRange(FileChannel channel, List<String> fileHeaderNames, RowFilter filter, StringDeduplicator deduplicator, long from, long to) throws IOException {
+        FileChannelReader reader = new FileChannelReader(channel, from, to, charset, readBufferSize,
+                to - from >= FileChannelReader.MEMORY_MAPPED_THRESHOLD);
+        // The channel is closed by the caller: the parser is not closed.
+        CSVParsers.Range range = CSVParsers.parseRange(engine, csvFormat, projection, filter, deduplicator, reader, from, fileHeaderNames);
+        List<CSVRow> rows = new ArrayList<>();
+        for (CSVRow row : range.parser) {
+            rows.add(row);
+        }
+        return new Chunk(range.fileHeaderNames, range.headerNames, rows);
+    }
+
+    private boolean isSameFile(FileChannel channel, long size, String fileKey, CheckpointStore.Checkpoint checkpoint) throws IOException {
+        if (size < checkpoint.offset) return false;
+        if (fileKey != null && checkpoint.fileKey != null && !fileKey.equals(checkpoint.fileKey)) return false;
+        return fingerprint(channel, checkpoint.fingerprintLength) == checkpoint.fingerprint;
+    }
+
+    private static long fingerprint(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) break;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        return crc.getValue();
+    }
+
+    private static String fileKey(Path path) throws IOException {
+        Object fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        return fileKey == null ? null : fileKey.toString();
+    }
+
+    public static class Result {
+
+        private final List<String> headerNames;
+        private final List<CSVRow> rows;
+        private final long fromOffset;
+        private final long toOffset;
+        private final boolean reset;
+
+        Result(List<String> headerNames, List<CSVRow> rows, long fromOffset, long toOffset, boolean reset) {
+            this.headerNames = headerNames;
+            this.rows = rows;
+            this.fromOffset = fromOffset;
+            this.toOffset = toOffset;
+            this.reset = reset;
+        }
+
+        /**
+         * The names of the selected header columns, or an empty list if the format has no header.
+         */
+        public List<String> headerNames() {
+            return headerNames;
+        }
+
+        public List<CSVRow> rows() {
+            return rows;
+        }
+
+        /**
+         * The position in the file of the first record parsed.
+         */
+        public long fromOffset() {
+            return fromOffset;
+        }
+
+        /**
+         * The position in the file right after the last record parsed.
+         */
+        public long toOffset() {
+            return toOffset;
+        }
+
+        /**
+         * True if the file was truncated or rotated since it was last parsed: it was parsed from the beginning.
+         */
+        public boolean isReset() {
+            return reset;
+        }
+    }
+
+    private static class Chunk {
+
+        final List<String> fileHeaderNames;
+        final List<String> headerNames;
+        final List<CSVRow> rows;
+
+        Chunk(List<String> fileHeaderNames, List<String> headerNames, List<CSVRow> rows) {
+            this.fileHeaderNames = fileHeaderNames;
+            this.headerNames = headerNames;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.attribute.CSVAttributes;
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.commons.Utils;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.metrics.Measurement;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import de.codecentric.reedelk.runtime.api.component.Component;
+import de.codecentric.reedelk.runtime.api.message.Message;
+
+import java.nio.file.Paths;
+
+import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+
+/**
+ * Reads only the records appended to a CSV file since it was last read, with an {@link IncrementalCSVParser}.
+ * Compressed files can not be read incrementally.
+ */
+public class IncrementalRead {
+
+    private final CSVReadConfiguration configuration;
+    private final IncrementalCSVParser parser;
+
+    private IncrementalRead(CSVReadConfiguration configuration, IncrementalCSVParser parser) {
+        this.configuration = configuration;
+        this.parser = parser;
+    }
+
+    /**
+     * Checks the given properties of the given component, the checkpoints are stored in the given directory.
+     */
+    public static IncrementalRead of(Class<? extends Component> component, CSVReadConfiguration configuration, String checkpointDirectory) {
+        requireTrue(component, IncrementalCSVParser.isSupported(configuration.csvFormat(), configuration.charset()),
+                "incremental read requires a charset encoding the line feed as a single byte, e.g. UTF-8, " +
+                        "and single byte delimiter, quote and escape characters");
+        requireTrue(component, !Utils.isBlank(checkpointDirectory), "incremental read requires a checkpoint directory");
+        IncrementalCSVParser parser = new IncrementalCSVParser(configuration.engine(), configuration.csvFormat(),
+                configuration.projection(), configuration.charset(), configuration.readBufferSize(),
+                new CheckpointStore(Paths.get(checkpointDirectory)));
+        return new IncrementalRead(configuration, parser);
+    }
+
+    public Message read(String filePathAndName, RowFilter filter, Measurement measurement) {
+        if (configuration.isCompressed(filePathAndName)) {
+            String error = Messages.CSVRead.INCREMENTAL_COMPRESSED_FILE.format(filePathAndName);
+            throw new CSVReadException(error);
+        }
+        StringDeduplicator deduplicator = configuration.newDeduplicator();
+        long tokenization = measurement.time();
+        IncrementalCSVParser.Result result = parser.parse(Paths.get(filePathAndName), filter, deduplicator);
+        measurement.tokenization(tokenization);
+        measurement.rows(result.rows().size());
+        measurement.bytes(result.toOffset() - result.fromOffset());
+
+        CSVAttributes attributes = new CSVAttributes(filePathAndName);
+        attributes.incremental(result.fromOffset(), result.toOffset(), result.isReset());
+        if (deduplicator != null) attributes.deduplicationHitRatios(deduplicator.hitRatios());
+
+        long building = measurement.time();
+        return CSVReadConfiguration.end(measurement, building,
+                configuration.recordsMessage(result.headerNames(), result.rows(), attributes));
+    }
+}
@@ -0,0 +1,193 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import org.apache.commons.csv.CSVFormat;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Parses the CSV files of a directory, or the files matching a glob pattern, each file on a thread of a bounded
+ * fork join pool. The files are sorted by path and their rows are returned in that order: all together, or file
+ * by file as a stream parsing at most as many files ahead of the subscriber as the pool parallelism. All the files
+ * must have the header of the first file: the header names of each file are compared once with the ones of the
+ * first file, not record by record.
+ */
+public class MultiFileCSVParser {
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private final ForkJoinPool pool;
+    private final Scheduler scheduler;
+    private final CSVParserEngine engine;
+    private final CSVFormat csvFormat;
+    private final ColumnProjection projection;
+    private final FileOpener opener;
+
+    public MultiFileCSVParser(ForkJoinPool pool, CSVParserEngine engine, CSVFormat csvFormat, ColumnProjection projection, FileOpener opener) {
+        this.pool = pool;
+        this.scheduler = Schedulers.fromExecutorService(pool);
+        this.engine = engine;
+        this.csvFormat = csvFormat;
+        this.projection = projection;
+        this.opener = opener;
+    }
+
+    /**
+     * Returns the regular files of the given directory, hidden files excluded, the files matching the given glob
+     * pattern, e.g. /var/feeds/*.csv or /var/feeds/**&#47;orders-*.csv, or the given file, sorted by path. A pattern
+     * is matched against the path of the files found under the directory preceding its first glob character.
+     * The files written by the module next to the CSV files, i.e. row indexes and checkpoints, are never returned.
+     * A directory or a file which does not exist is an error, a pattern matching no file is not.
+     */
+    public static List<Path> resolve(String location) throws IOException {
+        int glob = indexOfGlob(location);
+        if (glob < 0) {
+            Path path = Paths.get(location);
+            if (!Files.exists(path)) throw new NoSuchFileException(location);
+            if (!Files.isDirectory(path)) return singletonList(path);
+            return find(path, 1, file -> isCSVFile(file) && !file.getFileName().toString().startsWith("."));
+        }
+
+        int separator = Math.max(location.lastIndexOf('/', glob), location.lastIndexOf(FileSystems.getDefault().getSeparator(), glob));
+        Path directory = Paths.get(separator < 0 ? "" : location.substring(0, separator + 1));
+        String relativePattern = location.substring(separator + 1);
+        int maxDepth = relativePattern.contains("**") ? Integer.MAX_VALUE : relativePattern.split("/").length;
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + location);
+        return find(directory, maxDepth, path -> isCSVFile(path) && matcher.matches(path));
+    }
+
+    /**
+     * Parses all the given files concurrently and returns their rows in the order of the files.
+     * The first failure, e.g. a file not having the header of the first file, is thrown.
+     */
+    public List<FileResult> parse(List<Path> files, RowFilter filter, Supplier<StringDeduplicator> deduplicators) {
+        List<ForkJoinTask<FileResult>> tasks = new ArrayList<>(files.size());
+        for (Path file : files) {
+            tasks.add(pool.submit(() -> parse(file, filter, deduplicators.get())));
+        }
+        List<FileResult> results = new ArrayList<>(files.size());
+        try {
+            for (ForkJoinTask<FileResult> task : tasks) {
+                FileResult result = task.join();
+                if (!results.isEmpty()) checkHeader(results.get(0), result);
+                results.add(result);
+            }
+        } catch (RuntimeException exception) {
+            tasks.forEach(task -> task.cancel(true));
+            throw exception;
+        }
+        return results;
+    }
+
+    /**
+     * Returns a stream of the rows of each file, in the order of the files. The files are parsed when the stream
+     * is subscribed, and each time it is, at most as many files ahead of the subscriber as the pool parallelism.
+     */
+    public Flux<FileResult> stream(List<Path> files, RowFilter filter, Supplier<StringDeduplicator> deduplicators) {
+        return Flux.defer(() -> {
+            List<FileResult> first = new ArrayList<>(1);
+            return Flux.fromIterable(files)
+                    .flatMapSequential(file -> Mono.fromCallable(() -> parse(file, filter, deduplicators.get()))
+                            .subscribeOn(scheduler), pool.getParallelism())
+                    .doOnNext(result -> {
+                        if (first.isEmpty()) first.add(result);
+                        else checkHeader(first.get(0), result);
+                    });
+        });
+    }
+
+    private FileResult parse(Path file, RowFilter filter, StringDeduplicator deduplicator) {
+        try (CSVRowParser parser = engine.parse(csvFormat, opener.open(file), projection, filter, deduplicator)) {
+            List<CSVRow> rows = new ArrayList<>();
+            for (CSVRow row : parser) {
+                rows.add(row);
+            }
+            return new FileResult(file, parser.getHeaderNames(), rows);
+        } catch (IOException | IllegalArgumentException | IllegalStateException exception) {
+            String error = Messages.CSVRead.FILE_READ_ERROR.format(file, exception.getMessage());
+            throw new CSVReadException(error, exception);
+        }
+    }
+
+    private static void checkHeader(FileResult first, FileResult result) {
+        if (!result.headerNames.equals(first.headerNames)) {
+            String error = Messages.CSVRead.FILES_HEADER_MISMATCH.format(
+                    result.headerNames, result.file, first.headerNames, first.file);
+            throw new CSVReadException(error);
+        }
+    }
+
+    private static List<Path> find(Path directory, int maxDepth, Predicate<Path> filter) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory, maxDepth)) {
+            return paths.filter(filter).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isCSVFile(Path path) {
+        return Files.isRegularFile(path) && !RowIndexStore.isIndexFile(path) && !CheckpointStore.isCheckpointFile(path);
+    }
+
+    private static int indexOfGlob(String location) {
+        for (int i = 0; i < location.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(location.charAt(i)) >= 0) return i;
+        }
+        return -1;
+    }
+
+    private static List<Path> singletonList(Path path) {
+        List<Path> paths = new ArrayList<>(1);
+        paths.add(path);
+        return paths;
+    }
+
+    /**
+     * Opens a file to be parsed, e.g. decompressing it.
+     */
+    @FunctionalInterface
+    public interface FileOpener {
+
+        Reader open(Path file) throws IOException;
+    }
+
+    public static class FileResult {
+
+        private final Path file;
+        private final List<String> headerNames;
+        private final List<CSVRow> rows;
+
+        FileResult(Path file, List<String> headerNames, List<CSVRow> rows) {
+            this.file = file;
+            this.headerNames = headerNames;
+            this.rows = rows;
+        }
+
+        public Path file() {
+            return file;
+        }
+
+        public List<String> headerNames() {
+            return headerNames;
+        }
+
+        public List<CSVRow> rows() {
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.attribute.CSVAttributes;
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.metrics.Measurement;
+import de.codecentric.reedelk.csv.internal.type.CSVBatch;
+import de.codecentric.reedelk.csv.internal.type.CSVRecord;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.runtime.api.component.Component;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+
+/**
+ * Reads the CSV files of a directory, or the files matching a glob pattern, with a {@link MultiFileCSVParser}:
+ * the records of all the files are returned in a single list, or streamed in a batch for each file.
+ * The deduplication hit ratios are not returned: each file is parsed with its own deduplicator.
+ */
+public class MultiFileRead {
+
+    private final Class<? extends Component> component;
+    private final CSVReadConfiguration configuration;
+    private final ForkJoinPool pool;
+    private final MultiFileCSVParser parser;
+    private final boolean streaming;
+
+    private MultiFileRead(Class<? extends Component> component, CSVReadConfiguration configuration, ForkJoinPool pool, boolean streaming) {
+        this.component = component;
+        this.configuration = configuration;
+        this.pool = pool;
+        this.parser = new MultiFileCSVParser(pool, configuration.engine(), configuration.csvFormat(),
+                configuration.projection(), path -> configuration.openFile(path.toString()));
+        this.streaming = streaming;
+    }
+
+    /**
+     * Checks the given properties of the given component, the files are parsed by at most files parallelism threads,
+     * the number of available processors if it is null.
+     */
+    public static MultiFileRead of(Class<? extends Component> component, CSVReadConfiguration configuration, Integer filesParallelism, boolean streaming) {
+        int actualFilesParallelism = Optional.ofNullable(filesParallelism).orElse(Runtime.getRuntime().availableProcessors());
+        requireTrue(component, actualFilesParallelism > 0, "files parallelism must be greater than zero");
+        return new MultiFileRead(component, configuration, new ForkJoinPool(actualFilesParallelism), streaming);
+    }
+
+    public Message read(String location, RowFilter filter, Measurement measurement) {
+        List<Path> files;
+        try {
+            files = MultiFileCSVParser.resolve(location);
+        } catch (IOException | InvalidPathException exception) {
+            String error = Messages.CSVRead.FILES_READ_ERROR.format(location, exception.getMessage());
+            throw new CSVReadException(error, exception);
+        }
+        files.forEach(measurement::file);
+        if (streaming) return stream(location, files, filter, measurement);
+
+        // The files are read while they are parsed: the I/O time is part of the tokenization time.
+        long tokenization = measurement.time();
+        List<MultiFileCSVParser.FileResult> results = parser.parse(files, filter, configuration::newDeduplicator);
+        measurement.tokenization(tokenization);
+
+        List<String> fileNames = new ArrayList<>(results.size());
+        List<Long> fileRecords = new ArrayList<>(results.size());
+        List<CSVRow> rows = new ArrayList<>();
+        for (MultiFileCSVParser.FileResult result : results) {
+            fileNames.add(result.file().toString());
+            fileRecords.add((long) result.rows().size());
+            rows.addAll(result.rows());
+        }
+        measurement.rows(rows.size());
+        CSVAttributes attributes = new CSVAttributes(location);
+        attributes.files(fileNames, fileRecords);
+
+        long building = measurement.time();
+        List<String> headerNames = results.isEmpty() ? Collections.emptyList() : results.get(0).headerNames();
+        return CSVReadConfiguration.end(measurement, building, configuration.recordsMessage(headerNames, rows, attributes));
+    }
+
+    public void dispose() {
+        pool.shutdownNow();
+    }
+
+    // A batch for each file: the records of all the files streamed share the header of the first one.
+    private Message stream(String location, List<Path> files, RowFilter filter, Measurement measurement) {
+        CSVAttributes attributes = new CSVAttributes(location);
+        boolean isFirstRecordHeader = configuration.isFirstRecordHeader();
+        Flux<CSVBatch<Object>> batches = Flux.defer(() -> {
+            List<CSVRecord.Header> header = new ArrayList<>(1);
+            long[] nextRow = { 1 };
+            return parser.stream(files, filter, configuration::newDeduplicator)
+                    .index()
+                    .map(indexed -> {
+                        MultiFileCSVParser.FileResult result = indexed.getT2();
+                        if (isFirstRecordHeader && header.isEmpty()) header.add(CSVRecord.Header.of(result.headerNames()));
+                        List<Object> records = isFirstRecordHeader ?
+                                new ArrayList<>(CSVParserWithHeader.from(header.get(0), result.rows())) :
+                                new ArrayList<>(result.rows());
+                        long firstRow = nextRow[0];
+                        nextRow[0] += records.size();
+                        return new CSVBatch<>(records, attributes.fileBatch(result.file().toString(),
+                                indexed.getT1(), firstRow, firstRow + records.size() - 1));
+                    });
+        });
+        Flux<CSVBatch<Object>> dataRows = measurement.ending(batches.doOnNext(batch -> measurement.rows(batch.size())));
+        long building = measurement.time();
+        Message message = MessageBuilder.get(component)
+                .withStream(dataRows, CSVBatch.class)
+                .attributes(attributes)
+                .build();
+        measurement.messageBuilding(building);
+        return message;
+    }
+}
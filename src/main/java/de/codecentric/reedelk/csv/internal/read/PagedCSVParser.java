@@ -0,0 +1,221 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Parses a page of the records of CSV data: at most the given number of records (the limit) following
+ * the given number of records (the offset), the header record excluded. The records before the page
+ * are parsed but never built: they are rejected as rows filtered out are.
+ *
+ * If the parser has a row index store, a file is parsed from the indexed record nearest to the offset instead
+ * of from the beginning: the index of the file holds the position of a record every interval records. It is
+ * built scanning the raw bytes of the file the first time the file is read, see {@link RecordScanner}, and it is
+ * rebuilt whenever the size or the last modified time of the file change. If the rows are filtered the offset
+ * counts the rows accepted by the filter: the index can not be used and the file is parsed from the beginning.
+ * So is a file whose index can not be saved, e.g. next to the file on a read only share.
+ */
+public class PagedCSVParser {
+
+    private final CSVParserEngine engine;
+    private final CSVFormat csvFormat;
+    private final ColumnProjection projection;
+    private final Charset charset;
+    private final int readBufferSize;
+    private final RowIndexStore store;
+    private final int interval;
+    private final RecordScanner scanner;
+
+    /**
+     * Files are parsed from the beginning if the given store is null, otherwise
+     * their row indexes hold the position of a record every interval records.
+     */
+    public PagedCSVParser(CSVParserEngine engine, CSVFormat csvFormat, ColumnProjection projection, Charset charset, int readBufferSize, RowIndexStore store, int interval) {
+        this.engine = engine;
+        this.csvFormat = csvFormat;
+        this.projection = projection;
+        this.charset = charset;
+        this.readBufferSize = readBufferSize;
+        this.store = store;
+        this.interval = interval;
+        this.scanner = store == null ? null : new RecordScanner(csvFormat);
+    }
+
+    /**
+     * Returns true if the row index of a file can be built scanning its raw bytes, see {@link RecordScanner}.
+     */
+    public static boolean isIndexSupported(CSVFormat csvFormat, Charset charset) {
+        return RecordScanner.isSupported(csvFormat, charset);
+    }
+
+    public Result parse(Path path, long offset, long limit, RowFilter filter, StringDeduplicator deduplicator) {
+        if (store == null || filter != RowFilter.NONE) {
+            try (Reader input = FileChannelReader.open(path, charset, readBufferSize)) {
+                return parse(input, offset, limit, filter, deduplicator);
+            } catch (IOException exception) {
+                throw new CSVReadException(exception.getMessage(), exception);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            RowIndexStore.RowIndex index;
+            synchronized (store.lock(path)) {
+                index = index(path, channel);
+            }
+            if (index == null) {
+                // The row index could not be saved, e.g. on a read only share: the file is parsed from the beginning.
+                return parseFrom(channel, Collections.emptyList(), 0, offset, limit, deduplicator);
+            }
+            int point = (int) Math.min(offset / index.interval, index.positions.length);
+            long from = point == 0 ? 0 : index.positions[point - 1];
+            long skip = offset - (long) point * index.interval;
+            return parseFrom(channel, index.headerNames, from, skip, limit, deduplicator);
+
+        } catch (IOException | IllegalArgumentException | IllegalStateException exception) {
+            throw new CSVReadException(exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Parses the page of the given input from the beginning, e.g. of a compressed file. The input is not closed.
+     */
+    public Result parse(Reader input, long offset, long limit, RowFilter filter, StringDeduplicator deduplicator) {
+        try {
+            CSVRowParser parser = engine.parse(csvFormat, input, projection, filter.and(skipping(offset)), deduplicator);
+            return new Result(parser.getHeaderNames(), take(parser, limit), 0);
+        } catch (IOException | IllegalArgumentException | IllegalStateException exception) {
+            throw new CSVReadException(exception.getMessage(), exception);
+        }
+    }
+
+    private Result parseFrom(FileChannel channel, List<String> fileHeaderNames, long from, long skip, long limit, StringDeduplicator deduplicator) throws IOException {
+        // Only the first rows of the range are parsed: the file is not memory mapped.
+        FileChannelReader reader = new FileChannelReader(channel, from, channel.size(), charset, readBufferSize, false);
+        // The channel is closed by the caller: the parser is not closed.
+        CSVParsers.Range range = CSVParsers.parseRange(engine, csvFormat, projection, skipping(skip), deduplicator, reader, from, fileHeaderNames);
+        return new Result(range.headerNames, take(range.parser, limit), from);
+    }
+
+    // Returns the valid row index of the file, built if needed, or null if it could not be saved.
+    private RowIndexStore.RowIndex index(Path path, FileChannel channel) throws IOException {
+        long size = channel.size();
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        String formatKey = csvFormat.toString();
+        RowIndexStore.RowIndex index = store.load(path);
+        if (index != null && index.isValid(size, lastModified, formatKey, interval)) return index;
+
+        IndexBuilder builder = new IndexBuilder(CSVParsers.hasHeaderRecord(csvFormat), interval);
+        scanner.scan(channel, 0, size, builder);
+        List<String> headerNames = Collections.emptyList();
+        if (CSVParsers.hasHeaderRecord(csvFormat) && builder.dataStart > 0) {
+            FileChannelReader reader = new FileChannelReader(channel, 0, builder.dataStart, charset, readBufferSize, false);
+            CSVRowParser parser = engine.parse(csvFormat, reader, ColumnProjection.all());
+            headerNames = parser.getFileHeaderNames();
+        }
+        index = new RowIndexStore.RowIndex(size, lastModified, formatKey, interval, headerNames, builder.positions());
+        return store.save(path, index) ? index : null;
+    }
+
+    private static List<CSVRow> take(CSVRowParser parser, long limit) throws IOException {
+        List<CSVRow> rows = new ArrayList<>((int) Math.min(limit, 1024));
+        CSVRow row;
+        while (rows.size() < limit && (row = parser.nextRow()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // Rejects the given number of rows and accepts all the following ones.
+    private static RowFilter skipping(long rows) {
+        if (rows == 0) return RowFilter.NONE;
+        return (headerMap, selection, headerNames) -> new Predicate<CSVRow.Builder>() {
+
+            private long skipped;
+
+            @Override
+            public boolean test(CSVRow.Builder row) {
+                if (skipped == rows) return true;
+                skipped++;
+                return false;
+            }
+        };
+    }
+
+    public static class Result {
+
+        private final List<String> headerNames;
+        private final List<CSVRow> rows;
+        private final long fromOffset;
+
+        Result(List<String> headerNames, List<CSVRow> rows, long fromOffset) {
+            this.headerNames = headerNames;
+            this.rows = rows;
+            this.fromOffset = fromOffset;
+        }
+
+        /**
+         * The names of the selected header columns, or an empty list if the format has no header.
+         */
+        public List<String> headerNames() {
+            return headerNames;
+        }
+
+        public List<CSVRow> rows() {
+            return rows;
+        }
+
+        /**
+         * The position in the file the page was parsed from: the indexed record nearest to the offset, or 0.
+         */
+        public long fromOffset() {
+            return fromOffset;
+        }
+    }
+
+    // Collects the position of the data record following every interval data records.
+    private static class IndexBuilder implements LongConsumer {
+
+        private final int interval;
+
+        private long dataStart; // -1 until the end of the header record is found
+        private long records;
+        private long[] positions = new long[16];
+        private int size;
+
+        IndexBuilder(boolean hasHeaderRecord, int interval) {
+            this.interval = interval;
+            this.dataStart = hasHeaderRecord ? -1 : 0;
+        }
+
+        @Override
+        public void accept(long recordEnd) {
+            if (dataStart < 0) {
+                dataStart = recordEnd;
+                return;
+            }
+            if (++records % interval != 0) return;
+            if (size == positions.length) positions = Arrays.copyOf(positions, size * 2);
+            positions[size++] = recordEnd;
+        }
+
+        long[] positions() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
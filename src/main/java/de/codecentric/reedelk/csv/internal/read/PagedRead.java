@@ -0,0 +1,86 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.attribute.CSVAttributes;
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.commons.Utils;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.metrics.Measurement;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import de.codecentric.reedelk.runtime.api.component.Component;
+import de.codecentric.reedelk.runtime.api.message.Message;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+
+/**
+ * Reads a page of the records of a CSV file, given its row offset and row limit, with a {@link PagedCSVParser}:
+ * the position of the records in an uncompressed file might be looked up in its row index.
+ */
+public class PagedRead {
+
+    private static final int DEFAULT_ROW_INDEX_INTERVAL = 10000;
+
+    private final CSVReadConfiguration configuration;
+    private final PagedCSVParser parser;
+
+    private PagedRead(CSVReadConfiguration configuration, PagedCSVParser parser) {
+        this.configuration = configuration;
+        this.parser = parser;
+    }
+
+    /**
+     * Checks the given properties of the given component, the row index is stored next to the file if the
+     * row index directory is blank.
+     */
+    public static PagedRead of(Class<? extends Component> component, CSVReadConfiguration configuration,
+                               boolean rowIndex, Integer rowIndexInterval, String rowIndexDirectory) {
+        RowIndexStore rowIndexStore = null;
+        int actualRowIndexInterval = Optional.ofNullable(rowIndexInterval).orElse(DEFAULT_ROW_INDEX_INTERVAL);
+        if (rowIndex) {
+            requireTrue(component, actualRowIndexInterval > 0, "row index interval must be greater than zero");
+            requireTrue(component, PagedCSVParser.isIndexSupported(configuration.csvFormat(), configuration.charset()),
+                    "row index requires a charset encoding the line feed as a single byte, e.g. UTF-8, " +
+                            "and single byte delimiter, quote and escape characters");
+            rowIndexStore = new RowIndexStore(Utils.isBlank(rowIndexDirectory) ? null : Paths.get(rowIndexDirectory));
+        }
+        PagedCSVParser parser = new PagedCSVParser(configuration.engine(), configuration.csvFormat(), configuration.projection(),
+                configuration.charset(), configuration.readBufferSize(), rowIndexStore, actualRowIndexInterval);
+        return new PagedRead(configuration, parser);
+    }
+
+    public Message read(String filePathAndName, long offset, long limit, RowFilter filter, Measurement measurement) {
+        if (offset < 0 || limit < 0) {
+            String error = Messages.CSVRead.PAGE_NOT_VALID.format(offset, limit);
+            throw new CSVReadException(error);
+        }
+
+        // Only the records up to the last one returned are read: the file size is not counted.
+        StringDeduplicator deduplicator = configuration.newDeduplicator();
+        long tokenization = measurement.time();
+        PagedCSVParser.Result result;
+        if (configuration.isCompressed(filePathAndName)) {
+            try (Reader input = measurement.reader(configuration.openFile(filePathAndName))) {
+                result = parser.parse(input, offset, limit, filter, deduplicator);
+            } catch (IOException exception) {
+                String error = Messages.CSVRead.FILE_READ_ERROR.format(filePathAndName, exception.getMessage());
+                throw new CSVReadException(error, exception);
+            }
+        } else {
+            result = parser.parse(Paths.get(filePathAndName), offset, limit, filter, deduplicator);
+        }
+        measurement.tokenization(tokenization);
+        measurement.rows(result.rows().size());
+
+        CSVAttributes attributes = new CSVAttributes(filePathAndName);
+        attributes.page(offset, result.fromOffset());
+        if (deduplicator != null) attributes.deduplicationHitRatios(deduplicator.hitRatios());
+
+        long building = measurement.time();
+        return CSVReadConfiguration.end(measurement, building,
+                configuration.recordsMessage(result.headerNames(), result.rows(), attributes));
+    }
+}
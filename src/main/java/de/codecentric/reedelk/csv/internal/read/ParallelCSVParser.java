@@ -0,0 +1,286 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.csv.internal.type.StringDeduplicator;
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses a CSV file splitting it into byte ranges parsed concurrently on a fork join pool.
+ *
+ * Each split point is moved forward right after the next line feed which is not escaped.
+ * Such a line feed might still be inside a quoted value: the chunks are therefore parsed
+ * speculatively and then validated in file order. A chunk starting at a real record start
+ * parses exactly like the sequential parser would; if it ends in the middle of a record
+ * (e.g. EOF reached inside a quoted value) parsing it fails and it is merged with the
+ * next chunk and parsed again. The result is always the same as the sequential parse.
+ */
+public class ParallelCSVParser {
+
+    static final long DEFAULT_MIN_CHUNK_SIZE = 4L * 1024 * 1024;
+
+    private static final byte LF = '\n';
+
+    private final ForkJoinPool pool;
+    private final CSVParserEngine engine;
+    private final CSVFormat csvFormat;
+    private final ColumnProjection projection;
+    private final RowFilter filter;
+    private final StringDeduplicator deduplicator;
+    private final Charset charset;
+    private final int readBufferSize;
+    private final long minChunkSize;
+
+    public ParallelCSVParser(ForkJoinPool pool, CSVParserEngine engine, CSVFormat csvFormat, ColumnProjection projection, RowFilter filter, StringDeduplicator deduplicator, Charset charset, int readBufferSize) {
+        this(pool, engine, csvFormat, projection, filter, deduplicator, charset, readBufferSize, DEFAULT_MIN_CHUNK_SIZE);
+    }
+
+    ParallelCSVParser(ForkJoinPool pool, CSVParserEngine engine, CSVFormat csvFormat, ColumnProjection projection, RowFilter filter, StringDeduplicator deduplicator, Charset charset, int readBufferSize, long minChunkSize) {
+        this.pool = pool;
+        this.engine = engine;
+        this.csvFormat = csvFormat;
+        this.projection = projection;
+        this.filter = filter;
+        this.deduplicator = deduplicator;
+        this.charset = charset;
+        this.readBufferSize = readBufferSize;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Returns true if record boundaries can be found scanning the raw bytes: the
+     * charset must encode the line feed as the single byte 0x0A, which never appears
+     * inside multi byte sequences, and the escape character must be a single byte.
+     */
+    public boolean isSplittable() {
+        return isSplittable(csvFormat, charset);
+    }
+
+    static boolean isSplittable(CSVFormat csvFormat, Charset charset) {
+        boolean singleByteLineFeed = StandardCharsets.UTF_8.equals(charset) ||
+                (charset.newEncoder().maxBytesPerChar() == 1 && "\n".getBytes(charset)[0] == LF);
+        Character escape = csvFormat.getEscapeCharacter();
+        return singleByteLineFeed && (escape == null || escape < 0x80);
+    }
+
+    public Result parse(Path path) {
+        List<Long> boundaries = boundaries(path);
+
+        // Only the first chunk has the header: the columns are selected by index
+        // and the filter is resolved against the header of the file in all the chunks.
+        ColumnProjection chunkProjection;
+        RowFilter chunkFilter;
+        if (csvFormat.getHeader() != null && (!projection.isAll() || filter != RowFilter.NONE)) {
+            try (CSVRowParser parser = engine.parse(csvFormat, FileChannelReader.open(path, charset, readBufferSize), projection)) {
+                chunkProjection = projection.toIndexes(parser.getHeaderMap());
+                chunkFilter = filter.withHeader(parser.getHeaderMap(), parser.getHeaderNames());
+            } catch (IOException | IllegalArgumentException | IllegalStateException exception) {
+                throw new CSVReadException(exception.getMessage(), exception);
+            }
+        } else {
+            chunkProjection = projection;
+            chunkFilter = filter;
+        }
+
+        // The first chunk has the header record (if any), all the others must be parsed without it.
+        CSVFormat withoutHeader = csvFormat.withHeader((String[]) null).withSkipHeaderRecord(false);
+
+        long start = System.nanoTime();
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+        for (int i = 0; i < boundaries.size() - 1; i++) {
+            long from = boundaries.get(i);
+            long to = boundaries.get(i + 1);
+            CSVFormat chunkFormat = i == 0 ? csvFormat : withoutHeader;
+            tasks.add(pool.submit(() -> parseChunk(path, chunkFormat, chunkProjection, chunkFilter, from, to)));
+        }
+
+        List<String> headerNames = null;
+        List<CSVRow> rows = new ArrayList<>();
+        // Only the chunks making up the result are counted: the failed speculative parses are wasted work.
+        int chunks = 0;
+        long chunksNanos = 0;
+
+        int index = 0;
+        while (index < tasks.size()) {
+            Chunk chunk = tasks.get(index).join();
+            long from = boundaries.get(index);
+            CSVFormat chunkFormat = index == 0 ? csvFormat : withoutHeader;
+
+            // Not a record boundary (or invalid data): we merge
+            // with the following chunks until the parse succeeds.
+            while (chunk.failure != null && index < tasks.size() - 1) {
+                tasks.get(++index).cancel(false);
+                chunk = parseChunk(path, chunkFormat, chunkProjection, chunkFilter, from, boundaries.get(index + 1));
+            }
+            if (chunk.failure != null) {
+                throw new CSVReadException(chunk.failure.getMessage(), chunk.failure);
+            }
+
+            if (headerNames == null) headerNames = chunk.headerNames;
+            if (deduplicator != null) deduplicator.merge(chunk.deduplicator);
+            rows.addAll(chunk.rows);
+            chunks++;
+            chunksNanos += chunk.nanos;
+            index++;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        double speedup = elapsed == 0 ? 1.0 : (double) chunksNanos / elapsed;
+        return new Result(headerNames, rows, chunks, speedup);
+    }
+
+    private Chunk parseChunk(Path path, CSVFormat chunkFormat, ColumnProjection chunkProjection, RowFilter chunkFilter, long from, long to) {
+        long start = cpuTime();
+        // Each chunk has its own caches: the hit ratios of all the chunks are merged into the given deduplicator.
+        StringDeduplicator chunkDeduplicator = deduplicator == null ? null : deduplicator.newInstance();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             CSVRowParser parser = engine.parse(chunkFormat, new FileChannelReader(channel, from, to, charset,
+                     readBufferSize, to - from >= FileChannelReader.MEMORY_MAPPED_THRESHOLD), chunkProjection, chunkFilter, chunkDeduplicator)) {
+
+            List<CSVRow> rows = new ArrayList<>();
+            for (CSVRow row : parser) {
+                rows.add(row);
+            }
+            return new Chunk(parser.getHeaderNames(), rows, chunkDeduplicator, null, cpuTime() - start);
+
+        } catch (IOException | RuntimeException exception) {
+            return new Chunk(null, null, null, exception, cpuTime() - start);
+        }
+    }
+
+    // The CPU time of the current thread: unlike the wall clock time it does
+    // not include the time a chunk waited for a processor to be available.
+    private static long cpuTime() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ?
+                threadMXBean.getCurrentThreadCpuTime() :
+                System.nanoTime();
+    }
+
+    private List<Long> boundaries(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunks = Math.max(1, Math.min(pool.getParallelism() * 4L, size / minChunkSize));
+
+            List<Long> boundaries = new ArrayList<>();
+            boundaries.add(0L);
+            for (long i = 1; i < chunks; i++) {
+                long splitPoint = Math.max(i * size / chunks, boundaries.get(boundaries.size() - 1));
+                long boundary = nextRecordStart(channel, splitPoint, size);
+                if (boundary < size && boundary > boundaries.get(boundaries.size() - 1)) {
+                    boundaries.add(boundary);
+                }
+            }
+            boundaries.add(size);
+            return Collections.unmodifiableList(boundaries);
+
+        } catch (IOException exception) {
+            throw new CSVReadException(exception.getMessage(), exception);
+        }
+    }
+
+    // Returns the position right after the first line feed at or after
+    // the given position which is not escaped, or the size if there is none.
+    private long nextRecordStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long bufferPosition = position;
+        while (bufferPosition < size) {
+            buffer.clear();
+            int read = channel.read(buffer, bufferPosition);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                long candidate = bufferPosition + i;
+                if (buffer.get(i) == LF && !isEscaped(channel, candidate)) {
+                    return candidate + 1;
+                }
+            }
+            bufferPosition += read;
+        }
+        return size;
+    }
+
+    // A character is escaped if it is preceded by an odd number of escape characters.
+    private boolean isEscaped(FileChannel channel, long position) throws IOException {
+        Character escape = csvFormat.getEscapeCharacter();
+        if (escape == null) return false;
+
+        ByteBuffer single = ByteBuffer.allocate(1);
+        int escapes = 0;
+        for (long i = position - 1; i >= 0; i--) {
+            single.clear();
+            if (channel.read(single, i) <= 0 || single.get(0) != (byte) escape.charValue()) break;
+            escapes++;
+        }
+        return escapes % 2 == 1;
+    }
+
+    public static class Result {
+
+        private final List<String> headerNames;
+        private final List<CSVRow> rows;
+        private final int chunks;
+        private final double speedup;
+
+        Result(List<String> headerNames, List<CSVRow> rows, int chunks, double speedup) {
+            this.headerNames = headerNames;
+            this.rows = rows;
+            this.chunks = chunks;
+            this.speedup = speedup;
+        }
+
+        public List<String> headerNames() {
+            return headerNames;
+        }
+
+        public List<CSVRow> rows() {
+            return rows;
+        }
+
+        /**
+         * The number of chunks the file was parsed in, once the chunks not starting at a record are merged.
+         */
+        public int chunks() {
+            return chunks;
+        }
+
+        /**
+         * The sum of the CPU time spent parsing each chunk divided by the elapsed time. The time spent on the
+         * speculative parses of the chunks which were then merged is not counted.
+         */
+        public double speedup() {
+            return speedup;
+        }
+    }
+
+    private static class Chunk {
+
+        final List<String> headerNames;
+        final List<CSVRow> rows;
+        final StringDeduplicator deduplicator;
+        final Exception failure;
+        final long nanos;
+
+        Chunk(List<String> headerNames, List<CSVRow> rows, StringDeduplicator deduplicator, Exception failure, long nanos) {
+            this.headerNames = headerNames;
+            this.rows = rows;
+            this.deduplicator = deduplicator;
+            this.failure = failure;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.metrics.CSVMetrics;
+import de.codecentric.reedelk.csv.internal.type.CSVRecord;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import de.codecentric.reedelk.csv.internal.type.CSVTable;
+
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * Cache of the records parsed from CSV files, shared by all the CSV Read components of the module using it.
+ * An entry is keyed by the absolute path of the file and by the parse key of the component reading it, i.e.
+ * everything in its configuration changing the parsed records, such as the CSV format. An entry is valid as
+ * long as the file has the size and the last modified time it had before it was parsed: a file modified twice
+ * within the resolution of the file system timestamps without changing its size is not detected.
+ *
+ * The cache is bounded by the estimated heap size of the cached records: when it is exceeded the least
+ * recently used entries are evicted. Its maximum size is the largest one of the components using it.
+ * The files are parsed outside of the cache lock: concurrent misses of the same entry parse the file
+ * concurrently and the last parsed records are kept.
+ */
+public class ParseCache implements ParseCacheMXBean {
+
+    private static final List<Long> USERS = new ArrayList<>(); // the maximum size of each component using the cache
+    private static ParseCache shared;
+
+    private final ObjectName objectName;
+    private boolean registered;
+
+    // In access order: the first entry is the least recently used one.
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxSize;
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ParseCache(long maxSize) {
+        this.objectName = objectName();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the shared cache, created and registered in the platform MBean server by the first component using it.
+     * The maximum size of the cache is raised to the given one if it is smaller. Each acquire must be released.
+     */
+    public static synchronized ParseCache acquire(long maxSize) {
+        USERS.add(maxSize);
+        if (shared == null) {
+            shared = new ParseCache(maxSize);
+            shared.register();
+        } else {
+            shared.maxSize(Collections.max(USERS));
+        }
+        return shared;
+    }
+
+    /**
+     * Releases the shared cache acquired with the given maximum size: once it is not used
+     * anymore, it is cleared and unregistered, otherwise its maximum size is updated.
+     */
+    public static synchronized void release(long maxSize) {
+        USERS.remove(Long.valueOf(maxSize));
+        if (shared == null) return;
+        if (USERS.isEmpty()) {
+            shared.clear();
+            shared.unregister();
+            shared = null;
+        } else {
+            shared.maxSize(Collections.max(USERS));
+        }
+    }
+
+    /**
+     * Returns the records parsed from the given file with the given parse key, if the file did not change
+     * since they were cached, or null. A stale entry is removed.
+     */
+    public synchronized Object get(Path path, String parseKey, Version version) {
+        Key key = new Key(path, parseKey);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version.equals(version)) {
+            hits++;
+            return entry.records;
+        }
+        if (entry != null) remove(key);
+        misses++;
+        return null;
+    }
+
+    /**
+     * Caches the records parsed from the given version of the given file with the given parse key. The records
+     * must not be modified once they are cached. Records larger than the maximum size of the cache are not cached.
+     */
+    public void put(Path path, String parseKey, Version version, Object records) {
+        long recordsSize = sizeOf(records);
+        Key key = new Key(path, parseKey);
+        synchronized (this) {
+            if (recordsSize > maxSize) return;
+            remove(key);
+            entries.put(key, new Entry(version, records, recordsSize));
+            size += recordsSize;
+            evict();
+        }
+    }
+
+    @Override
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    @Override
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized double getHitRatio() {
+        long reads = hits + misses;
+        return reads == 0 ? 0 : (double) hits / reads;
+    }
+
+    @Override
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized int getEntries() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized long getSizeBytes() {
+        return size;
+    }
+
+    @Override
+    public synchronized long getMaxSizeBytes() {
+        return maxSize;
+    }
+
+    @Override
+    public synchronized void reset() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * The estimated heap size in bytes of the given records: a table or a list of records or rows.
+     */
+    static long sizeOf(Object records) {
+        if (records instanceof CSVTable) return ((CSVTable) records).estimatedSize();
+        List<?> list = (List<?>) records;
+        long size = 40 + 8L * list.size();
+        for (Object record : list) {
+            if (record instanceof CSVRecord) size += ((CSVRecord) record).estimatedSize();
+            else if (record instanceof CSVRow) size += ((CSVRow) record).estimatedSize();
+        }
+        return size;
+    }
+
+    private synchronized void maxSize(long maxSize) {
+        this.maxSize = maxSize;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            size -= iterator.next().size;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) size -= removed.size;
+    }
+
+    private void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registered = true;
+        } catch (JMException exception) {
+            // Registered by another copy of the module: the statistics of this one are not exposed.
+        }
+    }
+
+    private void unregister() {
+        if (!registered) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException exception) {
+            // Already unregistered by someone else: nothing to do.
+        }
+    }
+
+    private static ObjectName objectName() {
+        try {
+            return new ObjectName(CSVMetrics.DOMAIN + ":type=ParseCache");
+        } catch (MalformedObjectNameException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    /**
+     * The size and the last modified time of a file, read before it is parsed.
+     */
+    public static final class Version {
+
+        private final long size;
+        private final long lastModified;
+
+        Version(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public static Version of(Path path) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new Version(attributes.size(), attributes.lastModifiedTime().toMillis());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof Version)) return false;
+            Version version = (Version) other;
+            return size == version.size && lastModified == version.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified);
+        }
+    }
+
+    private static final class Key {
+
+        private final Path path;
+        private final String parseKey;
+
+        Key(Path path, String parseKey) {
+            this.path = path.toAbsolutePath().normalize();
+            this.parseKey = parseKey;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return path.equals(key.path) && parseKey.equals(key.parseKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, parseKey);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Version version;
+        private final Object records;
+        private final long size;
+
+        Entry(Version version, Object records, long size) {
+            this.version = version;
+            this.records = records;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+/**
+ * Statistics of the parse cache shared by the CSV Read components, registered in the platform
+ * MBean server with object name de.codecentric.reedelk.csv:type=ParseCache while it is used.
+ */
+public interface ParseCacheMXBean {
+
+    long getHits();
+
+    /**
+     * The number of reads not found in the cache, including the ones of files modified since they were cached.
+     */
+    long getMisses();
+
+    double getHitRatio();
+
+    /**
+     * The number of entries evicted because the cache was full.
+     */
+    long getEvictions();
+
+    int getEntries();
+
+    /**
+     * The estimated heap size in bytes of the cached records.
+     */
+    long getSizeBytes();
+
+    long getMaxSizeBytes();
+
+    /**
+     * Resets the statistics, the cached records are kept.
+     */
+    void reset();
+
+    /**
+     * Removes all the cached records: the files are parsed again by the next reads.
+     */
+    void clear();
+}
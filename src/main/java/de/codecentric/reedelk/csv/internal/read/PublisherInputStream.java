@@ -0,0 +1,78 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import org.reactivestreams.Publisher;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Input stream reading the byte arrays of a publisher, e.g. of a binary stream payload, as they arrive.
+ * Only a few arrays are requested ahead of the one being read: the whole stream is never collected
+ * in memory. The publisher is subscribed on the first read and the subscription is cancelled on close.
+ */
+public class PublisherInputStream extends InputStream {
+
+    // Max number of byte arrays requested ahead of the one being read.
+    private static final int PREFETCH = 16;
+
+    private final Publisher<byte[]> publisher;
+
+    private Stream<byte[]> chunks;
+    private Iterator<byte[]> iterator;
+    private byte[] chunk;
+    private int position;
+
+    public PublisherInputStream(Publisher<byte[]> publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!next()) return -1;
+        return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] destination, int offset, int length) throws IOException {
+        if (length == 0) return 0;
+        if (!next()) return -1;
+        int count = Math.min(length, chunk.length - position);
+        System.arraycopy(chunk, position, destination, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return chunk == null ? 0 : chunk.length - position;
+    }
+
+    @Override
+    public void close() {
+        if (chunks != null) chunks.close();
+    }
+
+    // Makes the next byte available, returns false at the end of the stream.
+    private boolean next() throws IOException {
+        if (iterator == null) {
+            chunks = Flux.from(publisher).toStream(PREFETCH);
+            iterator = chunks.iterator();
+        }
+        try {
+            while (chunk == null || position == chunk.length) {
+                if (!iterator.hasNext()) return false;
+                chunk = iterator.next();
+                position = 0;
+            }
+            return true;
+        } catch (RuntimeException exception) {
+            Throwable cause = Exceptions.unwrap(exception);
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Predicate;
+
+/**
+ * Reader keeping the raw text of each record read through it, as it is in the input and without its line
+ * separator. The records are found as the {@link RecordScanner} finds them in a file, except that a line
+ * separator is a carriage return, a line feed or both, as for the parsers. The raw text of a record is kept
+ * once the parser reading from this reader has read the end of the record: the raw text of each row returned
+ * by the parser is matched by the filter returned by {@link #track(RowFilter)}.
+ */
+class RawRecordReader extends Reader {
+
+    private static final char LF = '\n';
+    private static final char CR = '\r';
+
+    private final Reader input;
+    private final boolean headerRecord;
+
+    // The delimiter is a char, the others are -1 if not set: -1 never matches.
+    private final char delimiter;
+    private final int quote;
+    private final int escape;
+    private final int commentMarker;
+    private final boolean skipSpaces;
+    private final boolean ignoreEmptyLines;
+
+    private final Deque<String> records = new ArrayDeque<>();
+    private final StringBuilder record = new StringBuilder(128);
+    private boolean recordStart = true;
+    private boolean comment;
+    private boolean valueStart = true;
+    private boolean quoted;
+    private boolean closed; // a quote closed the quoted value, unless the next char is a quote
+    private boolean escaped;
+    private boolean carriageReturn; // the previous record ended with a carriage return
+    private String accepted;
+
+    RawRecordReader(Reader input, CSVFormat csvFormat) {
+        Character quoteCharacter = csvFormat.getQuoteCharacter();
+        Character escapeCharacter = csvFormat.getEscapeCharacter();
+        Character commentMarkerCharacter = csvFormat.getCommentMarker();
+        String[] header = csvFormat.getHeader();
+        this.input = input;
+        this.headerRecord = header != null && (header.length == 0 || csvFormat.getSkipHeaderRecord());
+        this.delimiter = csvFormat.getDelimiter();
+        this.quote = quoteCharacter == null ? -1 : quoteCharacter;
+        this.escape = escapeCharacter == null ? -1 : escapeCharacter;
+        this.commentMarker = commentMarkerCharacter == null ? -1 : commentMarkerCharacter;
+        this.skipSpaces = csvFormat.getIgnoreSurroundingSpaces();
+        this.ignoreEmptyLines = csvFormat.getIgnoreEmptyLines();
+    }
+
+    /**
+     * Returns the given filter wrapped to take the raw text of each record tested by the parser: the raw text
+     * of the last row accepted is returned by {@link #accepted()}. The header record, if any, is read by the
+     * parser before the filter is bound: its raw text is discarded.
+     */
+    RowFilter track(RowFilter filter) {
+        return (headerMap, selection, headerNames) -> {
+            if (headerRecord) records.poll();
+            Predicate<CSVRow.Builder> predicate = filter.bind(headerMap, selection, headerNames);
+            return row -> {
+                String raw = records.poll();
+                if (predicate != null && !predicate.test(row)) return false;
+                accepted = raw;
+                return true;
+            };
+        };
+    }
+
+    /**
+     * The raw text of the last row accepted by the tracking filter.
+     */
+    String accepted() {
+        return accepted;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        int read = input.read(buffer, offset, length);
+        if (read < 0) {
+            end();
+            return read;
+        }
+        for (int i = offset; i < offset + read; i++) {
+            accept(buffer[i]);
+        }
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private void accept(char c) {
+        if (recordStart) {
+            if (carriageReturn) {
+                carriageReturn = false;
+                if (c == LF) return;
+            }
+            recordStart = false;
+            comment = c == commentMarker;
+        }
+
+        if (comment) {
+            if (c == LF || c == CR) endLine(c, false);
+            return;
+        }
+
+        if (escaped) {
+            escaped = false;
+            valueStart = false;
+        } else if (c == escape) {
+            escaped = true;
+        } else if (quoted) {
+            if (c == quote) {
+                quoted = false;
+                closed = true;
+            }
+        } else if (closed && c == quote) {
+            quoted = true;
+            closed = false;
+        } else if (valueStart && c == quote) {
+            quoted = true;
+            valueStart = false;
+        } else if (c == LF || c == CR) {
+            endLine(c, true);
+            return;
+        } else {
+            closed = false;
+            valueStart = c == delimiter || (valueStart && skipSpaces && c == ' ');
+        }
+        record.append(c);
+    }
+
+    private void endLine(char separator, boolean isRecord) {
+        if (isRecord && !(record.length() == 0 && ignoreEmptyLines)) records.add(record.toString());
+        record.setLength(0);
+        recordStart = true;
+        valueStart = true;
+        closed = false;
+        carriageReturn = separator == CR;
+    }
+
+    // The last record might not end with a line separator.
+    private void end() {
+        if (!recordStart && !comment) records.add(record.toString());
+        record.setLength(0);
+        recordStart = true;
+    }
+}
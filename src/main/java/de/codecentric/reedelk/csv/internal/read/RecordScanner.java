@@ -0,0 +1,122 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import org.apache.commons.csv.CSVFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.function.LongConsumer;
+
+/**
+ * Finds the records of a CSV file scanning its raw bytes, without decoding nor parsing them: a record
+ * ends at a line feed which is neither escaped nor inside a quoted value. A quote opens a quoted value
+ * only at the start of a value, a quote in a quoted value closes it unless it is followed by another quote.
+ * As for the parsers, comment lines are not records, nor are empty lines if the format ignores them.
+ */
+class RecordScanner {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int LF = '\n';
+    private static final int CR = '\r';
+
+    // All of them are single bytes, see isSupported: -1 never matches.
+    private final int delimiter;
+    private final int quote;
+    private final int escape;
+    private final int commentMarker;
+    private final boolean skipSpaces;
+    private final boolean ignoreEmptyLines;
+
+    RecordScanner(CSVFormat csvFormat) {
+        Character quoteCharacter = csvFormat.getQuoteCharacter();
+        Character escapeCharacter = csvFormat.getEscapeCharacter();
+        Character commentMarkerCharacter = csvFormat.getCommentMarker();
+        this.delimiter = csvFormat.getDelimiter();
+        this.quote = quoteCharacter == null ? -1 : quoteCharacter;
+        this.escape = escapeCharacter == null ? -1 : escapeCharacter;
+        this.commentMarker = commentMarkerCharacter == null ? -1 : commentMarkerCharacter;
+        this.skipSpaces = csvFormat.getIgnoreSurroundingSpaces();
+        this.ignoreEmptyLines = csvFormat.getIgnoreEmptyLines();
+    }
+
+    /**
+     * Returns true if the records can be found scanning the raw bytes: as for the parallel parser,
+     * and the delimiter, the quote character and the comment marker must be single bytes as well.
+     */
+    static boolean isSupported(CSVFormat csvFormat, Charset charset) {
+        Character quote = csvFormat.getQuoteCharacter();
+        Character commentMarker = csvFormat.getCommentMarker();
+        return ParallelCSVParser.isSplittable(csvFormat, charset) &&
+                csvFormat.getDelimiter() < 0x80 &&
+                (quote == null || quote < 0x80) &&
+                (commentMarker == null || commentMarker < 0x80);
+    }
+
+    /**
+     * Scans the file from the given position, which is the start of a record, up to the given size. Returns the
+     * position right after the last line feed ending a record, comment or empty line, or the given position if
+     * there is none. The given consumer, if any, is given the position right after the line feed of each record.
+     */
+    long scan(FileChannel channel, long position, long size, LongConsumer recordEnds) throws IOException {
+        long end = position;
+        boolean recordStart = true;
+        boolean empty = true; // nothing but carriage returns since the start of the record
+        boolean comment = false;
+        boolean valueStart = true;
+        boolean quoted = false;
+        boolean closed = false; // a quote closed the quoted value, unless the next byte is a quote
+        boolean escaped = false;
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long bufferPosition = position;
+        while (bufferPosition < size) {
+            buffer.clear();
+            int read = channel.read(buffer, bufferPosition);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                int b = buffer.get(i) & 0xFF;
+                if (recordStart) {
+                    recordStart = false;
+                    comment = b == commentMarker;
+                }
+                if (b != LF && b != CR) empty = false;
+
+                if (comment) {
+                    if (b == LF) {
+                        end = bufferPosition + i + 1;
+                        recordStart = true;
+                        empty = true;
+                    }
+                } else if (escaped) {
+                    escaped = false;
+                    valueStart = false;
+                } else if (b == escape) {
+                    escaped = true;
+                } else if (quoted) {
+                    if (b == quote) {
+                        quoted = false;
+                        closed = true;
+                    }
+                } else if (closed && b == quote) {
+                    quoted = true;
+                    closed = false;
+                } else if (valueStart && b == quote) {
+                    quoted = true;
+                    valueStart = false;
+                } else {
+                    closed = false;
+                    valueStart = b == delimiter || b == LF || (valueStart && skipSpaces && b == ' ');
+                    if (b == LF) {
+                        end = bufferPosition + i + 1;
+                        if (recordEnds != null && !(empty && ignoreEmptyLines)) recordEnds.accept(end);
+                        recordStart = true;
+                        empty = true;
+                    }
+                }
+            }
+            bufferPosition += read;
+        }
+        return end;
+    }
+}
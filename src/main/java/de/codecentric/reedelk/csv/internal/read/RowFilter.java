@@ -0,0 +1,120 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.component.FilterOperator;
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.type.CSVRecord;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Selects the rows returned by a parser. Engines evaluate the filter on the values of each
+ * row before the row is built, therefore a rejected row is never returned nor allocated.
+ * A filter is thread safe, the predicate it is bound to is used by a single parser.
+ */
+public interface RowFilter {
+
+    RowFilter NONE = (headerMap, selection, headerNames) -> null;
+
+    /**
+     * Resolves the filter against the header of the CSV data: the header name to column index map
+     * of all the columns and the names of the selected columns, both empty if there is no header.
+     * The selection is null if all the columns are selected. Returns null if all the rows are accepted.
+     */
+    Predicate<CSVRow.Builder> bind(Map<String, Integer> headerMap, ColumnProjection.Selection selection, List<String> headerNames);
+
+    /**
+     * Accepts the rows having the value of the given column, a header name or a zero based
+     * column index, matching the given value. The values are compared in place, char by char.
+     */
+    static RowFilter where(String column, FilterOperator operator, String value) {
+        String trimmed = column.trim();
+        String actualValue = value == null ? "" : value;
+        return (headerMap, selection, headerNames) -> {
+            int index = ColumnProjection.indexOf(trimmed, headerMap);
+            int rowIndex = selection == null ? index : selection.rowIndexOf(index);
+            if (rowIndex < 0) {
+                String error = Messages.CSVRead.FILTER_COLUMN_NOT_SELECTED.format(trimmed);
+                throw new CSVReadException(error);
+            }
+            return matcher(operator, rowIndex, actualValue);
+        };
+    }
+
+    /**
+     * Returns the predicate matching the value at the given index of the row being built against the given value
+     * with the given operator. A missing value, i.e. the row has fewer values than the index, is considered null.
+     */
+    static Predicate<CSVRow.Builder> matcher(FilterOperator operator, int index, String value) {
+        Predicate<CSVRow.Builder> notNull = row -> index < row.size() && !row.isNull(index);
+        switch (operator) {
+            case EQUALS:
+                return notNull.and(row -> row.length(index) == value.length() && row.regionMatches(index, 0, value));
+            case NOT_EQUALS:
+                return matcher(FilterOperator.EQUALS, index, value).negate();
+            case CONTAINS:
+                return notNull.and(row -> {
+                    int last = row.length(index) - value.length();
+                    for (int offset = 0; offset <= last; offset++) {
+                        if (row.regionMatches(index, offset, value)) return true;
+                    }
+                    return false;
+                });
+            case STARTS_WITH:
+                return notNull.and(row -> row.regionMatches(index, 0, value));
+            case ENDS_WITH:
+                return notNull.and(row -> row.regionMatches(index, row.length(index) - value.length(), value));
+            case IS_EMPTY:
+                return notNull.negate().or(row -> row.length(index) == 0);
+            case IS_NOT_EMPTY:
+                return matcher(FilterOperator.IS_EMPTY, index, value).negate();
+            default:
+                throw new IllegalArgumentException("Not a filter operator: " + operator);
+        }
+    }
+
+    /**
+     * Accepts the rows matching the given predicate. Unlike the column filter, the row
+     * is built before evaluating the predicate: it is meant for arbitrary conditions only.
+     */
+    static RowFilter rows(Predicate<CSVRow> predicate) {
+        return (headerMap, selection, headerNames) -> row -> predicate.test(row.peek());
+    }
+
+    /**
+     * Accepts the records, i.e. the rows mapped by header name, matching the given predicate.
+     */
+    static RowFilter records(Predicate<CSVRecord> predicate) {
+        return (headerMap, selection, headerNames) -> {
+            CSVRecord.Header header = CSVRecord.Header.of(headerNames);
+            return row -> predicate.test(new CSVRecord(header, row.peek()));
+        };
+    }
+
+    /**
+     * Accepts the rows accepted by both filters, this one is evaluated first.
+     */
+    default RowFilter and(RowFilter other) {
+        if (this == NONE) return other;
+        if (other == NONE) return this;
+        return (headerMap, selection, headerNames) -> {
+            Predicate<CSVRow.Builder> first = bind(headerMap, selection, headerNames);
+            Predicate<CSVRow.Builder> second = other.bind(headerMap, selection, headerNames);
+            if (first == null) return second;
+            if (second == null) return first;
+            return first.and(second);
+        };
+    }
+
+    /**
+     * Returns this filter resolved against the given header instead of the one of the parsed data,
+     * e.g. for the chunks of a file parsed in parallel, which do not have the header record.
+     */
+    default RowFilter withHeader(Map<String, Integer> headerMap, List<String> headerNames) {
+        if (this == NONE) return this;
+        return (ignoredHeaderMap, selection, ignoredHeaderNames) -> bind(headerMap, selection, headerNames);
+    }
+}
@@ -0,0 +1,160 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local store of the row indexes of the CSV files read by pages. The row index of a file is stored
+ * next to the file, with the .rowindex extension, or in the store directory if there is one, named
+ * after the hash of the absolute file path. Row indexes are replaced atomically, as checkpoints are.
+ * An index which can not be read, e.g. because it was written by another version, is rebuilt.
+ * An index which can not be written, e.g. next to a file on a read only share, is not used.
+ */
+public class RowIndexStore {
+
+    private static final String EXTENSION = ".rowindex";
+    private static final int MAGIC = 0x43535649; // CSVI
+    private static final int VERSION = 1;
+
+    // All the stores share the locks: the same row index is never built concurrently.
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    /**
+     * The directory where the row indexes are stored, or null to store them next to the files.
+     */
+    public RowIndexStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns true if the given file is a row index, or a row index being written.
+     */
+    static boolean isIndexFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(EXTENSION) || (name.contains(EXTENSION) && name.endsWith(".tmp"));
+    }
+
+    /**
+     * Returns the lock to be held while reading and building the row index of the given file.
+     */
+    Object lock(Path file) {
+        return LOCKS.computeIfAbsent(indexPath(file), key -> new Object());
+    }
+
+    /**
+     * Returns the row index of the given file, or null if there is none or it can not be read.
+     */
+    RowIndex load(Path file) {
+        Path indexPath = indexPath(file);
+        if (!Files.exists(indexPath)) return null;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) return null;
+            long size = input.readLong();
+            long lastModified = input.readLong();
+            String formatKey = input.readUTF();
+            int interval = input.readInt();
+            int headerSize = input.readInt();
+            List<String> headerNames = new ArrayList<>(headerSize);
+            for (int i = 0; i < headerSize; i++) {
+                headerNames.add(input.readUTF());
+            }
+            long[] positions = new long[input.readInt()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = input.readLong();
+            }
+            return new RowIndex(size, lastModified, formatKey, interval, Collections.unmodifiableList(headerNames), positions);
+        } catch (IOException | RuntimeException exception) {
+            // The index is rebuilt.
+            return null;
+        }
+    }
+
+    /**
+     * Saves the row index of the given file and returns true, or returns false if it can not be written.
+     */
+    boolean save(Path file, RowIndex index) {
+        Path indexPath = indexPath(file);
+        try {
+            Path indexDirectory = indexPath.toAbsolutePath().getParent();
+            Files.createDirectories(indexDirectory);
+            Path temporary = Files.createTempFile(indexDirectory, indexPath.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    output.writeInt(MAGIC);
+                    output.writeInt(VERSION);
+                    output.writeLong(index.size);
+                    output.writeLong(index.lastModified);
+                    output.writeUTF(index.formatKey);
+                    output.writeInt(index.interval);
+                    output.writeInt(index.headerNames.size());
+                    for (String headerName : index.headerNames) {
+                        output.writeUTF(headerName);
+                    }
+                    output.writeInt(index.positions.length);
+                    for (long position : index.positions) {
+                        output.writeLong(position);
+                    }
+                }
+                CheckpointStore.move(temporary, indexPath);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            return true;
+        } catch (IOException exception) {
+            return false;
+        }
+    }
+
+    Path indexPath(Path file) {
+        if (directory == null) {
+            Path absolute = file.toAbsolutePath().normalize();
+            return absolute.resolveSibling(absolute.getFileName() + EXTENSION);
+        }
+        return directory.resolve(CheckpointStore.sha256(CheckpointStore.key(file)) + EXTENSION);
+    }
+
+    /**
+     * The positions in a file of the data records at regular intervals, i.e. the position of
+     * the record number (i + 1) * interval is at index i, the zero based record numbers
+     * excluding the header record. The size and the last modified time of the file, the format
+     * it was built with and the names of all the header columns (if any) are kept with them:
+     * an index is valid only as long as the file and the format do not change.
+     */
+    static class RowIndex {
+
+        final long size;
+        final long lastModified;
+        final String formatKey;
+        final int interval;
+        final List<String> headerNames;
+        final long[] positions;
+
+        RowIndex(long size, long lastModified, String formatKey, int interval, List<String> headerNames, long[] positions) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.formatKey = formatKey;
+            this.interval = interval;
+            this.headerNames = headerNames;
+            this.positions = positions;
+        }
+
+        boolean isValid(long size, long lastModified, String formatKey, int interval) {
+            return this.size == size &&
+                    this.lastModified == lastModified &&
+                    this.interval == interval &&
+                    this.formatKey.equals(formatKey);
+        }
+    }
+}
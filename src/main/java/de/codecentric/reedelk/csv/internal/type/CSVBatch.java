@@ -0,0 +1,41 @@
+package de.codecentric.reedelk.csv.internal.type;
+
+import de.codecentric.reedelk.csv.internal.attribute.CSVAttributes;
+import de.codecentric.reedelk.runtime.api.annotation.Type;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A batch of consecutive records (or rows, if the first record is not a header) of a CSV read
+ * emitted in batches. The attributes of a batch are the attributes of the read message with the
+ * zero based index of the batch and the range of the one based positions of its records among
+ * all the records returned by the read.
+ */
+@Type(listItemType = CSVRecord.class)
+public class CSVBatch<T> extends AbstractList<T> implements RandomAccess, Serializable {
+
+    private final List<T> records;
+    private final CSVAttributes attributes;
+
+    public CSVBatch(List<T> records, CSVAttributes attributes) {
+        this.records = records;
+        this.attributes = attributes;
+    }
+
+    @Override
+    public T get(int index) {
+        return records.get(index);
+    }
+
+    @Override
+    public int size() {
+        return records.size();
+    }
+
+    public CSVAttributes attributes() {
+        return attributes;
+    }
+}
@@ -2,49 +2,101 @@ package de.codecentric.reedelk.csv.internal.type;
 
 import de.codecentric.reedelk.runtime.api.annotation.Type;
 import de.codecentric.reedelk.runtime.api.exception.PlatformException;
+import org.apache.commons.csv.CSVFormat;
 
+import java.io.Serializable;
 import java.util.*;
 
 import static java.lang.String.format;
 
+/**
+ * Read only map view of a CSV row: the {@link Header} is shared by all the records
+ * of the same CSV data and the values are stored in a compact {@link CSVRow}.
+ * The key, value and entry views are views over the header and the row values,
+ * ordered by column: iterating a record copies nothing. Values can also be accessed
+ * by column index or by a {@link Column} handle resolved once from the header.
+ */
 @Type(mapKeyType = String.class, mapValueType = String.class)
-public class CSVRecord extends HashMap<String, String> {
+public class CSVRecord extends AbstractMap<String, String> implements Serializable {
 
     private final List<String> values;
-    private final Map<String,Integer> headerNameIndexMap;
+    private final Header header;
+    private final String raw;
 
-    public CSVRecord(Map<String,Integer> headerNameIndexMap, List<String> values) {
+    public CSVRecord(Header header, List<String> values) {
+        this(header, values, null);
+    }
+
+    public CSVRecord(Header header, List<String> values, String raw) {
         this.values = values;
-        this.headerNameIndexMap = headerNameIndexMap;
+        this.header = header;
+        this.raw = raw;
+    }
+
+    public Header header() {
+        return header;
+    }
+
+    /**
+     * The text of the record as it was in the CSV data, without the line separator,
+     * or null if it was not kept: the values are neither unquoted nor unescaped.
+     */
+    public String raw() {
+        return raw;
+    }
+
+    /**
+     * True if the raw text of this record is kept and it has exactly the values of this record: a value
+     * for each header name, in the same order, and no header name is repeated.
+     */
+    public boolean hasCompleteRaw() {
+        return raw != null && header.sequential && values.size() == header.names.length;
+    }
+
+    /**
+     * Returns the value at the given zero based index of the row.
+     */
+    public String value(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * Returns the value of the given column, a handle resolved from the header of the record.
+     */
+    public String value(Column column) {
+        return values.get(column.index);
     }
 
     @Override
     public int size() {
-        return values.size();
+        return header.names.length;
     }
 
     @Override
     public boolean isEmpty() {
-        return values.isEmpty();
+        return header.names.length == 0;
     }
 
     @Override
     public boolean containsKey(Object key) {
-        return headerNameIndexMap.containsKey(key);
+        return header.indexes.containsKey(key);
     }
 
     @Override
     public boolean containsValue(Object value) {
-        return values.contains(value);
+        for (int index : header.columns) {
+            if (Objects.equals(valueAt(index), value)) return true;
+        }
+        return false;
     }
 
     @Override
     public String get(Object key) {
-        if (!headerNameIndexMap.containsKey(key)) {
+        Integer valueIndex = header.indexes.get(key);
+        if (valueIndex == null) {
             throw new PlatformException(format("Could not find CSV header column named=[%s]", key));
         }
-        Integer valueIndex = headerNameIndexMap.get(key);
-        return values.get(valueIndex);
+        return valueAt(valueIndex);
     }
 
     @Override
@@ -69,22 +121,251 @@ public class CSVRecord extends HashMap<String, String> {
 
     @Override
     public Set<String> keySet() {
-        return headerNameIndexMap.keySet();
+        return header.keySet;
     }
 
     @Override
     public Collection<String> values() {
-        return values;
+        if (header.sequential && values.size() == header.columns.length) return values;
+        return new AbstractList<String>() {
+
+            @Override
+            public String get(int index) {
+                return valueAt(header.columns[index]);
+            }
+
+            @Override
+            public int size() {
+                return header.columns.length;
+            }
+        };
     }
 
     @Override
     public Set<Map.Entry<String, String>> entrySet() {
-        Map<String, String> map = new HashMap<>();
-        for (Map.Entry<String,Integer> entry : headerNameIndexMap.entrySet()) {
-            String columnName = entry.getKey();
-            Integer columnIndex = entry.getValue();
-            map.put(columnName, values.get(columnIndex));
+        return new AbstractSet<Map.Entry<String, String>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return header.names.length;
+            }
+        };
+    }
+
+    /**
+     * The approximate number of bytes of heap used by the values of this record.
+     * The header is shared by all the records and it is not counted.
+     */
+    public long estimatedSize() {
+        long rawSize = raw == null ? 0 : 40 + 2L * raw.length();
+        if (values instanceof CSVRow) return 24 + rawSize + ((CSVRow) values).estimatedSize();
+        long size = 24 + rawSize + 40 + 8L * values.size();
+        for (String value : values) {
+            if (value != null) size += 40 + 2L * value.length();
+        }
+        return size;
+    }
+
+    // A row might have less values than the header has columns.
+    private String valueAt(int index) {
+        return index < values.size() ? values.get(index) : null;
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<String, String>> {
+
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+            return next < header.names.length;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return new Entry(next++);
+        }
+    }
+
+    // The value string is only created if it is accessed, as for the row values.
+    private class Entry implements Map.Entry<String, String> {
+
+        private final int position;
+
+        Entry(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public String getKey() {
+            return header.names[position];
+        }
+
+        @Override
+        public String getValue() {
+            return valueAt(header.columns[position]);
+        }
+
+        @Override
+        public String setValue(String value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Map.Entry)) return false;
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) other;
+            return getKey().equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    /**
+     * The header names of the records of the same CSV data, mapped to their column index.
+     * If a name is repeated, the last column having it is the one mapped to the name.
+     */
+    public static final class Header implements Serializable {
+
+        private final Map<String, Integer> indexes;
+        private final String[] names; // distinct names, ordered by column index
+        private final int[] columns; // the column index of each name
+        private final boolean sequential; // true if the names are the columns from 0 to n-1, i.e. no name is repeated
+        private final Set<String> keySet;
+        private final CSVFormat csvFormat; // the format the records were read with, null if unknown
+
+        private Header(Map<String, Integer> indexes, String[] names, int[] columns, CSVFormat csvFormat) {
+            this.indexes = indexes;
+            this.names = names;
+            this.columns = columns;
+            this.sequential = columns.length == 0 || columns[columns.length - 1] == columns.length - 1;
+            this.keySet = new KeySet(names, indexes);
+            this.csvFormat = csvFormat;
+        }
+
+        public static Header of(List<String> headerNames) {
+            return of(headerNames, null);
+        }
+
+        /**
+         * Returns the header of the records read with the given format. The header settings of the format, e.g.
+         * the first record as header, are not kept: the text of a record does not depend on them.
+         */
+        public static Header of(List<String> headerNames, CSVFormat csvFormat) {
+            Map<String, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < headerNames.size(); i++) {
+                indexes.put(headerNames.get(i), i);
+            }
+            List<String> names = new ArrayList<>(indexes.size());
+            int[] columns = new int[indexes.size()];
+            for (int i = 0; i < headerNames.size(); i++) {
+                String name = headerNames.get(i);
+                if (indexes.get(name) == i) {
+                    columns[names.size()] = i;
+                    names.add(name);
+                }
+            }
+            CSVFormat recordFormat = csvFormat == null ? null : csvFormat.withHeader((String[]) null).withSkipHeaderRecord(false);
+            return new Header(indexes, names.toArray(new String[0]), columns, recordFormat);
+        }
+
+        public List<String> names() {
+            return Collections.unmodifiableList(Arrays.asList(names));
+        }
+
+        /**
+         * The format the records were read with, header settings excluded, or null if it is not known.
+         */
+        public CSVFormat csvFormat() {
+            return csvFormat;
+        }
+
+        /**
+         * Returns the handle of the column having the given name, to access the values of many records without
+         * looking the name up each time.
+         */
+        public Column column(String name) {
+            Integer index = indexes.get(name);
+            if (index == null) {
+                throw new PlatformException(format("Could not find CSV header column named=[%s]", name));
+            }
+            return new Column(name, index);
+        }
+    }
+
+    // Read only set of the distinct header names, shared by all the records.
+    private static final class KeySet extends AbstractSet<String> implements Serializable {
+
+        private final String[] names;
+        private final Map<String, Integer> indexes;
+
+        KeySet(String[] names, Map<String, Integer> indexes) {
+            this.names = names;
+            this.indexes = indexes;
+        }
+
+        @Override
+        public boolean contains(Object name) {
+            return indexes.containsKey(name);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < names.length;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return names[next++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return names.length;
+        }
+    }
+
+    /**
+     * A column of a {@link Header}, see {@link CSVRecord#value(Column)}.
+     */
+    public static final class Column implements Serializable {
+
+        private final String name;
+        private final int index;
+
+        private Column(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int index() {
+            return index;
         }
-        return map.entrySet();
     }
 }
@@ -0,0 +1,251 @@
+package de.codecentric.reedelk.csv.internal.type;
+
+import de.codecentric.reedelk.runtime.api.annotation.Type;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Compact, read only row of CSV values. All the values of a row are stored in a single
+ * backing string together with a table of cell end offsets: a cell string is only
+ * created when the cell is accessed. A negative end offset (~end) marks a null cell.
+ * The chars of a deduplicated cell are not stored in the backing string: the cell holds
+ * the code of the shared value (see {@link StringDeduplicator}) instead, as base 256 digits
+ * in chars below 256, so the backing string stays compact, and its end offset has the
+ * {@link #SHARED} bit set. The end offsets are never decreasing: the start of a cell is the
+ * end of the previous one.
+ */
+@Type(listItemType = String.class)
+public class CSVRow extends AbstractList<String> implements RandomAccess, Serializable {
+
+    // Set in the end offset of a shared cell: the offsets of a row are far below it.
+    private static final int SHARED = 1 << 30;
+
+    private final String data;
+    private final int[] ends;
+    private final transient StringDeduplicator.SharedValues values; // null if the row has no shared values
+
+    CSVRow(String data, int[] ends, StringDeduplicator.SharedValues values) {
+        this.data = data;
+        this.ends = ends;
+        this.values = values;
+    }
+
+    @Override
+    public String get(int index) {
+        int end = ends[index];
+        if (end < 0) return null;
+        int start = start(ends, index);
+        if (end >= SHARED) return values.get(code(data, start, end - SHARED));
+        return data.substring(start, end);
+    }
+
+    @Override
+    public int size() {
+        return ends.length;
+    }
+
+    public boolean isNull(int index) {
+        return ends[index] < 0;
+    }
+
+    /**
+     * The approximate number of bytes of heap used by this row: the row, the backing string and
+     * the table of end offsets. Shared values are used by many rows and they are not counted.
+     */
+    public long estimatedSize() {
+        return 80 + 2L * data.length() + 4L * ends.length;
+    }
+
+    // Shared values are written as plain values: a deserialized row does not reference them.
+    private Object writeReplace() {
+        if (values == null) return this;
+        Builder builder = new Builder();
+        for (String value : this) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+
+    // The end of the previous cell: a null cell has the end ~end, a shared cell the end + SHARED.
+    private static int start(int[] ends, int index) {
+        if (index == 0) return 0;
+        int end = ends[index - 1];
+        return end < 0 ? ~end : end & ~SHARED;
+    }
+
+    // The code of a shared value, stored from the start to the end in base 256 digits.
+    private static int code(CharSequence data, int start, int end) {
+        int code = 0;
+        for (int i = start; i < end; i++) {
+            code = code << 8 | data.charAt(i);
+        }
+        return code;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builds rows appending the values into a reusable buffer. A builder
+     * is not thread safe and it is meant to be reused across rows.
+     */
+    public static class Builder {
+
+        private final StringBuilder data = new StringBuilder(128);
+        private int[] ends = new int[16];
+        private int size;
+        private boolean shared;
+        private StringDeduplicator deduplicator;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the deduplicator of the values added from now on, null to store all the values in the row.
+         */
+        public Builder deduplicate(StringDeduplicator deduplicator) {
+            this.deduplicator = deduplicator;
+            return this;
+        }
+
+        public Builder add(CharSequence value) {
+            if (size == ends.length) grow();
+            if (value == null) {
+                end(~data.length());
+            } else if (deduplicator != null && value instanceof String) {
+                int code = deduplicator.deduplicate(size, (String) value);
+                if (code >= 0) {
+                    share(code);
+                } else {
+                    data.append(value);
+                    end(data.length());
+                }
+            } else {
+                data.append(value);
+                end(data.length());
+            }
+            return this;
+        }
+
+        public Builder add(char[] value, int offset, int length) {
+            if (size == ends.length) grow();
+            int code = deduplicator == null ? -1 : deduplicator.deduplicate(size, value, offset, length);
+            if (code >= 0) {
+                share(code);
+            } else {
+                data.append(value, offset, length);
+                end(data.length());
+            }
+            return this;
+        }
+
+        /**
+         * The number of values added to the row being built.
+         */
+        public int size() {
+            return size;
+        }
+
+        public boolean isNull(int index) {
+            return ends[index] < 0;
+        }
+
+        /**
+         * Returns true if the value at the given index, starting from the given offset,
+         * has the same chars as the other string. No string is created for the value.
+         */
+        public boolean regionMatches(int index, int offset, String other) {
+            int end = ends[index];
+            if (end < 0) return false;
+            if (end >= SHARED) return sharedValue(index).startsWith(other, offset);
+            int start = start(ends, index) + offset;
+            return offset >= 0 && start + other.length() <= end &&
+                    regionEquals(start, other);
+        }
+
+        /**
+         * The length of the value at the given index, 0 if the value is null.
+         */
+        public int length(int index) {
+            int end = ends[index];
+            if (end < 0) return 0;
+            if (end >= SHARED) return sharedValue(index).length();
+            return end - start(ends, index);
+        }
+
+        /**
+         * The char at the given position of the value at the given index.
+         */
+        public char charAt(int index, int position) {
+            if (ends[index] >= SHARED) return sharedValue(index).charAt(position);
+            return data.charAt(start(ends, index) + position);
+        }
+
+        /**
+         * The value at the given index, the shared instance if the value is deduplicated.
+         */
+        public String get(int index) {
+            int end = ends[index];
+            if (end < 0) return null;
+            if (end >= SHARED) return sharedValue(index);
+            return data.substring(start(ends, index), end);
+        }
+
+        /**
+         * Returns a row with the values added so far, without resetting the builder.
+         */
+        public CSVRow peek() {
+            return new CSVRow(data.length() == 0 ? "" : data.toString(), Arrays.copyOf(ends, size),
+                    shared ? deduplicator.values() : null);
+        }
+
+        /**
+         * Discards the values added so far.
+         */
+        public void reset() {
+            data.setLength(0);
+            size = 0;
+            shared = false;
+        }
+
+        public CSVRow build() {
+            CSVRow row = peek();
+            reset();
+            return row;
+        }
+
+        private void end(int end) {
+            ends[size++] = end;
+        }
+
+        // The value is not copied into the backing string, the cell holds the code of the shared value:
+        // one char for the first 256 values, the leading digit is never zero.
+        private void share(int code) {
+            if (code >>> 24 != 0) data.append((char) (code >>> 24));
+            if (code >>> 16 != 0) data.append((char) (code >>> 16 & 0xFF));
+            if (code >>> 8 != 0) data.append((char) (code >>> 8 & 0xFF));
+            data.append((char) (code & 0xFF));
+            ends[size++] = data.length() + SHARED;
+            shared = true;
+        }
+
+        private void grow() {
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+
+        private String sharedValue(int index) {
+            return deduplicator.values().get(code(data, start(ends, index), ends[index] - SHARED));
+        }
+
+        private boolean regionEquals(int start, String other) {
+            for (int i = 0; i < other.length(); i++) {
+                if (data.charAt(start + i) != other.charAt(i)) return false;
+            }
+            return true;
+        }
+    }
+}
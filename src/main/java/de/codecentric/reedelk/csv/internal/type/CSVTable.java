@@ -0,0 +1,404 @@
+package de.codecentric.reedelk.csv.internal.type;
+
+import de.codecentric.reedelk.csv.component.ColumnType;
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.runtime.api.annotation.Type;
+import de.codecentric.reedelk.runtime.api.exception.PlatformException;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.IntFunction;
+
+import static java.lang.String.format;
+
+/**
+ * Columnar, read only result of a CSV read with a schema. The values of each column are stored
+ * in a single array of the column type: int, long, double and date (as epoch day) columns are
+ * primitive arrays, boolean columns are bit sets, therefore a numeric cell costs no object at all.
+ * Null cells are tracked by a bit set per column: the primitive getters return 0 or false for a null
+ * cell, use {@link #isNull(int, int)} to tell them apart. For compatibility with the record based results,
+ * the table is also a list of rows, each row being a map view of the boxed values by column name.
+ */
+@Type(listItemType = MapOfStringObject.class)
+public class CSVTable extends AbstractList<Map<String, Object>> implements RandomAccess, Serializable {
+
+    private final int rows;
+    private final Column[] columns;
+    private final Map<String, Integer> columnIndexMap;
+
+    private CSVTable(int rows, Column[] columns) {
+        this.rows = rows;
+        this.columns = columns;
+        Map<String, Integer> columnIndexMap = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            columnIndexMap.put(columns[i].name, i);
+        }
+        this.columnIndexMap = columnIndexMap;
+    }
+
+    @Override
+    public Map<String, Object> get(int row) {
+        return new RowView(checkRow(row));
+    }
+
+    @Override
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * The approximate number of bytes of heap used by the columns of this table.
+     */
+    public long estimatedSize() {
+        long size = 64;
+        for (Column column : columns) {
+            size += column.estimatedSize();
+        }
+        return size;
+    }
+
+    public int columnCount() {
+        return columns.length;
+    }
+
+    public List<String> columnNames() {
+        List<String> names = new ArrayList<>(columns.length);
+        for (Column column : columns) {
+            names.add(column.name);
+        }
+        return names;
+    }
+
+    public ColumnType columnType(int column) {
+        return columns[column].type;
+    }
+
+    /**
+     * Returns the index of the column having the given name, or -1 if there is no such column.
+     */
+    public int columnIndex(String name) {
+        Integer index = columnIndexMap.get(name);
+        return index == null ? -1 : index;
+    }
+
+    public boolean isNull(int row, int column) {
+        return columns[column].nulls.get(checkRow(row));
+    }
+
+    public int getInt(int row, int column) {
+        return typed(row, column, ColumnType.INT).ints[row];
+    }
+
+    public long getLong(int row, int column) {
+        return typed(row, column, ColumnType.LONG).longs[row];
+    }
+
+    public double getDouble(int row, int column) {
+        return typed(row, column, ColumnType.DOUBLE).doubles[row];
+    }
+
+    public boolean getBoolean(int row, int column) {
+        return typed(row, column, ColumnType.BOOLEAN).booleans.get(row);
+    }
+
+    public LocalDate getDate(int row, int column) {
+        Column typed = typed(row, column, ColumnType.DATE);
+        return typed.nulls.get(row) ? null : LocalDate.ofEpochDay(typed.ints[row]);
+    }
+
+    public String getString(int row, int column) {
+        return typed(row, column, ColumnType.STRING).strings[row];
+    }
+
+    /**
+     * Returns the boxed value of the given cell, null if the cell is null.
+     */
+    public Object get(int row, int column) {
+        Column value = columns[column];
+        if (value.nulls.get(checkRow(row))) return null;
+        switch (value.type) {
+            case INT:
+                return value.ints[row];
+            case LONG:
+                return value.longs[row];
+            case DOUBLE:
+                return value.doubles[row];
+            case BOOLEAN:
+                return value.booleans.get(row);
+            case DATE:
+                return LocalDate.ofEpochDay(value.ints[row]);
+            default:
+                return value.strings[row];
+        }
+    }
+
+    public int getInt(int row, String column) {
+        return getInt(row, indexOf(column));
+    }
+
+    public long getLong(int row, String column) {
+        return getLong(row, indexOf(column));
+    }
+
+    public double getDouble(int row, String column) {
+        return getDouble(row, indexOf(column));
+    }
+
+    public boolean getBoolean(int row, String column) {
+        return getBoolean(row, indexOf(column));
+    }
+
+    public LocalDate getDate(int row, String column) {
+        return getDate(row, indexOf(column));
+    }
+
+    public String getString(int row, String column) {
+        return getString(row, indexOf(column));
+    }
+
+    public Object get(int row, String column) {
+        return get(row, indexOf(column));
+    }
+
+    private int indexOf(String column) {
+        Integer index = columnIndexMap.get(column);
+        if (index == null) throw new PlatformException(format("Could not find CSV header column named=[%s]", column));
+        return index;
+    }
+
+    private Column typed(int row, int column, ColumnType type) {
+        Column typed = columns[column];
+        checkRow(row);
+        if (typed.type != type) {
+            throw new PlatformException(format("CSV column=[%s] has type=[%s], not type=[%s]", typed.name, typed.type, type));
+        }
+        return typed;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= rows) throw new IndexOutOfBoundsException(format("Index: %d, Size: %d", row, rows));
+        return row;
+    }
+
+    public static Builder builder(List<String> columnNames, IntFunction<String> newColumnName,
+                                  Map<Integer, ColumnType> types, DateTimeFormatter dateFormatter) {
+        return new Builder(columnNames, newColumnName, types, dateFormatter);
+    }
+
+    /**
+     * Appends the values of the rows being parsed to the columns, converting each value straight
+     * from the chars of the row builder. The columns are the given ones; if a column name function
+     * is given, a column is added for each row value beyond them (e.g. if there is no header),
+     * otherwise those values are ignored. Columns without a type in the schema are string columns.
+     */
+    public static class Builder {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final IntFunction<String> newColumnName;
+        private final Map<Integer, ColumnType> types;
+        private final DateTimeFormatter dateFormatter;
+
+        private Column[] columns;
+        private int capacity = INITIAL_CAPACITY;
+        private int rows;
+
+        private Builder(List<String> columnNames, IntFunction<String> newColumnName,
+                        Map<Integer, ColumnType> types, DateTimeFormatter dateFormatter) {
+            this.newColumnName = newColumnName;
+            this.types = types;
+            this.dateFormatter = dateFormatter;
+            this.columns = new Column[columnNames.size()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = newColumn(columnNames.get(i), i);
+            }
+            if (newColumnName != null) {
+                // Typed columns always exist, even if no row has a value for them.
+                for (Integer index : types.keySet()) {
+                    addColumnsUpTo(index);
+                }
+            }
+        }
+
+        public void append(CSVRow.Builder row) {
+            if (rows == capacity) grow();
+            if (newColumnName != null && row.size() > columns.length) addColumnsUpTo(row.size() - 1);
+            for (int i = 0; i < columns.length; i++) {
+                Column column = columns[i];
+                if (i >= row.size() || row.isNull(i) || (column.type != ColumnType.STRING && row.length(i) == 0)) {
+                    column.nulls.set(rows);
+                    continue;
+                }
+                try {
+                    set(column, row, i);
+                } catch (IllegalArgumentException exception) {
+                    String error = Messages.CSVRead.TYPED_VALUE_ERROR.format(row.get(i), column.name, rows + 1, column.type);
+                    throw new CSVReadException(error, exception);
+                }
+            }
+            rows++;
+        }
+
+        public CSVTable build() {
+            for (Column column : columns) {
+                column.resize(rows);
+            }
+            return new CSVTable(rows, columns);
+        }
+
+        private void set(Column column, CSVRow.Builder row, int index) {
+            switch (column.type) {
+                case INT:
+                    column.ints[rows] = ValueParser.parseInt(row, index);
+                    break;
+                case LONG:
+                    column.longs[rows] = ValueParser.parseLong(row, index);
+                    break;
+                case DOUBLE:
+                    column.doubles[rows] = ValueParser.parseDouble(row, index);
+                    break;
+                case BOOLEAN:
+                    if (ValueParser.parseBoolean(row, index)) column.booleans.set(rows);
+                    break;
+                case DATE:
+                    column.ints[rows] = ValueParser.parseDate(row, index, dateFormatter);
+                    break;
+                default:
+                    column.strings[rows] = row.get(index);
+            }
+        }
+
+        private void grow() {
+            capacity = capacity * 2;
+            for (Column column : columns) {
+                column.resize(capacity);
+            }
+        }
+
+        private void addColumnsUpTo(int index) {
+            if (index < columns.length) return;
+            int first = columns.length;
+            columns = Arrays.copyOf(columns, index + 1);
+            for (int i = first; i <= index; i++) {
+                Column column = newColumn(newColumnName.apply(i), i);
+                // The rows appended so far have no value for the new column.
+                column.nulls.set(0, rows);
+                columns[i] = column;
+            }
+        }
+
+        private Column newColumn(String name, int index) {
+            ColumnType type = types.getOrDefault(index, ColumnType.STRING);
+            return new Column(name, type, capacity);
+        }
+    }
+
+    private static class Column implements Serializable {
+
+        final String name;
+        final ColumnType type;
+        final BitSet nulls = new BitSet();
+        final BitSet booleans;
+        int[] ints;
+        long[] longs;
+        double[] doubles;
+        String[] strings;
+
+        Column(String name, ColumnType type, int capacity) {
+            this.name = name;
+            this.type = type;
+            this.booleans = type == ColumnType.BOOLEAN ? new BitSet() : null;
+            if (type == ColumnType.INT || type == ColumnType.DATE) ints = new int[capacity];
+            if (type == ColumnType.LONG) longs = new long[capacity];
+            if (type == ColumnType.DOUBLE) doubles = new double[capacity];
+            if (type == ColumnType.STRING) strings = new String[capacity];
+        }
+
+        long estimatedSize() {
+            long size = 64 + nulls.size() / 8 + (booleans == null ? 0 : booleans.size() / 8);
+            if (ints != null) size += 16 + 4L * ints.length;
+            if (longs != null) size += 16 + 8L * longs.length;
+            if (doubles != null) size += 16 + 8L * doubles.length;
+            if (strings != null) {
+                size += 16 + 8L * strings.length;
+                for (String value : strings) {
+                    if (value != null) size += 40 + 2L * value.length();
+                }
+            }
+            return size;
+        }
+
+        void resize(int capacity) {
+            if (ints != null) ints = Arrays.copyOf(ints, capacity);
+            if (longs != null) longs = Arrays.copyOf(longs, capacity);
+            if (doubles != null) doubles = Arrays.copyOf(doubles, capacity);
+            if (strings != null) strings = Arrays.copyOf(strings, capacity);
+        }
+    }
+
+    /**
+     * Read only map view of a row of the table, the values are boxed when accessed.
+     */
+    private class RowView extends AbstractMap<String, Object> implements Serializable {
+
+        private final int row;
+
+        RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return columnIndexMap.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            return CSVTable.this.get(row, indexOf(String.valueOf(key)));
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(new LinkedHashSet<>(columnNames()));
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+
+                        private int column;
+
+                        @Override
+                        public boolean hasNext() {
+                            return column < columns.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int current = column++;
+                            return new SimpleImmutableEntry<>(columns[current].name, CSVTable.this.get(row, current));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return columns.length;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package de.codecentric.reedelk.csv.internal.type;
+
+import de.codecentric.reedelk.runtime.api.annotation.Type;
+
+import java.util.ArrayList;
+
+@Type(listItemType = CSVRow.class)
+public class ListOfCSVRow extends ArrayList<CSVRow> {
+}
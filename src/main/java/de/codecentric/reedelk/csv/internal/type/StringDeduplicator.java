@@ -0,0 +1,213 @@
+package de.codecentric.reedelk.csv.internal.type;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per column cache of the values of a CSV input: cells with equal content share a single
+ * string instance instead of having their chars copied into each row. A row references a
+ * shared value by its code, stored in place of the cell chars: one char for the first 256
+ * shared values, two for the first 65536. Each column cache holds at most max values and it is turned
+ * off for good if, after each sample of lookups, less than the min hit ratio of the lookups
+ * found the value: high cardinality columns stop paying for the lookups. Values longer than
+ * {@link #MAX_VALUE_LENGTH} are never cached. A deduplicator is not thread safe, it is meant
+ * to be used by a single parser.
+ */
+public class StringDeduplicator {
+
+    public static final int DEFAULT_MAX_VALUES = 1024;
+
+    static final int MAX_VALUE_LENGTH = 64;
+    static final int SAMPLE_SIZE = 1024;
+    static final double MIN_HIT_RATIO = 0.5;
+
+    private static final int NOT_CACHED = -1;
+
+    private final int maxValues;
+    private final SharedValues values = new SharedValues();
+    private ColumnCache[] columns = new ColumnCache[0];
+
+    public StringDeduplicator(int maxValues) {
+        this.maxValues = maxValues;
+    }
+
+    /**
+     * Returns a new deduplicator with the same configuration and empty caches.
+     */
+    public StringDeduplicator newInstance() {
+        return new StringDeduplicator(maxValues);
+    }
+
+    /**
+     * Returns the code of the shared value equal to the given chars, caching a new one if there
+     * is room for it. Returns -1 if the value is not cached: the chars must be stored by the caller.
+     */
+    public int deduplicate(int column, char[] chars, int offset, int length) {
+        if (length > MAX_VALUE_LENGTH) return NOT_CACHED;
+        ColumnCache cache = cache(column);
+        if (cache.table == null) return NOT_CACHED;
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = cache.table.length - 1;
+        int slot = mix(hash) & mask;
+        int code;
+        while ((code = cache.table[slot] - 1) != NOT_CACHED) {
+            String cached = values.get(code);
+            if (cached.length() == length && equals(cached, chars, offset)) return cache.hit(code);
+            slot = (slot + 1) & mask;
+        }
+        return cache.miss(slot, cache.size < maxValues ? values.add(new String(chars, offset, length)) : NOT_CACHED);
+    }
+
+    /**
+     * Same as {@link #deduplicate(int, char[], int, int)} for a value which is already a string.
+     */
+    public int deduplicate(int column, String value) {
+        if (value.length() > MAX_VALUE_LENGTH) return NOT_CACHED;
+        ColumnCache cache = cache(column);
+        if (cache.table == null) return NOT_CACHED;
+        int mask = cache.table.length - 1;
+        int slot = mix(value.hashCode()) & mask;
+        int code;
+        while ((code = cache.table[slot] - 1) != NOT_CACHED) {
+            if (values.get(code).equals(value)) return cache.hit(code);
+            slot = (slot + 1) & mask;
+        }
+        return cache.miss(slot, cache.size < maxValues ? values.add(value) : NOT_CACHED);
+    }
+
+    /**
+     * The shared values referenced by the rows built with this deduplicator.
+     */
+    public SharedValues values() {
+        return values;
+    }
+
+    /**
+     * The hit ratio of each column looked up so far, by column index.
+     */
+    public Map<Integer, Double> hitRatios() {
+        Map<Integer, Double> hitRatios = new LinkedHashMap<>();
+        for (int column = 0; column < columns.length; column++) {
+            if (columns[column] != null) hitRatios.put(column, hitRatio(column));
+        }
+        return hitRatios;
+    }
+
+    /**
+     * The ratio of the lookups of the given column which found the value cached, 0 if the
+     * column has not been looked up. Lookups are no longer counted once the cache is turned off.
+     */
+    public double hitRatio(int column) {
+        if (column >= columns.length || columns[column] == null) return 0;
+        ColumnCache cache = columns[column];
+        return cache.lookups == 0 ? 0 : (double) cache.hits / cache.lookups;
+    }
+
+    /**
+     * Adds the lookups of the other deduplicator to the statistics of this one,
+     * e.g. to report the hit ratios of all the chunks of a file parsed in parallel.
+     */
+    public void merge(StringDeduplicator other) {
+        for (int column = 0; column < other.columns.length; column++) {
+            ColumnCache otherCache = other.columns[column];
+            if (otherCache == null) continue;
+            if (column >= columns.length) columns = Arrays.copyOf(columns, other.columns.length);
+            // Only the statistics are merged, not the cached values.
+            if (columns[column] == null) columns[column] = new ColumnCache(null);
+            ColumnCache cache = columns[column];
+            cache.lookups += otherCache.lookups;
+            cache.hits += otherCache.hits;
+        }
+    }
+
+    private ColumnCache cache(int column) {
+        if (column >= columns.length) {
+            columns = Arrays.copyOf(columns, Math.max(column + 1, columns.length * 2));
+        }
+        ColumnCache cache = columns[column];
+        if (cache == null) {
+            cache = new ColumnCache(new int[tableSize(maxValues)]);
+            columns[column] = cache;
+        }
+        return cache;
+    }
+
+    private static boolean equals(String cached, char[] chars, int offset) {
+        for (int i = 0; i < cached.length(); i++) {
+            if (cached.charAt(i) != chars[offset + i]) return false;
+        }
+        return true;
+    }
+
+    // Spreads the high bits, as HashMap does, since the table size is a power of two.
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // A power of two with a load factor of at most 0.5.
+    private static int tableSize(int maxValues) {
+        int size = 2;
+        while (size < maxValues * 2 && size < (1 << 30)) size <<= 1;
+        return size;
+    }
+
+    /**
+     * The values shared by the rows, by code. Codes are assigned in insertion order and
+     * values are never removed: a row built by one thread can be read by any other thread.
+     */
+    public static class SharedValues {
+
+        static final int MAX_CODES = 1 << 30;
+
+        private volatile String[] values = new String[64];
+        private int size;
+
+        public String get(int code) {
+            return values[code];
+        }
+
+        private int add(String value) {
+            if (size == MAX_CODES) return NOT_CACHED;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size] = value;
+            return size++;
+        }
+    }
+
+    private static class ColumnCache {
+
+        int[] table; // code + 1 of the cached values, 0 if empty; null when the cache has been turned off
+        int size;
+        long lookups;
+        long hits;
+
+        ColumnCache(int[] table) {
+            this.table = table;
+        }
+
+        int hit(int code) {
+            lookups++;
+            hits++;
+            if (lookups % SAMPLE_SIZE == 0) adapt();
+            return code;
+        }
+
+        int miss(int slot, int code) {
+            lookups++;
+            if (code != NOT_CACHED) {
+                table[slot] = code + 1;
+                size++;
+            }
+            if (lookups % SAMPLE_SIZE == 0) adapt();
+            return code;
+        }
+
+        private void adapt() {
+            if ((double) hits / lookups < MIN_HIT_RATIO) table = null;
+        }
+    }
+}
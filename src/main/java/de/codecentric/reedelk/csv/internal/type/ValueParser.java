@@ -0,0 +1,182 @@
+package de.codecentric.reedelk.csv.internal.type;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Parses typed values straight from the chars of the row being built: numbers, booleans
+ * and ISO dates are parsed without creating a string for the value. Invalid values throw
+ * an {@link IllegalArgumentException}.
+ */
+final class ValueParser {
+
+    // Powers of ten exactly representable as doubles.
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private ValueParser() {
+    }
+
+    static int parseInt(CSVRow.Builder row, int index) {
+        long value = parseLong(row, index);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) throw invalid(row, index);
+        return (int) value;
+    }
+
+    // Same as Long.parseLong: the value is accumulated negatively, so that Long.MIN_VALUE does not overflow.
+    static long parseLong(CSVRow.Builder row, int index) {
+        int length = row.length(index);
+        if (length == 0) throw invalid(row, index);
+        int position = 0;
+        boolean negative = false;
+        char first = row.charAt(index, 0);
+        if (first == '-' || first == '+') {
+            if (length == 1) throw invalid(row, index);
+            negative = first == '-';
+            position++;
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; position < length; position++) {
+            int digit = row.charAt(index, position) - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) throw invalid(row, index);
+            result *= 10;
+            if (result < limit + digit) throw invalid(row, index);
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Decimal values having at most 15 significant digits and a decimal exponent of at most 22 are
+     * computed exactly as a single multiplication or division of two exact doubles, which is correctly
+     * rounded. Any other value (e.g. more digits, NaN, hexadecimal) is parsed by Double.parseDouble.
+     */
+    static double parseDouble(CSVRow.Builder row, int index) {
+        int length = row.length(index);
+        int position = 0;
+        boolean negative = false;
+        if (length > 0 && (row.charAt(index, 0) == '-' || row.charAt(index, 0) == '+')) {
+            negative = row.charAt(index, 0) == '-';
+            position++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int scale = 0;
+        boolean hasDigits = false;
+        boolean fraction = false;
+        for (; position < length; position++) {
+            char c = row.charAt(index, position);
+            if (c == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            if (c < '0' || c > '9') break;
+            hasDigits = true;
+            if (mantissa != 0 || c != '0') {
+                if (++significantDigits > MAX_EXACT_DIGITS) return parseDoubleSlow(row, index);
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (fraction) scale--;
+        }
+        if (!hasDigits) return parseDoubleSlow(row, index);
+
+        if (position < length && (row.charAt(index, position) == 'e' || row.charAt(index, position) == 'E')) {
+            position++;
+            boolean negativeExponent = false;
+            if (position < length && (row.charAt(index, position) == '-' || row.charAt(index, position) == '+')) {
+                negativeExponent = row.charAt(index, position) == '-';
+                position++;
+            }
+            int exponent = 0;
+            int exponentDigits = 0;
+            for (; position < length; position++) {
+                char c = row.charAt(index, position);
+                if (c < '0' || c > '9' || ++exponentDigits > 3) break;
+                exponent = exponent * 10 + (c - '0');
+            }
+            if (exponentDigits == 0 || exponentDigits > 3) return parseDoubleSlow(row, index);
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (position != length) return parseDoubleSlow(row, index);
+
+        double value = mantissa;
+        if (mantissa != 0 && scale != 0) {
+            if (scale > 0 && scale < POWERS_OF_TEN.length) {
+                value *= POWERS_OF_TEN[scale];
+            } else if (scale < 0 && -scale < POWERS_OF_TEN.length) {
+                value /= POWERS_OF_TEN[-scale];
+            } else {
+                return parseDoubleSlow(row, index);
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    static boolean parseBoolean(CSVRow.Builder row, int index) {
+        if (equalsIgnoreCase(row, index, "true")) return true;
+        if (equalsIgnoreCase(row, index, "false")) return false;
+        throw invalid(row, index);
+    }
+
+    /**
+     * Returns the epoch day of the date. ISO dates (yyyy-MM-dd) are parsed from the chars,
+     * other patterns by the given formatter.
+     */
+    static int parseDate(CSVRow.Builder row, int index, DateTimeFormatter formatter) {
+        try {
+            if (formatter == DateTimeFormatter.ISO_LOCAL_DATE && isIsoDate(row, index)) {
+                int year = digits(row, index, 0, 4);
+                int month = digits(row, index, 5, 2);
+                int day = digits(row, index, 8, 2);
+                return (int) LocalDate.of(year, month, day).toEpochDay();
+            }
+            return (int) LocalDate.parse(row.get(index), formatter).toEpochDay();
+        } catch (RuntimeException exception) {
+            throw invalid(row, index);
+        }
+    }
+
+    private static double parseDoubleSlow(CSVRow.Builder row, int index) {
+        try {
+            return Double.parseDouble(row.get(index));
+        } catch (NumberFormatException exception) {
+            throw invalid(row, index);
+        }
+    }
+
+    private static boolean isIsoDate(CSVRow.Builder row, int index) {
+        if (row.length(index) != 10) return false;
+        for (int position = 0; position < 10; position++) {
+            char c = row.charAt(index, position);
+            boolean valid = position == 4 || position == 7 ? c == '-' : c >= '0' && c <= '9';
+            if (!valid) return false;
+        }
+        return true;
+    }
+
+    private static int digits(CSVRow.Builder row, int index, int position, int count) {
+        int value = 0;
+        for (int i = position; i < position + count; i++) {
+            value = value * 10 + (row.charAt(index, i) - '0');
+        }
+        return value;
+    }
+
+    private static boolean equalsIgnoreCase(CSVRow.Builder row, int index, String expected) {
+        if (row.length(index) != expected.length()) return false;
+        for (int position = 0; position < expected.length(); position++) {
+            if (Character.toLowerCase(row.charAt(index, position)) != expected.charAt(position)) return false;
+        }
+        return true;
+    }
+
+    private static IllegalArgumentException invalid(CSVRow.Builder row, int index) {
+        return new IllegalArgumentException(row.get(index));
+    }
+}
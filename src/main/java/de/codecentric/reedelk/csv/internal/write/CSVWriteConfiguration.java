@@ -0,0 +1,96 @@
+package de.codecentric.reedelk.csv.internal.write;
+
+import de.codecentric.reedelk.csv.component.Format;
+import de.codecentric.reedelk.csv.internal.CSVFormatBuilder;
+import de.codecentric.reedelk.csv.internal.commons.Utils;
+import de.codecentric.reedelk.runtime.api.component.Component;
+import org.apache.commons.csv.CSVFormat;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Optional;
+
+import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireTrue;
+
+/**
+ * The configuration shared by the components writing CSV files, i.e. the CSV format, the headers, the raw records,
+ * the charset and the write buffer size, checked and resolved to their defaults when a component is initialized.
+ */
+public class CSVWriteConfiguration {
+
+    private static final int DEFAULT_WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final CSVFormat csvFormat;
+    private final boolean includeHeaders;
+    private final List<String> headers;
+    private final boolean rawRecords;
+    private final Charset charset;
+    private final int writeBufferSize;
+
+    private CSVWriteConfiguration(CSVFormat csvFormat, boolean includeHeaders, List<String> headers, boolean rawRecords,
+                                  Charset charset, int writeBufferSize) {
+        this.csvFormat = csvFormat;
+        this.includeHeaders = includeHeaders;
+        this.headers = headers;
+        this.rawRecords = rawRecords;
+        this.charset = charset;
+        this.writeBufferSize = writeBufferSize;
+    }
+
+    /**
+     * Checks the given properties of the given component, the configuration errors are reported as errors of the component.
+     */
+    public static CSVWriteConfiguration of(Class<? extends Component> component, Format format, Character delimiter,
+                                           Boolean includeHeaders, List<String> headers, Boolean rawRecords,
+                                           String charset, Integer writeBufferSize) {
+        CSVFormat csvFormat = CSVFormatBuilder.get()
+                .delimiter(delimiter)
+                .format(format)
+                .build();
+
+        boolean actualIncludeHeaders = Optional.ofNullable(includeHeaders).orElse(false);
+        if (actualIncludeHeaders) {
+            requireNotNull(component, headers, "header list must be defined and not be empty");
+            requireTrue(component, !headers.isEmpty(), "header list must not be empty");
+        }
+
+        requireTrue(component, Utils.isBlank(charset) || Utils.isSupportedCharset(charset),
+                "charset [" + charset + "] is not supported");
+        Charset actualCharset = Utils.isBlank(charset) ? Charset.defaultCharset() : Charset.forName(charset);
+
+        int actualWriteBufferSize = Optional.ofNullable(writeBufferSize).orElse(DEFAULT_WRITE_BUFFER_SIZE);
+        requireTrue(component, actualWriteBufferSize > 0, "write buffer size must be greater than zero");
+
+        return new CSVWriteConfiguration(csvFormat, actualIncludeHeaders, headers, Utils.isTrue(rawRecords),
+                actualCharset, actualWriteBufferSize);
+    }
+
+    public CSVFormat csvFormat() {
+        return csvFormat;
+    }
+
+    public boolean includeHeaders() {
+        return includeHeaders;
+    }
+
+    public List<String> headers() {
+        return headers;
+    }
+
+    /**
+     * The format of the raw records written as they were read, see {@link CSVWriter#write}, or null if the
+     * raw records are not written.
+     */
+    public CSVFormat rawFormat() {
+        return rawRecords ? csvFormat : null;
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    public int writeBufferSize() {
+        return writeBufferSize;
+    }
+}
@@ -4,60 +4,150 @@ import de.codecentric.reedelk.runtime.api.message.Message;
 import de.codecentric.reedelk.runtime.api.message.content.ListContent;
 import de.codecentric.reedelk.runtime.api.message.content.TypedContent;
 import de.codecentric.reedelk.csv.internal.commons.Preconditions;
+import de.codecentric.reedelk.csv.internal.type.CSVRecord;
+import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 public class CSVWriter {
 
+    // Max number of stream elements requested ahead while writing a stream payload.
+    private static final int STREAM_PREFETCH = 256;
+
+    // Min size in chars of each chunk of a CSV output stream.
+    static final int STREAM_CHUNK_SIZE = 8 * 1024;
+
     private CSVWriter() {
     }
 
-    @SuppressWarnings({"unchecked"})
-    public static void write(Message message, CSVPrinter csvPrinter, boolean includeHeaders, List<String> headers) throws IOException {
-        // We must have a list of lists
-        TypedContent<?,?> content = message.content();
-
+    /**
+     * Writes the records of the message payload and returns the number of records written, headers excluded.
+     * The raw format is the format of the printer if raw records are written, null otherwise: the records read
+     * with the same format keeping their raw text are written as they were read, see {@link CSVRecord#raw()},
+     * unless include headers is true and their header names are not the headers.
+     */
+    public static long write(Message message, CSVPrinter csvPrinter, boolean includeHeaders, List<String> headers, CSVFormat rawFormat) throws IOException {
         if (includeHeaders) {
             // If there are headers, we must write them first.
             csvPrinter.printRecord(headers);
         }
+        long records = writeRecords(message, csvPrinter, includeHeaders, headers, rawFormat);
+        csvPrinter.flush();
+        return records;
+    }
+
+    /**
+     * Writes the records of the message payload, without the headers and without flushing the printer, e.g. when
+     * appending to a file, and returns the number of records written. If include headers is true, the values of
+     * maps are written in the order of the headers.
+     */
+    public static long writeRecords(Message message, CSVPrinter csvPrinter, boolean includeHeaders, List<String> headers, CSVFormat rawFormat) throws IOException {
+        long records = 0;
+        for (Object object : records(message)) {
+            print(csvPrinter, object, includeHeaders, headers, rawFormat);
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * Returns the CSV data of a stream of elements, e.g. of a stream payload, as a stream of chunks:
+     * each chunk contains the records of the elements received since the previous chunk,
+     * once they are at least {@link #STREAM_CHUNK_SIZE} chars. The elements
+     * stream is subscribed when (and each time) the returned stream is subscribed.
+     */
+    public static Flux<String> stream(Publisher<?> elements, CSVFormat csvFormat, boolean includeHeaders, List<String> headers, CSVFormat rawFormat) {
+        return Flux.defer(() -> {
+            StringBuilder buffer = new StringBuilder(STREAM_CHUNK_SIZE * 2);
+            CSVPrinter csvPrinter;
+            try {
+                csvPrinter = new CSVPrinter(buffer, csvFormat);
+                if (includeHeaders) csvPrinter.printRecord(headers);
+            } catch (IOException exception) {
+                return Flux.error(exception);
+            }
+
+            Flux<String> chunks = Flux.from(elements).handle((object, sink) -> {
+                try {
+                    print(csvPrinter, object, includeHeaders, headers, rawFormat);
+                } catch (IOException exception) {
+                    sink.error(exception);
+                    return;
+                }
+                if (buffer.length() >= STREAM_CHUNK_SIZE) {
+                    sink.next(buffer.toString());
+                    buffer.setLength(0);
+                }
+            });
+            Mono<String> lastChunk = Mono.fromSupplier(buffer::toString).filter(chunk -> !chunk.isEmpty());
+            return chunks.concatWith(lastChunk);
+        });
+    }
+
+    /**
+     * The records of the message payload. A stream is iterated one element at a time as elements
+     * arrive: only a few elements are requested ahead of the ones being iterated.
+     */
+    @SuppressWarnings({"unchecked"})
+    static Iterable<Object> records(Message message) {
+        // We must have a list of lists
+        TypedContent<?,?> content = message.content();
+        if (content.isStream()) {
+            return Flux.from((Publisher<Object>) content.stream()).toIterable(STREAM_PREFETCH);
+        }
 
         // If the payload is null we write empty.
         if (content.data() == null) {
-            csvPrinter.flush();
-            return;
+            return Collections.emptyList();
         }
 
         Preconditions.checkSuitableTypeOrThrow(content);
 
         ListContent<Object> list = (ListContent<Object>) content;
+        return list.data();
+    }
 
-        for (Object object : list.data()) {
-
-            if (object instanceof List) {
-                csvPrinter.printRecord((List<Object>) object);
-            } else if (object instanceof Map) {
-                Map<?,?> map = (Map<?,?>) object;
-                if (includeHeaders) {
-                    List<Object> recordWithValuesOrderedByHeader = new ArrayList<>();
-                    for (String header : headers) {
-                        Object theValue = map.get(header);
-                        recordWithValuesOrderedByHeader.add(theValue);
-                    }
-                    csvPrinter.printRecord(recordWithValuesOrderedByHeader);
-                } else {
-                    csvPrinter.printRecord(map.values());
+    @SuppressWarnings({"unchecked"})
+    static void print(CSVPrinter csvPrinter, Object object, boolean includeHeaders, List<String> headers, CSVFormat rawFormat) throws IOException {
+        if (rawFormat != null && isRaw(object, includeHeaders, headers, rawFormat)) {
+            // Written between two records: the printer is at the start of a new record.
+            csvPrinter.getOut().append(((CSVRecord) object).raw());
+            csvPrinter.println();
+        } else if (object instanceof List) {
+            csvPrinter.printRecord((List<Object>) object);
+        } else if (object instanceof Map) {
+            Map<?,?> map = (Map<?,?>) object;
+            if (includeHeaders) {
+                List<Object> recordWithValuesOrderedByHeader = new ArrayList<>();
+                for (String header : headers) {
+                    Object theValue = map.get(header);
+                    recordWithValuesOrderedByHeader.add(theValue);
                 }
+                csvPrinter.printRecord(recordWithValuesOrderedByHeader);
             } else {
-                // Single valued record
-                csvPrinter.printRecord(object);
+                csvPrinter.printRecord(map.values());
             }
+        } else {
+            // Single valued record
+            csvPrinter.printRecord(object);
         }
+    }
 
-        csvPrinter.flush();
+    // The raw text is quoted and escaped as the format it was read with, the records read with another
+    // format, e.g. with another delimiter or trimming the values, are printed as usual.
+    private static boolean isRaw(Object object, boolean includeHeaders, List<String> headers, CSVFormat rawFormat) {
+        if (!(object instanceof CSVRecord)) return false;
+        CSVRecord record = (CSVRecord) object;
+        return record.hasCompleteRaw() &&
+                rawFormat.equals(record.header().csvFormat()) &&
+                (!includeHeaders || record.header().names().equals(headers));
     }
 }
@@ -0,0 +1,98 @@
+package de.codecentric.reedelk.csv.internal.write;
+
+import de.codecentric.reedelk.csv.component.Compression;
+import de.codecentric.reedelk.csv.internal.commons.Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Opens compressed CSV output files: the encoded data is compressed on the fly as the
+ * write buffer is flushed, without temporary files. A ZIP file has a single entry named
+ * after the file, without the .zip extension.
+ */
+public class CompressedFileWriter {
+
+    // The deflaters write their output in small chunks: they are collected before writing them to the file.
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private CompressedFileWriter() {
+    }
+
+    /**
+     * Returns the compression of the given file, given by its extension if the compression is AUTO.
+     */
+    public static Compression resolve(Path path, Compression compression) {
+        if (compression != null && compression != Compression.AUTO) return compression;
+        return Utils.compressionOf(path.getFileName().toString());
+    }
+
+    /**
+     * Opens the given file for writing compressed data, creating it if it does not exist and truncating it
+     * otherwise. The compression must not be AUTO nor NONE, the level is a deflate level from 0 to 9.
+     */
+    public static FileChannelWriter open(Path path, Compression compression, int level, Charset charset, int bufferSize) throws IOException {
+        return open(FileChannelWriter.openChannel(path), path, compression, level, charset, bufferSize);
+    }
+
+    /**
+     * Returns a writer compressing data into the given channel of the given file, the channel is
+     * closed when the writer is closed or if the writer can not be created.
+     */
+    public static FileChannelWriter open(WritableByteChannel channel, Path path, Compression compression, int level, Charset charset, int bufferSize) throws IOException {
+        try {
+            OutputStream output = compress(new BufferedOutputStream(Channels.newOutputStream(channel), OUTPUT_BUFFER_SIZE), compression, level, path);
+            return new FileChannelWriter(Channels.newChannel(output), charset, bufferSize, false);
+        } catch (IOException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    private static OutputStream compress(OutputStream output, Compression compression, int level, Path path) throws IOException {
+        switch (compression) {
+            case GZIP:
+                return new GZIPOutputStream(output) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+            case DEFLATE:
+                return new DeflaterOutputStream(output, new Deflater(level)) {
+                    @Override
+                    public void close() throws IOException {
+                        // The deflater is not the default one: it must be released explicitly.
+                        try {
+                            super.close();
+                        } finally {
+                            def.end();
+                        }
+                    }
+                };
+            case ZIP:
+                ZipOutputStream zip = new ZipOutputStream(output);
+                zip.setLevel(level);
+                zip.putNextEntry(new ZipEntry(entryName(path)));
+                return zip;
+            default:
+                throw new IllegalArgumentException("Not a compression: " + compression);
+        }
+    }
+
+    private static String entryName(Path path) {
+        String fileName = path.getFileName().toString();
+        if (fileName.toLowerCase(Locale.ROOT).endsWith(".zip")) fileName = fileName.substring(0, fileName.length() - 4);
+        return fileName.contains(".") ? fileName : fileName + ".csv";
+    }
+}
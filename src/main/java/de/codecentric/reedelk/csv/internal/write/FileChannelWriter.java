@@ -0,0 +1,223 @@
+package de.codecentric.reedelk.csv.internal.write;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writer encoding chars into a {@link FileChannel}, or any other byte channel, e.g. a compressing one. Chars are collected in a buffer of the
+ * given size and encoded only when it is full: the many small writes of a CSV printer
+ * become a few large channel writes. The encoder works on heap buffers because the JDK
+ * encoders are much faster on array backed buffers; if direct is true the encoded bytes are
+ * bulk copied into a direct buffer, which the channel writes without an intermediate copy.
+ * Unmappable and malformed chars are replaced, as {@link java.io.OutputStreamWriter} does.
+ *
+ * The data written into a file channel since a mark, e.g. the records of a message which could not all be written,
+ * can be discarded: the chars still buffered are dropped and the file is truncated to its size at the mark.
+ */
+public class FileChannelWriter extends Writer {
+
+    // Room for the longest byte sequence of any charset, e.g. a surrogate pair.
+    private static final int MIN_BYTES_SIZE = 16;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final char[] chars;
+    private final ByteBuffer bytes;
+    private final ByteBuffer direct;
+
+    private int size; // number of chars in the buffer
+    private boolean closed;
+
+    private long markPosition = -1; // the size of the file at the mark, -1 if there is no mark
+    private int markSize; // number of chars buffered before the mark and not written yet
+
+    FileChannelWriter(WritableByteChannel channel, Charset charset, int bufferSize, boolean direct) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        // At least two chars: a high surrogate might be kept in the buffer waiting for the low one.
+        this.chars = new char[Math.max(2, bufferSize)];
+        long maxBytes = (long) Math.ceil(bufferSize * (double) encoder.maxBytesPerChar());
+        int bytesSize = (int) Math.max(MIN_BYTES_SIZE, Math.min(Integer.MAX_VALUE - 8L, maxBytes));
+        this.bytes = ByteBuffer.allocate(bytesSize);
+        this.direct = direct ? ByteBuffer.allocateDirect(bytesSize) : null;
+    }
+
+    /**
+     * Opens the given file for writing, creating it if it does not exist and truncating it otherwise.
+     */
+    public static FileChannelWriter open(Path path, Charset charset, int bufferSize, boolean direct) throws IOException {
+        return open(openChannel(path), charset, bufferSize, direct);
+    }
+
+    /**
+     * Returns a writer into the given channel, which is closed when the writer is closed.
+     */
+    public static FileChannelWriter open(WritableByteChannel channel, Charset charset, int bufferSize, boolean direct) {
+        return new FileChannelWriter(channel, charset, bufferSize, direct);
+    }
+
+    /**
+     * Opens the given file for writing, creating it if it does not exist and truncating it otherwise.
+     */
+    public static FileChannel openChannel(Path path) throws IOException {
+        return FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Opens the given file for appending, creating it if it does not exist.
+     */
+    public static FileChannel openAppendChannel(Path path) throws IOException {
+        return FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND,
+                StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (size == chars.length) encode(false);
+        chars[size++] = (char) c;
+    }
+
+    @Override
+    public void write(char[] source, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (size == chars.length) encode(false);
+            int count = Math.min(length, chars.length - size);
+            System.arraycopy(source, offset, chars, size, count);
+            size += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public void write(String source, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (size == chars.length) encode(false);
+            int count = Math.min(length, chars.length - size);
+            source.getChars(offset, offset + count, chars, size);
+            size += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence sequence) throws IOException {
+        if (sequence instanceof String) {
+            String string = (String) sequence;
+            write(string, 0, string.length());
+            return this;
+        }
+        return super.append(sequence);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (closed) return;
+        encode(false);
+    }
+
+    /**
+     * Flushes the buffered chars and, if the channel is a file channel, forces the written bytes to the storage device.
+     */
+    public void sync() throws IOException {
+        flush();
+        if (channel instanceof FileChannel) ((FileChannel) channel).force(false);
+    }
+
+    /**
+     * Marks the end of the data written so far, e.g. of the last complete record. The channel must be a file channel.
+     */
+    public void mark() throws IOException {
+        markPosition = ((FileChannel) channel).size();
+        markSize = size;
+    }
+
+    /**
+     * Discards the data written since the mark, if any: the chars buffered since the mark are dropped and the
+     * file is truncated to its size at the mark. The chars buffered before the mark are kept.
+     */
+    public void reset() throws IOException {
+        if (markPosition < 0) return;
+        long position = markPosition;
+        size = markSize;
+        markPosition = -1;
+        markSize = 0;
+        encoder.reset();
+        bytes.clear();
+        ((FileChannel) channel).truncate(position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            encode(true);
+            writeBytes();
+            encoder.flush(bytes);
+            writeBytes();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Encodes the buffered chars and writes them. A high surrogate at the end of the buffer
+    // is kept for the next write unless this is the end of the input.
+    private void encode(boolean endOfInput) throws IOException {
+        int start = 0;
+        if (markSize > 0) {
+            // The chars buffered before the mark are written on their own: the mark moves to the end of their bytes.
+            encode(CharBuffer.wrap(chars, 0, markSize), false);
+            markPosition = ((FileChannel) channel).size();
+            start = markSize;
+            markSize = 0;
+        }
+        CharBuffer input = CharBuffer.wrap(chars, start, size - start);
+        encode(input, endOfInput);
+        int remaining = input.remaining();
+        if (remaining > 0) System.arraycopy(chars, input.position(), chars, 0, remaining);
+        size = remaining;
+    }
+
+    private void encode(CharBuffer input, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(input, bytes, endOfInput);
+            if (result.isError()) result.throwException();
+            writeBytes();
+            if (result.isUnderflow()) break;
+        }
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        ByteBuffer output = bytes;
+        if (direct != null) {
+            direct.clear();
+            direct.put(bytes);
+            direct.flip();
+            output = direct;
+        }
+        while (output.hasRemaining()) {
+            channel.write(output);
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,304 @@
+package de.codecentric.reedelk.csv.internal.write;
+
+import de.codecentric.reedelk.csv.internal.commons.Messages;
+import de.codecentric.reedelk.csv.internal.exception.CSVWriteException;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes the records of a message into several CSV files instead of a single one: each record is routed to the
+ * file of the value of its partition column, if any, and a file is rolled over to a new one once it holds the max
+ * rows or the max chars. The files are named after the given file: the partition value and the one based part
+ * number, if files are rolled over, are appended to its name before its extension, e.g. orders-EU-00001.csv.
+ *
+ * The partitions are the distinct values of the partition column, null included: two values having the same file
+ * name, e.g. a/b and a_b once sanitized, or EU and eu on a case insensitive file system, are an error instead of
+ * being merged into one file. At most max open partitions files are open at once, each one with its own write
+ * buffer and its own headers: the file of the least recently written partition is closed to open another one, and
+ * the next records of that partition are written into a new numbered file. The size of a file is the number of
+ * chars of its CSV data, before it is encoded or compressed, and it is checked between two records: a file might
+ * exceed the max chars by one record.
+ */
+public class PartitionedCSVWriter {
+
+    private static final String[] COMPRESSED_EXTENSIONS = { ".gz", ".deflate", ".zz", ".zip" };
+    private static final String NULL_PARTITION_VALUE = "_null_";
+
+    private final CSVFormat csvFormat;
+    private final String partitionColumn;
+    private final int partitionIndex;
+    private final long maxRows;
+    private final long maxChars;
+    private final int maxOpenPartitions;
+
+    /**
+     * The partition column is a header name for map records and a zero based column index for list records,
+     * it is null if the records are not partitioned. Max rows and max chars are zero if files are not rolled over.
+     */
+    public PartitionedCSVWriter(CSVFormat csvFormat, String partitionColumn, long maxRows, long maxChars, int maxOpenPartitions) {
+        this.csvFormat = csvFormat;
+        this.partitionColumn = partitionColumn;
+        this.partitionIndex = isIndex(partitionColumn) ? Integer.parseInt(partitionColumn) : -1;
+        this.maxRows = maxRows;
+        this.maxChars = maxChars;
+        this.maxOpenPartitions = maxOpenPartitions;
+    }
+
+    /**
+     * Writes the records of the message payload into the files named after the given file and returns the files
+     * written, in the order they were created. All the files are closed when this method returns. The raw format
+     * is the format of the raw records written as they were read, null if they are not, see {@link CSVWriter#write}.
+     */
+    public Result write(Message message, Path path, FileOpener opener, boolean includeHeaders, List<String> headers, CSVFormat rawFormat) throws IOException {
+        // In access order: the first open partition is the least recently written one.
+        Map<Object, Partition> partitions = new LinkedHashMap<>(16, 0.75f, true);
+        // The partition value of each file name, in lower case: the names must differ regardless of case.
+        Map<String, Object> fileNames = new HashMap<>();
+        Result result = new Result();
+        int openPartitions = 0;
+        try {
+            for (Object record : CSVWriter.records(message)) {
+                Object value = partitionColumn == null ? null : partitionValue(record);
+                Partition partition = partitions.computeIfAbsent(value, key -> new Partition());
+                if (partition.printer != null && isFull(partition)) {
+                    result.written(partition.file, partition.rows);
+                    partition.close();
+                    openPartitions--;
+                }
+                if (partition.printer == null) {
+                    if (openPartitions >= maxOpenPartitions) {
+                        closeLeastRecentlyWritten(partitions, partition, result);
+                        openPartitions--;
+                    }
+                    // A partition closed before it was full goes on in a new numbered file.
+                    int part = isRolling() || partition.part > 0 ? partition.part + 1 : 0;
+                    Path file = fileOf(path, partitionColumn == null ? null : fileNameOf(value), part);
+                    checkFileName(fileNames, file, value);
+                    partition.open(file, opener.open(file));
+                    openPartitions++;
+                    result.add(file);
+                    if (includeHeaders) partition.printer.printRecord(headers);
+                }
+                CSVWriter.print(partition.printer, record, includeHeaders, headers, rawFormat);
+                partition.rows++;
+            }
+            for (Partition partition : partitions.values()) {
+                if (partition.printer == null) continue;
+                result.written(partition.file, partition.rows);
+                partition.close();
+            }
+        } finally {
+            // Closes the files still open if a record could not be written.
+            for (Partition partition : partitions.values()) {
+                partition.closeQuietly();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the file of the given partition value and part number: they are appended to the name of the given
+     * file before its extension, the compression extension included. The part number is omitted if it is zero.
+     */
+    static Path fileOf(Path path, String partitionValue, int part) {
+        String name = path.getFileName().toString();
+        int extension = extensionIndex(name);
+        StringBuilder fileName = new StringBuilder(name.substring(0, extension));
+        if (partitionValue != null) fileName.append('-').append(partitionValue);
+        if (part > 0) fileName.append('-').append(String.format("%05d", part));
+        fileName.append(name.substring(extension));
+        return path.resolveSibling(fileName.toString());
+    }
+
+    private boolean isRolling() {
+        return maxRows > 0 || maxChars > 0;
+    }
+
+    private boolean isFull(Partition partition) {
+        return (maxRows > 0 && partition.rows >= maxRows) ||
+                (maxChars > 0 && partition.chars.count >= maxChars);
+    }
+
+    private void closeLeastRecentlyWritten(Map<Object, Partition> partitions, Partition opening, Result result) throws IOException {
+        for (Partition partition : partitions.values()) {
+            if (partition != opening && partition.printer != null) {
+                result.written(partition.file, partition.rows);
+                partition.close();
+                return;
+            }
+        }
+    }
+
+    private static void checkFileName(Map<String, Object> fileNames, Path file, Object value) {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (!fileNames.containsKey(fileName)) {
+            fileNames.put(fileName, value);
+        } else if (!Objects.equals(fileNames.get(fileName), value)) {
+            String error = Messages.CSVWrite.PARTITION_FILE_NAME_CONFLICT.format(value, file, fileNames.get(fileName));
+            throw new CSVWriteException(error);
+        }
+    }
+
+    // The value is part of a file name: chars other than letters, digits, '-' and '_' are replaced by '_'.
+    private static String fileNameOf(Object value) {
+        if (value == null) return NULL_PARTITION_VALUE;
+        String fileName = String.valueOf(value).replaceAll("[^A-Za-z0-9_-]", "_");
+        return fileName.isEmpty() ? "_" : fileName;
+    }
+
+    private Object partitionValue(Object record) {
+        Object value;
+        if (record instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) record;
+            if (!map.containsKey(partitionColumn)) throw columnNotFound(record);
+            value = map.get(partitionColumn);
+        } else if (record instanceof List) {
+            List<?> list = (List<?>) record;
+            if (partitionIndex < 0 || partitionIndex >= list.size()) throw columnNotFound(record);
+            value = list.get(partitionIndex);
+        } else {
+            // Single valued record
+            value = record;
+        }
+        return value;
+    }
+
+    private CSVWriteException columnNotFound(Object record) {
+        String error = Messages.CSVWrite.PARTITION_COLUMN_NOT_FOUND.format(partitionColumn, record);
+        return new CSVWriteException(error);
+    }
+
+    private static int extensionIndex(String name) {
+        String lowerCaseName = name.toLowerCase();
+        int end = name.length();
+        for (String compressedExtension : COMPRESSED_EXTENSIONS) {
+            if (lowerCaseName.endsWith(compressedExtension)) {
+                end -= compressedExtension.length();
+                break;
+            }
+        }
+        int dot = name.lastIndexOf('.', end - 1);
+        return dot > 0 ? dot : end;
+    }
+
+    private static boolean isIndex(String column) {
+        return column != null && column.matches("\\d+");
+    }
+
+    /**
+     * Opens a file to be written, e.g. compressing it.
+     */
+    @FunctionalInterface
+    public interface FileOpener {
+
+        Writer open(Path file) throws IOException;
+    }
+
+    /**
+     * The files written and the number of records written into each one of them, headers excluded.
+     */
+    public static class Result {
+
+        private final Map<Path, Long> fileRecords = new LinkedHashMap<>();
+        private long records;
+
+        private void add(Path file) {
+            fileRecords.put(file, 0L);
+        }
+
+        private void written(Path file, long fileRecords) {
+            this.fileRecords.put(file, fileRecords);
+            records += fileRecords;
+        }
+
+        public List<String> fileNames() {
+            List<String> fileNames = new ArrayList<>(fileRecords.size());
+            fileRecords.keySet().forEach(file -> fileNames.add(file.toString()));
+            return fileNames;
+        }
+
+        public List<Long> fileRecords() {
+            return new ArrayList<>(fileRecords.values());
+        }
+
+        public List<Path> files() {
+            return new ArrayList<>(fileRecords.keySet());
+        }
+
+        public long records() {
+            return records;
+        }
+    }
+
+    private class Partition {
+
+        private Path file;
+        private CSVPrinter printer;
+        private CharCounter chars;
+        private int part;
+        private long rows;
+
+        private void open(Path file, Writer writer) throws IOException {
+            this.file = file;
+            this.chars = new CharCounter(writer);
+            this.printer = new CSVPrinter(chars, csvFormat);
+            this.part++;
+            this.rows = 0;
+        }
+
+        private void close() throws IOException {
+            CSVPrinter current = printer;
+            printer = null;
+            current.close();
+        }
+
+        private void closeQuietly() {
+            if (printer == null) return;
+            try {
+                close();
+            } catch (IOException exception) {
+                // The error writing the records is thrown instead.
+            }
+        }
+    }
+
+    private static class CharCounter extends FilterWriter {
+
+        private long count;
+
+        CharCounter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            super.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            super.write(buffer, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            super.write(string, offset, length);
+            count += length;
+        }
+    }
+}
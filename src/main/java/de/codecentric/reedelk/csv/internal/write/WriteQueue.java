@@ -0,0 +1,132 @@
+package de.codecentric.reedelk.csv.internal.write;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of write tasks run one at a time, in order, by a dedicated daemon thread. Tasks are
+ * expected to handle their own errors: an exception thrown by a task does not stop the thread.
+ * Once the queue is closed no more tasks are accepted, the tasks already queued are still run:
+ * the ones which can not be run before the close timeout are rejected instead, see {@link Task#reject()}.
+ */
+public class WriteQueue {
+
+    // How often a task waiting for space in the queue checks whether the queue was closed.
+    private static final long CLOSED_CHECK_MILLIS = 100;
+
+    private static final Task STOP = new Task() {
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public void reject() {
+        }
+    };
+
+    private final BlockingQueue<Task> tasks;
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile boolean rejecting; // true once the tasks left are rejected instead of run
+
+    public WriteQueue(String name, int capacity) {
+        this.tasks = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues the given task and returns true, or returns false if the queue is full. If block is
+     * true the task waits for space in the queue instead: it is always queued.
+     *
+     * @throws RejectedExecutionException if the queue is closed.
+     */
+    public boolean offer(Task task, boolean block) throws InterruptedException {
+        if (closed) throw new RejectedExecutionException("the write queue is closed");
+        if (block) {
+            while (!tasks.offer(task, CLOSED_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closed) throw new RejectedExecutionException("the write queue is closed");
+            }
+        } else if (!tasks.offer(task)) {
+            return false;
+        }
+        // Closed while the task was being queued: it is either taken by the close, or removed here and rejected.
+        if (closed && tasks.remove(task)) throw new RejectedExecutionException("the write queue is closed");
+        return true;
+    }
+
+    /**
+     * Stops accepting tasks and waits at most the given time for the queued tasks to be run. The tasks queued
+     * while the queue was being closed are run by the calling thread. Returns true if all the tasks were run,
+     * false if the time elapsed: the tasks not run yet are rejected.
+     */
+    public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+        closed = true;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (tasks.offer(STOP, timeout, unit)) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining > 0) thread.join(remaining);
+        }
+        boolean done = !thread.isAlive();
+        if (!done) {
+            // The thread rejects the tasks it takes from now on, the task it is running excluded.
+            rejecting = true;
+            thread.interrupt();
+        }
+        Task task;
+        while ((task = tasks.poll()) != null) {
+            if (done) runQuietly(task);
+            else rejectQuietly(task);
+        }
+        return done;
+    }
+
+    /**
+     * The number of tasks waiting to be run.
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    private void run() {
+        while (true) {
+            Task task;
+            try {
+                task = tasks.take();
+            } catch (InterruptedException exception) {
+                return;
+            }
+            if (task == STOP) return;
+            if (rejecting) rejectQuietly(task);
+            else runQuietly(task);
+        }
+    }
+
+    private static void runQuietly(Task task) {
+        try {
+            task.run();
+        } catch (RuntimeException exception) {
+            // The task failed to report its own error: the next tasks are run anyway.
+        }
+    }
+
+    private static void rejectQuietly(Task task) {
+        try {
+            task.reject();
+        } catch (RuntimeException exception) {
+            // The task failed to report its own rejection: the next tasks are rejected anyway.
+        }
+    }
+
+    /**
+     * A write queued: it is either run, or rejected because the queue was closed before it could be run.
+     */
+    public interface Task extends Runnable {
+
+        void reject();
+    }
+}
@@ -0,0 +1,281 @@
+package de.codecentric.reedelk.csv.internal.write;
+
+import de.codecentric.reedelk.csv.component.FlushPolicy;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of the CSV files appended to, keyed by path: each file is opened once and kept open with its write
+ * buffer across writes, until it is idle for longer than the idle timeout, it is the least recently used
+ * file of a full pool or the pool is closed. Writes to the same file are serialized, writes to different
+ * files are concurrent. The buffered data is written to the file after each write, when the buffer is full
+ * or every flush interval, depending on the flush policy, and when the file is closed.
+ *
+ * All the pools share the open files: a file is open in one pool at a time. A pool writing a file open in another
+ * pool closes it there first, once the write in progress there is done: each pool writes complete records only
+ * after the complete records of the others, even if its buffer is written to the file when it is full.
+ *
+ * A daemon thread closes the idle files and, with the interval flush policy, flushes the files written since
+ * the previous flush. A file which can not be flushed by it is kept open, with its buffered data: the next write
+ * to the file fails with the error and closes it. An error closing an idle file is not reported.
+ */
+public class WriterPool {
+
+    // The files open in all the pools, keyed by absolute path.
+    private static final Map<Path, PooledWriter> OPEN_FILES = new ConcurrentHashMap<>();
+
+    private final CSVFormat csvFormat;
+    private final Charset charset;
+    private final int bufferSize;
+    private final boolean direct;
+    private final int maxOpenFiles;
+    private final long idleTimeoutNanos;
+    private final FlushPolicy flushPolicy;
+
+    // In access order: the first writer is the least recently used one.
+    private final Map<Path, PooledWriter> writers = new LinkedHashMap<>(16, 0.75f, true);
+    private final ScheduledExecutorService maintenance;
+    private boolean closed;
+
+    public WriterPool(CSVFormat csvFormat, Charset charset, int bufferSize, boolean direct, int maxOpenFiles,
+                      long idleTimeoutMillis, FlushPolicy flushPolicy, long flushIntervalMillis) {
+        this.csvFormat = csvFormat;
+        this.charset = charset;
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+        this.maxOpenFiles = maxOpenFiles;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.flushPolicy = flushPolicy;
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "csv-write-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long idleCheckPeriod = Math.max(1, idleTimeoutMillis / 2);
+        maintenance.scheduleWithFixedDelay(this::closeIdle, idleCheckPeriod, idleCheckPeriod, TimeUnit.MILLISECONDS);
+        if (flushPolicy == FlushPolicy.INTERVAL) {
+            maintenance.scheduleAtFixedRate(this::flushAll, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes into the given file with the given write, opening the file if it is not open, and returns the
+     * result of the write. The write is told whether the file is empty, e.g. to write the headers, only the first
+     * time the file is written after being opened. If the write fails, the data it wrote
+     * is discarded, see {@link FileChannelWriter#reset()}, and the file is closed: it holds only complete messages.
+     */
+    public long write(Path path, Write write) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        while (true) {
+            PooledWriter writer = acquire(key);
+            synchronized (writer) {
+                // Closed after it was acquired, e.g. because it was idle: it is opened again.
+                if (writer.closed) continue;
+                if (writer.failure != null) {
+                    writer.closeQuietly();
+                    throw new IOException(writer.failure.getMessage(), writer.failure);
+                }
+                try {
+                    // Not when the file is opened: it might have been written by another pool since then.
+                    boolean isNew = !writer.written && writer.channel.size() == 0;
+                    writer.written = true;
+                    writer.output.mark();
+                    long result = write.write(writer.printer, isNew);
+                    writer.dirty = true;
+                    writer.lastUsed = System.nanoTime();
+                    if (flushPolicy == FlushPolicy.MESSAGE) writer.flush();
+                    return result;
+                } catch (IOException | RuntimeException exception) {
+                    writer.reset();
+                    writer.closeQuietly();
+                    throw exception;
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes all the files, writing their buffered data. Writes after the pool is closed fail.
+     */
+    public void close() {
+        List<PooledWriter> open;
+        synchronized (writers) {
+            closed = true;
+            open = new ArrayList<>(writers.values());
+            writers.clear();
+        }
+        maintenance.shutdownNow();
+        open.forEach(PooledWriter::closeQuietly);
+    }
+
+    /**
+     * The number of files currently open.
+     */
+    public int size() {
+        synchronized (writers) {
+            return writers.size();
+        }
+    }
+
+    private PooledWriter acquire(Path path) throws IOException {
+        while (true) {
+            synchronized (writers) {
+                if (closed) throw new IOException("the CSV output files are closed");
+                PooledWriter writer = writers.get(path);
+                if (writer != null) return writer;
+            }
+
+            PooledWriter open = OPEN_FILES.get(path);
+            // Being added to this pool by another write.
+            if (open != null && open.pool() == this) return open;
+            // Open in another pool: it is closed once the write in progress there, if any, is done.
+            if (open != null) open.closeQuietly();
+
+            // Opened outside of the lock: the writes of the other files are not blocked by the file I/O.
+            PooledWriter writer = open(path);
+            if (OPEN_FILES.putIfAbsent(path, writer) != null) {
+                // Opened at the same time by another write: nothing was written yet.
+                writer.closeQuietly();
+                continue;
+            }
+
+            PooledWriter evicted = null;
+            boolean added;
+            synchronized (writers) {
+                added = !closed;
+                if (added) {
+                    writers.put(path, writer);
+                    if (writers.size() > maxOpenFiles) evicted = writers.values().iterator().next();
+                }
+            }
+            if (!added) {
+                writer.closeQuietly();
+                throw new IOException("the CSV output files are closed");
+            }
+            // It is closed once the writes in progress, if any, are done.
+            if (evicted != null) evicted.closeQuietly();
+            return writer;
+        }
+    }
+
+    private PooledWriter open(Path path) throws IOException {
+        FileChannel channel = FileChannelWriter.openAppendChannel(path);
+        try {
+            FileChannelWriter output = FileChannelWriter.open(channel, charset, bufferSize, direct);
+            return new PooledWriter(path, channel, output, new CSVPrinter(output, csvFormat));
+        } catch (IOException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    private void closeIdle() {
+        long now = System.nanoTime();
+        List<PooledWriter> idle = new ArrayList<>();
+        synchronized (writers) {
+            Iterator<PooledWriter> iterator = writers.values().iterator();
+            while (iterator.hasNext()) {
+                PooledWriter writer = iterator.next();
+                // A file which could not be flushed is kept until the error is reported by a write.
+                if (writer.failure == null && now - writer.lastUsed >= idleTimeoutNanos) {
+                    idle.add(writer);
+                    iterator.remove();
+                }
+            }
+        }
+        idle.forEach(PooledWriter::closeQuietly);
+    }
+
+    private void flushAll() {
+        List<PooledWriter> open;
+        synchronized (writers) {
+            open = new ArrayList<>(writers.values());
+        }
+        for (PooledWriter writer : open) {
+            synchronized (writer) {
+                if (writer.closed || !writer.dirty || writer.failure != null) continue;
+                try {
+                    writer.flush();
+                } catch (IOException exception) {
+                    writer.failure = exception;
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Write {
+
+        long write(CSVPrinter printer, boolean isNew) throws IOException;
+    }
+
+    private class PooledWriter {
+
+        final Path path;
+        final FileChannel channel;
+        final FileChannelWriter output;
+        final CSVPrinter printer;
+
+        // Guarded by the writer itself.
+        boolean written;
+        boolean dirty;
+        volatile boolean closed;
+
+        volatile long lastUsed = System.nanoTime();
+        volatile IOException failure; // the error of the interval flush, if it failed
+
+        PooledWriter(Path path, FileChannel channel, FileChannelWriter output, CSVPrinter printer) {
+            this.path = path;
+            this.channel = channel;
+            this.output = output;
+            this.printer = printer;
+        }
+
+        WriterPool pool() {
+            return WriterPool.this;
+        }
+
+        void flush() throws IOException {
+            printer.flush();
+            dirty = false;
+        }
+
+        // Discards the data written since the beginning of the write in progress, before the file is closed.
+        void reset() {
+            try {
+                output.reset();
+            } catch (IOException exception) {
+                // The data written might be left in the file: the error writing it is thrown instead.
+            }
+        }
+
+        // Removes the file from the pools once its buffered data is written: another pool can then open it.
+        synchronized void closeQuietly() {
+            if (closed) return;
+            closed = true;
+            try {
+                printer.close();
+            } catch (IOException exception) {
+                // Nothing we can do, there is no write to report the error to.
+            }
+            synchronized (writers) {
+                writers.remove(path, this);
+            }
+            OPEN_FILES.remove(path, this);
+        }
+    }
+}
@@ -1,32 +1,56 @@
 package de.codecentric.reedelk.csv.component;
 
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.type.CSVBatch;
 import de.codecentric.reedelk.csv.internal.type.CSVRecord;
+import de.codecentric.reedelk.csv.internal.type.CSVTable;
+import de.codecentric.reedelk.runtime.api.commons.ImmutableMap;
 import de.codecentric.reedelk.runtime.api.commons.ModuleContext;
 import de.codecentric.reedelk.runtime.api.converter.ConverterService;
+import de.codecentric.reedelk.runtime.api.exception.ComponentConfigurationException;
 import de.codecentric.reedelk.runtime.api.flow.FlowContext;
 import de.codecentric.reedelk.runtime.api.message.Message;
 import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
 import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import de.codecentric.reedelk.runtime.api.message.content.TypedContent;
 import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicBoolean;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicLong;
 import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -108,6 +132,34 @@ class CSVReadTest {
                 asList("Vic Crumb","Shortstop","\"Fat Vic\", \"Icy Hot\"","1911-1912"));
     }
 
+    @Test
+    void shouldReadCSVFromPayloadWithFastEngine() {
+        // Given
+        csvRead.setEngine(Engine.FAST);
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.initialize();
+
+        String csvContent = CSVs.SAMPLE_WITH_HEADER.string();
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> records = actual.payload();
+
+        assertThat(records).hasSize(3);
+
+        assertExistRecord(records, HEADERS,
+                asList("Skippy Peterson","First Base","\"Blue Dog\", \"The Magician\"","1908-1913"));
+        assertExistRecord(records, HEADERS,
+                asList("Bud Grimsby","Center Field","\"The Reaper\", \"Longneck\"","1910-1917"));
+        assertExistRecord(records, HEADERS,
+                asList("Vic Crumb","Shortstop","\"Fat Vic\", \"Icy Hot\"","1911-1912"));
+    }
+
     @Test
     void shouldCorrectlyIgnoreEmptyLines() {
         // Given
@@ -225,23 +277,272 @@ class CSVReadTest {
     }
 
     @Test
-    void shouldReadCSVFromFile() throws IOException {
+    void shouldReadOnlySelectedColumnsByHeaderName() {
         // Given
-        String csvData = CSVs.SAMPLE_WITH_HEADER.string();
-        Path tmpFilePath = createTmpFileWithData(csvData);
-        DynamicString dynamicFile = DynamicString.from("#['" + tmpFilePath.toString() + "']", new ModuleContext(10L));
+        csvRead.setEngine(Engine.FAST);
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setColumns(asList("Years Active", "Player Name"));
+        csvRead.initialize();
+
+        String csvContent = CSVs.SAMPLE_WITH_HEADER.string();
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> records = actual.payload();
+
+        assertThat(records).hasSize(3);
+        assertThat(records.get(0).keySet()).containsExactlyInAnyOrder("Player Name", "Years Active");
+        assertThat(records.get(0).values()).containsExactly("Skippy Peterson", "1908-1913");
+        assertThat(records.get(2).get("Years Active")).isEqualTo("1911-1912");
+    }
+
+    @Test
+    void shouldReadOnlySelectedColumnsByIndex() {
+        // Given
+        csvRead.setColumns(asList("1", "3"));
+        csvRead.initialize();
+
+        String csvContent = CSVs.SAMPLE_WITHOUT_HEADER.string();
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<List<String>> records = actual.payload();
+
+        assertThat(records).containsExactly(
+                asList("First Base", "1908-1913"),
+                asList("Center Field", "1910-1917"),
+                asList("Shortstop", "1911-1912"));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenSelectedColumnDoesNotExist() {
+        // Given
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setColumns(asList("Player Name", "Salary"));
+        csvRead.initialize();
+
+        String csvContent = CSVs.SAMPLE_WITH_HEADER.string();
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        // Expect
+        CSVReadException thrown = assertThrows(CSVReadException.class, () -> csvRead.apply(context, input));
+
+        // Then
+        assertThat(thrown).hasMessageStartingWith("Could not find CSV column=[Salary]");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenColumnNamesAreSelectedWithoutHeader() {
+        // Given
+        csvRead.setColumns(asList("Player Name"));
 
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: columns must be given as column indexes when the first record is not a header");
+    }
+
+    @Test
+    void shouldReturnOnlyRecordsMatchingFilterColumn() {
+        // Given
+        csvRead.setEngine(Engine.FAST);
         csvRead.setFirstRecordAsHeader(true);
-        csvRead.setFile(dynamicFile);
+        csvRead.setFilterColumn("Position");
+        csvRead.setFilterOperator(FilterOperator.ENDS_WITH);
+        csvRead.setFilterValue("Field");
         csvRead.initialize();
 
+        String csvContent = CSVs.SAMPLE_WITH_HEADER.string();
         Message input = MessageBuilder.get(TestComponent.class)
-                .empty()
+                .withString(csvContent, MimeType.TEXT_PLAIN)
                 .build();
 
-        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> records = actual.payload();
+
+        assertThat(records).hasSize(1);
+        assertThat(records.get(0).get("Player Name")).isEqualTo("Bud Grimsby");
+    }
+
+    @Test
+    void shouldReturnOnlyRowsMatchingFilterColumnIndex() {
+        // Given
+        csvRead.setColumns(asList("0", "1"));
+        csvRead.setFilterColumn("1");
+        csvRead.setFilterOperator(FilterOperator.NOT_EQUALS);
+        csvRead.setFilterValue("Shortstop");
+        csvRead.initialize();
+
+        String csvContent = CSVs.SAMPLE_WITHOUT_HEADER.string();
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<List<String>> records = actual.payload();
+
+        assertThat(records).containsExactly(
+                asList("Skippy Peterson", "First Base"),
+                asList("Bud Grimsby", "Center Field"));
+    }
+
+    @Test
+    void shouldReturnOnlyRecordsMatchingFilterExpression() {
+        // Given
+        DynamicBoolean filterExpression = DynamicBoolean.from("#[message.payload().get('Position') == 'Shortstop']", new ModuleContext(10L));
+
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setFilterExpression(filterExpression);
+        csvRead.initialize();
+
+        String csvContent = CSVs.SAMPLE_WITH_HEADER.string();
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        doAnswer(invocation -> {
+            Message rowMessage = invocation.getArgument(2);
+            CSVRecord record = rowMessage.payload();
+            return Optional.of("Shortstop".equals(record.get("Position")));
+        }).when(scriptService).evaluate(eq(filterExpression), eq(context), any(Message.class));
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> records = actual.payload();
+
+        assertThat(records).hasSize(1);
+        assertThat(records.get(0).get("Player Name")).isEqualTo("Vic Crumb");
+        verify(scriptService, times(3)).evaluate(eq(filterExpression), eq(context), any(Message.class));
+    }
+
+    @Test
+    void shouldEvaluateFilterExpressionOnlyOnRowsMatchingFilterColumn() {
+        // Given
+        DynamicBoolean filterExpression = DynamicBoolean.from("#[true]", new ModuleContext(10L));
+
+        csvRead.setFilterColumn("1");
+        csvRead.setFilterOperator(FilterOperator.CONTAINS);
+        csvRead.setFilterValue("Base");
+        csvRead.setFilterExpression(filterExpression);
+        csvRead.initialize();
+
+        String csvContent = CSVs.SAMPLE_WITHOUT_HEADER.string();
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        doReturn(Optional.of(true))
                 .when(scriptService)
-                .evaluate(dynamicFile, context, input);
+                .evaluate(eq(filterExpression), eq(context), any(Message.class));
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<List<String>> records = actual.payload();
+
+        assertThat(records).hasSize(1);
+        assertThat(records.get(0).get(0)).isEqualTo("Skippy Peterson");
+        verify(scriptService, times(1)).evaluate(eq(filterExpression), eq(context), any(Message.class));
+    }
+
+    @Test
+    void shouldStreamOnlyRecordsMatchingFilterColumn() {
+        // Given
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setStreaming(true);
+        csvRead.setFilterColumn("Years Active");
+        csvRead.setFilterOperator(FilterOperator.STARTS_WITH);
+        csvRead.setFilterValue("191");
+        csvRead.initialize();
+
+        String csvContent = CSVs.SAMPLE_WITH_HEADER.string();
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        TypedContent<?, CSVRecord> content = actual.content();
+        List<CSVRecord> records = Flux.from(content.stream()).collectList().block();
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).get("Player Name")).isEqualTo("Bud Grimsby");
+        assertThat(records.get(1).get("Player Name")).isEqualTo("Vic Crumb");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenFilterColumnIsNotSelected() {
+        // Given
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setColumns(asList("Player Name"));
+        csvRead.setFilterColumn("Position");
+        csvRead.setFilterValue("Shortstop");
+        csvRead.initialize();
+
+        String csvContent = CSVs.SAMPLE_WITH_HEADER.string();
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        // Expect
+        CSVReadException thrown = assertThrows(CSVReadException.class, () -> csvRead.apply(context, input));
+
+        // Then
+        assertThat(thrown).hasMessage("The CSV filter column=[Position] must be one of the selected columns.");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenFilterColumnNameIsGivenWithoutHeader() {
+        // Given
+        csvRead.setFilterColumn("Position");
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: filter column must be given as column index when the first record is not a header");
+    }
+
+    @Test
+    void shouldShareEqualValuesWhenDeduplicateIsTrue() {
+        // Given
+        csvRead.setEngine(Engine.FAST);
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setDeduplicate(true);
+        csvRead.initialize();
+
+        String csvContent = "Name,Country\nMark,Germany\nJohn,Italy\nAnna,Germany\nLuca,Germany\n";
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
 
         // When
         Message actual = csvRead.apply(context, input);
@@ -249,20 +550,1103 @@ class CSVReadTest {
         // Then
         List<CSVRecord> records = actual.payload();
 
-        assertThat(records).hasSize(3);
+        assertThat(records).hasSize(4);
+        assertThat(records.get(2).get("Country")).isEqualTo("Germany");
+        assertThat(records.get(2).get("Country")).isSameAs(records.get(0).get("Country"));
+        assertThat(records.get(3).get("Country")).isSameAs(records.get(0).get("Country"));
 
-        assertExistRecord(records, HEADERS,
-                asList("Skippy Peterson","First Base","\"Blue Dog\", \"The Magician\"","1908-1913"));
-        assertExistRecord(records, HEADERS,
-                asList("Bud Grimsby","Center Field","\"The Reaper\", \"Longneck\"","1910-1917"));
-        assertExistRecord(records, HEADERS,
-                asList("Vic Crumb","Shortstop","\"Fat Vic\", \"Icy Hot\"","1911-1912"));
+        Map<Integer, Double> hitRatios = ImmutableMap.of(0, 0.0, 1, 0.5);
+        assertThat(actual.attributes().get("deduplicationHitRatios")).isEqualTo(hitRatios);
     }
 
-    private Path createTmpFileWithData(String csvData) throws IOException {
+    @Test
+    void shouldThrowExceptionWhenDeduplicationMaxValuesIsNotPositive() {
+        // Given
+        csvRead.setDeduplicate(true);
+        csvRead.setDeduplicationMaxValues(0);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: deduplication max values must be greater than zero");
+    }
+
+    @Test
+    void shouldReadTypedColumnsWhenSchemaIsGiven() {
+        // Given
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setSchema(ImmutableMap.of("Id", "int", "Amount", "DOUBLE", "Paid", "boolean"));
+        csvRead.initialize();
+
+        String csvContent = "Id,Name,Amount,Paid\n1,Mark,10.5,true\n2,John,,false\n";
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        CSVTable table = actual.payload();
+
+        assertThat(table).hasSize(2);
+        assertThat(table.columnNames()).containsExactly("Id", "Name", "Amount", "Paid");
+        assertThat(table.getInt(0, "Id")).isEqualTo(1);
+        assertThat(table.getDouble(0, "Amount")).isEqualTo(10.5);
+        assertThat(table.isNull(1, table.columnIndex("Amount"))).isTrue();
+        assertThat(table.getBoolean(1, "Paid")).isFalse();
+        assertThat(table.get(1))
+                .containsEntry("Id", 2)
+                .containsEntry("Name", "John")
+                .containsEntry("Amount", null)
+                .containsEntry("Paid", false);
+    }
+
+    @Test
+    void shouldReadTypedColumnsByIndexWhenFirstRecordIsNotHeader() {
+        // Given
+        csvRead.setColumns(asList("0", "2"));
+        csvRead.setSchema(ImmutableMap.of("2", "DATE"));
+        csvRead.setDateFormat("dd/MM/yyyy");
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString("a,b,01/02/2020\nc,d,31/12/1999\n", MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        CSVTable table = actual.payload();
+
+        assertThat(table.columnNames()).containsExactly("0", "2");
+        assertThat(table.getString(1, "0")).isEqualTo("c");
+        assertThat(table.getDate(0, "2")).isEqualTo(LocalDate.of(2020, 2, 1));
+        assertThat(table.getDate(1, "2")).isEqualTo(LocalDate.of(1999, 12, 31));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenTypedValueIsNotValid() {
+        // Given
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setSchema(ImmutableMap.of("Id", "INT"));
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString("Id\n1\n2147483648\n", MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        CSVReadException thrown = assertThrows(CSVReadException.class, () -> csvRead.apply(context, input));
+
+        // Then
+        assertThat(thrown).hasMessage("Could not convert CSV value=[2147483648] of column=[Id] at row=[2] to type=[INT].");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenSchemaTypeIsNotSupported() {
+        // Given
+        csvRead.setSchema(ImmutableMap.of("0", "DECIMAL"));
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: schema type [DECIMAL] of column [0] is not supported");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenSchemaAndStreamingAreBothEnabled() {
+        // Given
+        csvRead.setSchema(ImmutableMap.of("0", "INT"));
+        csvRead.setStreaming(true);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: schema can not be used together with streaming");
+    }
+
+    @Test
+    void shouldReturnNullValuesWhenFormatDefinesNullString() {
+        // Given
+        csvRead.setFormat(Format.MYSQL);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString("one\t\\N\tthree\n\\N\tfive\t\n", MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<List<String>> records = actual.payload();
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0)).containsExactly("one", null, "three");
+        assertThat(records.get(1)).containsExactly(null, "five", "");
+    }
+
+    @Test
+    void shouldReadCSVFromFile() throws IOException {
+        // Given
+        String csvData = CSVs.SAMPLE_WITH_HEADER.string();
+        Path tmpFilePath = createTmpFileWithData(csvData);
+        DynamicString dynamicFile = DynamicString.from("#['" + tmpFilePath.toString() + "']", new ModuleContext(10L));
+
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setFile(dynamicFile);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> records = actual.payload();
+
+        assertThat(records).hasSize(3);
+
+        assertExistRecord(records, HEADERS,
+                asList("Skippy Peterson","First Base","\"Blue Dog\", \"The Magician\"","1908-1913"));
+        assertExistRecord(records, HEADERS,
+                asList("Bud Grimsby","Center Field","\"The Reaper\", \"Longneck\"","1910-1917"));
+        assertExistRecord(records, HEADERS,
+                asList("Vic Crumb","Shortstop","\"Fat Vic\", \"Icy Hot\"","1911-1912"));
+    }
+
+    @Test
+    void shouldReadGzipCompressedFileDetectedByContent() throws IOException {
+        // Given
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(compressed)) {
+            output.write("one,two\nthree,four\n".getBytes(StandardCharsets.UTF_8));
+        }
+        Path tmpFilePath = createTmpFileWithData(compressed.toByteArray());
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+
+        csvRead.setFile(dynamicFile);
+        csvRead.setParallel(true);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<List<String>> records = actual.payload();
+
+        assertThat(records).containsExactly(asList("one", "two"), asList("three", "four"));
+        assertThat(actual.attributes()).doesNotContainKey("parallelChunks");
+    }
+
+    @Test
+    void shouldStreamFirstFileEntryOfZipCompressedFile() throws IOException {
+        // Given
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ZipOutputStream output = new ZipOutputStream(compressed)) {
+            output.putNextEntry(new ZipEntry("data/"));
+            output.putNextEntry(new ZipEntry("data/first.csv"));
+            output.write("Name,Country\nMark,Germany\n".getBytes(StandardCharsets.UTF_8));
+            output.putNextEntry(new ZipEntry("data/second.csv"));
+            output.write("Name,Country\nJohn,Italy\n".getBytes(StandardCharsets.UTF_8));
+        }
+        Path tmpFilePath = createTmpFileWithData(compressed.toByteArray());
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setStreaming(true);
+        csvRead.setFile(dynamicFile);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        TypedContent<?, CSVRecord> content = actual.content();
+        List<CSVRecord> records = Flux.from(content.stream()).collectList().block();
+
+        assertThat(records).hasSize(1);
+        assertThat(records.get(0).get("Name")).isEqualTo("Mark");
+    }
+
+    @Test
+    void shouldReadDeflateCompressedFileDetectedByExtension() throws IOException {
+        // Given
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream output = new DeflaterOutputStream(compressed)) {
+            output.write("x^,y\n1,2\n".getBytes(StandardCharsets.UTF_8));
+        }
+        Path tmpFilePath = Paths.get(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString() + ".csv.deflate");
+        Files.write(tmpFilePath, compressed.toByteArray());
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+
+        csvRead.setFile(dynamicFile);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<List<String>> records = actual.payload();
+
+        assertThat(records).containsExactly(asList("x^", "y"), asList("1", "2"));
+    }
+
+    @Test
+    void shouldNotDecompressFileWhenCompressionIsNone() throws IOException {
+        // Given
+        Path tmpFilePath = Paths.get(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString() + ".csv.gz");
+        Files.write(tmpFilePath, "one,two\n".getBytes(StandardCharsets.UTF_8));
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+
+        csvRead.setFile(dynamicFile);
+        csvRead.setCompression(Compression.NONE);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<List<String>> records = actual.payload();
+
+        assertThat(records).containsExactly(asList("one", "two"));
+    }
+
+    @Test
+    void shouldReadCSVFromFileWithGivenCharset() throws IOException {
+        // Given
+        byte[] csvData = "Name,City\nRen\u00e9e,Z\u00fcrich\n".getBytes(StandardCharsets.ISO_8859_1);
+        Path tmpFilePath = createTmpFileWithData(csvData);
+        DynamicString dynamicFile = DynamicString.from("#['" + tmpFilePath.toString() + "']", new ModuleContext(10L));
+
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setCharset("ISO-8859-1");
+        csvRead.setReadBufferSize(4);
+        csvRead.setFile(dynamicFile);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> records = actual.payload();
+
+        assertThat(records).hasSize(1);
+        assertExistRecord(records, asList("Name", "City"), asList("Ren\u00e9e", "Z\u00fcrich"));
+    }
+
+    @Test
+    void shouldReadCSVFromBinaryPayloadWithGivenCharset() {
+        // Given
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setCharset("ISO-8859-1");
+        csvRead.initialize();
+
+        byte[] csvData = "Name,City\nRen\u00e9e,Z\u00fcrich\n".getBytes(StandardCharsets.ISO_8859_1);
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withBinary(csvData)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> records = actual.payload();
+
+        assertThat(records).hasSize(1);
+        assertExistRecord(records, asList("Name", "City"), asList("Ren\u00e9e", "Z\u00fcrich"));
+        verifyNoInteractions(converter);
+    }
+
+    @Test
+    void shouldReadCSVFromBinaryStreamPayloadSplitWithinCharacters() {
+        // Given
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setCharset("UTF-8");
+        csvRead.initialize();
+
+        // Each chunk is a single byte: the two bytes of each accented char are in different chunks.
+        byte[] csvData = "Name,City\nRen\u00e9e,Z\u00fcrich\n".getBytes(StandardCharsets.UTF_8);
+        Flux<byte[]> chunks = Flux.range(0, csvData.length).map(index -> new byte[] { csvData[index] });
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withBinary(chunks)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> records = actual.payload();
+
+        assertThat(records).hasSize(1);
+        assertExistRecord(records, asList("Name", "City"), asList("Ren\u00e9e", "Z\u00fcrich"));
+        verifyNoInteractions(converter);
+    }
+
+    @Test
+    void shouldStreamCSVRecordsFromBinaryStreamPayloadOnDemand() {
+        // Given
+        csvRead.setStreaming(true);
+        csvRead.initialize();
+
+        AtomicInteger emitted = new AtomicInteger();
+        Flux<byte[]> chunks = Flux.range(0, 100000)
+                .map(index -> (index + "\n").getBytes(StandardCharsets.UTF_8))
+                .doOnNext(chunk -> emitted.incrementAndGet());
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withBinary(chunks)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        TypedContent<?, List<String>> content = actual.content();
+        List<List<String>> records = Flux.from(content.stream()).take(10).collectList().block();
+
+        assertThat(records).hasSize(10);
+        assertThat(records.get(9)).containsExactly("9");
+        assertThat(emitted.get()).isLessThan(100000);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenBinaryStreamPayloadFails() {
+        // Given
+        csvRead.initialize();
+
+        Flux<byte[]> chunks = Flux.concat(
+                Flux.just("one,two\n".getBytes(StandardCharsets.UTF_8)),
+                Flux.error(new IllegalStateException("Connection lost")));
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withBinary(chunks)
+                .build();
+
+        // When
+        CSVReadException thrown = assertThrows(CSVReadException.class, () -> csvRead.apply(context, input));
+
+        // Then
+        assertThat(thrown).hasMessageContaining("Connection lost");
+    }
+
+    @Test
+    void shouldReadCSVFromFileInParallel() throws IOException {
+        // Given
+        String csvData = CSVs.SAMPLE_WITH_HEADER.string();
+        Path tmpFilePath = createTmpFileWithData(csvData);
+        DynamicString dynamicFile = DynamicString.from("#['" + tmpFilePath.toString() + "']", new ModuleContext(10L));
+
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setParallel(true);
+        csvRead.setParallelism(2);
+        csvRead.setFile(dynamicFile);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> records = actual.payload();
+
+        assertThat(records).hasSize(3);
+        assertThat(records.get(0).get("Player Name")).isEqualTo("Skippy Peterson");
+        assertThat(records.get(1).get("Player Name")).isEqualTo("Bud Grimsby");
+        assertThat(records.get(2).get("Player Name")).isEqualTo("Vic Crumb");
+
+        assertThat(actual.attributes()).containsEntry("parallelChunks", 1);
+
+        csvRead.dispose();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenParallelAndStreamingAreBothEnabled() {
+        // Given
+        csvRead.setParallel(true);
+        csvRead.setStreaming(true);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: parallel read can not be used together with streaming");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenCharsetIsNotSupported() {
+        // Given
+        csvRead.setCharset("NOT-A-CHARSET");
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: charset [NOT-A-CHARSET] is not supported");
+    }
+
+    @Test
+    void shouldStreamCSVRecordsFromPayloadWhenFirstRecordIsHeader() {
+        // Given
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setStreaming(true);
+        csvRead.initialize();
+
+        String csvContent = CSVs.SAMPLE_WITH_HEADER.string();
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        TypedContent<?, CSVRecord> content = actual.content();
+        assertThat(content.isStream()).isTrue();
+
+        List<CSVRecord> records = Flux.from(content.stream()).collectList().block();
+
+        assertThat(records).hasSize(3);
+
+        assertExistRecord(records, HEADERS,
+                asList("Skippy Peterson","First Base","\"Blue Dog\", \"The Magician\"","1908-1913"));
+        assertExistRecord(records, HEADERS,
+                asList("Bud Grimsby","Center Field","\"The Reaper\", \"Longneck\"","1910-1917"));
+        assertExistRecord(records, HEADERS,
+                asList("Vic Crumb","Shortstop","\"Fat Vic\", \"Icy Hot\"","1911-1912"));
+    }
+
+    @Test
+    void shouldStreamCSVRecordsFromFileOnDemand() throws IOException {
+        // Given
+        String csvData = CSVs.SAMPLE_WITHOUT_HEADER.string();
+        Path tmpFilePath = createTmpFileWithData(csvData);
+        DynamicString dynamicFile = DynamicString.from("#['" + tmpFilePath.toString() + "']", new ModuleContext(10L));
+
+        csvRead.setStreaming(true);
+        csvRead.setFile(dynamicFile);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        TypedContent<?, List<String>> content = actual.content();
+        List<List<String>> records = Flux.from(content.stream()).take(2).collectList().block();
+
+        assertThat(records).hasSize(2);
+
+        assertExistRecord(records,
+                asList("Skippy Peterson","First Base","\"Blue Dog\", \"The Magician\"","1908-1913"));
+        assertExistRecord(records,
+                asList("Bud Grimsby","Center Field","\"The Reaper\", \"Longneck\"","1910-1917"));
+    }
+
+    @Test
+    void shouldEmitRecordsInBatchesOfGivenSize() {
+        // Given
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setBatchSize(2);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString("Name\nMark\nJohn\nAnna\nLuca\nPaul\n", MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        TypedContent<?, CSVBatch<CSVRecord>> content = actual.content();
+        List<CSVBatch<CSVRecord>> batches = Flux.from(content.stream()).collectList().block();
+
+        assertThat(batches).hasSize(3);
+        assertThat(batches.get(1)).hasSize(2);
+        assertThat(batches.get(1).get(0).get("Name")).isEqualTo("Anna");
+        assertThat(batches.get(2)).hasSize(1);
+        assertThat(batches.get(2).get(0).get("Name")).isEqualTo("Paul");
+
+        assertThat(actual.attributes().get("batchSize")).isEqualTo(2);
+        assertThat(batches.get(1).attributes().get("batchIndex")).isEqualTo(1L);
+        assertThat(batches.get(1).attributes().get("batchFirstRow")).isEqualTo(3L);
+        assertThat(batches.get(1).attributes().get("batchLastRow")).isEqualTo(4L);
+        assertThat(batches.get(2).attributes().get("batchFirstRow")).isEqualTo(5L);
+        assertThat(batches.get(2).attributes().get("batchLastRow")).isEqualTo(5L);
+    }
+
+    @Test
+    void shouldParseOnlyRecordsOfRequestedBatches() {
+        // Given
+        DynamicBoolean filterExpression = DynamicBoolean.from("#[true]", new ModuleContext(10L));
+        csvRead.setFilterExpression(filterExpression);
+        csvRead.setBatchSize(10);
+        csvRead.initialize();
+
+        StringBuilder csvContent = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            csvContent.append(i).append('\n');
+        }
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent.toString(), MimeType.TEXT_PLAIN)
+                .build();
+
+        AtomicInteger parsed = new AtomicInteger();
+        doAnswer(invocation -> {
+            parsed.incrementAndGet();
+            return Optional.of(true);
+        }).when(scriptService).evaluate(eq(filterExpression), eq(context), any(Message.class));
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        TypedContent<?, CSVBatch<List<String>>> content = actual.content();
+        List<CSVBatch<List<String>>> batches = Flux.from(content.stream()).take(2).collectList().block();
+
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(1).get(9)).containsExactly("19");
+        assertThat(parsed.get()).isLessThan(100);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenBatchSizeAndParallelAreBothEnabled() {
+        // Given
+        csvRead.setBatchSize(1000);
+        csvRead.setParallel(true);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: batch size can not be used together with parallel read");
+    }
+
+    @Test
+    void shouldStreamErrorWhenFileDoesNotExist() {
+        // Given
+        String notExistingFile = Paths.get(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString() + ".csv").toString();
+        DynamicString dynamicFile = DynamicString.from("#['" + notExistingFile + "']", new ModuleContext(10L));
+
+        csvRead.setStreaming(true);
+        csvRead.setFile(dynamicFile);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(notExistingFile))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        TypedContent<?, List<String>> content = actual.content();
+        CSVReadException thrown = assertThrows(CSVReadException.class,
+                () -> Flux.from(content.stream()).collectList().block());
+
+        assertThat(thrown).hasMessageStartingWith("Could not read from CSV file=[" + notExistingFile + "]");
+    }
+
+    @Test
+    void shouldReadOnlyRecordsAppendedSincePreviousRead() throws IOException {
+        // Given
+        Path tmpFilePath = createTmpFileWithData("Id,Name\n1,Mark\n");
+        Path checkpoints = Files.createTempDirectory("checkpoints");
+        DynamicString dynamicFile = DynamicString.from("#['" + tmpFilePath.toString() + "']", new ModuleContext(10L));
+
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setIncremental(true);
+        csvRead.setCheckpointDirectory(checkpoints.toString());
+        csvRead.setFile(dynamicFile);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        Message first = csvRead.apply(context, input);
+
+        // When
+        Files.write(tmpFilePath, "2,Anna\n3,Lu".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Message second = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> firstRecords = first.payload();
+        assertThat(firstRecords).hasSize(1);
+        assertExistRecord(firstRecords, asList("Id", "Name"), asList("1", "Mark"));
+
+        List<CSVRecord> secondRecords = second.payload();
+        assertThat(secondRecords).hasSize(1);
+        assertExistRecord(secondRecords, asList("Id", "Name"), asList("2", "Anna"));
+        assertThat(second.attributes())
+                .containsEntry("fromOffset", 15L)
+                .containsEntry("toOffset", 22L)
+                .containsEntry("checkpointReset", false);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenIncrementalAndStreamingAreBothEnabled() {
+        // Given
+        csvRead.setFile(DynamicString.from("#['/tmp/file.csv']", new ModuleContext(10L)));
+        csvRead.setIncremental(true);
+        csvRead.setStreaming(true);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: incremental read can not be used together with streaming or batch size");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenIncrementalAndCheckpointDirectoryIsMissing() {
+        // Given
+        csvRead.setFile(DynamicString.from("#['/tmp/file.csv']", new ModuleContext(10L)));
+        csvRead.setIncremental(true);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: incremental read requires a checkpoint directory");
+    }
+
+    @Test
+    void shouldReadPageFromNearestIndexedRecord() throws IOException {
+        // Given
+        Path tmpFilePath = createTmpFileWithData("Id,Name\n1,Mark\n2,Anna\n3,Luca\n4,John\n5,Paul\n");
+        Path indexes = Files.createTempDirectory("indexes");
+        DynamicString dynamicFile = DynamicString.from("#['" + tmpFilePath.toString() + "']", new ModuleContext(10L));
+        DynamicLong rowOffset = DynamicLong.from("#[message.attributes().offset]", new ModuleContext(10L));
+        DynamicLong rowLimit = DynamicLong.from(2L, new ModuleContext(10L));
+
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setRowOffset(rowOffset);
+        csvRead.setRowLimit(rowLimit);
+        csvRead.setRowIndex(true);
+        csvRead.setRowIndexInterval(2);
+        csvRead.setRowIndexDirectory(indexes.toString());
+        csvRead.setFile(dynamicFile);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+        doAnswer(invocation -> Optional.of(3L))
+                .when(scriptService)
+                .evaluate(rowOffset, context, input);
+        doAnswer(invocation -> Optional.of(2L))
+                .when(scriptService)
+                .evaluate(rowLimit, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> records = actual.payload();
+        assertThat(records).hasSize(2);
+        assertExistRecord(records, asList("Id", "Name"), asList("4", "John"));
+        assertExistRecord(records, asList("Id", "Name"), asList("5", "Paul"));
+        assertThat(actual.attributes())
+                .containsEntry("rowOffset", 3L)
+                .containsEntry("fromOffset", 22L);
+        assertThat(Files.list(indexes).count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenRowIndexIsEnabledWithoutRowOffsetNorLimit() {
+        // Given
+        csvRead.setFile(DynamicString.from("#['/tmp/file.csv']", new ModuleContext(10L)));
+        csvRead.setRowIndex(true);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: row index requires a row offset or a row limit");
+    }
+
+    @Test
+    void shouldReturnCachedRecordsUntilFileIsModified() throws IOException {
+        // Given
+        Path tmpFilePath = createTmpFileWithData(CSVs.SAMPLE_WITH_HEADER.string());
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+        CSVRead other = new CSVRead();
+        other.scriptService = scriptService;
+        for (CSVRead component : asList(csvRead, other)) {
+            component.setFirstRecordAsHeader(true);
+            component.setFile(dynamicFile);
+            component.setParseCache(true);
+            component.initialize();
+        }
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message parsed = csvRead.apply(context, input);
+        Message cached = other.apply(context, input);
+        Files.write(tmpFilePath, "\nBob Ruth,Catcher,Bob,1914-1920".getBytes(), StandardOpenOption.APPEND);
+        Message modified = csvRead.apply(context, input);
+
+        // Then
+        assertThat(parsed.attributes()).containsEntry("cached", false);
+        assertThat(cached.attributes()).containsEntry("cached", true);
+        assertThat((Object) cached.payload()).isSameAs(parsed.payload());
+        assertThat(modified.attributes()).containsEntry("cached", false);
+        List<CSVRecord> records = modified.payload();
+        assertThat(records).hasSize(4);
+
+        csvRead.dispose();
+        other.dispose();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenParseCacheAndStreamingAreBothEnabled() {
+        // Given
+        csvRead.setFile(DynamicString.from("/var/files/data.csv"));
+        csvRead.setParseCache(true);
+        csvRead.setStreaming(true);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: parse cache can not be used together with streaming or batch size");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenRawRecordsAreKeptWithoutHeader() {
+        // Given
+        csvRead.setKeepRawRecords(true);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: keep raw records requires the first record as header");
+    }
+
+    @Test
+    void shouldReadCSVFromFilesMatchingGlobPattern() throws IOException {
+        // Given
+        Path directory = Files.createTempDirectory("csv-read-files");
+        Files.write(directory.resolve("orders-2.csv"), "Id,Name\n3,Luca\n".getBytes());
+        Files.write(directory.resolve("orders-1.csv"), "Id,Name\n1,Mark\n2,Anna\n".getBytes());
+        Files.write(directory.resolve("customers.csv"), "Code\nC1\n".getBytes());
+        String pattern = directory.resolve("orders-*.csv").toString();
+        DynamicString dynamicFile = DynamicString.from(pattern);
+
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setFile(dynamicFile);
+        csvRead.setMultipleFiles(true);
+        csvRead.setFilesParallelism(2);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(pattern))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        List<CSVRecord> records = actual.payload();
+        assertThat(records).extracting(record -> record.get("Name")).containsExactly("Mark", "Anna", "Luca");
+        assertThat(actual.attributes()).containsEntry("fileName", pattern);
+        assertThat((Object) actual.attributes().get("fileNames"))
+                .isEqualTo(asList(directory.resolve("orders-1.csv").toString(), directory.resolve("orders-2.csv").toString()));
+        assertThat((Object) actual.attributes().get("fileRecords")).isEqualTo(asList(2L, 1L));
+
+        csvRead.dispose();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStreamCSVRecordsOfEachFileOfDirectory() throws IOException {
+        // Given
+        Path directory = Files.createTempDirectory("csv-read-files");
+        Files.write(directory.resolve("b.csv"), "Id,Name\n3,Luca\n".getBytes());
+        Files.write(directory.resolve("a.csv"), "Id,Name\n1,Mark\n2,Anna\n".getBytes());
+        DynamicString dynamicFile = DynamicString.from(directory.toString());
+
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setFile(dynamicFile);
+        csvRead.setMultipleFiles(true);
+        csvRead.setStreaming(true);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(directory.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvRead.apply(context, input);
+
+        // Then
+        TypedContent<?, CSVBatch<CSVRecord>> content = actual.content();
+        List<CSVBatch<CSVRecord>> batches = Flux.from(content.stream()).collectList().block();
+
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0)).extracting(record -> record.get("Name")).containsExactly("Mark", "Anna");
+        assertThat(batches.get(0).attributes()).containsEntry("fileName", directory.resolve("a.csv").toString());
+        assertThat(batches.get(1)).extracting(record -> record.get("Name")).containsExactly("Luca");
+        assertThat(batches.get(1).attributes())
+                .containsEntry("fileName", directory.resolve("b.csv").toString())
+                .containsEntry("batchIndex", 1L)
+                .containsEntry("batchFirstRow", 3L)
+                .containsEntry("batchLastRow", 3L);
+
+        csvRead.dispose();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenFilesHaveDifferentHeaders() throws IOException {
+        // Given
+        Path directory = Files.createTempDirectory("csv-read-files");
+        Path first = Files.write(directory.resolve("a.csv"), "Id,Name\n1,Mark\n".getBytes());
+        Path second = Files.write(directory.resolve("b.csv"), "Id,Surname\n2,Doe\n".getBytes());
+        DynamicString dynamicFile = DynamicString.from(directory.toString());
+
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setFile(dynamicFile);
+        csvRead.setMultipleFiles(true);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(directory.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // Expect
+        CSVReadException thrown = assertThrows(CSVReadException.class, () -> csvRead.apply(context, input));
+
+        // Then
+        assertThat(thrown).hasMessage("The header=[Id, Surname] of CSV file=[" + second +
+                "] is different from the header=[Id, Name] of CSV file=[" + first + "].");
+
+        csvRead.dispose();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenDirectoryOfMultipleFilesDoesNotExist() throws IOException {
+        // Given
+        String missing = Files.createTempDirectory("csv-read-files").resolve("missing").toString();
+        DynamicString dynamicFile = DynamicString.from(missing);
+
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setFile(dynamicFile);
+        csvRead.setMultipleFiles(true);
+        csvRead.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .empty()
+                .build();
+
+        doAnswer(invocation -> Optional.of(missing))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // Expect
+        CSVReadException thrown = assertThrows(CSVReadException.class, () -> csvRead.apply(context, input));
+
+        // Then
+        assertThat(thrown).hasMessage("Could not find the CSV files=[" + missing + "], cause=[" + missing + "].");
+
+        csvRead.dispose();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenMultipleFilesAndBatchSizeAreBothEnabled() {
+        // Given
+        csvRead.setFile(DynamicString.from("/var/feeds/*.csv"));
+        csvRead.setMultipleFiles(true);
+        csvRead.setBatchSize(100);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: multiple files can not be used together with batch size");
+    }
+
+    @Test
+    void shouldExposeReadMetricsOverJMX() throws Exception {
+        // Given
+        String metricsName = UUID.randomUUID().toString();
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setMetrics(true);
+        csvRead.setMetricsName(metricsName);
+        csvRead.initialize();
+
+        String csvContent = CSVs.SAMPLE_WITH_HEADER.string();
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withString(csvContent, MimeType.TEXT_PLAIN)
+                .build();
+
+        // When
+        csvRead.apply(context, input);
+        csvRead.apply(context, input);
+
+        // Then
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("de.codecentric.reedelk.csv:type=CSVRead,name=" + ObjectName.quote(metricsName));
+        assertThat(server.getAttribute(objectName, "Messages")).isEqualTo(2L);
+        assertThat(server.getAttribute(objectName, "Errors")).isEqualTo(0L);
+        assertThat(server.getAttribute(objectName, "Rows")).isEqualTo(6L);
+        assertThat(server.getAttribute(objectName, "PeakRowsPerMessage")).isEqualTo(3L);
+        assertThat(server.getAttribute(objectName, "Bytes")).isEqualTo(2L * csvContent.length());
+        assertThat((long[]) server.getAttribute(objectName, "LatencyHistogram")).hasSize(40);
+
+        csvRead.dispose();
+        assertThat(server.isRegistered(objectName)).isFalse();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenMetricsNameIsAlreadyUsed() {
+        // Given
+        String metricsName = UUID.randomUUID().toString();
+        CSVRead other = new CSVRead();
+        other.setMetrics(true);
+        other.setMetricsName(metricsName);
+        other.initialize();
+
+        csvRead.setMetrics(true);
+        csvRead.setMetricsName(metricsName);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvRead.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVRead (de.codecentric.reedelk.csv.component.CSVRead) has a configuration error: metrics name [" + metricsName + "] is already used by another component");
+        other.dispose();
+    }
+
+    private Path createTmpFileWithData(String csvData) throws IOException {
+        return createTmpFileWithData(csvData.getBytes());
+    }
+
+    private Path createTmpFileWithData(byte[] csvData) throws IOException {
         String tmpFileName = UUID.randomUUID().toString() + ".csv";
         Path tmpFilePath = Paths.get(System.getProperty("java.io.tmpdir"), tmpFileName);
-        Files.write(tmpFilePath, csvData.getBytes());
+        Files.write(tmpFilePath, csvData);
         return tmpFilePath;
     }
 
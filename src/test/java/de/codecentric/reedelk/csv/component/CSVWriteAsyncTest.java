@@ -0,0 +1,246 @@
+package de.codecentric.reedelk.csv.component;
+
+import de.codecentric.reedelk.csv.internal.exception.CSVWriteException;
+import de.codecentric.reedelk.runtime.api.component.OnResult;
+import de.codecentric.reedelk.runtime.api.exception.ComponentConfigurationException;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class CSVWriteAsyncTest {
+
+    @Mock
+    private FlowContext context;
+    @Mock
+    private ScriptEngineService scriptService;
+
+    private CSVWriteAsync csvWrite;
+    private Path tmpFilePath;
+    private DynamicString dynamicFile;
+
+    @BeforeEach
+    void setUp() {
+        tmpFilePath = Paths.get(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString() + ".csv");
+        dynamicFile = DynamicString.from(tmpFilePath.toString());
+
+        csvWrite = new CSVWriteAsync();
+        csvWrite.scriptService = scriptService;
+        csvWrite.setFile(dynamicFile);
+
+        lenient().doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(any(DynamicString.class), any(FlowContext.class), any(Message.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        csvWrite.dispose();
+    }
+
+    @Test
+    void shouldCompleteFlowOnceDataIsWrittenToFile() throws Exception {
+        // Given
+        csvWrite.setHeaders(Arrays.asList("Header 1", "Header 2"));
+        csvWrite.setIncludeHeaders(true);
+        csvWrite.setAppend(true);
+        csvWrite.initialize();
+
+        // When
+        Message first = apply(rows(Arrays.asList("one", "two"))).get(5, TimeUnit.SECONDS);
+        Message second = apply(rows(Arrays.asList("three", "four"))).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat((Object) first.payload()).isNull();
+        assertThat(second.attributes()).containsEntry("fileName", tmpFilePath.toString());
+        assertThat(new String(Files.readAllBytes(tmpFilePath))).isEqualTo(
+                "Header 1,Header 2\r\n" +
+                "one,two\r\n" +
+                "three,four\r\n");
+    }
+
+    @Test
+    void shouldFailMessageWhenQueueIsFullAndPolicyIsFail() throws Exception {
+        // Given
+        csvWrite.setQueueCapacity(1);
+        csvWrite.setBackpressurePolicy(BackpressurePolicy.FAIL);
+        csvWrite.initialize();
+
+        UnicastProcessor<List<String>> blocking = UnicastProcessor.create();
+        CompletableFuture<Message> written = apply(stream(blocking));
+        CompletableFuture<Message> queued = applyOnceWriting(written);
+
+        // When
+        CompletableFuture<Message> failed = apply(rows(Arrays.asList("three", "four")));
+
+        // Then
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertThat(thrown.getCause())
+                .isInstanceOf(CSVWriteException.class)
+                .hasMessage("Could not write to CSV file=[" + tmpFilePath + "]: the write queue is full (capacity=[1]).");
+
+        blocking.onNext(Arrays.asList("one", "two"));
+        blocking.onComplete();
+        written.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        assertThat(new String(Files.readAllBytes(tmpFilePath))).isEqualTo("five,six\r\n");
+    }
+
+    @Test
+    void shouldDropMessageWhenQueueIsFullAndPolicyIsDrop() throws Exception {
+        // Given
+        csvWrite.setQueueCapacity(1);
+        csvWrite.setBackpressurePolicy(BackpressurePolicy.DROP);
+        csvWrite.initialize();
+
+        UnicastProcessor<List<String>> blocking = UnicastProcessor.create();
+        CompletableFuture<Message> written = apply(stream(blocking));
+        CompletableFuture<Message> queued = applyOnceWriting(written);
+
+        // When
+        Message firstDropped = apply(rows(Arrays.asList("three", "four"))).get(5, TimeUnit.SECONDS);
+        Message secondDropped = apply(rows(Arrays.asList("three", "four"))).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(firstDropped.attributes())
+                .containsEntry("dropped", true)
+                .containsEntry("droppedMessages", 1L);
+        assertThat(secondDropped.attributes()).containsEntry("droppedMessages", 2L);
+
+        blocking.onComplete();
+        written.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldFailMessageWhenFileIsCompressed() {
+        // Given
+        Path compressedFilePath = Paths.get(tmpFilePath + ".gz");
+        doReturn(Optional.of(compressedFilePath.toString()))
+                .when(scriptService)
+                .evaluate(any(DynamicString.class), any(FlowContext.class), any(Message.class));
+        csvWrite.initialize();
+
+        // When
+        CompletableFuture<Message> failed = apply(rows(Arrays.asList("one", "two")));
+
+        // Then
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertThat(thrown.getCause())
+                .isInstanceOf(CSVWriteException.class)
+                .hasMessage("Could not write CSV file=[" + compressedFilePath + "] asynchronously: " +
+                        "compressed files are not supported, use CSV Write instead.");
+        assertThat(compressedFilePath).doesNotExist();
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    void shouldDiscardDataOfFailedWrite() throws Exception {
+        // Given
+        csvWrite.setHeaders(Arrays.asList("Header 1", "Header 2"));
+        csvWrite.setIncludeHeaders(true);
+        csvWrite.setAppend(true);
+        csvWrite.setWriteBufferSize(16);
+        csvWrite.initialize();
+        apply(rows(Arrays.asList("one", "two"))).get(5, TimeUnit.SECONDS);
+
+        // More records than the stream prefetch: most of them are written to the file before the error is received.
+        Flux<List> rows = Flux.concat(
+                Flux.range(0, 1000).map(i -> Arrays.asList("three" + i, "four" + i)),
+                Flux.error(new IllegalStateException("Connection lost")));
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withStream(rows, List.class)
+                .build();
+
+        // When
+        CompletableFuture<Message> failed = apply(input);
+
+        // Then
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertThat(thrown.getCause()).hasMessageContaining("Connection lost");
+        assertThat(new String(Files.readAllBytes(tmpFilePath))).isEqualTo(
+                "Header 1,Header 2\r\n" +
+                "one,two\r\n");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenFileIsNotDefined() {
+        // Given
+        csvWrite.setFile(null);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvWrite.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVWriteAsync (de.codecentric.reedelk.csv.component.CSVWriteAsync) has a configuration error: CSV output file must be defined");
+    }
+
+    // The writer thread creates the file before it waits for the records of the stream:
+    // once the file exists the message was taken from the queue and there is space for another one.
+    private CompletableFuture<Message> applyOnceWriting(CompletableFuture<Message> writing) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Files.exists(tmpFilePath) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(writing).isNotDone();
+        CompletableFuture<Message> queued = apply(rows(Arrays.asList("five", "six")));
+        assertThat(queued).isNotDone();
+        return queued;
+    }
+
+    private CompletableFuture<Message> apply(Message input) {
+        CompletableFuture<Message> result = new CompletableFuture<>();
+        csvWrite.apply(context, input, new OnResult() {
+            @Override
+            public void onResult(FlowContext flowContext, Message message) {
+                result.complete(message);
+            }
+
+            @Override
+            public void onError(FlowContext flowContext, Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+        });
+        return result;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Message rows(List<String> row) {
+        List<List> rows = Collections.singletonList(row);
+        return MessageBuilder.get(TestComponent.class)
+                .withList(rows, List.class)
+                .build();
+    }
+
+    private static Message stream(UnicastProcessor<List<String>> rows) {
+        return MessageBuilder.get(TestComponent.class)
+                .withStream(rows, List.class)
+                .build();
+    }
+}
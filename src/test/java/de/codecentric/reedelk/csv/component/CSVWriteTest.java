@@ -1,12 +1,15 @@
 package de.codecentric.reedelk.csv.component;
 
 
+import de.codecentric.reedelk.csv.internal.exception.CSVWriteException;
+import de.codecentric.reedelk.csv.internal.type.CSVRecord;
 import de.codecentric.reedelk.runtime.api.commons.ImmutableMap;
 import de.codecentric.reedelk.runtime.api.converter.ConverterService;
 import de.codecentric.reedelk.runtime.api.exception.ComponentConfigurationException;
 import de.codecentric.reedelk.runtime.api.flow.FlowContext;
 import de.codecentric.reedelk.runtime.api.message.Message;
 import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
 import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
 import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,12 +17,23 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -101,6 +115,72 @@ class CSVWriteTest {
                         "four,five,six\r\n");
     }
 
+    @Test
+    void shouldWriteRawTextOfRecordsWhichWereNotModified() {
+        // Given
+        CSVRead csvRead = new CSVRead();
+        csvRead.converter = converter;
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setKeepRawRecords(true);
+        csvRead.initialize();
+
+        Message read = csvRead.apply(context, MessageBuilder.get(TestComponent.class)
+                .withString("Id,Name,Notes\n1,\"Mark\",unchanged\n2,\"John\",to be changed\n", MimeType.TEXT_PLAIN)
+                .build());
+        List<CSVRecord> records = read.payload();
+        Map<String, String> modified = new LinkedHashMap<>(records.get(1));
+        modified.put("Notes", "changed");
+
+        csvWrite.setIncludeHeaders(true);
+        csvWrite.setHeaders(Arrays.asList("Id", "Name", "Notes"));
+        csvWrite.setRawRecords(true);
+        csvWrite.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withList(Arrays.asList(records.get(0), modified), Map.class)
+                .build();
+
+        // When
+        Message actual = csvWrite.apply(context, input);
+
+        // Then
+        String csv = actual.payload();
+        assertThat(csv).isEqualTo(
+                "Id,Name,Notes\r\n" +
+                "1,\"Mark\",unchanged\r\n" +
+                "2,John,changed\r\n");
+    }
+
+    @Test
+    void shouldNotWriteRawTextOfRecordsReadWithAnotherFormat() {
+        // Given
+        CSVRead csvRead = new CSVRead();
+        csvRead.converter = converter;
+        csvRead.setFirstRecordAsHeader(true);
+        csvRead.setDelimiter(';');
+        csvRead.setKeepRawRecords(true);
+        csvRead.initialize();
+
+        Message read = csvRead.apply(context, MessageBuilder.get(TestComponent.class)
+                .withString("Id;Name\n1;\"Mark, Jr\"\n", MimeType.TEXT_PLAIN)
+                .build());
+        List<CSVRecord> records = read.payload();
+
+        csvWrite.setRawRecords(true);
+        csvWrite.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withList(records, CSVRecord.class)
+                .build();
+
+        // When
+        Message actual = csvWrite.apply(context, input);
+
+        // Then
+        String csv = actual.payload();
+        assertThat(csv).isEqualTo("1,\"Mark, Jr\"\r\n");
+    }
+
     @Test
     void shouldThrowExceptionWhenIncludeHeadersTrueButHeadersIsNull() {
         // Given
@@ -256,6 +336,465 @@ class CSVWriteTest {
                 "four,five\r\n");
     }
 
+    @SuppressWarnings("rawtypes")
+    @Test
+    void shouldWriteDataToFileWithGivenCharsetAndBuffer() throws IOException {
+        // Given
+        Path tmpFilePath = createTmpFilePath();
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+        csvWrite.setFile(dynamicFile);
+        csvWrite.setCharset("ISO-8859-1");
+        csvWrite.setWriteBufferSize(4);
+        csvWrite.setDirectBuffer(true);
+        csvWrite.initialize();
+
+        List<String> row1 = Arrays.asList("Ren\u00e9e", "Z\u00fcrich");
+        List<String> row2 = Arrays.asList("Bj\u00f6rn", "M\u00fcnchen");
+        List<List> rows = Arrays.asList(row1, row2);
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withList(rows, List.class)
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        csvWrite.apply(context, input);
+
+        // Then
+        String writtenCsv = new String(Files.readAllBytes(tmpFilePath), StandardCharsets.ISO_8859_1);
+        assertThat(writtenCsv).isEqualTo(
+                "Ren\u00e9e,Z\u00fcrich\r\n" +
+                "Bj\u00f6rn,M\u00fcnchen\r\n");
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    void shouldWriteGzipCompressedFileDetectedByExtension() throws IOException {
+        // Given
+        Path tmpFilePath = Paths.get(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString() + ".csv.gz");
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+        csvWrite.setFile(dynamicFile);
+        csvWrite.setCompressionLevel(1);
+        csvWrite.initialize();
+
+        List<List> rows = Arrays.asList(Arrays.asList("one", "two"), Arrays.asList("four", "five"));
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withList(rows, List.class)
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        csvWrite.apply(context, input);
+
+        // Then
+        try (InputStream compressed = new GZIPInputStream(Files.newInputStream(tmpFilePath))) {
+            assertThat(readAll(compressed)).isEqualTo("one,two\r\nfour,five\r\n");
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    void shouldWriteZipCompressedFileWithSingleEntry() throws IOException {
+        // Given
+        Path tmpFilePath = Paths.get(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString() + ".zip");
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+        csvWrite.setFile(dynamicFile);
+        csvWrite.setCompression(Compression.ZIP);
+        csvWrite.setCompressionLevel(9);
+        csvWrite.initialize();
+
+        List<List> rows = Collections.singletonList(Arrays.asList("one", "two"));
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withList(rows, List.class)
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        csvWrite.apply(context, input);
+
+        // Then
+        try (ZipInputStream compressed = new ZipInputStream(Files.newInputStream(tmpFilePath))) {
+            ZipEntry entry = compressed.getNextEntry();
+            assertThat(entry.getName()).isEqualTo(tmpFilePath.getFileName().toString().replace(".zip", ".csv"));
+            assertThat(readAll(compressed)).isEqualTo("one,two\r\n");
+            assertThat(compressed.getNextEntry()).isNull();
+        }
+    }
+
+    @Test
+    void shouldThrowExceptionWhenCompressionLevelIsNotValid() {
+        // Given
+        csvWrite.setCompressionLevel(10);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvWrite.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVWrite (de.codecentric.reedelk.csv.component.CSVWrite) has a configuration error: compression level must be between 0 and 9");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenCharsetIsNotSupported() {
+        // Given
+        csvWrite.setCharset("NOT-A-CHARSET");
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvWrite.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVWrite (de.codecentric.reedelk.csv.component.CSVWrite) has a configuration error: charset [NOT-A-CHARSET] is not supported");
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    void shouldWriteStreamToFileAsElementsArrive() throws IOException {
+        // Given
+        Path tmpFilePath = createTmpFilePath();
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+        csvWrite.setHeaders(Arrays.asList("Id", "Name"));
+        csvWrite.setIncludeHeaders(true);
+        csvWrite.setFile(dynamicFile);
+        csvWrite.initialize();
+
+        AtomicLong maxRequested = new AtomicLong();
+        Flux<Map> rows = Flux.range(0, 10000)
+                .<Map>map(index -> ImmutableMap.of("Name", "name" + index, "Id", String.valueOf(index)))
+                .doOnRequest(requested -> maxRequested.accumulateAndGet(requested, Math::max));
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withStream(rows, Map.class)
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvWrite.apply(context, input);
+
+        // Then
+        String payload = actual.payload();
+        assertThat(payload).isNull();
+
+        List<String> lines = Files.readAllLines(tmpFilePath);
+        assertThat(lines).hasSize(10001);
+        assertThat(lines.get(0)).isEqualTo("Id,Name");
+        assertThat(lines.get(1)).isEqualTo("0,name0");
+        assertThat(lines.get(10000)).isEqualTo("9999,name9999");
+
+        // The stream is never requested as a whole.
+        assertThat(maxRequested.get()).isLessThanOrEqualTo(256);
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    void shouldWriteStreamIntoMessagePayloadAsStream() {
+        // Given
+        csvWrite.setHeaders(Arrays.asList("Header 1", "Header 2"));
+        csvWrite.setIncludeHeaders(true);
+        csvWrite.initialize();
+
+        Flux<List> rows = Flux.range(0, 5000)
+                .<List>map(index -> Arrays.asList("one" + index, "two" + index));
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withStream(rows, List.class)
+                .build();
+
+        // When
+        Message actual = csvWrite.apply(context, input);
+
+        // Then
+        assertThat(actual.content().isStream()).isTrue();
+
+        List<String> chunks = Flux.from(actual.content().stream()).cast(String.class).collectList().block();
+        assertThat(chunks.size()).isGreaterThan(1);
+
+        StringBuilder expected = new StringBuilder("Header 1,Header 2\r\n");
+        for (int i = 0; i < 5000; i++) {
+            expected.append("one").append(i).append(",two").append(i).append("\r\n");
+        }
+        assertThat(String.join("", chunks)).isEqualTo(expected.toString());
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    void shouldStreamErrorWhenPayloadStreamFails() {
+        // Given
+        csvWrite.initialize();
+
+        Flux<List> rows = Flux.concat(
+                Flux.just(Arrays.asList("one", "two")),
+                Flux.error(new IllegalStateException("Connection lost")));
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withStream(rows, List.class)
+                .build();
+
+        // When
+        Message actual = csvWrite.apply(context, input);
+
+        // Then
+        CSVWriteException thrown = assertThrows(CSVWriteException.class,
+                () -> Flux.from(actual.content().stream()).blockLast());
+        assertThat(thrown).hasMessage("Could not write CSV into message payload, cause=[Connection lost].");
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    void shouldExposeWriteMetricsOverJMX() throws Exception {
+        // Given
+        String metricsName = UUID.randomUUID().toString();
+        Path tmpFilePath = createTmpFilePath();
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+        csvWrite.setFile(dynamicFile);
+        csvWrite.setMetrics(true);
+        csvWrite.setMetricsName(metricsName);
+        csvWrite.initialize();
+
+        List<List> rows = Arrays.asList(Arrays.asList("one", "two"), Arrays.asList("three", "four"));
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withList(rows, List.class)
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        csvWrite.apply(context, input);
+
+        // Then
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("de.codecentric.reedelk.csv:type=CSVWrite,name=" + ObjectName.quote(metricsName));
+        assertThat(server.getAttribute(objectName, "Messages")).isEqualTo(1L);
+        assertThat(server.getAttribute(objectName, "Rows")).isEqualTo(2L);
+        assertThat(server.getAttribute(objectName, "Bytes")).isEqualTo(Files.size(tmpFilePath));
+
+        csvWrite.dispose();
+        assertThat(server.isRegistered(objectName)).isFalse();
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    void shouldAppendToFileWritingHeadersOnlyWhenFileIsNew() throws IOException {
+        // Given
+        Path tmpFilePath = createTmpFilePath();
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+        csvWrite.setHeaders(Arrays.asList("Header 1", "Header 2"));
+        csvWrite.setIncludeHeaders(true);
+        csvWrite.setAppend(true);
+        csvWrite.setFile(dynamicFile);
+        csvWrite.initialize();
+
+        Message first = MessageBuilder.get(TestComponent.class)
+                .withList(Collections.singletonList(Arrays.asList("one", "two")), List.class)
+                .build();
+        Message second = MessageBuilder.get(TestComponent.class)
+                .withList(Collections.singletonList(Arrays.asList("three", "four")), List.class)
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(any(DynamicString.class), any(FlowContext.class), any(Message.class));
+
+        // When
+        csvWrite.apply(context, first);
+        csvWrite.apply(context, second);
+
+        // Then: each message is flushed, the file is kept open.
+        assertThat(new String(Files.readAllBytes(tmpFilePath))).isEqualTo(
+                "Header 1,Header 2\r\n" +
+                "one,two\r\n" +
+                "three,four\r\n");
+
+        // The headers are not written again once the file is opened again.
+        csvWrite.dispose();
+        csvWrite.initialize();
+        csvWrite.apply(context, first);
+        csvWrite.dispose();
+        assertThat(new String(Files.readAllBytes(tmpFilePath))).isEqualTo(
+                "Header 1,Header 2\r\n" +
+                "one,two\r\n" +
+                "three,four\r\n" +
+                "one,two\r\n");
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    void shouldWriteBufferedRecordsOnDisposeWhenFlushPolicyIsBufferFull() throws IOException {
+        // Given
+        Path tmpFilePath = createTmpFilePath();
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+        csvWrite.setAppend(true);
+        csvWrite.setFlushPolicy(FlushPolicy.BUFFER_FULL);
+        csvWrite.setFile(dynamicFile);
+        csvWrite.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withList(Collections.singletonList(Arrays.asList("one", "two")), List.class)
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        csvWrite.apply(context, input);
+        csvWrite.apply(context, input);
+
+        // Then
+        assertThat(Files.size(tmpFilePath)).isZero();
+        csvWrite.dispose();
+        assertThat(new String(Files.readAllBytes(tmpFilePath))).isEqualTo("one,two\r\none,two\r\n");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenAppendAndCompressionAreBothEnabled() {
+        // Given
+        csvWrite.setFile(DynamicString.from("/tmp/file.csv.gz"));
+        csvWrite.setAppend(true);
+        csvWrite.setCompression(Compression.GZIP);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvWrite.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVWrite (de.codecentric.reedelk.csv.component.CSVWrite) has a configuration error: append can not be used together with compression");
+    }
+
+    @Test
+    void shouldWriteRecordsIntoFileOfTheirPartitionWithHeaders() throws IOException {
+        // Given
+        Path directory = Files.createTempDirectory("csv-write-partitions");
+        Path tmpFilePath = directory.resolve("orders.csv");
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+        csvWrite.setHeaders(Arrays.asList("Id", "Region"));
+        csvWrite.setIncludeHeaders(true);
+        csvWrite.setPartitionColumn("Region");
+        csvWrite.setFile(dynamicFile);
+        csvWrite.initialize();
+
+        List<Map<String, String>> records = Arrays.asList(
+                ImmutableMap.of("Id", "1", "Region", "EU"),
+                ImmutableMap.of("Id", "2", "Region", "US West"),
+                ImmutableMap.of("Id", "3", "Region", "EU"));
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withList(records, Map.class)
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvWrite.apply(context, input);
+
+        // Then
+        Path europe = directory.resolve("orders-EU.csv");
+        Path unitedStates = directory.resolve("orders-US_West.csv");
+        assertThat(new String(Files.readAllBytes(europe))).isEqualTo("Id,Region\r\n1,EU\r\n3,EU\r\n");
+        assertThat(new String(Files.readAllBytes(unitedStates))).isEqualTo("Id,Region\r\n2,US West\r\n");
+        assertThat(Files.exists(tmpFilePath)).isFalse();
+        assertThat((Object) actual.attributes().get("fileNames"))
+                .isEqualTo(Arrays.asList(europe.toString(), unitedStates.toString()));
+        assertThat((Object) actual.attributes().get("fileRecords")).isEqualTo(Arrays.asList(2L, 1L));
+    }
+
+    @Test
+    void shouldRollOverToNewFileEveryMaxRows() throws IOException {
+        // Given
+        Path directory = Files.createTempDirectory("csv-write-parts");
+        Path tmpFilePath = directory.resolve("export.csv");
+        DynamicString dynamicFile = DynamicString.from(tmpFilePath.toString());
+        csvWrite.setMaxRowsPerFile(2);
+        csvWrite.setFile(dynamicFile);
+        csvWrite.initialize();
+
+        Message input = MessageBuilder.get(TestComponent.class)
+                .withStream(Flux.just(
+                        Arrays.asList("one", "1"),
+                        Arrays.asList("two", "2"),
+                        Arrays.asList("three", "3")), List.class)
+                .build();
+
+        doAnswer(invocation -> Optional.of(tmpFilePath.toString()))
+                .when(scriptService)
+                .evaluate(dynamicFile, context, input);
+
+        // When
+        Message actual = csvWrite.apply(context, input);
+
+        // Then
+        assertThat(new String(Files.readAllBytes(directory.resolve("export-00001.csv")))).isEqualTo("one,1\r\ntwo,2\r\n");
+        assertThat(new String(Files.readAllBytes(directory.resolve("export-00002.csv")))).isEqualTo("three,3\r\n");
+        assertThat((Object) actual.attributes().get("fileRecords")).isEqualTo(Arrays.asList(2L, 1L));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenPartitionedWriteAndAppendAreBothEnabled() {
+        // Given
+        csvWrite.setFile(DynamicString.from("/tmp/orders.csv"));
+        csvWrite.setPartitionColumn("Region");
+        csvWrite.setAppend(true);
+
+        // Expect
+        ComponentConfigurationException thrown =
+                assertThrows(ComponentConfigurationException.class, () -> csvWrite.initialize());
+
+        // Then
+        assertThat(thrown)
+                .hasMessage("CSVWrite (de.codecentric.reedelk.csv.component.CSVWrite) has a configuration error: partitioned write can not be used together with append");
+    }
+
+    @Test
+    void shouldNotStartWriterPoolWhenConfigurationIsRejected() {
+        // Given
+        csvWrite.setFile(DynamicString.from("/tmp/orders.csv"));
+        csvWrite.setAppend(true);
+        csvWrite.setMaxRowsPerFile(0);
+        long poolThreads = poolThreads();
+
+        // When
+        assertThrows(ComponentConfigurationException.class, () -> csvWrite.initialize());
+
+        // Then
+        assertThat(poolThreads()).isEqualTo(poolThreads);
+    }
+
+    private static long poolThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("csv-write-pool"))
+                .count();
+    }
+
+    private static String readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
     private Path createTmpFilePath() {
         String tmpFileName = UUID.randomUUID().toString() + ".csv";
         return Paths.get(System.getProperty("java.io.tmpdir"), tmpFileName);
@@ -0,0 +1,56 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * The engines and the helpers shared by the parser tests: the records are printed by commons-csv, the reference
+ * for the formats, and the rows parsed are compared as lists of values.
+ */
+final class CSVParserTestSupport {
+
+    static final CSVParserEngine[] ENGINES = { new CommonsCSVEngine(), new FastCSVEngine() };
+
+    private CSVParserTestSupport() {
+    }
+
+    /**
+     * Returns the CSV text of the given number of records printed with the given format, headers included.
+     */
+    static String printedRecords(CSVFormat csvFormat, int count, IntFunction<List<String>> records) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (CSVPrinter printer = new CSVPrinter(writer, csvFormat)) {
+            for (int i = 0; i < count; i++) {
+                printer.printRecord(records.apply(i));
+            }
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Returns a record of the given number of values picked at random, one value in ten is null if nulls are allowed.
+     */
+    static List<String> randomRecord(Random random, String[] values, int columns, boolean nulls) {
+        List<String> record = new ArrayList<>(columns);
+        for (int j = 0; j < columns; j++) {
+            record.add(nulls && random.nextInt(10) == 0 ? null : values[random.nextInt(values.length)]);
+        }
+        return record;
+    }
+
+    static List<List<String>> toLists(List<CSVRow> rows) {
+        List<List<String>> lists = new ArrayList<>();
+        for (CSVRow row : rows) {
+            lists.add(new ArrayList<>(row));
+        }
+        return lists;
+    }
+}
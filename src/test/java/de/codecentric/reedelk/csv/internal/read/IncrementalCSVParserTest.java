@@ -0,0 +1,208 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.component.Format;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import org.apache.commons.csv.CSVFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static de.codecentric.reedelk.csv.internal.read.CSVParserTestSupport.ENGINES;
+import static de.codecentric.reedelk.csv.internal.read.CSVParserTestSupport.randomRecord;
+import static de.codecentric.reedelk.csv.internal.read.CSVParserTestSupport.toLists;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class IncrementalCSVParserTest {
+
+    private static final String[] VALUES = {
+            "plain", "", "with space ", "with,comma", "with\ttab", "with\nnew line", "with\r\ncarriage return",
+            "with \"quotes\"", "\"", "\n", "with\\backslash", "with:colon", "Zürich €", "emoji 😀" };
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void shouldParseSameRecordsAsSequentialParserWhenFileIsAppendedTo(Format format) throws IOException {
+        CSVFormat csvFormat = format.format();
+        assumeTrue(IncrementalCSVParser.isSupported(csvFormat, UTF_8));
+        byte[] csv = printedRecords(csvFormat, new Random(1)).getBytes(UTF_8);
+        List<CSVRow> expected;
+        try {
+            expected = CSVParserWithoutHeader.from(new CommonsCSVEngine(), csvFormat, ColumnProjection.all(), RowFilter.NONE, null,
+                    new StringReader(new String(csv, UTF_8)));
+        } catch (CSVReadException exception) {
+            // Some formats can not parse the records they print, e.g. values made of a single quote.
+            assumeTrue(false, "The format can not parse its own records: " + exception.getMessage());
+            return;
+        }
+
+        for (CSVParserEngine engine : ENGINES) {
+            Path file = Files.createTempFile(directory, "incremental", ".csv");
+            IncrementalCSVParser parser = new IncrementalCSVParser(engine, csvFormat, ColumnProjection.all(), UTF_8, 16,
+                    new CheckpointStore(directory.resolve("checkpoints-" + engine.getClass().getSimpleName())));
+
+            // The file is appended to in slices of random size: records are split anywhere, e.g. in quoted values.
+            List<CSVRow> actual = new ArrayList<>();
+            Random random = new Random(2);
+            int position = 0;
+            while (position < csv.length) {
+                int length = Math.min(csv.length - position, 1 + random.nextInt(64));
+                Files.write(file, Arrays.copyOfRange(csv, position, position + length), StandardOpenOption.APPEND);
+                position += length;
+
+                IncrementalCSVParser.Result result = parser.parse(file, RowFilter.NONE, null);
+                assertThat(result.isReset()).isFalse();
+                actual.addAll(result.rows());
+            }
+
+            assertThat(toLists(actual)).isEqualTo(toLists(expected));
+        }
+    }
+
+    @Test
+    void shouldResolveColumnsAgainstCheckpointHeader() throws IOException {
+        // Given
+        Path file = directory.resolve("with-header.csv");
+        Files.write(file, "Id,Name,City\n1,Mark,London\n".getBytes(UTF_8));
+        IncrementalCSVParser parser = new IncrementalCSVParser(new CommonsCSVEngine(), CSVFormat.DEFAULT.withFirstRecordAsHeader(),
+                ColumnProjection.of(singletonList("City")), UTF_8, 16, new CheckpointStore(directory.resolve("checkpoints")));
+        IncrementalCSVParser.Result first = parser.parse(file, RowFilter.NONE, null);
+
+        // When
+        Files.write(file, "2,Anna,Paris\n3,Luca".getBytes(UTF_8), StandardOpenOption.APPEND);
+        IncrementalCSVParser.Result second = parser.parse(file, RowFilter.NONE, null);
+
+        // Then
+        assertThat(toLists(first.rows())).containsExactly(singletonList("London"));
+        assertThat(second.headerNames()).containsExactly("City");
+        assertThat(toLists(second.rows())).containsExactly(singletonList("Paris"));
+        assertThat(second.fromOffset()).isEqualTo(first.toOffset());
+        assertThat(second.toOffset()).isEqualTo(Files.size(file) - "3,Luca".length());
+    }
+
+    @Test
+    void shouldKeepRepeatedHeaderNames() throws IOException {
+        for (CSVParserEngine engine : ENGINES) {
+            // Given
+            Path file = Files.createTempFile(directory, "repeated", ".csv");
+            Files.write(file, "a,b,a\n1,2,3\n".getBytes(UTF_8));
+            IncrementalCSVParser parser = new IncrementalCSVParser(engine, CSVFormat.DEFAULT.withFirstRecordAsHeader(),
+                    ColumnProjection.all(), UTF_8, 16, new CheckpointStore(directory.resolve("checkpoints-" + engine.getClass().getSimpleName())));
+            IncrementalCSVParser.Result first = parser.parse(file, RowFilter.NONE, null);
+
+            // When
+            Files.write(file, "4,5,6\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+            IncrementalCSVParser.Result second = parser.parse(file, RowFilter.NONE, null);
+
+            // Then
+            assertThat(first.headerNames()).containsExactly("a", "b", "a");
+            assertThat(toLists(first.rows())).containsExactly(asList("1", "2", "3"));
+            assertThat(second.headerNames()).containsExactly("a", "b", "a");
+            assertThat(toLists(second.rows())).containsExactly(asList("4", "5", "6"));
+        }
+    }
+
+    @Test
+    void shouldKeepRepeatedEmptyHeaderNames() throws IOException {
+        for (CSVParserEngine engine : ENGINES) {
+            // Given
+            Path file = Files.createTempFile(directory, "empty-names", ".csv");
+            Files.write(file, "x,,\r\n1,2,3\r\n".getBytes(UTF_8));
+            IncrementalCSVParser parser = new IncrementalCSVParser(engine, CSVFormat.EXCEL.withFirstRecordAsHeader(),
+                    ColumnProjection.all(), UTF_8, 16, new CheckpointStore(directory.resolve("checkpoints-" + engine.getClass().getSimpleName())));
+            IncrementalCSVParser.Result first = parser.parse(file, RowFilter.NONE, null);
+
+            // When
+            Files.write(file, "4,5,6\r\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+            IncrementalCSVParser.Result second = parser.parse(file, RowFilter.NONE, null);
+
+            // Then
+            assertThat(first.headerNames()).containsExactly("x", "", "");
+            assertThat(toLists(first.rows())).containsExactly(asList("1", "2", "3"));
+            assertThat(second.headerNames()).containsExactly("x", "", "");
+            assertThat(toLists(second.rows())).containsExactly(asList("4", "5", "6"));
+        }
+    }
+
+    @Test
+    void shouldReturnNoRowsWhenNoCompleteRecordWasAppended() throws IOException {
+        // Given
+        Path file = directory.resolve("partial.csv");
+        Files.write(file, "one,two\nthree,\"fo\nur".getBytes(UTF_8));
+        IncrementalCSVParser parser = new IncrementalCSVParser(new CommonsCSVEngine(), CSVFormat.DEFAULT,
+                ColumnProjection.all(), UTF_8, 16, new CheckpointStore(directory.resolve("checkpoints")));
+        parser.parse(file, RowFilter.NONE, null);
+
+        // When
+        IncrementalCSVParser.Result actual = parser.parse(file, RowFilter.NONE, null);
+
+        // Then
+        assertThat(actual.rows()).isEmpty();
+        assertThat(actual.fromOffset()).isEqualTo(actual.toOffset());
+
+        // The quoted value is complete once the rest of it is appended.
+        Files.write(file, "\"\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+        assertThat(toLists(parser.parse(file, RowFilter.NONE, null).rows())).containsExactly(asList("three", "fo\nur"));
+    }
+
+    @Test
+    void shouldParseFromBeginningWhenFileIsTruncated() throws IOException {
+        // Given
+        Path file = directory.resolve("truncated.csv");
+        Files.write(file, "one,two\nthree,four\n".getBytes(UTF_8));
+        IncrementalCSVParser parser = new IncrementalCSVParser(new CommonsCSVEngine(), CSVFormat.DEFAULT,
+                ColumnProjection.all(), UTF_8, 16, new CheckpointStore(directory.resolve("checkpoints")));
+        parser.parse(file, RowFilter.NONE, null);
+
+        // When
+        Files.write(file, "five\n".getBytes(UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+        IncrementalCSVParser.Result actual = parser.parse(file, RowFilter.NONE, null);
+
+        // Then
+        assertThat(actual.isReset()).isTrue();
+        assertThat(actual.fromOffset()).isZero();
+        assertThat(toLists(actual.rows())).containsExactly(singletonList("five"));
+    }
+
+    @Test
+    void shouldParseFromBeginningWhenFileIsRotated() throws IOException {
+        // Given
+        Path file = directory.resolve("rotated.csv");
+        Files.write(file, "one,two\n".getBytes(UTF_8));
+        IncrementalCSVParser parser = new IncrementalCSVParser(new CommonsCSVEngine(), CSVFormat.DEFAULT,
+                ColumnProjection.all(), UTF_8, 16, new CheckpointStore(directory.resolve("checkpoints")));
+        parser.parse(file, RowFilter.NONE, null);
+
+        // When
+        Path rotated = directory.resolve("rotated.csv.new");
+        Files.write(rotated, "six,seven\neight,nine\n".getBytes(UTF_8));
+        Files.move(rotated, file, StandardCopyOption.REPLACE_EXISTING);
+        IncrementalCSVParser.Result actual = parser.parse(file, RowFilter.NONE, null);
+
+        // Then
+        assertThat(actual.isReset()).isTrue();
+        assertThat(toLists(actual.rows())).containsExactly(asList("six", "seven"), asList("eight", "nine"));
+    }
+
+    private static String printedRecords(CSVFormat csvFormat, Random random) throws IOException {
+        return CSVParserTestSupport.printedRecords(csvFormat, 200, i -> randomRecord(random, VALUES, 3, false));
+    }
+}
@@ -0,0 +1,95 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MultiFileCSVParserTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldResolveFilesOfDirectorySortedByPath() throws IOException {
+        // Given
+        Path second = write(directory.resolve("b.csv"));
+        Path first = write(directory.resolve("a.csv"));
+        Files.createDirectory(directory.resolve("archive"));
+        write(directory.resolve("archive").resolve("c.csv"));
+
+        // When
+        List<Path> files = MultiFileCSVParser.resolve(directory.toString());
+
+        // Then
+        assertThat(files).containsExactly(first, second);
+    }
+
+    @Test
+    void shouldResolveFilesMatchingGlobPattern() throws IOException {
+        // Given
+        Path first = write(directory.resolve("orders-1.csv"));
+        write(directory.resolve("orders-1.txt"));
+        write(directory.resolve("customers.csv"));
+        Files.createDirectory(directory.resolve("archive"));
+        Path archived = write(directory.resolve("archive").resolve("orders-0.csv"));
+
+        // When
+        List<Path> files = MultiFileCSVParser.resolve(directory.resolve("orders-*.csv").toString());
+        List<Path> allFiles = MultiFileCSVParser.resolve(directory.resolve("**").resolve("orders-*.csv").toString());
+
+        // Then
+        assertThat(files).containsExactly(first);
+        assertThat(allFiles).containsExactly(archived);
+    }
+
+    @Test
+    void shouldNotResolveHiddenFilesRowIndexesNorCheckpoints() throws IOException {
+        // Given
+        Path file = write(directory.resolve("a.csv"));
+        write(directory.resolve(".a.csv.swp"));
+        write(directory.resolve("a.csv.rowindex"));
+        write(directory.resolve("a.csv.rowindex4815162342.tmp"));
+        write(new CheckpointStore(directory).checkpointPath(file));
+
+        // When
+        List<Path> files = MultiFileCSVParser.resolve(directory.toString());
+        List<Path> matching = MultiFileCSVParser.resolve(directory.resolve("a.csv*").toString());
+
+        // Then
+        assertThat(files).containsExactly(file);
+        assertThat(matching).containsExactly(file);
+    }
+
+    @Test
+    void shouldResolveNoFilesWhenNothingMatches() throws IOException {
+        // When
+        List<Path> files = MultiFileCSVParser.resolve(directory.resolve("*.csv").toString());
+
+        // Then
+        assertThat(files).isEmpty();
+    }
+
+    @Test
+    void shouldThrowExceptionWhenFileDoesNotExist() {
+        // Given
+        String missing = directory.resolve("missing").toString();
+
+        // Expect
+        NoSuchFileException thrown = assertThrows(NoSuchFileException.class, () -> MultiFileCSVParser.resolve(missing));
+
+        // Then
+        assertThat(thrown).hasMessage(missing);
+    }
+
+    private static Path write(Path file) throws IOException {
+        return Files.write(file, "Id,Name\n1,Mark\n".getBytes());
+    }
+}
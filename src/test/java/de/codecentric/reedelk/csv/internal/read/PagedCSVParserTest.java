@@ -0,0 +1,173 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.component.FilterOperator;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import org.apache.commons.csv.CSVFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static de.codecentric.reedelk.csv.internal.read.CSVParserTestSupport.ENGINES;
+import static de.codecentric.reedelk.csv.internal.read.CSVParserTestSupport.toLists;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PagedCSVParserTest {
+
+    private static final long[][] PAGES = {
+            { 0, 10 }, { 6, 1 }, { 7, 7 }, { 13, 20 }, { 500, 3 }, { 996, 10 }, { 1000, 5 }, { 2000, 5 }, { 3, 0 } };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReturnSamePagesAsSequentialParser() throws IOException {
+        // Given
+        CSVFormat csvFormat = CSVFormat.DEFAULT.withFirstRecordAsHeader();
+        Path file = directory.resolve("pages.csv");
+        Files.write(file, printedRecords(1000).getBytes(UTF_8));
+        List<CSVRow> all = CSVParserWithoutHeader.from(new CommonsCSVEngine(), csvFormat, ColumnProjection.all(), RowFilter.NONE, null,
+                new StringReader(new String(Files.readAllBytes(file), UTF_8)));
+
+        for (CSVParserEngine engine : ENGINES) {
+            PagedCSVParser parser = new PagedCSVParser(engine, csvFormat, ColumnProjection.all(), UTF_8, 16,
+                    new RowIndexStore(directory.resolve("indexes-" + engine.getClass().getSimpleName())), 7);
+
+            for (long[] page : PAGES) {
+                // When
+                PagedCSVParser.Result actual = parser.parse(file, page[0], page[1], RowFilter.NONE, null);
+
+                // Then
+                int from = (int) Math.min(page[0], all.size());
+                int to = (int) Math.min(page[0] + page[1], all.size());
+                assertThat(actual.headerNames()).containsExactly("Id", "Name", "Notes");
+                assertThat(toLists(actual.rows())).isEqualTo(toLists(all.subList(from, to)));
+            }
+        }
+    }
+
+    @Test
+    void shouldParseFromIndexedRecordNearestToOffset() throws IOException {
+        // Given
+        Path file = directory.resolve("nearest.csv");
+        Files.write(file, "Id,Name\n0,a\n1,b\n2,c\n3,d\n4,e\n5,f\n".getBytes(UTF_8));
+        PagedCSVParser parser = new PagedCSVParser(new CommonsCSVEngine(), CSVFormat.DEFAULT.withFirstRecordAsHeader(),
+                ColumnProjection.of(singletonList("Name")), UTF_8, 16, new RowIndexStore(null), 2);
+
+        // When
+        PagedCSVParser.Result actual = parser.parse(file, 5, 10, RowFilter.NONE, null);
+
+        // Then
+        assertThat(Files.exists(directory.resolve("nearest.csv.rowindex"))).isTrue();
+        assertThat(actual.fromOffset()).isEqualTo("Id,Name\n0,a\n1,b\n2,c\n3,d\n".length());
+        assertThat(actual.headerNames()).containsExactly("Name");
+        assertThat(toLists(actual.rows())).containsExactly(singletonList("f"));
+    }
+
+    @Test
+    void shouldKeepRepeatedHeaderNames() throws IOException {
+        // Given
+        Path file = directory.resolve("repeated.csv");
+        Files.write(file, "a,b,a\n0,1,2\n3,4,5\n6,7,8\n".getBytes(UTF_8));
+
+        for (CSVParserEngine engine : ENGINES) {
+            PagedCSVParser parser = new PagedCSVParser(engine, CSVFormat.DEFAULT.withFirstRecordAsHeader(), ColumnProjection.all(),
+                    UTF_8, 16, new RowIndexStore(directory.resolve("indexes-" + engine.getClass().getSimpleName())), 1);
+
+            // When
+            PagedCSVParser.Result actual = parser.parse(file, 2, 1, RowFilter.NONE, null);
+
+            // Then
+            assertThat(actual.fromOffset()).isGreaterThan(0);
+            assertThat(actual.headerNames()).containsExactly("a", "b", "a");
+            assertThat(toLists(actual.rows())).containsExactly(asList("6", "7", "8"));
+        }
+    }
+
+    @Test
+    void shouldParseFromBeginningWhenRowIndexCanNotBeSaved() throws IOException {
+        // Given
+        Path file = directory.resolve("unindexed.csv");
+        Files.write(file, "Id,Name\n0,a\n1,b\n2,c\n3,d\n4,e\n5,f\n".getBytes(UTF_8));
+        // The index directory can not be created: a file has its path.
+        Path indexes = Files.createFile(directory.resolve("indexes"));
+        PagedCSVParser parser = new PagedCSVParser(new CommonsCSVEngine(), CSVFormat.DEFAULT.withFirstRecordAsHeader(),
+                ColumnProjection.of(singletonList("Name")), UTF_8, 16, new RowIndexStore(indexes), 2);
+
+        // When
+        PagedCSVParser.Result actual = parser.parse(file, 5, 10, RowFilter.NONE, null);
+
+        // Then
+        assertThat(actual.fromOffset()).isZero();
+        assertThat(actual.headerNames()).containsExactly("Name");
+        assertThat(toLists(actual.rows())).containsExactly(singletonList("f"));
+    }
+
+    @Test
+    void shouldRebuildRowIndexWhenFileChanges() throws IOException {
+        // Given
+        Path file = directory.resolve("changed.csv");
+        Files.write(file, "a\nb\nc\nd\n".getBytes(UTF_8));
+        PagedCSVParser parser = new PagedCSVParser(new CommonsCSVEngine(), CSVFormat.DEFAULT,
+                ColumnProjection.all(), UTF_8, 16, new RowIndexStore(directory.resolve("indexes")), 2);
+        parser.parse(file, 2, 1, RowFilter.NONE, null);
+
+        // When
+        Files.write(file, "long value\nother long value\nlast\n".getBytes(UTF_8));
+        PagedCSVParser.Result actual = parser.parse(file, 2, 1, RowFilter.NONE, null);
+
+        // Then
+        assertThat(actual.fromOffset()).isEqualTo("long value\nother long value\n".length());
+        assertThat(toLists(actual.rows())).containsExactly(singletonList("last"));
+    }
+
+    @Test
+    void shouldNotCountCommentsAndEmptyLinesAsRecords() throws IOException {
+        // Given
+        CSVFormat csvFormat = CSVFormat.DEFAULT.withCommentMarker('#');
+        Path file = directory.resolve("comments.csv");
+        Files.write(file, "# first\na,\"#1\"\n\nb,2\n#,\"\nc,3\n\r\n\"d\n\",4\ne,5\n".getBytes(UTF_8));
+
+        for (CSVParserEngine engine : ENGINES) {
+            PagedCSVParser parser = new PagedCSVParser(engine, csvFormat, ColumnProjection.all(), UTF_8, 16,
+                    new RowIndexStore(directory.resolve("indexes-" + engine.getClass().getSimpleName())), 1);
+
+            // When
+            PagedCSVParser.Result actual = parser.parse(file, 2, 2, RowFilter.NONE, null);
+
+            // Then
+            assertThat(toLists(actual.rows())).containsExactly(asList("c", "3"), asList("d\n", "4"));
+        }
+    }
+
+    @Test
+    void shouldCountOnlyFilteredRowsInOffset() throws IOException {
+        // Given
+        Path file = directory.resolve("filtered.csv");
+        Files.write(file, "Id,Status\n1,ON\n2,OFF\n3,ON\n4,OFF\n5,ON\n6,ON\n".getBytes(UTF_8));
+        PagedCSVParser parser = new PagedCSVParser(new CommonsCSVEngine(), CSVFormat.DEFAULT.withFirstRecordAsHeader(),
+                ColumnProjection.all(), UTF_8, 16, new RowIndexStore(directory.resolve("indexes")), 2);
+
+        // When
+        PagedCSVParser.Result actual = parser.parse(file, 1, 2, RowFilter.where("Status", FilterOperator.EQUALS, "ON"), null);
+
+        // Then
+        assertThat(actual.fromOffset()).isZero();
+        assertThat(toLists(actual.rows())).containsExactly(asList("3", "ON"), asList("5", "ON"));
+    }
+
+    private static String printedRecords(int count) throws IOException {
+        CSVFormat csvFormat = CSVFormat.DEFAULT.withHeader("Id", "Name", "Notes");
+        return CSVParserTestSupport.printedRecords(csvFormat, count, i -> {
+            String notes = i % 3 == 0 ? "multi\nline \"" + i + "\"" : i % 5 == 0 ? "" : "plain " + i;
+            return asList(String.valueOf(i), "name, " + i, notes);
+        });
+    }
+}
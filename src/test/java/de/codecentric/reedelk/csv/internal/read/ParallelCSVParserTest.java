@@ -0,0 +1,208 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.component.FilterOperator;
+import de.codecentric.reedelk.csv.component.Format;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import org.apache.commons.csv.CSVFormat;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static de.codecentric.reedelk.csv.internal.read.CSVParserTestSupport.ENGINES;
+import static de.codecentric.reedelk.csv.internal.read.CSVParserTestSupport.randomRecord;
+import static de.codecentric.reedelk.csv.internal.read.CSVParserTestSupport.toLists;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelCSVParserTest {
+
+    private static final String[] VALUES = {
+            "plain", "", "with space ", "with,comma", "with\ttab", "with\nnew line", "with\r\ncarriage return",
+            "with \"quotes\"", "\"", "\n", "with\\backslash", "\\N", "with:colon", "Zürich €", "emoji 😀" };
+
+    private static final String FUZZ_ALPHABET = "ab,;:\t\"'\\\n\n\r é";
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void shouldParseSameRecordsAsSequentialParserWithoutHeader(Format format) throws IOException {
+        CSVFormat csvFormat = format.format();
+        String csv = printedRecords(csvFormat, new Random(1));
+
+        assertSameAsSequential(csvFormat, csv);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void shouldParseSameRecordsAsSequentialParserWithHeader(Format format) throws IOException {
+        CSVFormat csvFormat = format.format().withFirstRecordAsHeader();
+        String csv = "Header 1" + csvFormat.getDelimiter() + "Header 2" + csvFormat.getDelimiter() + "Header 3\n" +
+                printedRecords(format.format(), new Random(2));
+
+        assertSameAsSequential(csvFormat, csv);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void shouldBehaveAsSequentialParserOnRandomInput(Format format) throws IOException {
+        CSVFormat csvFormat = format.format();
+        Random random = new Random(3);
+        for (int i = 0; i < 50; i++) {
+            StringBuilder csv = new StringBuilder();
+            int length = random.nextInt(400);
+            for (int j = 0; j < length; j++) {
+                csv.append(FUZZ_ALPHABET.charAt(random.nextInt(FUZZ_ALPHABET.length())));
+            }
+            assertSameAsSequential(csvFormat, csv.toString());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void shouldSelectColumnsByHeaderNameInAllChunks(Format format) throws IOException {
+        CSVFormat csvFormat = format.format().withFirstRecordAsHeader();
+        StringBuilder csv = new StringBuilder("Header 1" + csvFormat.getDelimiter() + "Header 2" + csvFormat.getDelimiter() + "Header 3\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append("a").append(i).append(csvFormat.getDelimiter())
+                    .append("b").append(i).append(csvFormat.getDelimiter())
+                    .append("c").append(i).append('\n');
+        }
+        ColumnProjection projection = ColumnProjection.of(asList("Header 3", "Header 1"));
+
+        Path file = Files.createTempFile("parallel", ".csv");
+        try {
+            Files.write(file, csv.toString().getBytes(UTF_8));
+
+            List<CSVRow> expected = CSVParserWithoutHeader.from(new CommonsCSVEngine(), csvFormat, projection, RowFilter.NONE, null, new StringReader(csv.toString()));
+
+            for (CSVParserEngine engine : ENGINES) {
+                ParallelCSVParser parser = new ParallelCSVParser(pool, engine, csvFormat, projection, RowFilter.NONE, null, UTF_8, 16, 8);
+                ParallelCSVParser.Result actual = parser.parse(file);
+
+                assertThat(actual.chunks()).isGreaterThan(1);
+                assertThat(toLists(actual.rows())).isEqualTo(toLists(expected));
+                assertThat(actual.headerNames()).containsExactly("Header 1", "Header 3");
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Format.class)
+    void shouldFilterRowsByHeaderNameInAllChunks(Format format) throws IOException {
+        CSVFormat csvFormat = format.format().withFirstRecordAsHeader();
+        StringBuilder csv = new StringBuilder("Header 1" + csvFormat.getDelimiter() + "Header 2" + csvFormat.getDelimiter() + "Header 3\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append("a").append(i).append(csvFormat.getDelimiter())
+                    .append("b").append(i).append(csvFormat.getDelimiter())
+                    .append("c").append(i).append('\n');
+        }
+        ColumnProjection projection = ColumnProjection.of(asList("Header 2", "Header 3"));
+        RowFilter filter = RowFilter.where("Header 2", FilterOperator.ENDS_WITH, "7")
+                .and(RowFilter.records(record -> !record.get("Header 3").equals("c17")));
+
+        Path file = Files.createTempFile("parallel", ".csv");
+        try {
+            Files.write(file, csv.toString().getBytes(UTF_8));
+
+            for (CSVParserEngine engine : ENGINES) {
+                ParallelCSVParser parser = new ParallelCSVParser(pool, engine, csvFormat, projection, filter, null, UTF_8, 16, 8);
+                ParallelCSVParser.Result actual = parser.parse(file);
+
+                assertThat(actual.chunks()).isGreaterThan(1);
+                assertThat(toLists(actual.rows())).containsExactly(
+                        asList("b7", "c7"), asList("b27", "c27"), asList("b37", "c37"), asList("b47", "c47"),
+                        asList("b57", "c57"), asList("b67", "c67"), asList("b77", "c77"), asList("b87", "c87"),
+                        asList("b97", "c97"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void shouldCountMergedChunksOnce() throws IOException {
+        // A single record: every split point is inside its quoted value and all the chunks are merged.
+        StringBuilder csv = new StringBuilder("\"");
+        for (int i = 0; i < 100; i++) {
+            csv.append("line ").append(i).append('\n');
+        }
+        csv.append("\",end\n");
+
+        Path file = Files.createTempFile("parallel", ".csv");
+        try {
+            Files.write(file, csv.toString().getBytes(UTF_8));
+
+            for (CSVParserEngine engine : ENGINES) {
+                ParallelCSVParser parser = new ParallelCSVParser(pool, engine, CSVFormat.DEFAULT, ColumnProjection.all(), RowFilter.NONE, null, UTF_8, 16, 8);
+                ParallelCSVParser.Result actual = parser.parse(file);
+
+                assertThat(actual.chunks()).isEqualTo(1);
+                assertThat(actual.rows()).hasSize(1);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private void assertSameAsSequential(CSVFormat csvFormat, String csv) throws IOException {
+        Path file = Files.createTempFile("parallel", ".csv");
+        try {
+            Files.write(file, csv.getBytes(UTF_8));
+
+            List<CSVRow> expected;
+            List<String> expectedHeaderNames;
+            try {
+                expected = CSVParserWithoutHeader.from(new CommonsCSVEngine(), csvFormat, ColumnProjection.all(), RowFilter.NONE, null, new StringReader(csv));
+                expectedHeaderNames = csvFormat.parse(new StringReader(csv)).getHeaderNames();
+            } catch (CSVReadException | IllegalArgumentException exception) {
+                for (CSVParserEngine engine : ENGINES) {
+                    ParallelCSVParser parser = new ParallelCSVParser(pool, engine, csvFormat, ColumnProjection.all(), RowFilter.NONE, null, UTF_8, 16, 8);
+                    assertThrows(CSVReadException.class, () -> parser.parse(file));
+                }
+                return;
+            }
+
+            for (CSVParserEngine engine : ENGINES) {
+                for (long minChunkSize : new long[] { 1, 8, 64 }) {
+                    ParallelCSVParser parser = new ParallelCSVParser(pool, engine, csvFormat, ColumnProjection.all(), RowFilter.NONE, null, UTF_8, 16, minChunkSize);
+                    ParallelCSVParser.Result actual = parser.parse(file);
+
+                    assertThat(toLists(actual.rows())).isEqualTo(toLists(expected));
+                    assertThat(actual.headerNames()).isEqualTo(expectedHeaderNames);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static String printedRecords(CSVFormat csvFormat, Random random) throws IOException {
+        return CSVParserTestSupport.printedRecords(csvFormat, 200, i -> randomRecord(random, VALUES, 3, true));
+    }
+}
@@ -0,0 +1,125 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.internal.type.CSVRow;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParseCacheTest {
+
+    private static final String PARSE_KEY = "DEFAULT|UTF-8";
+
+    private final Path first = Paths.get("first.csv");
+    private final Path second = Paths.get("second.csv");
+    private final Path third = Paths.get("third.csv");
+    private final ParseCache.Version version = new ParseCache.Version(100, 1000);
+
+    @Test
+    void shouldReturnCachedRecordsOfSameFileVersionAndParseKey() {
+        // Given
+        ParseCache cache = new ParseCache(1024 * 1024);
+        List<CSVRow> records = records("one", "two");
+        cache.put(first, PARSE_KEY, version, records);
+
+        // When
+        Object hit = cache.get(first.toAbsolutePath(), PARSE_KEY, new ParseCache.Version(100, 1000));
+        Object otherKey = cache.get(first, "TDF|UTF-8", version);
+        Object otherFile = cache.get(second, PARSE_KEY, version);
+
+        // Then
+        assertThat(hit).isSameAs(records);
+        assertThat(otherKey).isNull();
+        assertThat(otherFile).isNull();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getHitRatio()).isEqualTo(1 / 3.0);
+    }
+
+    @Test
+    void shouldRemoveRecordsOfModifiedFile() {
+        // Given
+        ParseCache cache = new ParseCache(1024 * 1024);
+        cache.put(first, PARSE_KEY, version, records("one", "two"));
+
+        // When
+        Object modified = cache.get(first, PARSE_KEY, new ParseCache.Version(100, 2000));
+
+        // Then
+        assertThat(modified).isNull();
+        assertThat(cache.getEntries()).isZero();
+        assertThat(cache.getSizeBytes()).isZero();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedRecordsWhenMaxSizeIsExceeded() {
+        // Given
+        List<CSVRow> records = records("one", "two");
+        long recordsSize = ParseCache.sizeOf(records);
+        ParseCache cache = new ParseCache(2 * recordsSize);
+        cache.put(first, PARSE_KEY, version, records);
+        cache.put(second, PARSE_KEY, version, records("six", "ten"));
+        cache.get(first, PARSE_KEY, version);
+
+        // When
+        cache.put(third, PARSE_KEY, version, records("red", "sky"));
+
+        // Then
+        assertThat(cache.get(first, PARSE_KEY, version)).isNotNull();
+        assertThat(cache.get(second, PARSE_KEY, version)).isNull();
+        assertThat(cache.get(third, PARSE_KEY, version)).isNotNull();
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.getSizeBytes()).isEqualTo(2 * recordsSize);
+    }
+
+    @Test
+    void shouldNotCacheRecordsLargerThanMaxSize() {
+        // Given
+        List<CSVRow> records = records("one", "two");
+        ParseCache cache = new ParseCache(ParseCache.sizeOf(records) - 1);
+
+        // When
+        cache.put(first, PARSE_KEY, version, records);
+
+        // Then
+        assertThat(cache.getEntries()).isZero();
+        assertThat(cache.getEvictions()).isZero();
+    }
+
+    @Test
+    void shouldShareCacheUntilReleasedByAllComponents() throws Exception {
+        // Given
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("de.codecentric.reedelk.csv:type=ParseCache");
+
+        // When
+        ParseCache cache = ParseCache.acquire(1000);
+        ParseCache other = ParseCache.acquire(5000);
+
+        // Then
+        assertThat(other).isSameAs(cache);
+        assertThat(cache.getMaxSizeBytes()).isEqualTo(5000);
+        assertThat(server.getAttribute(objectName, "MaxSizeBytes")).isEqualTo(5000L);
+
+        ParseCache.release(5000);
+        assertThat(cache.getMaxSizeBytes()).isEqualTo(1000);
+
+        ParseCache.release(1000);
+        assertThat(server.isRegistered(objectName)).isFalse();
+    }
+
+    private static List<CSVRow> records(String... values) {
+        CSVRow.Builder builder = CSVRow.builder();
+        for (String value : values) {
+            builder.add(value);
+        }
+        return singletonList(builder.build());
+    }
+}
@@ -0,0 +1,100 @@
+package de.codecentric.reedelk.csv.internal.read;
+
+import de.codecentric.reedelk.csv.component.FilterOperator;
+import de.codecentric.reedelk.csv.internal.type.CSVRecord;
+import org.apache.commons.csv.CSVFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static de.codecentric.reedelk.csv.internal.read.CSVParserTestSupport.ENGINES;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RawRecordReaderTest {
+
+    @Test
+    void shouldKeepRawTextOfEachRecord() {
+        // Given
+        CSVFormat csvFormat = CSVFormat.DEFAULT.withFirstRecordAsHeader();
+        String csv = "Id,Name,Notes\r\n" +
+                "1,\"Mark\",plain\r\n" +
+                "\r\n" +
+                "2,\"Doe, John\",\"two\r\nlines\"\r\n" +
+                "3,  \"quoted \"\" quote\",\n" +
+                "4,Last,no line separator";
+
+        for (CSVParserEngine engine : ENGINES) {
+            // When
+            List<CSVRecord> records = CSVParserWithHeader.fromKeepingRaw(engine, csvFormat, RowFilter.NONE, null, new StringReader(csv));
+
+            // Then
+            assertThat(raws(records)).containsExactly(
+                    "1,\"Mark\",plain",
+                    "2,\"Doe, John\",\"two\r\nlines\"",
+                    "3,  \"quoted \"\" quote\",",
+                    "4,Last,no line separator");
+            assertThat(records.get(1)).containsEntry("Name", "Doe, John");
+            assertThat(records.get(0).hasCompleteRaw()).isTrue();
+        }
+    }
+
+    @Test
+    void shouldKeepRawTextOfRecordsAfterCommentsAndEscapes() {
+        // Given
+        CSVFormat csvFormat = CSVFormat.DEFAULT.withFirstRecordAsHeader().withCommentMarker('#').withEscape('\\');
+        String csv = "# a comment before the header\n" +
+                "Id,Name\n" +
+                "1,one \\\n escaped line feed\n" +
+                "# a comment, \"not quoted\n" +
+                "2,two\n";
+
+        for (CSVParserEngine engine : ENGINES) {
+            // When
+            List<CSVRecord> records = CSVParserWithHeader.fromKeepingRaw(engine, csvFormat, RowFilter.NONE, null, new StringReader(csv));
+
+            // Then
+            assertThat(raws(records)).containsExactly("1,one \\\n escaped line feed", "2,two");
+        }
+    }
+
+    @Test
+    void shouldKeepRawTextOfRecordsAcceptedByFilter() {
+        // Given
+        CSVFormat csvFormat = CSVFormat.DEFAULT.withFirstRecordAsHeader();
+        String csv = "Id,Name\n1,\"keep\"\n2,drop\n3,keep\n4,\"drop\"\n";
+        RowFilter filter = RowFilter.where("Name", FilterOperator.EQUALS, "keep");
+
+        for (CSVParserEngine engine : ENGINES) {
+            // When
+            List<CSVRecord> records = CSVParserWithHeader.fromKeepingRaw(engine, csvFormat, filter, null, new StringReader(csv));
+            List<CSVRecord> streamed = CSVParserWithHeader.streamKeepingRaw(engine, csvFormat, filter, null, () -> new StringReader(csv))
+                    .collectList()
+                    .block();
+
+            // Then
+            assertThat(raws(records)).containsExactly("1,\"keep\"", "3,keep");
+            assertThat(raws(streamed)).containsExactly("1,\"keep\"", "3,keep");
+        }
+    }
+
+    @Test
+    void shouldNotHaveCompleteRawTextWhenHeaderNameIsRepeated() {
+        // Given
+        CSVFormat csvFormat = CSVFormat.DEFAULT.withFirstRecordAsHeader().withAllowDuplicateHeaderNames();
+        String csv = "Id,Name,Name\n1,one,uno\n";
+
+        // When
+        List<CSVRecord> records =
+                CSVParserWithHeader.fromKeepingRaw(new CommonsCSVEngine(), csvFormat, RowFilter.NONE, null, new StringReader(csv));
+
+        // Then
+        assertThat(raws(records)).containsExactly("1,one,uno");
+        assertThat(records.get(0).hasCompleteRaw()).isFalse();
+    }
+
+    private static List<String> raws(List<CSVRecord> records) {
+        return records.stream().map(CSVRecord::raw).collect(Collectors.toList());
+    }
+}
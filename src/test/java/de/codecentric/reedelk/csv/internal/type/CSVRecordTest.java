@@ -0,0 +1,120 @@
+package de.codecentric.reedelk.csv.internal.type;
+
+import de.codecentric.reedelk.runtime.api.exception.PlatformException;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CSVRecordTest {
+
+    @Test
+    void shouldViewValuesByHeaderNameInColumnOrder() {
+        // Given
+        CSVRecord.Header header = CSVRecord.Header.of(asList("id", "name", "city"));
+
+        // When
+        CSVRecord actual = new CSVRecord(header, row("1", "Mark", "London"));
+
+        // Then
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("id", "1");
+        expected.put("name", "Mark");
+        expected.put("city", "London");
+        assertThat(actual).isEqualTo(expected);
+        assertThat(actual.hashCode()).isEqualTo(expected.hashCode());
+        assertThat(actual.keySet()).containsExactly("id", "name", "city");
+        assertThat(actual.values()).containsExactly("1", "Mark", "London");
+        assertThat(actual.entrySet()).containsExactlyElementsOf(expected.entrySet());
+        assertThat(actual.containsKey("name")).isTrue();
+        assertThat(actual.containsValue("London")).isTrue();
+    }
+
+    @Test
+    void shouldMapRepeatedHeaderNameToLastColumn() {
+        // Given
+        CSVRecord.Header header = CSVRecord.Header.of(asList("a", "b", "a"));
+
+        // When
+        CSVRecord actual = new CSVRecord(header, row("1", "2", "3"));
+
+        // Then
+        assertThat(actual).hasSize(2);
+        assertThat(actual.keySet()).containsExactly("b", "a");
+        assertThat(actual.values()).containsExactly("2", "3");
+        assertThat(actual.get("a")).isEqualTo("3");
+        assertThat(actual.value(0)).isEqualTo("1");
+    }
+
+    @Test
+    void shouldReturnNullWhenRowIsShorterThanHeader() {
+        // Given
+        CSVRecord.Header header = CSVRecord.Header.of(asList("id", "name"));
+
+        // When
+        CSVRecord actual = new CSVRecord(header, row("1"));
+
+        // Then
+        assertThat(actual.get("name")).isNull();
+        assertThat(actual.values()).containsExactly("1", null);
+    }
+
+    @Test
+    void shouldAccessValueByColumnHandle() {
+        // Given
+        CSVRecord.Header header = CSVRecord.Header.of(asList("id", "name"));
+        CSVRecord.Column name = header.column("name");
+
+        // When
+        CSVRecord actual = new CSVRecord(header, row("1", "Mark"));
+
+        // Then
+        assertThat(name.index()).isEqualTo(1);
+        assertThat(actual.value(name)).isEqualTo("Mark");
+    }
+
+    @Test
+    void shouldThrowWhenColumnDoesNotExist() {
+        // Given
+        CSVRecord.Header header = CSVRecord.Header.of(asList("id", "name"));
+        CSVRecord record = new CSVRecord(header, row("1", "Mark"));
+
+        // When
+        PlatformException thrown = assertThrows(PlatformException.class, () -> record.get("surname"));
+
+        // Then
+        assertThat(thrown).hasMessage("Could not find CSV header column named=[surname]");
+        assertThrows(PlatformException.class, () -> header.column("surname"));
+    }
+
+    @Test
+    void shouldSerializeRecord() throws Exception {
+        // Given
+        CSVRecord record = new CSVRecord(CSVRecord.Header.of(asList("id", "name")), row("1", "Mark"));
+
+        // When
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(record);
+        }
+        Object actual;
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            actual = input.readObject();
+        }
+
+        // Then
+        assertThat(actual).isEqualTo(record);
+    }
+
+    private static CSVRow row(String... values) {
+        CSVRow.Builder builder = CSVRow.builder();
+        for (String value : values) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+}
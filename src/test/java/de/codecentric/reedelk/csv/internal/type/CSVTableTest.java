@@ -0,0 +1,179 @@
+package de.codecentric.reedelk.csv.internal.type;
+
+import de.codecentric.reedelk.csv.component.ColumnType;
+import de.codecentric.reedelk.csv.internal.exception.CSVReadException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CSVTableTest {
+
+    @Test
+    void shouldParseIntAndLongLimits() {
+        // Given
+        Map<Integer, ColumnType> types = new HashMap<>();
+        types.put(0, ColumnType.INT);
+        types.put(1, ColumnType.LONG);
+        CSVTable.Builder table = CSVTable.builder(asList("int", "long"), null, types, DateTimeFormatter.ISO_LOCAL_DATE);
+
+        // When
+        table.append(row("-2147483648", "-9223372036854775808"));
+        table.append(row("2147483647", "9223372036854775807"));
+        table.append(row("+7", "-0"));
+        CSVTable actual = table.build();
+
+        // Then
+        assertThat(actual.getInt(0, 0)).isEqualTo(Integer.MIN_VALUE);
+        assertThat(actual.getLong(0, 1)).isEqualTo(Long.MIN_VALUE);
+        assertThat(actual.getInt(1, 0)).isEqualTo(Integer.MAX_VALUE);
+        assertThat(actual.getLong(1, 1)).isEqualTo(Long.MAX_VALUE);
+        assertThat(actual.getInt(2, 0)).isEqualTo(7);
+        assertThat(actual.getLong(2, 1)).isEqualTo(0);
+    }
+
+    @Test
+    void shouldRejectInvalidLongValues() {
+        for (String value : asList("9223372036854775808", "-9223372036854775809", "-", "1.0", "12a", " 1")) {
+            // Given
+            CSVTable.Builder table = builder(ColumnType.LONG);
+
+            // Expect
+            assertThrows(CSVReadException.class, () -> table.append(row(value)), value);
+        }
+    }
+
+    @Test
+    void shouldParseDoublesAsDoubleParseDouble() {
+        // Given
+        Random random = new Random(42);
+        CSVTable.Builder table = builder(ColumnType.DOUBLE);
+        String[] values = new String[10_000];
+        for (int i = 0; i < values.length; i++) {
+            switch (i % 4) {
+                case 0:
+                    values[i] = String.valueOf(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+                    break;
+                case 1:
+                    values[i] = (random.nextInt(2_000_000) - 1_000_000) + "." + random.nextInt(1000);
+                    break;
+                case 2:
+                    values[i] = random.nextInt(99_999) + "e" + (random.nextInt(60) - 30);
+                    break;
+                default:
+                    values[i] = String.valueOf(random.nextLong()) + random.nextInt(1000) + ".5";
+            }
+        }
+
+        // When
+        for (String value : values) {
+            table.append(row(value));
+        }
+        CSVTable actual = table.build();
+
+        // Then
+        for (int i = 0; i < values.length; i++) {
+            assertThat(actual.getDouble(i, 0)).as(values[i]).isEqualTo(Double.parseDouble(values[i]));
+        }
+    }
+
+    @Test
+    void shouldParseSpecialDoubleValues() {
+        // Given
+        CSVTable.Builder table = builder(ColumnType.DOUBLE);
+
+        // When
+        for (String value : asList("-0.0", ".5", "1.", "NaN", "-Infinity", "1E400", "0x1p3", "1e-400")) {
+            table.append(row(value));
+        }
+        CSVTable actual = table.build();
+
+        // Then
+        assertThat(actual.getDouble(0, 0)).isEqualTo(-0.0);
+        assertThat(actual.getDouble(1, 0)).isEqualTo(0.5);
+        assertThat(actual.getDouble(2, 0)).isEqualTo(1.0);
+        assertThat(actual.getDouble(3, 0)).isNaN();
+        assertThat(actual.getDouble(4, 0)).isEqualTo(Double.NEGATIVE_INFINITY);
+        assertThat(actual.getDouble(5, 0)).isEqualTo(Double.POSITIVE_INFINITY);
+        assertThat(actual.getDouble(6, 0)).isEqualTo(8.0);
+        assertThat(actual.getDouble(7, 0)).isEqualTo(0.0);
+    }
+
+    @Test
+    void shouldParseBooleansAndIsoDates() {
+        // Given
+        Map<Integer, ColumnType> types = new HashMap<>();
+        types.put(0, ColumnType.BOOLEAN);
+        types.put(1, ColumnType.DATE);
+        CSVTable.Builder table = CSVTable.builder(asList("paid", "date"), null, types, DateTimeFormatter.ISO_LOCAL_DATE);
+
+        // When
+        table.append(row("TRUE", "2020-02-29"));
+        table.append(row("false", "1969-12-31"));
+        CSVTable actual = table.build();
+
+        // Then
+        assertThat(actual.getBoolean(0, 0)).isTrue();
+        assertThat(actual.getDate(0, 1)).isEqualTo(LocalDate.of(2020, 2, 29));
+        assertThat(actual.getBoolean(1, 0)).isFalse();
+        assertThat(actual.getDate(1, 1)).isEqualTo(LocalDate.of(1969, 12, 31));
+        assertThrows(CSVReadException.class, () -> builder(ColumnType.DATE).append(row("2021-02-29")));
+        assertThrows(CSVReadException.class, () -> builder(ColumnType.BOOLEAN).append(row("yes")));
+    }
+
+    @Test
+    void shouldAddColumnsForValuesBeyondGivenColumns() {
+        // Given
+        CSVTable.Builder table = CSVTable.builder(Collections.emptyList(), String::valueOf,
+                singletonMap(2, ColumnType.INT), DateTimeFormatter.ISO_LOCAL_DATE);
+
+        // When
+        table.append(row("a"));
+        table.append(row("b", "c", "3", "d"));
+        CSVTable actual = table.build();
+
+        // Then
+        assertThat(actual.columnNames()).containsExactly("0", "1", "2", "3");
+        assertThat(actual.get(0)).containsEntry("0", "a").containsEntry("2", null).containsEntry("3", null);
+        assertThat(actual.getInt(1, "2")).isEqualTo(3);
+        assertThat(actual.getString(1, "3")).isEqualTo("d");
+    }
+
+    @Test
+    void shouldGrowColumnsBeyondInitialCapacity() {
+        // Given
+        CSVTable.Builder table = builder(ColumnType.LONG);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            table.append(row(String.valueOf(i * 1_000_000_000L)));
+        }
+        CSVTable actual = table.build();
+
+        // Then
+        assertThat(actual).hasSize(1000);
+        assertThat(actual.getLong(999, "value")).isEqualTo(999_000_000_000L);
+    }
+
+    private static CSVTable.Builder builder(ColumnType type) {
+        return CSVTable.builder(singletonList("value"), null, singletonMap(0, type), DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    private static CSVRow.Builder row(String... values) {
+        CSVRow.Builder builder = CSVRow.builder();
+        for (String value : values) {
+            builder.add(value.toCharArray(), 0, value.length());
+        }
+        return builder;
+    }
+}
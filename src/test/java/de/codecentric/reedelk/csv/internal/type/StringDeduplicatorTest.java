@@ -0,0 +1,176 @@
+package de.codecentric.reedelk.csv.internal.type;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StringDeduplicatorTest {
+
+    @Test
+    void shouldShareSingleInstanceForEqualValues() {
+        // Given
+        StringDeduplicator deduplicator = new StringDeduplicator(16);
+        CSVRow.Builder builder = CSVRow.builder().deduplicate(deduplicator);
+
+        // When
+        CSVRow first = builder.add("Germany".toCharArray(), 0, 7).add(new StringBuilder("EUR")).build();
+        CSVRow second = builder.add("xGermanyx".toCharArray(), 1, 7).add(new StringBuilder("EUR")).build();
+
+        // Then
+        assertThat(first).containsExactly("Germany", "EUR");
+        assertThat(second).containsExactly("Germany", "EUR");
+        assertThat(second.get(0)).isSameAs(first.get(0));
+        assertThat(deduplicator.hitRatio(0)).isEqualTo(0.5);
+    }
+
+    @Test
+    void shouldShareSingleInstanceForEqualStringValues() {
+        // Given
+        StringDeduplicator deduplicator = new StringDeduplicator(16);
+        CSVRow.Builder builder = CSVRow.builder().deduplicate(deduplicator);
+
+        // When
+        CSVRow first = builder.add(new String("ACTIVE")).add(null).build();
+        CSVRow second = builder.add(new String("ACTIVE")).add(null).build();
+
+        // Then
+        assertThat(second.get(0)).isSameAs(first.get(0));
+        assertThat(second.isNull(1)).isTrue();
+    }
+
+    @Test
+    void shouldKeepPlainValuesAroundSharedValuesOfAnyCode() {
+        // Given
+        StringDeduplicator deduplicator = new StringDeduplicator(100_000);
+        CSVRow.Builder builder = CSVRow.builder().deduplicate(deduplicator);
+        // Each value is looked up three times: the hit ratio keeps the cache on.
+        for (int i = 0; i < 70_000; i++) {
+            String value = "value-" + i;
+            for (int j = 0; j < 3; j++) deduplicator.deduplicate(1, value);
+        }
+
+        for (int code : new int[] { 0, 255, 256, 65_535, 65_536, 69_999 }) {
+            // When
+            CSVRow row = builder.add(new StringBuilder("before")).add(new String("value-" + code))
+                    .add(null).add(new StringBuilder("after")).build();
+
+            // Then
+            assertThat(row).containsExactly("before", "value-" + code, null, "after");
+            assertThat(row.get(1)).isSameAs(deduplicator.values().get(code));
+        }
+    }
+
+    @Test
+    void shouldNotCacheMoreThanMaxValues() {
+        // Given
+        StringDeduplicator deduplicator = new StringDeduplicator(2);
+
+        // When
+        int first = deduplicator.deduplicate(0, "a");
+        int second = deduplicator.deduplicate(0, "b");
+        int third = deduplicator.deduplicate(0, "c");
+
+        // Then
+        assertThat(deduplicator.values().get(first)).isEqualTo("a");
+        assertThat(deduplicator.values().get(second)).isEqualTo("b");
+        assertThat(third).isEqualTo(-1);
+        assertThat(deduplicator.deduplicate(0, new String("b"))).isEqualTo(second);
+    }
+
+    @Test
+    void shouldTurnOffCacheOfHighCardinalityColumn() {
+        // Given
+        StringDeduplicator deduplicator = new StringDeduplicator(1_000_000);
+
+        // When
+        for (int i = 0; i < StringDeduplicator.SAMPLE_SIZE; i++) {
+            deduplicator.deduplicate(0, "id-" + i);
+            deduplicator.deduplicate(1, "status-" + (i % 3));
+        }
+
+        // Then
+        assertThat(deduplicator.deduplicate(0, "id-1")).isEqualTo(-1);
+        assertThat(deduplicator.deduplicate(1, "status-1")).isNotEqualTo(-1);
+        assertThat(deduplicator.hitRatio(0)).isEqualTo(0.0);
+        assertThat(deduplicator.hitRatio(1)).isGreaterThan(0.99);
+    }
+
+    @Test
+    void shouldNotCacheLongValues() {
+        // Given
+        StringDeduplicator deduplicator = new StringDeduplicator(16);
+        char[] value = new char[StringDeduplicator.MAX_VALUE_LENGTH + 1];
+
+        // Expect
+        assertThat(deduplicator.deduplicate(0, value, 0, value.length)).isEqualTo(-1);
+        assertThat(deduplicator.hitRatios()).isEmpty();
+    }
+
+    @Test
+    void shouldReadCellsAroundSharedAndNullCells() {
+        // Given
+        StringDeduplicator deduplicator = new StringDeduplicator(16);
+        CSVRow.Builder builder = CSVRow.builder().deduplicate(deduplicator);
+        String longValue = new String(new char[StringDeduplicator.MAX_VALUE_LENGTH + 1]).replace('\0', 'x');
+
+        // When
+        CSVRow row = builder.add("EU").add(null).add(longValue).add("").add("EU").add(null).add(longValue + "y").build();
+
+        // Then
+        assertThat(row).containsExactly("EU", null, longValue, "", "EU", null, longValue + "y");
+        assertThat(row.isNull(1)).isTrue();
+        assertThat(row.isNull(3)).isFalse();
+        assertThat(row.isNull(4)).isFalse();
+        assertThat(builder.add("EU").add(longValue).length(1)).isEqualTo(longValue.length());
+    }
+
+    @Test
+    void shouldSerializeRowWithSharedValues() throws Exception {
+        // Given
+        StringDeduplicator deduplicator = new StringDeduplicator(16);
+        CSVRow.Builder builder = CSVRow.builder().deduplicate(deduplicator);
+        builder.add("EUR").add(null).add("10").build();
+        CSVRow row = builder.add("EUR").add(null).add("20").build();
+
+        // When
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(row);
+        }
+        Object deserialized;
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            deserialized = input.readObject();
+        }
+
+        // Then
+        assertThat(deserialized).isEqualTo(asList("EUR", null, "20"));
+    }
+
+    @Test
+    void shouldMergeHitRatios() {
+        // Given
+        StringDeduplicator deduplicator = new StringDeduplicator(16);
+        StringDeduplicator first = deduplicator.newInstance();
+        StringDeduplicator second = deduplicator.newInstance();
+
+        first.deduplicate(0, "a");
+        first.deduplicate(0, "a");
+        second.deduplicate(0, "a");
+        second.deduplicate(1, "b");
+
+        // When
+        deduplicator.merge(first);
+        deduplicator.merge(second);
+
+        // Then
+        assertThat(deduplicator.hitRatios())
+                .containsEntry(0, 1.0 / 3)
+                .containsEntry(1, 0.0);
+    }
+}
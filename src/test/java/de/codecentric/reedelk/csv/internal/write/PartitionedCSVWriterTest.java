@@ -0,0 +1,164 @@
+package de.codecentric.reedelk.csv.internal.write;
+
+import de.codecentric.reedelk.csv.internal.exception.CSVWriteException;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import org.apache.commons.csv.CSVFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PartitionedCSVWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldAppendPartitionValueAndPartNumberBeforeExtension() {
+        // Given
+        Path path = Paths.get("/var", "export", "orders.csv.gz");
+
+        // When
+        Path partition = PartitionedCSVWriter.fileOf(path, "EU", 0);
+        Path part = PartitionedCSVWriter.fileOf(path, "EU", 12);
+        Path withoutExtension = PartitionedCSVWriter.fileOf(Paths.get("orders"), null, 1);
+
+        // Then
+        assertThat(partition).isEqualTo(Paths.get("/var", "export", "orders-EU.csv.gz"));
+        assertThat(part).isEqualTo(Paths.get("/var", "export", "orders-EU-00012.csv.gz"));
+        assertThat(withoutExtension).isEqualTo(Paths.get("orders-00001"));
+    }
+
+    @Test
+    void shouldRollOverEachPartitionOnceItReachesMaxChars() throws IOException {
+        // Given
+        PartitionedCSVWriter writer = new PartitionedCSVWriter(CSVFormat.DEFAULT, "0", 0, 24, 64);
+        Message message = message(
+                Arrays.asList("a", "first"),
+                Arrays.asList("b", "second"),
+                Arrays.asList("a", "third"),
+                Arrays.asList("a", "fourth"));
+
+        // When
+        PartitionedCSVWriter.Result result = writer.write(message, directory.resolve("data.csv"),
+                file -> Files.newBufferedWriter(file, UTF_8), true, Arrays.asList("Key", "Value"), null);
+
+        // Then: the headers count in the size of each file.
+        assertThat(result.files()).containsExactly(
+                directory.resolve("data-a-00001.csv"),
+                directory.resolve("data-b-00001.csv"),
+                directory.resolve("data-a-00002.csv"));
+        assertThat(result.fileRecords()).containsExactly(2L, 1L, 1L);
+        assertThat(result.records()).isEqualTo(4);
+        assertThat(new String(Files.readAllBytes(directory.resolve("data-a-00002.csv")), UTF_8))
+                .isEqualTo("Key,Value\r\na,fourth\r\n");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenRecordHasNoPartitionColumn() {
+        // Given
+        PartitionedCSVWriter writer = new PartitionedCSVWriter(CSVFormat.DEFAULT, "Region", 0, 0, 64);
+        Message message = message(Arrays.asList("a", "first"));
+
+        // Expect
+        CSVWriteException thrown = assertThrows(CSVWriteException.class, () ->
+                writer.write(message, directory.resolve("data.csv"),
+                        file -> Files.newBufferedWriter(file, UTF_8), false, Collections.emptyList(), null));
+
+        // Then
+        assertThat(thrown).hasMessage("Could not find CSV partition column=[Region] in record=[[a, first]].");
+    }
+
+    @Test
+    void shouldWriteNullValuesIntoTheirOwnPartition() throws IOException {
+        // Given
+        PartitionedCSVWriter writer = new PartitionedCSVWriter(CSVFormat.DEFAULT, "0", 0, 0, 64);
+        Message message = message(
+                Arrays.asList("null", "first"),
+                Arrays.asList(null, "second"));
+
+        // When
+        PartitionedCSVWriter.Result result = writer.write(message, directory.resolve("data.csv"),
+                file -> Files.newBufferedWriter(file, UTF_8), false, Collections.emptyList(), null);
+
+        // Then
+        assertThat(result.files()).containsExactly(
+                directory.resolve("data-null.csv"),
+                directory.resolve("data-_null_.csv"));
+        assertThat(result.fileRecords()).containsExactly(1L, 1L);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenPartitionValuesHaveTheSameFileName() {
+        // Given
+        PartitionedCSVWriter writer = new PartitionedCSVWriter(CSVFormat.DEFAULT, "0", 0, 0, 64);
+        Message sanitized = message(
+                Arrays.asList("a/b", "first"),
+                Arrays.asList("a_b", "second"));
+        Message differentCase = message(
+                Arrays.asList("EU", "first"),
+                Arrays.asList("eu", "second"));
+
+        // Expect
+        CSVWriteException sanitizedThrown = assertThrows(CSVWriteException.class, () ->
+                writer.write(sanitized, directory.resolve("data.csv"),
+                        file -> Files.newBufferedWriter(file, UTF_8), false, Collections.emptyList(), null));
+        CSVWriteException differentCaseThrown = assertThrows(CSVWriteException.class, () ->
+                writer.write(differentCase, directory.resolve("data.csv"),
+                        file -> Files.newBufferedWriter(file, UTF_8), false, Collections.emptyList(), null));
+
+        // Then
+        assertThat(sanitizedThrown).hasMessage("Could not write CSV partition value=[a_b]: its file=[" +
+                directory.resolve("data-a_b.csv") + "] has the name of the file of partition value=[a/b], regardless of case.");
+        assertThat(differentCaseThrown).hasMessage("Could not write CSV partition value=[eu]: its file=[" +
+                directory.resolve("data-eu.csv") + "] has the name of the file of partition value=[EU], regardless of case.");
+    }
+
+    @Test
+    void shouldCloseLeastRecentlyWrittenPartitionWhenMaxOpenPartitionsIsReached() throws IOException {
+        // Given
+        PartitionedCSVWriter writer = new PartitionedCSVWriter(CSVFormat.DEFAULT, "0", 0, 0, 2);
+        Message message = message(
+                Arrays.asList("a", "first"),
+                Arrays.asList("b", "second"),
+                Arrays.asList("a", "third"),
+                Arrays.asList("c", "fourth"),
+                Arrays.asList("b", "fifth"));
+        List<Path> opened = new ArrayList<>();
+
+        // When
+        PartitionedCSVWriter.Result result = writer.write(message, directory.resolve("data.csv"), file -> {
+            opened.add(file);
+            return Files.newBufferedWriter(file, UTF_8);
+        }, true, Arrays.asList("Key", "Value"), null);
+
+        // Then: b is closed to open c, its next record goes into a new numbered file.
+        assertThat(result.files()).containsExactly(
+                directory.resolve("data-a.csv"),
+                directory.resolve("data-b.csv"),
+                directory.resolve("data-c.csv"),
+                directory.resolve("data-b-00002.csv"));
+        assertThat(result.fileRecords()).containsExactly(2L, 1L, 1L, 1L);
+        assertThat(result.records()).isEqualTo(5);
+        assertThat(new String(Files.readAllBytes(directory.resolve("data-b-00002.csv")), UTF_8))
+                .isEqualTo("Key,Value\r\nb,fifth\r\n");
+    }
+
+    private static Message message(List<?>... records) {
+        return MessageBuilder.get(PartitionedCSVWriterTest.class)
+                .withList(Arrays.asList(records), List.class)
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package de.codecentric.reedelk.csv.internal.write;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WriteQueueTest {
+
+    @Test
+    void shouldRunQueuedTasksWhenClosed() throws InterruptedException {
+        // Given
+        WriteQueue queue = new WriteQueue("test-write-queue", 4);
+        List<String> events = new CopyOnWriteArrayList<>();
+        queue.offer(task("one", events, () -> { }), true);
+        queue.offer(task("two", events, () -> { }), true);
+
+        // When
+        boolean done = queue.close(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(done).isTrue();
+        assertThat(events).containsExactly("run one", "run two");
+        assertThrows(RejectedExecutionException.class, () -> queue.offer(task("three", events, () -> { }), true));
+    }
+
+    @Test
+    void shouldRejectTasksNotRunWhenCloseTimesOut() throws InterruptedException {
+        // Given
+        WriteQueue queue = new WriteQueue("test-write-queue", 4);
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.offer(task("one", events, () -> {
+            running.countDown();
+            awaitUninterruptibly(release);
+        }), true);
+        queue.offer(task("two", events, () -> { }), true);
+        queue.offer(task("three", events, () -> { }), true);
+        running.await();
+
+        // When
+        boolean done;
+        try {
+            done = queue.close(50, TimeUnit.MILLISECONDS);
+        } finally {
+            release.countDown();
+        }
+
+        // Then: the task running is done after the close.
+        assertThat(done).isFalse();
+        assertThat(events).startsWith("reject two", "reject three");
+        assertThat(queue.size()).isZero();
+    }
+
+    private static WriteQueue.Task task(String name, List<String> events, Runnable write) {
+        return new WriteQueue.Task() {
+
+            @Override
+            public void run() {
+                write.run();
+                events.add("run " + name);
+            }
+
+            @Override
+            public void reject() {
+                events.add("reject " + name);
+            }
+        };
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException exception) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
@@ -0,0 +1,237 @@
+package de.codecentric.reedelk.csv.internal.write;
+
+import de.codecentric.reedelk.csv.component.FlushPolicy;
+import org.apache.commons.csv.CSVFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class WriterPoolTest {
+
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @TempDir
+    Path directory;
+
+    private WriterPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) pool.close();
+    }
+
+    @Test
+    void shouldCloseLeastRecentlyUsedFileWhenPoolIsFull() throws IOException {
+        // Given
+        pool = new WriterPool(CSVFormat.DEFAULT, UTF_8, 1024, false, 1, ONE_HOUR, FlushPolicy.BUFFER_FULL, ONE_HOUR);
+        Path first = directory.resolve("first.csv");
+        Path second = directory.resolve("second.csv");
+
+        // When
+        pool.write(first, (printer, isNew) -> {
+            printer.printRecord("one");
+            return 1;
+        });
+        pool.write(second, (printer, isNew) -> {
+            printer.printRecord("two");
+            return 1;
+        });
+
+        // Then
+        assertThat(pool.size()).isEqualTo(1);
+        assertThat(new String(Files.readAllBytes(first), UTF_8)).isEqualTo("one\r\n");
+        assertThat(Files.size(second)).isZero();
+    }
+
+    @Test
+    void shouldCloseIdleFiles() throws IOException {
+        // Given
+        pool = new WriterPool(CSVFormat.DEFAULT, UTF_8, 1024, false, 8, 20, FlushPolicy.BUFFER_FULL, ONE_HOUR);
+        Path file = directory.resolve("idle.csv");
+
+        // When
+        pool.write(file, (printer, isNew) -> {
+            printer.printRecord("one");
+            return 1;
+        });
+
+        // Then: the file is removed from the pool before it is closed.
+        awaitUntil(() -> size(file) > 0);
+        assertThat(pool.size()).isZero();
+        assertThat(new String(Files.readAllBytes(file), UTF_8)).isEqualTo("one\r\n");
+    }
+
+    @Test
+    void shouldFlushOpenFilesEveryInterval() throws IOException {
+        // Given
+        pool = new WriterPool(CSVFormat.DEFAULT, UTF_8, 1024, false, 8, ONE_HOUR, FlushPolicy.INTERVAL, 20);
+        Path file = directory.resolve("interval.csv");
+
+        // When
+        pool.write(file, (printer, isNew) -> {
+            printer.printRecord("one");
+            return 1;
+        });
+
+        // Then
+        awaitUntil(() -> size(file) > 0);
+        assertThat(pool.size()).isEqualTo(1);
+        assertThat(new String(Files.readAllBytes(file), UTF_8)).isEqualTo("one\r\n");
+    }
+
+    @Test
+    void shouldFailNextWriteWhenIntervalFlushFails() throws IOException {
+        // Given: every write to /dev/full fails because the device is full.
+        Path full = Paths.get("/dev/full");
+        assumeTrue(Files.isWritable(full));
+        pool = new WriterPool(CSVFormat.DEFAULT, UTF_8, 1024, false, 8, ONE_HOUR, FlushPolicy.INTERVAL, 20);
+        pool.write(full, (printer, isNew) -> {
+            printer.printRecord("one");
+            return 1;
+        });
+
+        // When
+        awaitUntil(() -> isFlushFailureReported(full));
+
+        // Then: the file is closed once the error is reported.
+        assertThat(pool.size()).isZero();
+    }
+
+    @Test
+    void shouldTellWhetherFileWasEmptyWhenOpened() throws IOException {
+        // Given
+        pool = new WriterPool(CSVFormat.DEFAULT, UTF_8, 1024, false, 8, ONE_HOUR, FlushPolicy.MESSAGE, ONE_HOUR);
+        Path existing = directory.resolve("existing.csv");
+        Files.write(existing, "zero\r\n".getBytes(UTF_8));
+        Path created = directory.resolve("created.csv");
+        boolean[] isNew = new boolean[3];
+
+        // When
+        pool.write(existing, (printer, fileIsNew) -> {
+            isNew[0] = fileIsNew;
+            printer.printRecord("one");
+            return 1;
+        });
+        pool.write(created, (printer, fileIsNew) -> {
+            isNew[1] = fileIsNew;
+            return 0;
+        });
+        pool.write(created, (printer, fileIsNew) -> {
+            isNew[2] = fileIsNew;
+            return 0;
+        });
+
+        // Then
+        assertThat(isNew).containsExactly(false, true, false);
+        assertThat(new String(Files.readAllBytes(existing), UTF_8)).isEqualTo("zero\r\none\r\n");
+    }
+
+    @Test
+    void shouldDiscardDataOfFailedWrite() throws IOException {
+        // Given: the buffer is written to the file while the records are printed.
+        pool = new WriterPool(CSVFormat.DEFAULT, UTF_8, 4, false, 8, ONE_HOUR, FlushPolicy.BUFFER_FULL, ONE_HOUR);
+        Path file = directory.resolve("failed.csv");
+        pool.write(file, (printer, isNew) -> {
+            printer.printRecord("one");
+            return 1;
+        });
+
+        // When
+        assertThrows(IllegalStateException.class, () -> pool.write(file, (printer, isNew) -> {
+            printer.printRecord("two", "three");
+            printer.printRecord("fo");
+            throw new IllegalStateException("not a record");
+        }));
+
+        // Then
+        assertThat(pool.size()).isZero();
+        assertThat(new String(Files.readAllBytes(file), UTF_8)).isEqualTo("one\r\n");
+    }
+
+    @Test
+    void shouldShareOpenFilesBetweenPools() throws IOException {
+        // Given: the buffers are written to the file while the records are printed.
+        pool = new WriterPool(CSVFormat.DEFAULT, UTF_8, 4, false, 8, ONE_HOUR, FlushPolicy.BUFFER_FULL, ONE_HOUR);
+        WriterPool other = new WriterPool(CSVFormat.DEFAULT, UTF_8, 4, false, 8, ONE_HOUR, FlushPolicy.BUFFER_FULL, ONE_HOUR);
+        Path file = directory.resolve("shared.csv");
+        boolean[] isNew = new boolean[3];
+
+        // When
+        try {
+            pool.write(file, (printer, fileIsNew) -> {
+                isNew[0] = fileIsNew;
+                printer.printRecord("one", "two");
+                return 1;
+            });
+            other.write(file, (printer, fileIsNew) -> {
+                isNew[1] = fileIsNew;
+                printer.printRecord("three", "four");
+                return 1;
+            });
+            pool.write(file, (printer, fileIsNew) -> {
+                isNew[2] = fileIsNew;
+                printer.printRecord("five", "six");
+                return 1;
+            });
+        } finally {
+            other.close();
+        }
+        pool.close();
+
+        // Then
+        assertThat(isNew).containsExactly(true, false, false);
+        assertThat(new String(Files.readAllBytes(file), UTF_8)).isEqualTo("one,two\r\nthree,four\r\nfive,six\r\n");
+    }
+
+    @Test
+    void shouldThrowExceptionWhenWritingAfterPoolIsClosed() {
+        // Given
+        pool = new WriterPool(CSVFormat.DEFAULT, UTF_8, 1024, false, 8, ONE_HOUR, FlushPolicy.MESSAGE, ONE_HOUR);
+        pool.close();
+
+        // Expect
+        assertThrows(IOException.class, () -> pool.write(directory.resolve("closed.csv"), (printer, isNew) -> 0));
+    }
+
+    private boolean isFlushFailureReported(Path file) {
+        try {
+            pool.write(file, (printer, isNew) -> 0);
+            return false;
+        } catch (IOException exception) {
+            return true;
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException exception) {
+            return -1;
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(exception);
+            }
+        }
+    }
+}